@@ -5,7 +5,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
@@ -15,16 +18,17 @@ import static com.google.common.base.Preconditions.checkArgument;
  * It provides methods to retrieve or create Namespace instances
  * based on a sequence of Namespace enums or composite namespaces.
  *
- * Note: This class is not thread-safe. Do not use methods in this class concurrently
- * in multiple threads without external synchronization.
+ * Note: This class is thread-safe. The registry is a ConcurrentHashMap, so resolving a
+ * namespace that was already declared does not lock; only the first declaration of a
+ * sequence of namespaces, or completing its type information, synchronizes.
  *
  * @deprecated Scheduled for removal. Use Namespaces in hotvect-core instead.
  */
 @Deprecated(forRemoval = true)
 public class CompoundNamespace {
     private static final Logger log = LoggerFactory.getLogger(CompoundNamespace.class);
-    private static final AtomicInteger WARN_COUNT = new AtomicInteger(0);
-    private static final Map<List<Namespace>, Namespace> NAMESPACE_REGISTER = new HashMap<>();
+    private static final LongAdder WARN_COUNT = new LongAdder();
+    private static final ConcurrentMap<List<Namespace>, Namespace> NAMESPACE_REGISTER = new ConcurrentHashMap<>();
 
     public static Namespace declareNamespace(Class<?> returnTypeHint, Namespace... namespaces) {
         Objects.requireNonNull(namespaces, "Namespaces cannot be null");
@@ -32,29 +36,19 @@ public class CompoundNamespace {
         List<Namespace> flattenedNamespaces = flattenNamespaces(namespaces);
         checkArgument(flattenedNamespaces.size() >= 2, "Cannot create a composite namespace from a single namespace");
 
-        NamespaceId newNamespaceId = new NamespaceId(flattenedNamespaces.toArray(new Namespace[0]), returnTypeHint, null);
-        Namespace result = NAMESPACE_REGISTER.putIfAbsent(flattenedNamespaces, newNamespaceId);
+        // Only create a new instance when absent, so that concurrent declarations agree on one instance
+        Namespace result = NAMESPACE_REGISTER.get(flattenedNamespaces);
         if (result == null) {
-            result = newNamespaceId;
+            result = NAMESPACE_REGISTER.computeIfAbsent(flattenedNamespaces,
+                    k -> new NamespaceId(k.toArray(new Namespace[0]), returnTypeHint, null));
+        }
+        if (result instanceof NamespaceId namespaceId) {
+            namespaceId.adoptReturnTypeHint(returnTypeHint);
         } else {
-            if (result instanceof NamespaceId namespaceId) {
-                if (namespaceId.returnTypeHint == null) {
-                    namespaceId.returnTypeHint = returnTypeHint;
-                } else if (returnTypeHint != null && !namespaceId.returnTypeHint.equals(returnTypeHint)) {
-                    throw new IllegalArgumentException(String.format(
-                            "Attempted to set returnTypeHint to %s, but it was already set to %s for namespace %s",
-                            returnTypeHint, namespaceId.returnTypeHint, namespaceId
-                    ));
-                }
-            } else {
-                throw new AssertionError("Did not expect anything other than NamespaceId:" + result.getClass().getCanonicalName());
-            }
+            throw new AssertionError("Did not expect anything other than NamespaceId:" + result.getClass().getCanonicalName());
         }
 
-        int callcount = WARN_COUNT.incrementAndGet();
-        if (callcount > 20 * 1000 && callcount % 1000 == 0) {
-            log.warn("declareNamespace or declareFeatureNamespace is being called many times ({}). This may indicate a bug. Namespaces should be cached after declaration.", callcount);
-        }
+        warnOnHotLoop("declareNamespace or declareFeatureNamespace");
         return result;
     }
 
@@ -69,38 +63,19 @@ public class CompoundNamespace {
         List<Namespace> flattenedNamespaces = flattenNamespaces(namespaces);
         checkArgument(flattenedNamespaces.size() >= 2, "Cannot create a composite namespace from a single namespace");
 
-        NamespaceId newNamespaceId = new NamespaceId(flattenedNamespaces.toArray(new Namespace[0]), null, featureValueType);
-        Namespace result = NAMESPACE_REGISTER.putIfAbsent(flattenedNamespaces, newNamespaceId);
+        // Only create a new instance when absent, so that concurrent declarations agree on one instance
+        Namespace result = NAMESPACE_REGISTER.get(flattenedNamespaces);
         if (result == null) {
-            result = newNamespaceId;
-            newNamespaceId.returnTypeHint = featureValueType.getJavaType();
+            result = NAMESPACE_REGISTER.computeIfAbsent(flattenedNamespaces,
+                    k -> new NamespaceId(k.toArray(new Namespace[0]), featureValueType.getJavaType(), featureValueType));
+        }
+        if (result instanceof NamespaceId namespaceId) {
+            namespaceId.adoptFeatureValueType(featureValueType);
         } else {
-            if (result instanceof NamespaceId namespaceId) {
-                if (namespaceId.featureValueType == null) {
-                    namespaceId.featureValueType = featureValueType;
-                    if (namespaceId.returnTypeHint == null) {
-                        namespaceId.returnTypeHint = featureValueType.getJavaType();
-                    } else if (!namespaceId.returnTypeHint.equals(featureValueType.getJavaType())) {
-                        throw new IllegalArgumentException(String.format(
-                                "Attempted to set featureValueType to %s (Java type %s) but returnTypeHint was already set to %s for namespace %s",
-                                featureValueType, featureValueType.getJavaType(), namespaceId.returnTypeHint, namespaceId
-                        ));
-                    }
-                } else if (!namespaceId.featureValueType.equals(featureValueType)) {
-                    throw new IllegalArgumentException(String.format(
-                            "Attempted to set featureValueType to %s, but it was already set to %s for namespace %s",
-                            featureValueType, namespaceId.featureValueType, namespaceId
-                    ));
-                }
-            } else {
-                throw new AssertionError("Did not expect anything other than NamespaceId:" + result.getClass().getCanonicalName());
-            }
+            throw new AssertionError("Did not expect anything other than NamespaceId:" + result.getClass().getCanonicalName());
         }
 
-        int callcount = WARN_COUNT.incrementAndGet();
-        if (callcount > 20 * 1000 && callcount % 1000 == 0) {
-            log.warn("declareNamespace or declareFeatureNamespace is being called many times ({}). This may indicate a bug. Namespaces should be cached after declaration.", callcount);
-        }
+        warnOnHotLoop("declareNamespace or declareFeatureNamespace");
         return result;
     }
 
@@ -118,47 +93,24 @@ public class CompoundNamespace {
         List<Namespace> flattenedNamespaces = flattenNamespaces(namespaces);
         checkArgument(flattenedNamespaces.size() >= 2, "Cannot create a composite namespace from a single namespace");
 
-        Namespace result;
-        synchronized (NAMESPACE_REGISTER) {
-            result = NAMESPACE_REGISTER.get(flattenedNamespaces);
-            if (result == null) {
-                FeatureNamespaceId newFeatureNamespaceId = new FeatureNamespaceId(flattenedNamespaces.toArray(new Namespace[0]), featureValueType);
-                NAMESPACE_REGISTER.put(flattenedNamespaces, newFeatureNamespaceId);
-                result = newFeatureNamespaceId;
-            } else {
-                if (result instanceof FeatureNamespaceId featureNamespaceId) {
-                    if (featureNamespaceId.featureValueType == null) {
-                        featureNamespaceId.featureValueType = featureValueType;
-                        if (featureNamespaceId.returnTypeHint == null) {
-                            featureNamespaceId.returnTypeHint = featureValueType.getJavaType();
-                        } else if (!featureNamespaceId.returnTypeHint.equals(featureValueType.getJavaType())) {
-                            throw new IllegalArgumentException(String.format(
-                                    "Attempted to set featureValueType to %s (Java type %s) but returnTypeHint was already set to %s for namespace %s",
-                                    featureValueType, featureValueType.getJavaType(), featureNamespaceId.returnTypeHint, featureNamespaceId
-                            ));
-                        }
-                    } else if (!featureNamespaceId.featureValueType.equals(featureValueType)) {
-                        throw new IllegalArgumentException(String.format(
-                                "Attempted to set featureValueType to %s, but it was already set to %s for namespace %s",
-                                featureValueType, featureNamespaceId.featureValueType, featureNamespaceId
-                        ));
-                    }
-                } else if (result instanceof NamespaceId namespaceId) {
-                    throw new IllegalArgumentException(String.format(
-                            "The namespace %s was already declared as a non-feature namespace. Each sequence of Namespace classes can only correspond to either a plain Namespace or a FeatureNamespace. You cannot mix them.",
-                            result
-                    ));
-                } else {
-                    throw new AssertionError("Did not expect anything other than NamespaceId or FeatureNamespaceId:" + result.getClass().getCanonicalName());
-                }
-            }
+        Namespace result = NAMESPACE_REGISTER.get(flattenedNamespaces);
+        if (result == null) {
+            result = NAMESPACE_REGISTER.computeIfAbsent(flattenedNamespaces,
+                    k -> new FeatureNamespaceId(k.toArray(new Namespace[0]), featureValueType));
         }
-
-        int callcount = WARN_COUNT.incrementAndGet();
-        if (callcount > 20 * 1000 && callcount % 1000 == 0) {
-            log.warn("getFeatureNamespace is being called many times ({}). This may indicate a bug. Namespaces should be cached after declaration.", callcount);
+        if (result instanceof FeatureNamespaceId featureNamespaceId) {
+            featureNamespaceId.adoptFeatureValueType(featureValueType);
+        } else if (result instanceof NamespaceId) {
+            throw new IllegalArgumentException(String.format(
+                    "The namespace %s was already declared as a non-feature namespace. Each sequence of Namespace classes can only correspond to either a plain Namespace or a FeatureNamespace. You cannot mix them.",
+                    result
+            ));
+        } else {
+            throw new AssertionError("Did not expect anything other than NamespaceId or FeatureNamespaceId:" + result.getClass().getCanonicalName());
         }
 
+        warnOnHotLoop("getFeatureNamespace");
+
         return (FeatureNamespace) result;
     }
 
@@ -166,8 +118,9 @@ public class CompoundNamespace {
         private static final Joiner UNDERSCORE_JOINER = Joiner.on('_');
         private final Namespace[] namespaces;
         private final String namespaceName;
-        protected Class<?> returnTypeHint;
-        protected ValueType featureValueType;
+        // Completed at most once after publication, under the instance lock
+        protected volatile Class<?> returnTypeHint;
+        protected volatile ValueType featureValueType;
 
         private NamespaceId(Namespace[] namespaces, Class<?> returnTypeHint, ValueType featureValueType) {
             this.namespaces = Arrays.copyOf(namespaces, namespaces.length);
@@ -176,6 +129,46 @@ public class CompoundNamespace {
             this.featureValueType = featureValueType;
         }
 
+        void adoptReturnTypeHint(Class<?> hint) {
+            Class<?> current = returnTypeHint;
+            if (hint == null || hint.equals(current)) {
+                return;
+            }
+            synchronized (this) {
+                if (returnTypeHint == null) {
+                    returnTypeHint = hint;
+                } else if (!returnTypeHint.equals(hint)) {
+                    throw new IllegalArgumentException(String.format(
+                            "Attempted to set returnTypeHint to %s, but it was already set to %s for namespace %s",
+                            hint, returnTypeHint, this
+                    ));
+                }
+            }
+        }
+
+        void adoptFeatureValueType(ValueType valueType) {
+            if (valueType.equals(featureValueType)) {
+                return;
+            }
+            synchronized (this) {
+                if (featureValueType == null) {
+                    if (returnTypeHint != null && !returnTypeHint.equals(valueType.getJavaType())) {
+                        throw new IllegalArgumentException(String.format(
+                                "Attempted to set featureValueType to %s (Java type %s) but returnTypeHint was already set to %s for namespace %s",
+                                valueType, valueType.getJavaType(), returnTypeHint, this
+                        ));
+                    }
+                    returnTypeHint = valueType.getJavaType();
+                    featureValueType = valueType;
+                } else if (!featureValueType.equals(valueType)) {
+                    throw new IllegalArgumentException(String.format(
+                            "Attempted to set featureValueType to %s, but it was already set to %s for namespace %s",
+                            valueType, featureValueType, this
+                    ));
+                }
+            }
+        }
+
         @Override
         public String toString() {
             return namespaceName;
@@ -226,7 +219,20 @@ public class CompoundNamespace {
         return result;
     }
 
+    private static void warnOnHotLoop(String methodNames) {
+        WARN_COUNT.increment();
+        // Summing the striped counter on every call would reintroduce contention, so only a sample of calls checks it
+        if ((ThreadLocalRandom.current().nextInt() & 1023) != 0) {
+            return;
+        }
+        long callcount = WARN_COUNT.sum();
+        if (callcount > 20 * 1000) {
+            log.warn("{} is being called many times ({}). This may indicate a bug. Namespaces should be cached after declaration.", methodNames, callcount);
+        }
+    }
+
     static void clear() {
         NAMESPACE_REGISTER.clear();
+        WARN_COUNT.reset();
     }
 }
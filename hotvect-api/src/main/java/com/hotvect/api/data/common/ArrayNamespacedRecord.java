@@ -0,0 +1,147 @@
+package com.hotvect.api.data.common;
+
+import com.hotvect.api.data.Namespace;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * {@link NamespacedRecord} backed by a plain {@code Object[]} indexed by the slots of a {@link NamespaceSlots} registry.
+ * For canonical namespaces {@code get}/{@code put} are a field read plus an array access, without hashing. The array
+ * starts with one entry per slot of the registry, i.e. per namespace of the algorithm that owns it.
+ *
+ * <p>{@link #asMap()} returns an unmodifiable snapshot rather than a live view, since the record has no backing map.
+ * It is meant for serialization and debugging, not for the hot path.</p>
+ */
+public class ArrayNamespacedRecord<K, V> implements NamespacedRecord<K, V> {
+    // Marks a key that is present with a null value, so that it can be told apart from an absent key
+    private static final Object NULL_VALUE = new Object();
+
+    private final NamespaceSlots slots;
+    private Object[] values;
+    private int size;
+
+    public ArrayNamespacedRecord(NamespaceSlots slots) {
+        this.slots = Objects.requireNonNull(slots, "slots");
+        this.values = new Object[slots.slotCount()];
+    }
+
+    public ArrayNamespacedRecord(NamespaceSlots slots, Map<K, V> kvMap) {
+        this(slots);
+        for (Map.Entry<K, V> entry : kvMap.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private ArrayNamespacedRecord(ArrayNamespacedRecord<K, V> other) {
+        this.slots = other.slots;
+        this.values = other.values.clone();
+        this.size = other.size;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V get(Object key) {
+        int slot = slots.peekSlot(key);
+        Object[] vs = this.values;
+        if (slot < 0 || slot >= vs.length) {
+            return null;
+        }
+        Object v = vs[slot];
+        return v == NULL_VALUE ? null : (V) v;
+    }
+
+    @Override
+    public void put(K key, V value) {
+        int slot = slotForWrite(key);
+        if (values[slot] == null) {
+            size++;
+        }
+        values[slot] = value == null ? NULL_VALUE : value;
+    }
+
+    @Override
+    public NamespacedRecord<K, V> shallowCopy() {
+        return new ArrayNamespacedRecord<>(this);
+    }
+
+    @Deprecated(forRemoval = true)
+    @Override
+    @SuppressWarnings("unchecked")
+    public void merge(NamespacedRecord<? extends Namespace, V> other) {
+        // Same semantics as NamespacedRecordImpl: entries already present in this record win
+        for (Map.Entry<? extends Namespace, V> entry : other.asMap().entrySet()) {
+            putIfAbsent((K) entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public boolean putAllIfAbsent(K[] ks, V[] vs) {
+        boolean hasChanged = false;
+        for (int i = 0; i < ks.length; i++) {
+            hasChanged |= putIfAbsent(ks[i], vs[i]);
+        }
+        return hasChanged;
+    }
+
+    @Override
+    public boolean putIfAbsent(K key, V value) {
+        int slot = slotForWrite(key);
+        Object existing = values[slot];
+        if (existing != null && existing != NULL_VALUE) {
+            return false;
+        }
+        if (existing == null) {
+            size++;
+        }
+        values[slot] = value == null ? NULL_VALUE : value;
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Map<K, V> asMap() {
+        IdentityHashMap<K, V> ret = new IdentityHashMap<>(size);
+        Object[] vs = this.values;
+        for (int slot = 0; slot < vs.length; slot++) {
+            Object v = vs[slot];
+            if (v != null) {
+                ret.put((K) slots.keyAt(slot), v == NULL_VALUE ? null : (V) v);
+            }
+        }
+        return Collections.unmodifiableMap(ret);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ArrayNamespacedRecord<?, ?> that)) return false;
+        return size == that.size && asMap().equals(that.asMap());
+    }
+
+    @Override
+    public int hashCode() {
+        return asMap().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return asMap().toString();
+    }
+
+    private int slotForWrite(K key) {
+        int slot = slots.slotOf(key);
+        if (slot >= values.length) {
+            values = Arrays.copyOf(values, Math.max(slot + 1, slots.slotCount()));
+        }
+        return slot;
+    }
+}
@@ -0,0 +1,136 @@
+package com.hotvect.api.data.common;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * Assigns namespace keys stable, dense integer slots so that {@link ArrayNamespacedRecord} can store values in a
+ * plain array.
+ *
+ * <p>A registry belongs to one algorithm. {@code Namespaces} in hotvect-core, which every algorithm loads in its own
+ * class loader, owns the registry of its algorithm, so the keys held here are released together with the algorithm
+ * and records are only as large as the namespaces of that algorithm.</p>
+ *
+ * <ul>
+ *   <li>{@link SlottedNamespace} instances carry the slot this registry gave them; lookup is a field read. Copies
+ *       that were not declared through the registry report a negative slot and are looked up like other keys.</li>
+ *   <li>Enum constants get a contiguous block per enum type on first use; lookup is a
+ *       {@link ClassValue} read plus the ordinal.</li>
+ *   <li>Any other key is looked up in a lock-free table keyed by {@code equals}, so equal keys share a slot.</li>
+ * </ul>
+ *
+ * <p>Slots are never reclaimed. Namespaces are expected to be declared once during wiring, so the slot space stays
+ * proportional to the number of distinct namespaces of the algorithm.</p>
+ */
+public final class NamespaceSlots {
+    private final AtomicInteger nextSlot = new AtomicInteger(0);
+    private final Object lock = new Object();
+
+    /** Slot → key, used to rebuild keys for {@link ArrayNamespacedRecord#asMap()}. Copy-on-write under {@link #lock}. */
+    private volatile Object[] keysBySlot = new Object[64];
+
+    /** Slots of keys that are neither {@link SlottedNamespace} nor enum constants; read without locking. */
+    private final Map<Object, Integer> registeredSlots = new ConcurrentHashMap<>();
+
+    private final ClassValue<Integer> enumBaseSlots = new ClassValue<>() {
+        @Override
+        protected Integer computeValue(Class<?> enumType) {
+            Object[] constants = enumType.getEnumConstants();
+            int base = nextSlot.getAndAdd(constants.length);
+            for (int i = 0; i < constants.length; i++) {
+                bind(base + i, constants[i]);
+            }
+            return base;
+        }
+    };
+
+    /**
+     * Creates a canonical namespace with a fresh slot, for namespaces that keep their slot in a field. Called once
+     * per canonical namespace at declaration time; equal keys that do not carry the slot resolve to it through
+     * {@link #slotOf(Object)}.
+     *
+     * @param newKey creates the key from its slot
+     */
+    public <T> T allocate(IntFunction<T> newKey) {
+        int slot = nextSlot.getAndIncrement();
+        T key = Objects.requireNonNull(newKey.apply(slot), "key");
+        bind(slot, key);
+        registeredSlots.putIfAbsent(key, slot);
+        return key;
+    }
+
+    /**
+     * @return the number of slots handed out so far, which is an upper bound for every slot in use
+     */
+    public int slotCount() {
+        return nextSlot.get();
+    }
+
+    /**
+     * Returns the slot of {@code key}, assigning one if the key has never been seen.
+     */
+    public int slotOf(Object key) {
+        if (key instanceof SlottedNamespace slotted && slotted.slot() >= 0) {
+            return slotted.slot();
+        }
+        if (key instanceof Enum<?> constant) {
+            return enumBaseSlots.get(constant.getDeclaringClass()) + constant.ordinal();
+        }
+        Objects.requireNonNull(key, "key");
+        Integer registered = registeredSlots.get(key);
+        if (registered != null) {
+            return registered;
+        }
+        return registeredSlots.computeIfAbsent(key, k -> {
+            int slot = nextSlot.getAndIncrement();
+            bind(slot, k);
+            return slot;
+        });
+    }
+
+    /**
+     * Like {@link #slotOf(Object)}, but returns {@code -1} instead of assigning a slot to an unknown key.
+     */
+    public int peekSlot(Object key) {
+        if (key instanceof SlottedNamespace slotted && slotted.slot() >= 0) {
+            return slotted.slot();
+        }
+        if (key instanceof Enum<?> constant) {
+            return enumBaseSlots.get(constant.getDeclaringClass()) + constant.ordinal();
+        }
+        if (key == null) {
+            return -1;
+        }
+        Integer registered = registeredSlots.get(key);
+        return registered == null ? -1 : registered;
+    }
+
+    /**
+     * Returns the key bound to {@code slot}, or {@code null} if none was bound yet.
+     */
+    public Object keyAt(int slot) {
+        Object[] keys = keysBySlot;
+        return slot < keys.length ? keys[slot] : null;
+    }
+
+    private void bind(int slot, Object key) {
+        synchronized (lock) {
+            Object[] keys = keysBySlot;
+            if (slot >= keys.length) {
+                keys = Arrays.copyOf(keys, Math.max(slot + 1, keys.length * 2));
+            } else if (keys[slot] == key) {
+                return;
+            } else if (keys[slot] != null) {
+                throw new IllegalStateException("Slot " + slot + " is already bound to " + keys[slot] + ", cannot bind " + key);
+            } else {
+                keys = keys.clone();
+            }
+            keys[slot] = key;
+            keysBySlot = keys;
+        }
+    }
+}
@@ -51,8 +51,8 @@ public class NamespacedRecordImpl<K, V> implements NamespacedRecord<K, V> {
     @Override
     public void merge(NamespacedRecord<? extends Namespace, V> otherRecord) {
         // I haven't figured out how to clean this up yet
-        NamespacedRecordImpl<K, V> other = (NamespacedRecordImpl<K, V>) otherRecord;
-        for (Map.Entry<K, V> kvEntry : other.delegate.entrySet()) {
+        Map<K, V> other = (Map<K, V>) otherRecord.asMap();
+        for (Map.Entry<K, V> kvEntry : other.entrySet()) {
             // In order to keep our behavior consistent with how memoized transformations behave,
             // we only add the operation if it's not already registered
             // Such that if the parent's transformation differ from the child's transformation, the parent's win
@@ -0,0 +1,43 @@
+package com.hotvect.api.data.common;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Creates the {@link NamespacedRecord} instances used on the transform hot path.
+ *
+ * <p>The implementation is chosen once per JVM through the {@code com.hotvect.namespaced_record} system property:</p>
+ * <ul>
+ *   <li>{@code identity} (default): {@link NamespacedRecordImpl}, backed by an {@link java.util.IdentityHashMap}</li>
+ *   <li>{@code array}: {@link ArrayNamespacedRecord}, backed by an array indexed by {@link NamespaceSlots}</li>
+ * </ul>
+ *
+ * <p>Array records need the slot registry of the algorithm, which {@code Namespaces.slots()} in hotvect-core provides.</p>
+ */
+public final class NamespacedRecords {
+    public static final String IMPLEMENTATION_PROPERTY = "com.hotvect.namespaced_record";
+
+    public enum Implementation {
+        IDENTITY,
+        ARRAY
+    }
+
+    private static final Implementation IMPLEMENTATION = Implementation.valueOf(
+            System.getProperty(IMPLEMENTATION_PROPERTY, "identity").trim().toUpperCase(Locale.ROOT)
+    );
+
+    private NamespacedRecords() {
+    }
+
+    public static Implementation implementation() {
+        return IMPLEMENTATION;
+    }
+
+    public static <K, V> NamespacedRecord<K, V> newRecord(NamespaceSlots slots) {
+        return IMPLEMENTATION == Implementation.ARRAY ? new ArrayNamespacedRecord<>(slots) : new NamespacedRecordImpl<>();
+    }
+
+    public static <K, V> NamespacedRecord<K, V> newRecord(NamespaceSlots slots, Map<K, V> kvMap) {
+        return IMPLEMENTATION == Implementation.ARRAY ? new ArrayNamespacedRecord<>(slots, kvMap) : new NamespacedRecordImpl<>(kvMap);
+    }
+}
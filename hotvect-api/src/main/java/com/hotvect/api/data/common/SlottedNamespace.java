@@ -0,0 +1,16 @@
+package com.hotvect.api.data.common;
+
+import com.hotvect.api.data.Namespace;
+
+/**
+ * A {@link Namespace} that carries its own dense integer slot, assigned once from {@link NamespaceSlots#allocate}
+ * when the canonical instance is declared. {@link ArrayNamespacedRecord} uses the slot directly as an array index,
+ * so a slotted namespace must only be stored in records of the registry that assigned its slot.
+ */
+public interface SlottedNamespace extends Namespace {
+    /**
+     * @return the stable slot of this namespace, or a negative value if the instance was not declared through a
+     *         registry; never changes for the lifetime of the instance
+     */
+    int slot();
+}
@@ -0,0 +1,253 @@
+package com.hotvect.api.transformation;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Records the wall time and the bytes allocated by the calling thread for each feature a transformer computes.
+ *
+ * <p>Profiling is opt-in: transformers that implement {@link ProfilableTransformer} only measure anything after a
+ * profiler has been set. Even then, only a sample of the transformations is measured. A transformer asks for a
+ * {@link Sample} once per request (or per action) and skips all measurement when {@link #sample()} returns
+ * {@code null}, so the overhead is proportional to the sample rate.</p>
+ *
+ * <p>Features are identified by a {@link Probe}, which transformers resolve once when the profiler is set. Totals are
+ * kept per probe for {@link #report()}, and are also published to the {@link MeterRegistry}, if one is set, as the
+ * {@code hotvect.transformer.feature.time} timer and the {@code hotvect.transformer.feature.allocation} summary,
+ * tagged by algorithm, stage and feature.</p>
+ */
+public final class FeatureProfiler {
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN = threadMXBean();
+
+    /**
+     * The stage of the ranking transformation a feature is computed in.
+     */
+    public enum Stage {
+        SHARED, ACTION, INTERACTION, STACKING
+    }
+
+    private final double sampleRate;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<ProbeKey, Probe> probes = new ConcurrentHashMap<>();
+
+    private FeatureProfiler(double sampleRate, MeterRegistry meterRegistry) {
+        this.sampleRate = sampleRate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+        private double sampleRate = 0.01;
+        private MeterRegistry meterRegistry;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the fraction of samples that are measured. Defaults to 0.01.
+         */
+        public Builder withSampleRate(double sampleRate) {
+            checkArgument(sampleRate > 0.0 && sampleRate <= 1.0, "sampleRate must be within (0, 1]: %s", sampleRate);
+            this.sampleRate = sampleRate;
+            return this;
+        }
+
+        /**
+         * Sets the registry the measurements are published to. If not set, they are only available from
+         * {@link FeatureProfiler#report()}.
+         */
+        public Builder withMeterRegistry(MeterRegistry meterRegistry) {
+            this.meterRegistry = checkNotNull(meterRegistry, "meterRegistry");
+            return this;
+        }
+
+        public FeatureProfiler build() {
+            return new FeatureProfiler(sampleRate, meterRegistry);
+        }
+    }
+
+    /**
+     * Returns whether the JVM reports the bytes allocated per thread. If not, allocations are recorded as zero.
+     */
+    public static boolean isAllocationMeasured() {
+        return THREAD_MX_BEAN != null;
+    }
+
+    /**
+     * Returns the probe for a feature, creating it on first use. Transformers should resolve their probes once rather
+     * than per request.
+     */
+    public Probe probe(String algorithmName, Stage stage, String feature) {
+        checkNotNull(algorithmName, "algorithmName");
+        checkNotNull(stage, "stage");
+        checkNotNull(feature, "feature");
+        return probes.computeIfAbsent(new ProbeKey(algorithmName, stage, feature), this::newProbe);
+    }
+
+    /**
+     * Returns a new sample with probability of the sample rate, or {@code null} if this request should not be measured.
+     */
+    public Sample sample() {
+        if (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return null;
+        }
+        return new Sample();
+    }
+
+    /**
+     * Returns a new sample regardless of the sample rate, for work of an already sampled request that runs on another
+     * thread.
+     */
+    public Sample newSample() {
+        return new Sample();
+    }
+
+    /**
+     * Returns the totals of every probe that recorded at least one measurement, most expensive first.
+     */
+    public List<FeatureCost> report() {
+        List<FeatureCost> ret = new ArrayList<>(probes.size());
+        for (Probe probe : probes.values()) {
+            long count = probe.count.sum();
+            if (count > 0) {
+                ret.add(new FeatureCost(probe.key.algorithmName, probe.key.stage, probe.key.feature,
+                        count, probe.totalNanos.sum(), probe.totalAllocatedBytes.sum()));
+            }
+        }
+        ret.sort(Comparator.comparingLong(FeatureCost::totalNanos).reversed()
+                .thenComparing(FeatureCost::algorithmName)
+                .thenComparing(FeatureCost::stage)
+                .thenComparing(FeatureCost::feature));
+        return ret;
+    }
+
+    /**
+     * Resets the totals returned by {@link #report()}, e.g. after a warm-up. Published meters are not reset.
+     */
+    public void reset() {
+        for (Probe probe : probes.values()) {
+            probe.count.reset();
+            probe.totalNanos.reset();
+            probe.totalAllocatedBytes.reset();
+        }
+    }
+
+    private Probe newProbe(ProbeKey key) {
+        Timer timer = null;
+        DistributionSummary allocation = null;
+        if (meterRegistry != null) {
+            timer = Timer.builder("hotvect.transformer.feature.time")
+                    .tag("algorithm", key.algorithmName)
+                    .tag("stage", key.stage.name().toLowerCase(Locale.ROOT))
+                    .tag("feature", key.feature)
+                    .register(meterRegistry);
+            allocation = DistributionSummary.builder("hotvect.transformer.feature.allocation")
+                    .baseUnit("bytes")
+                    .tag("algorithm", key.algorithmName)
+                    .tag("stage", key.stage.name().toLowerCase(Locale.ROOT))
+                    .tag("feature", key.feature)
+                    .register(meterRegistry);
+        }
+        return new Probe(key, timer, allocation);
+    }
+
+    private static long allocatedBytes() {
+        return THREAD_MX_BEAN == null ? 0L : THREAD_MX_BEAN.getCurrentThreadAllocatedBytes();
+    }
+
+    private static com.sun.management.ThreadMXBean threadMXBean() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported()) {
+            if (!bean.isThreadAllocatedMemoryEnabled()) {
+                bean.setThreadAllocatedMemoryEnabled(true);
+            }
+            return bean;
+        }
+        return null;
+    }
+
+    private record ProbeKey(String algorithmName, Stage stage, String feature) {
+    }
+
+    /**
+     * Accumulates the measurements of one feature.
+     */
+    public static final class Probe {
+        private final ProbeKey key;
+        private final Timer timer;
+        private final DistributionSummary allocation;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder totalAllocatedBytes = new LongAdder();
+
+        private Probe(ProbeKey key, Timer timer, DistributionSummary allocation) {
+            this.key = key;
+            this.timer = timer;
+            this.allocation = allocation;
+        }
+
+        void record(long nanos, long allocatedBytes) {
+            count.increment();
+            totalNanos.add(nanos);
+            totalAllocatedBytes.add(allocatedBytes);
+            if (timer != null) {
+                timer.record(nanos, TimeUnit.NANOSECONDS);
+                allocation.record(allocatedBytes);
+            }
+        }
+    }
+
+    /**
+     * Measures the features of one sampled request, one feature at a time. A sample is confined to the thread that
+     * created it, and calls to {@link #begin()} and {@link #end(Probe)} must not be nested.
+     */
+    public static final class Sample {
+        private long startNanos;
+        private long startAllocatedBytes;
+
+        private Sample() {
+        }
+
+        public void begin() {
+            startAllocatedBytes = allocatedBytes();
+            startNanos = System.nanoTime();
+        }
+
+        public void end(Probe probe) {
+            long nanos = System.nanoTime() - startNanos;
+            probe.record(nanos, allocatedBytes() - startAllocatedBytes);
+        }
+    }
+
+    /**
+     * The totals of one feature.
+     */
+    public record FeatureCost(String algorithmName, Stage stage, String feature, long count, long totalNanos,
+                              long totalAllocatedBytes) {
+        public double meanNanos() {
+            return (double) totalNanos / count;
+        }
+
+        public double meanAllocatedBytes() {
+            return (double) totalAllocatedBytes / count;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.hotvect.api.transformation;
+
+/**
+ * Interface for transformers that can report the cost of each feature they compute to a {@link FeatureProfiler}.
+ *
+ * This is used to find the features that take up most of the latency or allocation budget of a transformation,
+ * either offline with the profile task or on a sample of the production traffic.
+ */
+public interface ProfilableTransformer {
+    /**
+     * Sets the profiler the feature costs are recorded to, or disables profiling if {@code featureProfiler} is null.
+     *
+     * @param featureProfiler the profiler, or null
+     * @param algorithmName the name of the algorithm (used to tag the recorded features)
+     */
+    void setFeatureProfiler(FeatureProfiler featureProfiler, String algorithmName);
+}
@@ -13,6 +13,10 @@ import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -395,4 +399,42 @@ class CompoundNamespaceFactoryTest {
         assertNotNull(featureNamespace);
         assertEquals(RawValueType.SINGLE_CATEGORICAL.getJavaType(), featureNamespace.getReturnTypeHint());
     }
+
+    @Test
+    void testConcurrentDeclarationsInternOneInstance() throws Exception {
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<List<Namespace>>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    List<Namespace> declared = new ArrayList<>();
+                    for (TestA a : TestA.values()) {
+                        for (TestB b : TestB.values()) {
+                            declared.add(CompoundNamespace.declareNamespace(a, b));
+                            declared.add(CompoundNamespace.declareNamespace(String.class, a, b));
+                            declared.add(CompoundNamespace.getFeatureNamespace(RawValueType.SINGLE_STRING, a, b, TestC.testC1));
+                        }
+                    }
+                    return declared;
+                }));
+            }
+            start.countDown();
+
+            List<Namespace> expected = futures.get(0).get();
+            for (Future<List<Namespace>> future : futures) {
+                List<Namespace> declared = future.get();
+                for (int i = 0; i < declared.size(); i++) {
+                    assertSame(expected.get(i), declared.get(i));
+                }
+            }
+            for (Namespace namespace : expected) {
+                assertNotNull(namespace.getReturnTypeHint());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 }
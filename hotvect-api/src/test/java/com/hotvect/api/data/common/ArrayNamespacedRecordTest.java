@@ -0,0 +1,144 @@
+package com.hotvect.api.data.common;
+
+import com.hotvect.api.data.Namespace;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArrayNamespacedRecordTest {
+    enum TestNs implements Namespace { ns1, ns2, ns3 }
+
+    enum OtherNs implements Namespace { other1 }
+
+    private static final class Slotted implements SlottedNamespace {
+        private final String name;
+        private final int slot;
+
+        private Slotted(String name, int slot) {
+            this.name = name;
+            this.slot = slot;
+        }
+
+        @Override
+        public int slot() {
+            return slot;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private final NamespaceSlots slots = new NamespaceSlots();
+
+    @Test
+    void getAndPutBehaveLikeIdentityRecord() {
+        NamespacedRecord<Namespace, Object> record = new ArrayNamespacedRecord<>(slots);
+        assertNull(record.get(TestNs.ns1));
+        assertEquals(0, record.size());
+
+        record.put(TestNs.ns1, "a");
+        record.put(OtherNs.other1, 1.0);
+        record.put(TestNs.ns1, "b");
+
+        assertEquals("b", record.get(TestNs.ns1));
+        assertEquals(1.0, record.get(OtherNs.other1));
+        assertNull(record.get(TestNs.ns2));
+        assertEquals(2, record.size());
+        assertEquals(Map.of(TestNs.ns1, "b", OtherNs.other1, 1.0), record.asMap());
+    }
+
+    @Test
+    void slotsAreDistinctAcrossEnumTypes() {
+        assertNotEquals(slots.slotOf(TestNs.ns1), slots.slotOf(OtherNs.other1));
+        assertEquals(slots.slotOf(TestNs.ns1) + 2, slots.slotOf(TestNs.ns3));
+    }
+
+    @Test
+    void namespacesDeclaredAfterRecordCreationGrowTheRecord() {
+        NamespacedRecord<Namespace, Object> record = new ArrayNamespacedRecord<>(slots);
+        Slotted late = slots.allocate(slot -> new Slotted("late", slot));
+        assertNull(record.get(late));
+        record.put(late, "value");
+        assertEquals("value", record.get(late));
+        assertSame(late, record.asMap().keySet().iterator().next());
+    }
+
+    @Test
+    void nullValuesArePresentButNotAbsent() {
+        NamespacedRecord<Namespace, Object> record = new ArrayNamespacedRecord<>(slots);
+        record.put(TestNs.ns1, null);
+        assertEquals(1, record.size());
+        assertTrue(record.asMap().containsKey(TestNs.ns1));
+        // Same as IdentityHashMap#putIfAbsent: a null value counts as absent
+        assertTrue(record.putIfAbsent(TestNs.ns1, "x"));
+        assertEquals("x", record.get(TestNs.ns1));
+        assertEquals(1, record.size());
+    }
+
+    @Test
+    void putAllIfAbsentReportsAnyChange() {
+        NamespacedRecord<Namespace, Object> record = new ArrayNamespacedRecord<>(slots);
+        record.put(TestNs.ns2, "existing");
+        boolean changed = record.putAllIfAbsent(new Namespace[]{TestNs.ns1, TestNs.ns2}, new Object[]{"new", "ignored"});
+        assertTrue(changed);
+        assertEquals("new", record.get(TestNs.ns1));
+        assertEquals("existing", record.get(TestNs.ns2));
+        assertFalse(record.putAllIfAbsent(new Namespace[]{TestNs.ns1}, new Object[]{"ignored"}));
+    }
+
+    @Test
+    void shallowCopyIsIndependent() {
+        NamespacedRecord<Namespace, Object> record = new ArrayNamespacedRecord<>(slots);
+        record.put(TestNs.ns1, "a");
+        NamespacedRecord<Namespace, Object> copy = record.shallowCopy();
+        copy.put(TestNs.ns2, "b");
+        assertNull(record.get(TestNs.ns2));
+        assertEquals(1, record.size());
+        assertEquals(2, copy.size());
+        assertEquals("a", copy.get(TestNs.ns1));
+    }
+
+    @Test
+    void mergeKeepsExistingEntries() {
+        NamespacedRecord<Namespace, Object> record = new ArrayNamespacedRecord<>(slots);
+        record.put(TestNs.ns1, "mine");
+        NamespacedRecord<Namespace, Object> other = new NamespacedRecordImpl<>();
+        other.put(TestNs.ns1, "theirs");
+        other.put(TestNs.ns3, "added");
+        record.merge(other);
+        assertEquals("mine", record.get(TestNs.ns1));
+        assertEquals("added", record.get(TestNs.ns3));
+
+        NamespacedRecord<Namespace, Object> identity = new NamespacedRecordImpl<>();
+        identity.merge(record);
+        assertEquals(record.asMap(), identity.asMap());
+    }
+
+    @Test
+    void unknownKeysAreNotAssignedSlotsOnRead() {
+        NamespacedRecord<Object, Object> record = new ArrayNamespacedRecord<>(slots);
+        Object adHoc = new Object();
+        int before = slots.slotCount();
+        assertNull(record.get(adHoc));
+        assertNull(record.get(null));
+        assertEquals(before, slots.slotCount());
+        assertEquals(-1, slots.peekSlot(adHoc));
+    }
+
+    @Test
+    void registriesAssignSlotsIndependently() {
+        Slotted mine = slots.allocate(slot -> new Slotted("mine", slot));
+        slots.slotOf(TestNs.ns1);
+
+        NamespaceSlots other = new NamespaceSlots();
+        assertEquals(0, other.slotCount());
+        assertEquals(0, other.slotOf(OtherNs.other1));
+        assertEquals(1, other.slotCount());
+        assertSame(mine, slots.keyAt(mine.slot()));
+        assertNotSame(mine, other.keyAt(mine.slot()));
+    }
+}
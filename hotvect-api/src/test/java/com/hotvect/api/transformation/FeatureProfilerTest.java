@@ -0,0 +1,108 @@
+package com.hotvect.api.transformation;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FeatureProfilerTest {
+    @Test
+    void reportsFeaturesMostExpensiveFirst() {
+        FeatureProfiler profiler = FeatureProfiler.builder().withSampleRate(1.0).build();
+        FeatureProfiler.Probe cheap = profiler.probe("algo", FeatureProfiler.Stage.SHARED, "cheap");
+        FeatureProfiler.Probe expensive = profiler.probe("algo", FeatureProfiler.Stage.ACTION, "expensive");
+        profiler.probe("algo", FeatureProfiler.Stage.ACTION, "never_measured");
+
+        cheap.record(10, 100);
+        cheap.record(30, 100);
+        expensive.record(1_000, 8);
+
+        List<FeatureProfiler.FeatureCost> report = profiler.report();
+        assertEquals(2, report.size());
+        assertEquals("expensive", report.get(0).feature());
+        assertEquals(FeatureProfiler.Stage.ACTION, report.get(0).stage());
+        assertEquals("cheap", report.get(1).feature());
+        assertEquals(2, report.get(1).count());
+        assertEquals(20.0, report.get(1).meanNanos());
+        assertEquals(100.0, report.get(1).meanAllocatedBytes());
+    }
+
+    @Test
+    void probesAreResolvedOncePerFeature() {
+        FeatureProfiler profiler = FeatureProfiler.builder().build();
+        assertSame(
+                profiler.probe("algo", FeatureProfiler.Stage.SHARED, "feature"),
+                profiler.probe("algo", FeatureProfiler.Stage.SHARED, "feature")
+        );
+        assertNotSame(
+                profiler.probe("algo", FeatureProfiler.Stage.SHARED, "feature"),
+                profiler.probe("algo", FeatureProfiler.Stage.ACTION, "feature")
+        );
+    }
+
+    @Test
+    void samplesMeasureBetweenBeginAndEnd() {
+        FeatureProfiler profiler = FeatureProfiler.builder().withSampleRate(1.0).build();
+        FeatureProfiler.Probe probe = profiler.probe("algo", FeatureProfiler.Stage.INTERACTION, "feature");
+
+        FeatureProfiler.Sample sample = profiler.sample();
+        assertNotNull(sample);
+        sample.begin();
+        long[] allocated = new long[1024];
+        sample.end(probe);
+
+        FeatureProfiler.FeatureCost cost = profiler.report().get(0);
+        assertEquals(1, cost.count());
+        assertTrue(cost.totalNanos() >= 0);
+        if (FeatureProfiler.isAllocationMeasured()) {
+            assertTrue(cost.totalAllocatedBytes() >= allocated.length * Long.BYTES, String.valueOf(cost));
+        }
+    }
+
+    @Test
+    void skipsMostRequestsAtLowSampleRates() {
+        FeatureProfiler profiler = FeatureProfiler.builder().withSampleRate(0.01).build();
+        int sampled = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (profiler.sample() != null) {
+                sampled++;
+            }
+        }
+        assertTrue(sampled > 0 && sampled < 500, "sampled=" + sampled);
+        assertNotNull(profiler.newSample());
+    }
+
+    @Test
+    void resetClearsTheReport() {
+        FeatureProfiler profiler = FeatureProfiler.builder().build();
+        profiler.probe("algo", FeatureProfiler.Stage.STACKING, "model").record(5, 0);
+        profiler.reset();
+        assertTrue(profiler.report().isEmpty());
+    }
+
+    @Test
+    void publishesTaggedMeters() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        FeatureProfiler profiler = FeatureProfiler.builder().withMeterRegistry(registry).build();
+        profiler.probe("algo", FeatureProfiler.Stage.SHARED, "feature").record(2_000, 64);
+
+        Timer timer = registry.find("hotvect.transformer.feature.time")
+                .tag("algorithm", "algo")
+                .tag("stage", "shared")
+                .tag("feature", "feature")
+                .timer();
+        assertNotNull(timer);
+        assertEquals(1, timer.count());
+        assertNotNull(registry.find("hotvect.transformer.feature.allocation").tag("feature", "feature").summary());
+    }
+
+    @Test
+    void rejectsInvalidSampleRates() {
+        assertThrows(IllegalArgumentException.class, () -> FeatureProfiler.builder().withSampleRate(0.0));
+        assertThrows(IllegalArgumentException.class, () -> FeatureProfiler.builder().withSampleRate(1.5));
+    }
+}
@@ -0,0 +1,4 @@
+package com.hotvect.benchmarks;
+
+public record BenchmarkCandidate(String title, String category, double price, double[] signals) {
+}
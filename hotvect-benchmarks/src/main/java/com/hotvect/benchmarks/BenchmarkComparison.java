@@ -0,0 +1,175 @@
+package com.hotvect.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import picocli.CommandLine;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Compares two JMH JSON result files and exits with status 1 if the candidate regressed.
+ *
+ * <p>Results are matched by benchmark, mode, thread count and parameters. Both the primary score and the normalized
+ * allocation rate reported by the GC profiler are compared. A change counts as a regression if it is worse than the
+ * baseline by more than the relative threshold, and by more than the combined score errors of both runs, so that noisy
+ * benchmarks do not fail the comparison.</p>
+ */
+@CommandLine.Command(
+        name = "hotvect-benchmark-comparison",
+        mixinStandardHelpOptions = true,
+        description = "Compares two JMH JSON result files and fails if the candidate regressed"
+)
+public final class BenchmarkComparison implements Callable<Integer> {
+    static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+    private static final ObjectMapper OM = new ObjectMapper();
+
+    @CommandLine.Parameters(index = "0", description = "Baseline JMH JSON result file")
+    File baseline;
+
+    @CommandLine.Parameters(index = "1", description = "Candidate JMH JSON result file")
+    File candidate;
+
+    @CommandLine.Option(
+            names = {"--threshold"},
+            defaultValue = "0.05",
+            description = "Relative change that counts as a regression (default: ${DEFAULT-VALUE})"
+    )
+    double threshold;
+
+    public record Difference(
+            String benchmark,
+            String metric,
+            String unit,
+            double baseline,
+            double candidate,
+            boolean regression
+    ) {
+        public double relativeChange() {
+            return baseline == 0 ? (candidate == 0 ? 0 : Double.POSITIVE_INFINITY) : (candidate - baseline) / Math.abs(baseline);
+        }
+    }
+
+    public static void main(String[] args) {
+        int exitCode = new CommandLine(new BenchmarkComparison()).execute(args);
+        System.exit(exitCode);
+    }
+
+    @Override
+    public Integer call() throws IOException {
+        Map<String, JsonNode> baselineResults = index(OM.readTree(baseline));
+        Map<String, JsonNode> candidateResults = index(OM.readTree(candidate));
+        List<Difference> differences = compare(baselineResults, candidateResults, threshold);
+
+        int regressions = 0;
+        for (Difference difference : differences) {
+            if (difference.regression()) {
+                regressions++;
+            }
+            System.out.printf("%s %s %s: %.3f -> %.3f %s (%+.1f%%)%n",
+                    difference.regression() ? "REGRESSION" : "ok        ",
+                    difference.benchmark(),
+                    difference.metric(),
+                    difference.baseline(),
+                    difference.candidate(),
+                    difference.unit(),
+                    difference.relativeChange() * 100);
+        }
+        for (String key : baselineResults.keySet()) {
+            if (!candidateResults.containsKey(key)) {
+                System.out.println("missing    " + key + " is not in the candidate results");
+            }
+        }
+        System.out.printf("%d of %d metrics regressed by more than %.1f%%%n",
+                regressions, differences.size(), threshold * 100);
+        return regressions == 0 ? 0 : 1;
+    }
+
+    /**
+     * Keys the entries of a JMH JSON result file by benchmark, mode, thread count and parameters.
+     */
+    static Map<String, JsonNode> index(JsonNode results) {
+        checkArgument(results.isArray(), "Expected a JMH JSON result array but got %s", results.getNodeType());
+        Map<String, JsonNode> ret = new LinkedHashMap<>();
+        for (JsonNode result : results) {
+            ret.put(key(result), result);
+        }
+        return ret;
+    }
+
+    private static String key(JsonNode result) {
+        StringBuilder ret = new StringBuilder(result.path("benchmark").asText())
+                .append(" [")
+                .append(result.path("mode").asText())
+                .append(", threads=")
+                .append(result.path("threads").asInt(1));
+        Map<String, String> params = new TreeMap<>();
+        Iterator<Map.Entry<String, JsonNode>> fields = result.path("params").fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            params.put(field.getKey(), field.getValue().asText());
+        }
+        params.forEach((name, value) -> ret.append(", ").append(name).append('=').append(value));
+        return ret.append(']').toString();
+    }
+
+    static List<Difference> compare(Map<String, JsonNode> baselineResults, Map<String, JsonNode> candidateResults, double threshold) {
+        checkArgument(threshold >= 0, "threshold must not be negative: %s", threshold);
+        List<Difference> ret = new ArrayList<>();
+        for (Map.Entry<String, JsonNode> entry : baselineResults.entrySet()) {
+            JsonNode candidateResult = candidateResults.get(entry.getKey());
+            if (candidateResult == null) {
+                continue;
+            }
+            JsonNode baselineResult = entry.getValue();
+            // Throughput is the only JMH mode where a higher score is better
+            boolean lowerIsBetter = !"thrpt".equals(baselineResult.path("mode").asText());
+            ret.add(difference(entry.getKey(), "score",
+                    baselineResult.path("primaryMetric"), candidateResult.path("primaryMetric"), lowerIsBetter, threshold));
+
+            JsonNode baselineAllocation = allocationMetric(baselineResult);
+            JsonNode candidateAllocation = allocationMetric(candidateResult);
+            if (baselineAllocation != null && candidateAllocation != null) {
+                ret.add(difference(entry.getKey(), ALLOCATION_METRIC,
+                        baselineAllocation, candidateAllocation, true, threshold));
+            }
+        }
+        return ret;
+    }
+
+    private static JsonNode allocationMetric(JsonNode result) {
+        Iterator<Map.Entry<String, JsonNode>> metrics = result.path("secondaryMetrics").fields();
+        while (metrics.hasNext()) {
+            Map.Entry<String, JsonNode> metric = metrics.next();
+            // Older JMH versions prefix profiler metrics with a middle dot
+            if (metric.getKey().endsWith(ALLOCATION_METRIC)) {
+                return metric.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static Difference difference(String benchmark, String metric, JsonNode baseline, JsonNode candidate, boolean lowerIsBetter, double threshold) {
+        double baselineScore = baseline.path("score").asDouble();
+        double candidateScore = candidate.path("score").asDouble();
+        double worsening = lowerIsBetter ? candidateScore - baselineScore : baselineScore - candidateScore;
+        boolean regression = worsening > threshold * Math.abs(baselineScore)
+                && worsening > scoreError(baseline) + scoreError(candidate);
+        return new Difference(benchmark, metric, baseline.path("scoreUnit").asText(), baselineScore, candidateScore, regression);
+    }
+
+    private static double scoreError(JsonNode metric) {
+        // JMH writes "NaN" when there were too few iterations to compute an error
+        double ret = metric.path("scoreError").asDouble(0);
+        return Double.isNaN(ret) ? 0 : ret;
+    }
+}
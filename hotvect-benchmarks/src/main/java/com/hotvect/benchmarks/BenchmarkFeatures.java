@@ -0,0 +1,64 @@
+package com.hotvect.benchmarks;
+
+import com.hotvect.core.annotation.Feature;
+import com.hotvect.core.annotation.Inject;
+import com.hotvect.core.annotation.SharedFeature;
+
+import java.util.Arrays;
+import java.util.Set;
+
+public final class BenchmarkFeatures {
+    private BenchmarkFeatures() {
+    }
+
+    @SharedFeature("query_tokens")
+    public static Set<String> queryTokens(BenchmarkQuery query) {
+        return Set.copyOf(Arrays.asList(query.query().split(" ")));
+    }
+
+    @SharedFeature("budget")
+    public static double budget(BenchmarkQuery query) {
+        return query.budget();
+    }
+
+    @Feature("candidate_category")
+    public static String candidateCategory(BenchmarkCandidate candidate) {
+        return candidate.category();
+    }
+
+    @Feature("title_overlap")
+    public static double titleOverlap(@Inject("query_tokens") Set<String> queryTokens, BenchmarkCandidate candidate) {
+        long matches = 0;
+        for (String token : candidate.title().split(" ")) {
+            if (queryTokens.contains(token)) {
+                matches++;
+            }
+        }
+        return (double) matches / queryTokens.size();
+    }
+
+    @Feature("budget_fit")
+    public static double budgetFit(@Inject("budget") double budget, BenchmarkCandidate candidate) {
+        return candidate.price() <= budget ? 1.0 : 0.0;
+    }
+
+    @Feature("signal_0")
+    public static double signal0(BenchmarkCandidate candidate) {
+        return candidate.signals()[0];
+    }
+
+    @Feature("signal_1")
+    public static double signal1(BenchmarkCandidate candidate) {
+        return candidate.signals()[1];
+    }
+
+    @Feature("signal_2")
+    public static double signal2(BenchmarkCandidate candidate) {
+        return candidate.signals()[2];
+    }
+
+    @Feature("signal_3")
+    public static double signal3(BenchmarkCandidate candidate) {
+        return candidate.signals()[3];
+    }
+}
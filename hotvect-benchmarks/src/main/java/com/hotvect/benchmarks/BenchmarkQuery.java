@@ -0,0 +1,4 @@
+package com.hotvect.benchmarks;
+
+public record BenchmarkQuery(String query, String category, double budget) {
+}
@@ -0,0 +1,37 @@
+package com.hotvect.benchmarks;
+
+import com.hotvect.api.data.AvailableAction;
+import com.hotvect.api.data.ranking.RankingRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic ranking requests shared by the suites.
+ */
+public final class BenchmarkRequests {
+    private static final String[] CATEGORIES = {"shoes", "shirts", "bags", "watches", "hats", "belts", "socks", "coats"};
+    private static final String[] WORDS = {"red", "running", "leather", "classic", "slim", "wool", "summer", "travel"};
+
+    private BenchmarkRequests() {
+    }
+
+    public static RankingRequest<BenchmarkQuery, BenchmarkCandidate> rankingRequest(int candidateCount, int signalCount) {
+        Random random = new Random(42);
+        BenchmarkQuery query = new BenchmarkQuery("red leather shoes", "shoes", 100.0);
+        List<AvailableAction<BenchmarkCandidate>> actions = new ArrayList<>(candidateCount);
+        for (int i = 0; i < candidateCount; i++) {
+            double[] signals = new double[signalCount];
+            for (int j = 0; j < signalCount; j++) {
+                signals[j] = random.nextDouble();
+            }
+            String title = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " "
+                    + CATEGORIES[i % CATEGORIES.length];
+            BenchmarkCandidate candidate = new BenchmarkCandidate(
+                    title, CATEGORIES[i % CATEGORIES.length], random.nextDouble() * 200.0, signals);
+            actions.add(AvailableAction.of("sku-" + i, candidate));
+        }
+        return RankingRequest.ofAvailableActions("example-" + candidateCount, query, actions);
+    }
+}
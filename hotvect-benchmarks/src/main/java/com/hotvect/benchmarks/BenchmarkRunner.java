@@ -0,0 +1,90 @@
+package com.hotvect.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Runs the JMH suites with regression-friendly defaults.
+ *
+ * <p>Accepts the regular JMH command line. Unless overridden, the GC profiler is enabled so that every result carries
+ * {@code gc.alloc.rate.norm}, and results are written as JSON to {@code jmh-result.json}. The additional option
+ * {@code -threadCounts 1,4,8} runs the selected suites once per thread count and writes all runs to the same result
+ * file. Compare two result files with {@link BenchmarkComparison}.</p>
+ */
+public final class BenchmarkRunner {
+    static final String THREAD_COUNTS_OPTION = "-threadCounts";
+    static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> jmhArgs = new ArrayList<>(Arrays.asList(args));
+        List<Integer> threadCounts = removeThreadCounts(jmhArgs);
+        CommandLineOptions commandLineOptions = new CommandLineOptions(jmhArgs.toArray(new String[0]));
+        if (commandLineOptions.shouldHelp() || commandLineOptions.shouldList() || commandLineOptions.shouldListProfilers()) {
+            org.openjdk.jmh.Main.main(jmhArgs.toArray(new String[0]));
+            return;
+        }
+
+        ResultFormatType resultFormat = commandLineOptions.getResultFormat().orElse(ResultFormatType.JSON);
+        String resultFile = commandLineOptions.getResult().orElse(DEFAULT_RESULT_FILE);
+        List<RunResult> results = new ArrayList<>();
+        for (Integer threadCount : threadCounts) {
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                    .parent(commandLineOptions)
+                    .resultFormat(resultFormat)
+                    .result(resultFile);
+            if (commandLineOptions.getProfilers().isEmpty()) {
+                options.addProfiler(GCProfiler.class);
+            }
+            if (threadCount != null) {
+                options.threads(threadCount);
+            }
+            Collection<RunResult> run = new Runner(options.build()).run();
+            results.addAll(run);
+        }
+        if (threadCounts.size() > 1) {
+            // Every run overwrites the result file, so write the union of all runs once more
+            ResultFormatFactory.getInstance(resultFormat, resultFile).writeOut(results);
+        }
+    }
+
+    /**
+     * Removes {@code -threadCounts} from {@code args} and returns its values, or a single {@code null} entry (use the
+     * thread count from the annotations or {@code -t}) when absent.
+     */
+    static List<Integer> removeThreadCounts(List<String> args) {
+        int index = args.indexOf(THREAD_COUNTS_OPTION);
+        if (index < 0) {
+            List<Integer> ret = new ArrayList<>();
+            ret.add(null);
+            return ret;
+        }
+        if (index + 1 >= args.size()) {
+            throw new IllegalArgumentException(THREAD_COUNTS_OPTION + " requires a comma separated list of thread counts");
+        }
+        String value = args.remove(index + 1);
+        args.remove(index);
+        List<Integer> ret = new ArrayList<>();
+        for (String threadCount : value.split(",")) {
+            int parsed = Integer.parseInt(threadCount.trim());
+            if (parsed < 1) {
+                throw new IllegalArgumentException("Thread counts must be positive: " + value);
+            }
+            ret.add(parsed);
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,19 @@
+package com.hotvect.benchmarks;
+
+import com.hotvect.core.annotation.GenerateSimpleRankingTransformer;
+
+/**
+ * Generates {@code BenchmarkGeneratedTransformer} from {@link BenchmarkFeatures}.
+ */
+@GenerateSimpleRankingTransformer(
+        name = "BenchmarkGeneratedTransformer",
+        sharedType = BenchmarkQuery.class,
+        actionType = BenchmarkCandidate.class,
+        features = BenchmarkFeatures.class,
+        backend = com.hotvect.catboost.CatBoostBackend.class,
+        algorithmDefinitionResource = "benchmark-algorithm-definition.json"
+)
+public final class BenchmarkTransformerSpec {
+    private BenchmarkTransformerSpec() {
+    }
+}
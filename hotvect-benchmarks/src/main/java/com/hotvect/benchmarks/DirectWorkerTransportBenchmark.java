@@ -0,0 +1,114 @@
+package com.hotvect.benchmarks;
+
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import com.hotvect.python.direct.DirectWorkerManager;
+import com.hotvect.python.direct.DirectWorkersConfig;
+import com.hotvect.python.direct.PythonWorkerCommand;
+import com.hotvect.python.direct.QueueFullPolicy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round trip of one request through a direct worker that does no inference, over the socket and over the
+ * shared-memory transport. The worker is {@code hotvect.direct_worker.stub_worker}, which answers every request with
+ * {@code resultFloats} floats.
+ *
+ * <p>The worker runs with the interpreter named by the {@code hotvect.benchmark.python} system property (default
+ * {@code python3}). It only needs the standard library, so pointing {@code hotvect.benchmark.pythonpath} at the
+ * {@code python} directory of this repository is enough if the hotvect package is not installed.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(2)
+@State(Scope.Benchmark)
+public class DirectWorkerTransportBenchmark {
+    private static final int MAX_FRAME_BYTES = 64 * 1024 * 1024;
+    private static final int SHARED_MEMORY_BYTES = 128 * 1024 * 1024;
+
+    @Param({"socket", "shared_memory"})
+    String transport;
+
+    // Total size of the WORK payloads of a request
+    @Param({"1024", "1048576", "16777216"})
+    int payloadBytes;
+
+    @Param({"1000", "100000"})
+    int resultFloats;
+
+    Path directory;
+    DirectWorkerManager manager;
+    List<byte[]> payloads;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("direct-worker-transport-benchmark");
+        String pythonPath = System.getProperty("hotvect.benchmark.pythonpath");
+        manager = new DirectWorkerManager(
+                new PythonWorkerCommand(
+                        System.getProperty("hotvect.benchmark.python", "python3"),
+                        "hotvect.direct_worker.stub_worker",
+                        List.of("--output-floats", Integer.toString(resultFloats)),
+                        pythonPath == null ? Map.of() : Map.of("PYTHONPATH", pythonPath)
+                ),
+                new DirectWorkersConfig(
+                        List.of(""),
+                        Duration.ofMinutes(1),
+                        Duration.ofSeconds(30),
+                        Duration.ofSeconds(5),
+                        Duration.ofSeconds(2),
+                        Duration.ofSeconds(10),
+                        20,
+                        QueueFullPolicy.REJECT,
+                        1,
+                        Duration.ZERO,
+                        MAX_FRAME_BYTES,
+                        directory,
+                        "shared_memory".equals(transport) ? SHARED_MEMORY_BYTES : 0
+                )
+        );
+
+        // Split into a few payloads, like one serialized tensor per feature
+        Random random = new Random(42);
+        int payloadCount = 4;
+        payloads = new ArrayList<>(payloadCount);
+        for (int i = 0; i < payloadCount; i++) {
+            byte[] payload = new byte[payloadBytes / payloadCount];
+            random.nextBytes(payload);
+            payloads.add(payload);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        manager.close();
+        MoreFiles.deleteRecursively(directory, RecursiveDeleteOption.ALLOW_INSECURE);
+    }
+
+    @Benchmark
+    public float[] roundTrip() throws Exception {
+        return manager.submit("benchmark", 1, payloads).get().output();
+    }
+}
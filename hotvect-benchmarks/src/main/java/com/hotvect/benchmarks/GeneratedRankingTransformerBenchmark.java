@@ -0,0 +1,55 @@
+package com.hotvect.benchmarks;
+
+import com.hotvect.api.data.ranking.RankingRequest;
+import com.hotvect.api.data.ranking.TransformedAction;
+import com.hotvect.core.transform.ranking.TransformedBatch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the transformer that hotvect-processor generates from {@link BenchmarkTransformerSpec}, through both the
+ * row and the columnar output paths.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(2)
+@State(Scope.Benchmark)
+public class GeneratedRankingTransformerBenchmark {
+    // The generated feature set is fixed at compile time, so only the candidate count varies
+    @Param({"10", "100", "1000"})
+    int candidateCount;
+
+    BenchmarkGeneratedTransformer transformer;
+    RankingRequest<BenchmarkQuery, BenchmarkCandidate> request;
+
+    @Setup
+    public void setUp() {
+        transformer = new BenchmarkGeneratedTransformer(request -> Map.of());
+        request = BenchmarkRequests.rankingRequest(candidateCount, 4);
+    }
+
+    @Benchmark
+    public List<TransformedAction<BenchmarkCandidate>> transform() {
+        return transformer.transform(request);
+    }
+
+    @Benchmark
+    public List<TransformedBatch<BenchmarkCandidate>> transformColumnar() {
+        return transformer.prepareColumnarBatchStream(request).batchStream().toList();
+    }
+}
@@ -0,0 +1,111 @@
+package com.hotvect.benchmarks;
+
+import com.hotvect.onlineutils.concurrency.fileutils.ParallelGzipInputStream;
+import com.hotvect.onlineutils.concurrency.fileutils.ParallelGzipOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compares streaming gzip with {@link ParallelGzipInputStream} and {@link ParallelGzipOutputStream} on JSON lines.
+ * Both readers read the same BGZF file, which {@link GZIPInputStream} reads as concatenated members.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GzipBenchmark {
+    @Param({"256"})
+    int uncompressedSizeMb;
+
+    private byte[] uncompressed;
+    private File compressed;
+    private File output;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        StringBuilder lines = new StringBuilder();
+        for (long i = 0; lines.length() < uncompressedSizeMb << 20; i++) {
+            lines.append("{\"id\":").append(i).append(",\"query\":\"q").append(random.nextInt(100_000))
+                    .append("\",\"score\":").append(random.nextDouble()).append("}\n");
+        }
+        uncompressed = lines.toString().getBytes(StandardCharsets.UTF_8);
+        compressed = File.createTempFile("gzip-benchmark", ".jsonl.gz");
+        output = File.createTempFile("gzip-benchmark-output", ".jsonl.gz");
+        compressed.deleteOnExit();
+        output.deleteOnExit();
+        try (OutputStream out = new ParallelGzipOutputStream(new FileOutputStream(compressed))) {
+            out.write(uncompressed);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        compressed.delete();
+        output.delete();
+    }
+
+    @Benchmark
+    public long streamingRead() throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(compressed.toPath()), 128 << 10)) {
+            return drain(in);
+        }
+    }
+
+    @Benchmark
+    public long parallelRead() throws IOException {
+        try (InputStream in = ParallelGzipInputStream.open(compressed)) {
+            return drain(in);
+        }
+    }
+
+    @Benchmark
+    public long streamingWrite() throws IOException {
+        try (OutputStream out = new GZIPOutputStream(new FileOutputStream(output), 128 << 10)) {
+            out.write(uncompressed);
+        }
+        return output.length();
+    }
+
+    @Benchmark
+    public long parallelWrite() throws IOException {
+        try (OutputStream out = new ParallelGzipOutputStream(new FileOutputStream(output))) {
+            out.write(uncompressed);
+        }
+        return output.length();
+    }
+
+    private static long drain(InputStream in) throws IOException {
+        byte[] buffer = new byte[128 << 10];
+        long ret = 0;
+        for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+            ret += n;
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,108 @@
+package com.hotvect.benchmarks;
+
+import com.hotvect.api.data.FeatureNamespace;
+import com.hotvect.api.data.HashedValue;
+import com.hotvect.api.data.HashedValueType;
+import com.hotvect.api.data.SparseVector;
+import com.hotvect.api.data.ValueType;
+import com.hotvect.api.data.common.NamespacedRecord;
+import com.hotvect.api.data.common.NamespacedRecordImpl;
+import com.hotvect.core.combine.FeatureDefinition;
+import com.hotvect.core.combine.HashedInteractionCombiner;
+import com.hotvect.core.combine.InteractionCombiner;
+import com.hotvect.core.combine.SparseVectorBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the deprecated {@link InteractionCombiner} with {@link HashedInteractionCombiner} on a record with every
+ * single feature and one 2-, 3- or 4-way cross of them, with 4 values per component.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(2)
+@State(Scope.Thread)
+@SuppressWarnings({"deprecation", "removal"})
+public class InteractionCombinerBenchmark {
+    private static final int VALUES_PER_COMPONENT = 4;
+
+    enum Feature implements FeatureNamespace {
+        brand, category, color, shop;
+
+        @Override
+        public ValueType getFeatureValueType() {
+            return HashedValueType.CATEGORICAL;
+        }
+    }
+
+    @Param({"2", "3", "4"})
+    int arity;
+
+    private InteractionCombiner<Feature> interactionCombiner;
+    private HashedInteractionCombiner<Feature> hashedInteractionCombiner;
+    private NamespacedRecord<Feature, HashedValue> record;
+    private SparseVectorBuilder builder;
+
+    @Setup
+    public void setUp() {
+        Set<FeatureDefinition> featureDefinitions = new LinkedHashSet<>();
+        HashedInteractionCombiner.Builder<Feature> hashed = HashedInteractionCombiner.builder(26);
+        for (Feature feature : Feature.values()) {
+            FeatureDefinition single = new FeatureDefinition(feature);
+            featureDefinitions.add(single);
+            hashed.withFeature(single);
+        }
+        // Enum constants are declared alphabetically, which is the order FeatureDefinition expects
+        Set<FeatureNamespace> crossed = new LinkedHashSet<>(Arrays.asList(Feature.values()).subList(0, arity));
+        FeatureDefinition cross = new FeatureDefinition(crossed);
+        featureDefinitions.add(cross);
+        hashed.withFeature(cross);
+
+        interactionCombiner = new InteractionCombiner<>(26, featureDefinitions);
+        hashedInteractionCombiner = hashed.build();
+        builder = new SparseVectorBuilder();
+
+        Random random = new Random(42);
+        record = new NamespacedRecordImpl<>();
+        for (Feature feature : Feature.values()) {
+            record.put(feature, HashedValue.categoricals(random.ints(VALUES_PER_COMPONENT).toArray()));
+        }
+    }
+
+    @Benchmark
+    public SparseVector interactionCombiner() {
+        return interactionCombiner.apply(record);
+    }
+
+    @Benchmark
+    public SparseVector hashedInteractionCombiner() {
+        return hashedInteractionCombiner.apply(record);
+    }
+
+    /**
+     * Reuses one builder, as callers that combine many records on a thread should.
+     */
+    @Benchmark
+    public SparseVector hashedInteractionCombinerReusingBuilder() {
+        builder.clear();
+        hashedInteractionCombiner.combine(record, builder);
+        return builder.build();
+    }
+}
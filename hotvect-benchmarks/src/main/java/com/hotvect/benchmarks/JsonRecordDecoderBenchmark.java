@@ -0,0 +1,115 @@
+package com.hotvect.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.hotvect.api.data.DataRecord;
+import com.hotvect.api.data.RawNamespace;
+import com.hotvect.api.data.RawValue;
+import com.hotvect.api.data.RawValueType;
+import com.hotvect.core.util.JsonRecordDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(2)
+@State(Scope.Benchmark)
+@SuppressWarnings("deprecation")
+public class JsonRecordDecoderBenchmark {
+    // The first featureCount namespaces are present in the input; the value types cycle through the namespaces
+    @Param({"8", "32"})
+    int featureCount;
+
+    public enum BenchmarkRawNamespace implements RawNamespace {
+        numerical_0(RawValueType.SINGLE_NUMERICAL),
+        categorical_0(RawValueType.SINGLE_CATEGORICAL),
+        string_0(RawValueType.SINGLE_STRING),
+        categoricals_0(RawValueType.CATEGORICALS),
+        numerical_1(RawValueType.SINGLE_NUMERICAL),
+        categorical_1(RawValueType.SINGLE_CATEGORICAL),
+        string_1(RawValueType.SINGLE_STRING),
+        categoricals_1(RawValueType.CATEGORICALS),
+        numerical_2(RawValueType.SINGLE_NUMERICAL),
+        categorical_2(RawValueType.SINGLE_CATEGORICAL),
+        string_2(RawValueType.SINGLE_STRING),
+        categoricals_2(RawValueType.CATEGORICALS),
+        numerical_3(RawValueType.SINGLE_NUMERICAL),
+        categorical_3(RawValueType.SINGLE_CATEGORICAL),
+        string_3(RawValueType.SINGLE_STRING),
+        categoricals_3(RawValueType.CATEGORICALS),
+        numerical_4(RawValueType.SINGLE_NUMERICAL),
+        categorical_4(RawValueType.SINGLE_CATEGORICAL),
+        string_4(RawValueType.SINGLE_STRING),
+        categoricals_4(RawValueType.CATEGORICALS),
+        numerical_5(RawValueType.SINGLE_NUMERICAL),
+        categorical_5(RawValueType.SINGLE_CATEGORICAL),
+        string_5(RawValueType.SINGLE_STRING),
+        categoricals_5(RawValueType.CATEGORICALS),
+        numerical_6(RawValueType.SINGLE_NUMERICAL),
+        categorical_6(RawValueType.SINGLE_CATEGORICAL),
+        string_6(RawValueType.SINGLE_STRING),
+        categoricals_6(RawValueType.CATEGORICALS),
+        numerical_7(RawValueType.SINGLE_NUMERICAL),
+        categorical_7(RawValueType.SINGLE_CATEGORICAL),
+        string_7(RawValueType.SINGLE_STRING),
+        categoricals_7(RawValueType.CATEGORICALS);
+
+        private final RawValueType valueType;
+
+        BenchmarkRawNamespace(RawValueType valueType) {
+            this.valueType = valueType;
+        }
+
+        @Override
+        public RawValueType getValueType() {
+            return valueType;
+        }
+    }
+
+    JsonRecordDecoder<BenchmarkRawNamespace> decoder;
+    String input;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        ObjectMapper objectMapper = new ObjectMapper();
+        ObjectNode record = objectMapper.createObjectNode();
+        BenchmarkRawNamespace[] namespaces = BenchmarkRawNamespace.values();
+        for (int i = 0; i < featureCount; i++) {
+            BenchmarkRawNamespace namespace = namespaces[i];
+            switch (namespace.getValueType()) {
+                case SINGLE_NUMERICAL -> record.put(namespace.name(), random.nextDouble());
+                case SINGLE_CATEGORICAL -> record.put(namespace.name(), random.nextInt(1000));
+                case SINGLE_STRING -> record.put(namespace.name(), "value-" + random.nextInt(1000));
+                case CATEGORICALS -> {
+                    var values = record.putArray(namespace.name());
+                    for (int j = 0; j < 4; j++) {
+                        values.add(random.nextInt(1000));
+                    }
+                }
+                default -> throw new AssertionError(namespace.getValueType());
+            }
+        }
+        decoder = new JsonRecordDecoder<>(BenchmarkRawNamespace.class);
+        input = record.toString();
+    }
+
+    @Benchmark
+    public DataRecord<BenchmarkRawNamespace, RawValue> decode() {
+        return decoder.apply(input);
+    }
+}
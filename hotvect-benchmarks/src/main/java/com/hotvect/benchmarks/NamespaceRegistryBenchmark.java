@@ -0,0 +1,85 @@
+package com.hotvect.benchmarks;
+
+import com.hotvect.api.data.CompoundNamespace;
+import com.hotvect.api.data.Namespace;
+import com.hotvect.api.data.RawValueType;
+import com.hotvect.core.transform.Namespaces;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolves already declared namespaces, as transformers do when they are built per request or in parallel. Run with
+ * {@code -threadCounts 1,4,16,64} to measure contention on the registries.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(2)
+@SuppressWarnings("removal")
+public class NamespaceRegistryBenchmark {
+    private static final int NAME_COUNT = 64;
+
+    enum Component implements Namespace { query, candidate, context }
+
+    @State(Scope.Benchmark)
+    public static class Registry {
+        String[] names;
+        String[] featureNames;
+        Namespace[] namespaces;
+
+        @Setup
+        public void setUp() {
+            names = new String[NAME_COUNT];
+            featureNames = new String[NAME_COUNT];
+            namespaces = new Namespace[NAME_COUNT];
+            for (int i = 0; i < NAME_COUNT; i++) {
+                names[i] = "registry_benchmark_" + i;
+                featureNames[i] = names[i] + "_feature";
+                namespaces[i] = Namespaces.declareNamespace(names[i]);
+                Namespaces.declareFeatureNamespace(RawValueType.SINGLE_STRING, featureNames[i]);
+                Namespaces.declareNamespace(namespaces[i], Component.query);
+            }
+            CompoundNamespace.declareNamespace(Component.query, Component.candidate);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        int nextIndex() {
+            return next++ & (NAME_COUNT - 1);
+        }
+    }
+
+    @Benchmark
+    public Namespace declareByName(Registry registry, Cursor cursor) {
+        return Namespaces.declareNamespace(registry.names[cursor.nextIndex()]);
+    }
+
+    @Benchmark
+    public Namespace declareComposite(Registry registry, Cursor cursor) {
+        return Namespaces.declareNamespace(registry.namespaces[cursor.nextIndex()], Component.query);
+    }
+
+    @Benchmark
+    public Namespace declareFeatureByName(Registry registry, Cursor cursor) {
+        return Namespaces.declareFeatureNamespace(RawValueType.SINGLE_STRING, registry.featureNames[cursor.nextIndex()]);
+    }
+
+    @Benchmark
+    public Namespace declareCompoundNamespace() {
+        return CompoundNamespace.declareNamespace(Component.query, Component.candidate);
+    }
+}
@@ -0,0 +1,83 @@
+package com.hotvect.benchmarks;
+
+import com.hotvect.api.data.Namespace;
+import com.hotvect.api.data.RawValueType;
+import com.hotvect.api.data.ranking.RankingRequest;
+import com.hotvect.api.data.ranking.TransformedAction;
+import com.hotvect.core.transform.Namespaces;
+import com.hotvect.core.transform.ranking.StandardRankingTransformer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(2)
+@State(Scope.Benchmark)
+public class StandardRankingTransformerBenchmark {
+    // Features alternate between action features, interactions with the shared budget, and interactions that read
+    // a cached shared computation, so that all three memoization paths are exercised in proportion to featureCount
+    @Param({"10", "100", "1000"})
+    int candidateCount;
+
+    @Param({"8", "32"})
+    int featureCount;
+
+    StandardRankingTransformer<BenchmarkQuery, BenchmarkCandidate> transformer;
+    RankingRequest<BenchmarkQuery, BenchmarkCandidate> request;
+
+    @Setup
+    public void setUp() {
+        Namespace queryTokens = Namespaces.declareNamespace("benchmark_query_tokens");
+        Namespace titleTokens = Namespaces.declareNamespace("benchmark_title_tokens");
+
+        StandardRankingTransformer.Builder<BenchmarkQuery, BenchmarkCandidate> builder = StandardRankingTransformer.builder();
+        builder.withSharedComputation(queryTokens,
+                memoized -> Set.copyOf(Arrays.asList(memoized.getOriginalInput().shared().query().split(" "))), true);
+        builder.withActionComputation(titleTokens,
+                memoized -> Set.copyOf(Arrays.asList(memoized.getOriginalInput().title().split(" "))), true);
+
+        for (int i = 0; i < featureCount; i++) {
+            int signal = i;
+            Namespace feature = Namespaces.declareFeatureNamespace(RawValueType.SINGLE_NUMERICAL, "benchmark_feature_" + i);
+            switch (i % 3) {
+                case 0 -> builder.withActionComputation(feature,
+                        memoized -> memoized.getOriginalInput().signals()[signal]);
+                case 1 -> builder.withInteractionComputation(feature, candidate -> {
+                    BenchmarkCandidate action = candidate.getAction().getOriginalInput();
+                    double budget = candidate.getShared().getOriginalInput().shared().budget();
+                    return action.price() <= budget ? action.signals()[signal] : 0.0;
+                });
+                default -> builder.withInteractionComputation(feature, candidate -> {
+                    Set<String> query = candidate.getShared().compute(queryTokens);
+                    Set<String> title = candidate.getAction().compute(titleTokens);
+                    long matches = query.stream().filter(title::contains).count();
+                    return (double) matches / query.size() * candidate.getAction().getOriginalInput().signals()[signal];
+                });
+            }
+            builder.withFeature(feature.getName());
+        }
+        transformer = builder.build();
+        request = BenchmarkRequests.rankingRequest(candidateCount, featureCount);
+    }
+
+    @Benchmark
+    public List<TransformedAction<BenchmarkCandidate>> transform() {
+        return transformer.transform(transformer.prepare(request));
+    }
+}
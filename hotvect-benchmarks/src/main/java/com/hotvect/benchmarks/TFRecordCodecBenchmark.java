@@ -0,0 +1,111 @@
+package com.hotvect.benchmarks;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.hotvect.tensorflow.TFRecordCodec;
+import com.hotvect.tensorflow.TFRecordReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+/**
+ * Measures TFRecord framing and verified reading per record, and the CRC32C checksum that dominates both, computed
+ * with Guava (as {@link TFRecordCodec} did before) and with the JDK's intrinsified {@link CRC32C}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(2)
+@State(Scope.Thread)
+public class TFRecordCodecBenchmark {
+    // Scores are per record; each invocation frames a batch of records as the encoder does for one request
+    private static final int RECORDS_PER_INVOCATION = 100;
+    private static final HashFunction GUAVA_CRC32C = Hashing.crc32c();
+
+    @Param({"100", "1024", "65536"})
+    int recordSize;
+
+    TFRecordCodec codec;
+    byte[] record;
+    byte[] encoded;
+    ByteArrayOutputStream out;
+
+    @Setup
+    public void setUp() throws IOException {
+        codec = new TFRecordCodec();
+        record = new byte[recordSize];
+        new Random(42).nextBytes(record);
+        out = new ByteArrayOutputStream(RECORDS_PER_INVOCATION * codec.recordLength(record));
+        write();
+        encoded = out.toByteArray();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS_PER_INVOCATION)
+    public int write() throws IOException {
+        out.reset();
+        WritableByteChannel channel = Channels.newChannel(out);
+        for (int i = 0; i < RECORDS_PER_INVOCATION; i++) {
+            codec.write(channel, record);
+        }
+        return out.size();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS_PER_INVOCATION)
+    public int read() throws IOException {
+        ReadableByteChannel channel = Channels.newChannel(new ByteArrayInputStream(encoded));
+        int ret = 0;
+        for (int i = 0; i < RECORDS_PER_INVOCATION; i++) {
+            ret += codec.read(channel).length;
+        }
+        return ret;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS_PER_INVOCATION)
+    public long verifiedRead() throws IOException {
+        // Size the buffer to the input, so small records do not pay for allocating the default 1 MB buffer
+        TFRecordReader reader = new TFRecordReader(
+                Channels.newChannel(new ByteArrayInputStream(encoded)),
+                Math.min(encoded.length, 1 << 20)
+        );
+        long ret = 0;
+        for (int i = 0; i < RECORDS_PER_INVOCATION; i++) {
+            ret += reader.next().remaining();
+        }
+        return ret;
+    }
+
+    @Benchmark
+    public int guavaChecksum() {
+        return GUAVA_CRC32C.hashBytes(record).asInt();
+    }
+
+    @Benchmark
+    public long jdkChecksum() {
+        CRC32C crc = new CRC32C();
+        crc.update(record);
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,129 @@
+package com.hotvect.benchmarks;
+
+import com.hotvect.tensorflow.TFRecordCodec;
+import com.hotvect.tensorflow.TFRecordFileWriter;
+import com.hotvect.tensorflow.TFRecordWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tensorflow.proto.Example;
+import org.tensorflow.proto.Feature;
+import org.tensorflow.proto.Features;
+import org.tensorflow.proto.FloatList;
+import org.tensorflow.proto.Int64List;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares framing {@code Example} protos as TFRecords through {@code toByteArray} copies with serializing them in
+ * place, both into one buffer per request, as {@code TFRecordRankingEncoder} does, and into a file.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(2)
+@State(Scope.Thread)
+public class TFRecordWriterBenchmark {
+    // Scores are per record; each invocation frames the examples of one request
+    private static final int RECORDS_PER_INVOCATION = 100;
+
+    // Number of float and int64 values per example; 16 values serialize to roughly 200 bytes
+    @Param({"16", "256", "4096"})
+    int valuesPerExample;
+
+    List<Example> examples;
+    TFRecordWriter tfRecordWriter;
+    TFRecordCodec codec;
+    Path file;
+    FileChannel channel;
+    TFRecordFileWriter fileWriter;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        examples = new ArrayList<>(RECORDS_PER_INVOCATION);
+        for (int i = 0; i < RECORDS_PER_INVOCATION; i++) {
+            FloatList.Builder floats = FloatList.newBuilder();
+            Int64List.Builder ints = Int64List.newBuilder();
+            for (int j = 0; j < valuesPerExample; j++) {
+                floats.addValue(random.nextFloat());
+                ints.addValue(random.nextInt(1 << 20));
+            }
+            examples.add(Example.newBuilder()
+                    .setFeatures(Features.newBuilder()
+                            .putFeature("Label", Feature.newBuilder().setInt64List(Int64List.newBuilder().addValue(i % 2)).build())
+                            .putFeature("floats", Feature.newBuilder().setFloatList(floats).build())
+                            .putFeature("ints", Feature.newBuilder().setInt64List(ints).build()))
+                    .build());
+        }
+        tfRecordWriter = new TFRecordWriter();
+        codec = new TFRecordCodec();
+        file = Files.createTempFile("tfrecord-writer-benchmark", ".tfrecord");
+        channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        fileWriter = new TFRecordFileWriter(channel);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        fileWriter.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS_PER_INVOCATION)
+    public ByteBuffer copyingBuffer() {
+        List<ByteBuffer> buffers = new ArrayList<>(examples.size());
+        for (Example example : examples) {
+            buffers.add(ByteBuffer.wrap(example.toByteArray()));
+        }
+        return tfRecordWriter.createTfRecordByteBuffer(buffers);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS_PER_INVOCATION)
+    public ByteBuffer inPlaceBuffer() {
+        return tfRecordWriter.encodeMessages(examples);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS_PER_INVOCATION)
+    public long copyingFile() throws IOException {
+        // Overwrite the same region, so the file does not grow with the number of invocations
+        channel.position(0);
+        for (Example example : examples) {
+            codec.write(channel, example.toByteArray());
+        }
+        return channel.position();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS_PER_INVOCATION)
+    public long gatheringFile() throws IOException {
+        channel.position(0);
+        for (Example example : examples) {
+            fileWriter.write(example);
+        }
+        return fileWriter.recordsWritten();
+    }
+}
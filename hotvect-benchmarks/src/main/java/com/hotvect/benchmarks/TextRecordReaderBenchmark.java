@@ -0,0 +1,111 @@
+package com.hotvect.benchmarks;
+
+import com.hotvect.onlineutils.concurrency.fileutils.MappedTextRecordReader;
+import com.hotvect.onlineutils.concurrency.fileutils.RecordReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long it takes to read every line of a JSON lines file with the buffered {@link RecordReader} that
+ * {@link RecordReader#create(File)} returns, with one {@link MappedTextRecordReader}, and with one
+ * {@link MappedTextRecordReader} per chunk on a pool of threads. Use {@code -p fileSizeMb=4096} to measure multi-GB
+ * files; the file is written once per fork and is usually in the page cache when it is read.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TextRecordReaderBenchmark {
+    @Param({"512"})
+    long fileSizeMb;
+
+    @Param({"8"})
+    int threads;
+
+    private File file;
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = File.createTempFile("text-record-reader-benchmark", ".jsonl");
+        file.deleteOnExit();
+        Random random = new Random(42);
+        long target = fileSizeMb << 20;
+        long written = 0;
+        try (BufferedWriter out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            for (long i = 0; written < target; i++) {
+                String line = "{\"id\":" + i + ",\"query\":\"q" + random.nextInt(100_000)
+                        + "\",\"features\":[" + random.nextDouble() + "," + random.nextDouble() + "],\"label\":\""
+                        + "x".repeat(random.nextInt(200)) + "\"}\n";
+                out.write(line);
+                written += line.length();
+            }
+        }
+        executor = Executors.newFixedThreadPool(threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+        file.delete();
+    }
+
+    @Benchmark
+    public long bufferedReader() throws Exception {
+        return consume(RecordReader.create(file));
+    }
+
+    @Benchmark
+    public long memoryMapped() throws Exception {
+        return consume(new MappedTextRecordReader(file));
+    }
+
+    @Benchmark
+    public long memoryMappedChunks() throws Exception {
+        List<Future<Long>> handles = new ArrayList<>();
+        for (MappedTextRecordReader.Chunk chunk : MappedTextRecordReader.chunks(file, MappedTextRecordReader.DEFAULT_CHUNK_SIZE)) {
+            handles.add(executor.submit(() -> consume(new MappedTextRecordReader(chunk))));
+        }
+        long ret = 0;
+        for (Future<Long> handle : handles) {
+            ret += handle.get();
+        }
+        return ret;
+    }
+
+    private static long consume(RecordReader<String> reader) throws Exception {
+        long ret = 0;
+        try (reader) {
+            while (reader.hasNext()) {
+                ret += reader.next().length();
+            }
+        }
+        return ret;
+    }
+}
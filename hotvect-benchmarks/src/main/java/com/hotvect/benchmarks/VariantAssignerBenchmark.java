@@ -0,0 +1,114 @@
+package com.hotvect.benchmarks;
+
+import com.google.common.collect.ImmutableMap;
+import com.hotvect.onlineutils.experimentmanagement.models.AlgorithmMetadata;
+import com.hotvect.onlineutils.experimentmanagement.models.Experiment;
+import com.hotvect.onlineutils.experimentmanagement.models.ExperimentConfiguration;
+import com.hotvect.onlineutils.experimentmanagement.models.ExperimentationState;
+import com.hotvect.onlineutils.experimentmanagement.models.Shard;
+import com.hotvect.onlineutils.experimentmanagement.models.Variant;
+import com.hotvect.onlineutils.experimentmanagement.models.VariantConfiguration;
+import com.hotvect.onlineutils.experimentmanagement.variantassignment.VariantAssigner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(2)
+@State(Scope.Thread)
+public class VariantAssignerBenchmark {
+    private static final int TOTAL_NUMBER_OF_SHARDS = 100;
+    private static final Instant CREATED_AT = Instant.parse("2026-04-12T10:15:30Z");
+
+    @Param({"2", "8"})
+    int variantCount;
+
+    // Below 100, assignment also hashes the ramp-up bucket
+    @Param({"50", "100"})
+    int rampUpPercentage;
+
+    ExperimentationState experimentationState;
+    String[] customerNumbers;
+    int next;
+
+    @Setup
+    public void setUp() {
+        Variant defaultVariant = variant(1);
+        VariantConfiguration defaultVariantConfiguration = new VariantConfiguration(defaultVariant, null);
+        Map<Integer, VariantConfiguration> variantConfigurations = new HashMap<>();
+        variantConfigurations.put(defaultVariant.variantId(), defaultVariantConfiguration);
+
+        List<Variant> experimentVariants = new ArrayList<>(variantCount);
+        List<VariantConfiguration> experimentVariantConfigurations = new ArrayList<>(variantCount);
+        for (int i = 0; i < variantCount; i++) {
+            Variant variant = variant(i + 2);
+            experimentVariants.add(variant);
+            VariantConfiguration variantConfiguration = new VariantConfiguration(variant, null);
+            experimentVariantConfigurations.add(variantConfiguration);
+            variantConfigurations.put(variant.variantId(), variantConfiguration);
+        }
+
+        // The experiment runs on every other shard, so half of the customers fall back to the default variant
+        List<Shard> shards = new ArrayList<>();
+        for (int shardId = 0; shardId < TOTAL_NUMBER_OF_SHARDS; shardId += 2) {
+            shards.add(new Shard(shardId, CREATED_AT));
+        }
+        ExperimentConfiguration experimentConfiguration = new ExperimentConfiguration(
+                new Experiment(100, "experiment-100", experimentVariants, rampUpPercentage, shards),
+                experimentVariantConfigurations);
+        Map<Integer, ExperimentConfiguration> shardIdToExperimentConfiguration = new HashMap<>();
+        shards.forEach(shard -> shardIdToExperimentConfiguration.put(shard.shardId(), experimentConfiguration));
+
+        experimentationState = new ExperimentationState(
+                variantCount + 1,
+                ImmutableMap.copyOf(shardIdToExperimentConfiguration),
+                ImmutableMap.copyOf(variantConfigurations),
+                ImmutableMap.of(),
+                "slot-salt",
+                defaultVariantConfiguration);
+
+        customerNumbers = new String[1024];
+        for (int i = 0; i < customerNumbers.length; i++) {
+            customerNumbers[i] = "customer-" + i;
+        }
+    }
+
+    private static Variant variant(int variantId) {
+        return new Variant(
+                variantId,
+                new AlgorithmMetadata(
+                        "algorithm-" + variantId,
+                        "1.0.0",
+                        "parameter-" + variantId,
+                        "s3://bucket/algorithm-" + variantId + ".jar",
+                        "s3://bucket/parameter-" + variantId + ".zip"),
+                CREATED_AT,
+                false,
+                false,
+                1);
+    }
+
+    @Benchmark
+    public VariantConfiguration assignVariant() {
+        String customerNumber = customerNumbers[next++ & (customerNumbers.length - 1)];
+        return VariantAssigner.assignVariant(customerNumber, experimentationState, TOTAL_NUMBER_OF_SHARDS);
+    }
+}
@@ -0,0 +1,113 @@
+package com.hotvect.benchmarks;
+
+import com.hotvect.core.vector.VectorKernels;
+import com.hotvect.core.vector.VectorMath;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the scalar and SIMD kernels of {@link VectorKernels} at typical embedding dimensions. The forks add the
+ * Vector API module, so {@code kernels=simd} fails only on JVMs or CPUs without it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 2, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Thread)
+public class VectorMathBenchmark {
+    private static final int CANDIDATES = 1_000;
+
+    @Param({"64", "256", "768"})
+    int dimension;
+
+    @Param({"scalar", "simd"})
+    String kernels;
+
+    private VectorKernels vectorKernels;
+    private float[] a;
+    private float[] b;
+    private double[] aDoubles;
+    private double[] bDoubles;
+    private float[] candidates;
+    private float[] narrowed;
+
+    @Setup
+    public void setUp() {
+        vectorKernels = "simd".equals(kernels) ? VectorKernels.simd() : VectorKernels.scalar();
+        Random random = new Random(42);
+        aDoubles = randomDoubles(random, dimension);
+        bDoubles = randomDoubles(random, dimension);
+        a = VectorMath.toFloat(aDoubles);
+        b = VectorMath.toFloat(bDoubles);
+        candidates = VectorMath.toFloat(randomDoubles(random, dimension * CANDIDATES));
+        narrowed = new float[dimension];
+    }
+
+    @Benchmark
+    public float dot() {
+        return vectorKernels.dot(a, 0, b, 0, dimension);
+    }
+
+    @Benchmark
+    public double dotDoubles() {
+        return vectorKernels.dot(aDoubles, 0, bDoubles, 0, dimension);
+    }
+
+    @Benchmark
+    public float cosine() {
+        return vectorKernels.cosine(a, 0, b, 0, dimension);
+    }
+
+    @Benchmark
+    public float squaredL2() {
+        return vectorKernels.squaredL2(a, 0, b, 0, dimension);
+    }
+
+    @Benchmark
+    public float[] toFloat() {
+        vectorKernels.toFloat(aDoubles, 0, narrowed, 0, dimension);
+        return narrowed;
+    }
+
+    /**
+     * Scores {@value #CANDIDATES} candidates, as a top-k similarity search does before selecting. The selection itself
+     * does not depend on the kernels.
+     */
+    @Benchmark
+    public float cosineOverCandidates() {
+        float max = Float.NEGATIVE_INFINITY;
+        for (int offset = 0; offset < candidates.length; offset += dimension) {
+            max = Math.max(max, vectorKernels.cosine(a, 0, candidates, offset, dimension));
+        }
+        return max;
+    }
+
+    /**
+     * Top 10 of {@value #CANDIDATES} candidates on the preferred kernels, including selection.
+     */
+    @Benchmark
+    public int[] topK() {
+        return VectorMath.topK(a, candidates, 10, VectorMath.Similarity.COSINE);
+    }
+
+    private static double[] randomDoubles(Random random, int length) {
+        double[] ret = new double[length];
+        for (int i = 0; i < length; i++) {
+            ret[i] = random.nextGaussian();
+        }
+        return ret;
+    }
+}
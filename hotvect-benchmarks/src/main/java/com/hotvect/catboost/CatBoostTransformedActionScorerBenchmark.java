@@ -0,0 +1,95 @@
+package com.hotvect.catboost;
+
+import com.hotvect.api.data.AvailableAction;
+import com.hotvect.api.data.Namespace;
+import com.hotvect.api.data.ValueType;
+import com.hotvect.api.data.scoring.ScoringDecision;
+import com.hotvect.core.transform.ranking.TransformedBatch;
+import com.hotvect.onlineutils.nativelibraries.catboost.HotvectCatBoostModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scores columnar batches with the example model from the hotvect-catboost test jar. Lives in the scorer's package
+ * because {@link CatBoostTransformedActionScorer} is package-private.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(2)
+@State(Scope.Benchmark)
+public class CatBoostTransformedActionScorerBenchmark {
+    @Param({"100", "1000", "5000"})
+    int candidateCount;
+
+    @Param({"false", "true"})
+    boolean hashedCategoricals;
+
+    private enum BenchmarkNamespace implements Namespace {
+        CAT {
+            @Override
+            public ValueType getFeatureValueType() {
+                return CatBoostFeatureType.CATEGORICAL;
+            }
+        },
+        NUM {
+            @Override
+            public ValueType getFeatureValueType() {
+                return CatBoostFeatureType.NUMERICAL;
+            }
+        }
+    }
+
+    HotvectCatBoostModel model;
+    CatBoostTransformedActionScorer<String> scorer;
+    TransformedBatch<String> batch;
+
+    @Setup
+    public void setUp() {
+        model = HotvectCatBoostModel.loadModel(
+                CatBoostTransformedActionScorerBenchmark.class.getResourceAsStream("categorical_example_model.bin")
+        );
+        scorer = new CatBoostTransformedActionScorer<>(
+                Set.of(BenchmarkNamespace.CAT, BenchmarkNamespace.NUM), model, "regression", true, hashedCategoricals);
+
+        List<AvailableAction<String>> actions = new ArrayList<>(candidateCount);
+        String[] cat = new String[candidateCount];
+        double[] num = new double[candidateCount];
+        for (int i = 0; i < candidateCount; i++) {
+            actions.add(AvailableAction.of("a" + i, "a" + i));
+            cat[i] = "a" + (i % 4);
+            num[i] = i;
+        }
+        TransformedBatch.Layout layout = new TransformedBatch.Layout(
+                new Namespace[]{BenchmarkNamespace.CAT, BenchmarkNamespace.NUM},
+                new TransformedBatch.ColumnType[]{TransformedBatch.ColumnType.STRING, TransformedBatch.ColumnType.DOUBLE}
+        );
+        batch = new TransformedBatch<>(actions, layout, new Object[]{cat, num});
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        model.close();
+    }
+
+    @Benchmark
+    public List<ScoringDecision<String>> scoreColumnar() {
+        return scorer.scoreColumnar(batch);
+    }
+}
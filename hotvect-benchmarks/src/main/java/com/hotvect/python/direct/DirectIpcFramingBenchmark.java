@@ -0,0 +1,237 @@
+package com.hotvect.python.direct;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes WORK frames and reads and decodes RESULT frames through the per-connection {@link DirectIpcProtocol.FrameWriter}
+ * and {@link DirectIpcProtocol.FrameReader}, against the stream-based framing they replaced ({@code legacy*}), which
+ * copied every WORK payload into one array, allocated every incoming frame and decoded floats one at a time.
+ *
+ * <p>The channels are in memory, so this measures the copies, allocations and decoding on the Java side only. Lives
+ * in the protocol's package because {@link DirectIpcProtocol} is package-private.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(2)
+@State(Scope.Benchmark)
+public class DirectIpcFramingBenchmark {
+    private static final int MAX_FRAME_BYTES = 64 * 1024 * 1024;
+
+    // Floats in a RESULT, and float32 values in the WORK payloads
+    @Param({"1000", "10000", "100000"})
+    int floatCount;
+
+    List<byte[]> payloads;
+    byte[] resultFrame;
+
+    ReplayingChannel resultChannel;
+    DirectIpcProtocol.FrameReader reader;
+    DirectIpcProtocol.FrameWriter writer;
+
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        // Split into a few payloads, like one serialized tensor per feature
+        int payloadCount = 4;
+        payloads = new ArrayList<>(payloadCount);
+        for (int i = 0; i < payloadCount; i++) {
+            byte[] payload = new byte[floatCount * Float.BYTES / payloadCount];
+            random.nextBytes(payload);
+            payloads.add(payload);
+        }
+
+        ByteArrayOutputStream frame = new ByteArrayOutputStream();
+        legacyWriteFrame(frame, encodeResult("request-id", floatCount, random));
+        resultFrame = frame.toByteArray();
+
+        resultChannel = new ReplayingChannel(resultFrame);
+        reader = new DirectIpcProtocol.FrameReader(resultChannel, MAX_FRAME_BYTES);
+        writer = new DirectIpcProtocol.FrameWriter(new DiscardingChannel(), MAX_FRAME_BYTES);
+    }
+
+    @Benchmark
+    public void writeWork() throws IOException {
+        writer.writeFrame(DirectIpcProtocol.encodeWork("request-id", floatCount, payloads, null));
+    }
+
+    @Benchmark
+    public void legacyWriteWork() throws IOException {
+        legacyWriteFrame(OutputStream.nullOutputStream(), legacyEncodeWork("request-id", floatCount, payloads));
+    }
+
+    @Benchmark
+    public DirectIpcProtocol.DecodedMessage readResult() throws IOException {
+        resultChannel.rewind();
+        return DirectIpcProtocol.decode(reader.readFrame());
+    }
+
+    @Benchmark
+    public float[] legacyReadResult() throws IOException {
+        return legacyDecodeResult(legacyReadFrame(new ByteArrayInputStream(resultFrame)));
+    }
+
+    // Mirrors the RESULT frame written by the Python worker
+    private static byte[] encodeResult(String requestId, int floatCount, Random random) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(baos);
+        out.writeByte(DirectIpcProtocol.OP_RESULT);
+        byte[] requestIdBytes = requestId.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(requestIdBytes.length);
+        out.write(requestIdBytes);
+        out.writeInt(floatCount);
+        for (int i = 0; i < floatCount; i++) {
+            out.writeFloat(random.nextFloat());
+        }
+        out.writeInt(0);
+        out.flush();
+        return baos.toByteArray();
+    }
+
+    private static byte[] legacyEncodeWork(String requestId, int batchSize, List<byte[]> payloads) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(1024);
+        DataOutputStream out = new DataOutputStream(baos);
+        out.writeByte(DirectIpcProtocol.OP_WORK);
+        byte[] requestIdBytes = requestId.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(requestIdBytes.length);
+        out.write(requestIdBytes);
+        out.writeInt(batchSize);
+        out.writeInt(payloads.size());
+        for (byte[] bytes : payloads) {
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        out.flush();
+        return baos.toByteArray();
+    }
+
+    private static void legacyWriteFrame(OutputStream out, byte[] payload) throws IOException {
+        ByteBuffer hdr = ByteBuffer.allocate(4);
+        hdr.putInt(payload.length);
+        out.write(hdr.array());
+        out.write(payload);
+        out.flush();
+    }
+
+    private static byte[] legacyReadFrame(InputStream in) throws IOException {
+        int len = ByteBuffer.wrap(in.readNBytes(4)).getInt();
+        byte[] payload = in.readNBytes(len);
+        if (payload.length < len) {
+            throw new EOFException("Unexpected EOF while reading " + len + " bytes");
+        }
+        return payload;
+    }
+
+    private static float[] legacyDecodeResult(byte[] payload) throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(payload);
+        buf.get();
+        int requestIdLength = buf.getShort() & 0xFFFF;
+        buf.position(buf.position() + requestIdLength);
+        float[] output = new float[buf.getInt()];
+        for (int i = 0; i < output.length; i++) {
+            if (buf.remaining() < 4) {
+                throw new EOFException("Truncated float32");
+            }
+            output[i] = buf.getFloat();
+        }
+        return output;
+    }
+
+    /**
+     * Serves the same bytes again after each {@link #rewind()}.
+     */
+    private static final class ReplayingChannel implements ReadableByteChannel {
+        private final ByteBuffer bytes;
+
+        ReplayingChannel(byte[] bytes) {
+            this.bytes = ByteBuffer.wrap(bytes);
+        }
+
+        void rewind() {
+            bytes.rewind();
+        }
+
+        @Override
+        public int read(ByteBuffer dst) {
+            if (!bytes.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(dst.remaining(), bytes.remaining());
+            dst.put(dst.position(), bytes, bytes.position(), n);
+            dst.position(dst.position() + n);
+            bytes.position(bytes.position() + n);
+            return n;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Consumes everything written to it, like a socket with an empty send buffer.
+     */
+    private static final class DiscardingChannel implements GatheringByteChannel {
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) {
+            long written = 0;
+            for (int i = offset; i < offset + length; i++) {
+                written += write(srcs[i]);
+            }
+            return written;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs) {
+            return write(srcs, 0, srcs.length);
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            int n = src.remaining();
+            src.position(src.limit());
+            return n;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.hotvect.python.direct;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes WORK frames and decodes RESULT frames as the Java side of the direct IPC transport does for each request.
+ * Lives in the protocol's package because {@link DirectIpcProtocol} is package-private.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(2)
+@State(Scope.Benchmark)
+public class DirectIpcProtocolBenchmark {
+    @Param({"10", "100", "1000"})
+    int candidateCount;
+
+    // Size of each encoded candidate payload, which grows with the number of features
+    @Param({"64", "512"})
+    int payloadSize;
+
+    List<byte[]> payloads;
+    byte[] result;
+
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        payloads = new ArrayList<>(candidateCount);
+        for (int i = 0; i < candidateCount; i++) {
+            byte[] payload = new byte[payloadSize];
+            random.nextBytes(payload);
+            payloads.add(payload);
+        }
+        result = encodeResult("request-id", candidateCount, random);
+    }
+
+    // Mirrors the RESULT frame written by the Python worker
+    private static byte[] encodeResult(String requestId, int floatCount, Random random) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(baos);
+        out.writeByte(DirectIpcProtocol.OP_RESULT);
+        byte[] requestIdBytes = requestId.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(requestIdBytes.length);
+        out.write(requestIdBytes);
+        out.writeInt(floatCount);
+        for (int i = 0; i < floatCount; i++) {
+            out.writeFloat(random.nextFloat());
+        }
+        out.flush();
+        return baos.toByteArray();
+    }
+
+    @Benchmark
+    public DirectIpcProtocol.EncodedWork encodeWork() throws IOException {
+        return DirectIpcProtocol.encodeWork("request-id", candidateCount, payloads, null);
+    }
+
+    @Benchmark
+    public DirectIpcProtocol.DecodedMessage decodeResult() throws IOException {
+        return DirectIpcProtocol.decode(result);
+    }
+}
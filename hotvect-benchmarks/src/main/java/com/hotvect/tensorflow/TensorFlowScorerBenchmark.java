@@ -0,0 +1,236 @@
+package com.hotvect.tensorflow;
+
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import com.google.protobuf.ByteString;
+import com.hotvect.api.data.Namespace;
+import com.hotvect.api.data.ValueType;
+import com.hotvect.api.data.common.NamespacedRecordImpl;
+import com.hotvect.api.data.ranking.TransformedAction;
+import com.hotvect.api.data.scoring.ScoringDecision;
+import com.hotvect.python.direct.DirectWorkerManager;
+import com.hotvect.python.direct.DirectWorkersConfig;
+import com.hotvect.python.direct.PythonWorkerCommand;
+import com.hotvect.python.direct.QueueFullPolicy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tensorflow.proto.ConfigProto;
+import org.tensorflow.proto.DataType;
+import org.tensorflow.proto.TensorProto;
+import org.tensorflow.proto.TensorShapeProto;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * Scores the tiny SavedModel from the hotvect-tensorflow test jar in process, and through the Python TensorFlow
+ * direct worker with the same inputs. Both include encoding the transformed actions; the direct worker additionally
+ * serializes one {@code TensorProto} per feature and pays for the round trip to the worker.
+ *
+ * <p>{@code directIpc} starts the worker with the interpreter named by the {@code hotvect.benchmark.python} system
+ * property (default {@code python3}), which needs TensorFlow and the hotvect Python package. Lives in the scorer's
+ * package because {@link TensorFlowTransformedActionScorer} is package-private.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(2)
+public class TensorFlowScorerBenchmark {
+    private enum BenchmarkNamespace implements Namespace {
+        COUNT(TensorFlowFeatureType.CATEGORICAL),
+        DENSE(TensorFlowFeatureType.numericalSequence(4)),
+        QUERY(TensorFlowFeatureType.STRING);
+
+        private final TensorFlowFeatureType featureType;
+
+        BenchmarkNamespace(TensorFlowFeatureType featureType) {
+            this.featureType = featureType;
+        }
+
+        @Override
+        public ValueType getFeatureValueType() {
+            return featureType;
+        }
+
+        // The input names of the model
+        @Override
+        public String toString() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    // Sorted by name, the column order of the direct worker
+    private static final List<BenchmarkNamespace> FEATURES = List.of(
+            BenchmarkNamespace.COUNT,
+            BenchmarkNamespace.DENSE,
+            BenchmarkNamespace.QUERY
+    );
+
+    @State(Scope.Benchmark)
+    public static class Candidates {
+        @Param({"10", "100", "1000"})
+        int candidateCount;
+
+        List<TransformedAction<String>> actions;
+
+        @Setup
+        public void setUp() {
+            Random random = new Random(42);
+            actions = new ArrayList<>(candidateCount);
+            for (int i = 0; i < candidateCount; i++) {
+                NamespacedRecordImpl<Namespace, Object> record = new NamespacedRecordImpl<>();
+                record.put(BenchmarkNamespace.COUNT, random.nextInt(100));
+                record.put(BenchmarkNamespace.DENSE, new float[]{random.nextFloat(), random.nextFloat(), random.nextFloat(), random.nextFloat()});
+                record.put(BenchmarkNamespace.QUERY, "query-" + random.nextInt(10));
+                actions.add(TransformedAction.of("a" + i, "a" + i, record));
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class InProcess {
+        TensorFlowTransformedActionScorer<String> scorer;
+
+        @Setup
+        public void setUp() {
+            scorer = new TensorFlowTransformedActionScorer<>(FEATURES, TensorFlowBulkScorerFactory.loadSavedModel(
+                    Map.of(
+                            TensorFlowBulkScorerFactory.SAVED_MODEL_PARAMETER_PREFIX + "saved_model.pb",
+                            tinySavedModel()
+                    ),
+                    ConfigProto.getDefaultInstance()
+            ));
+        }
+
+        @TearDown
+        public void tearDown() {
+            scorer.close();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class DirectIpc {
+        Path directory;
+        DirectWorkerManager manager;
+
+        @Setup
+        public void setUp() throws IOException {
+            directory = Files.createTempDirectory("tensorflow-scorer-benchmark");
+            Path modelDirectory = Files.createDirectories(directory.resolve("model"));
+            try (InputStream in = tinySavedModel()) {
+                Files.copy(in, modelDirectory.resolve("saved_model.pb"));
+            }
+            Path schema = directory.resolve("schema.json");
+            Files.writeString(schema, """
+                    {"features": [
+                      {"name": "count", "dtype": "int64", "shape": []},
+                      {"name": "dense", "dtype": "float32", "shape": [4]},
+                      {"name": "query", "dtype": "string", "shape": []}
+                    ]}
+                    """);
+
+            manager = new DirectWorkerManager(
+                    new PythonWorkerCommand(
+                            System.getProperty("hotvect.benchmark.python", "python3"),
+                            "hotvect.direct_worker.tensorflow_worker",
+                            List.of("--model-path", modelDirectory.toString(), "--schema-path", schema.toString())
+                    ),
+                    new DirectWorkersConfig(
+                            List.of(""),
+                            Duration.ofMinutes(2),
+                            Duration.ofSeconds(30),
+                            Duration.ofSeconds(5),
+                            Duration.ofSeconds(2),
+                            Duration.ofSeconds(10),
+                            20,
+                            QueueFullPolicy.REJECT,
+                            1,
+                            Duration.ZERO,
+                            16 * 1024 * 1024,
+                            directory
+                    )
+            );
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            manager.close();
+            MoreFiles.deleteRecursively(directory, RecursiveDeleteOption.ALLOW_INSECURE);
+        }
+    }
+
+    @Benchmark
+    public List<ScoringDecision<String>> inProcess(Candidates candidates, InProcess inProcess) {
+        return inProcess.scorer.scoreTransformed(candidates.actions);
+    }
+
+    @Benchmark
+    public float[] directIpc(Candidates candidates, DirectIpc directIpc) throws Exception {
+        List<TransformedAction<String>> actions = candidates.actions;
+        List<byte[]> payloads = new ArrayList<>(FEATURES.size());
+        for (BenchmarkNamespace feature : FEATURES) {
+            payloads.add(tensorProto(feature, actions.size(), row -> actions.get(row).transformed().get(feature)).toByteArray());
+        }
+        return directIpc.manager.submit("benchmark", actions.size(), payloads).get().output();
+    }
+
+    /**
+     * Encodes a column as the {@code TensorProto} that {@code tf.io.parse_tensor} decodes in the worker.
+     */
+    private static TensorProto tensorProto(BenchmarkNamespace feature, int rows, IntFunction<Object> values) {
+        TensorShapeProto.Builder shape = TensorShapeProto.newBuilder();
+        for (long dim : TensorFlowFeatureColumns.shape(feature.featureType, rows).asArray()) {
+            shape.addDim(TensorShapeProto.Dim.newBuilder().setSize(dim));
+        }
+        TensorProto.Builder builder = TensorProto.newBuilder().setTensorShape(shape);
+        switch (feature.featureType.tensorflowDTypeName()) {
+            case "float32" -> {
+                float[] floats = TensorFlowFeatureColumns.floats(feature.getName(), feature.featureType, rows, values);
+                ByteBuffer content = ByteBuffer.allocate(floats.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                content.asFloatBuffer().put(floats);
+                builder.setDtype(DataType.DT_FLOAT).setTensorContent(ByteString.copyFrom(content));
+            }
+            case "int64" -> {
+                long[] longs = TensorFlowFeatureColumns.longs(feature.getName(), feature.featureType, rows, values);
+                ByteBuffer content = ByteBuffer.allocate(longs.length * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                content.asLongBuffer().put(longs);
+                builder.setDtype(DataType.DT_INT64).setTensorContent(ByteString.copyFrom(content));
+            }
+            default -> {
+                builder.setDtype(DataType.DT_STRING);
+                Arrays.stream(TensorFlowFeatureColumns.strings(rows, values))
+                        .forEach(s -> builder.addStringVal(ByteString.copyFrom(s, StandardCharsets.UTF_8)));
+            }
+        }
+        return builder.build();
+    }
+
+    private static InputStream tinySavedModel() {
+        return TensorFlowScorerBenchmark.class.getResourceAsStream("tiny_saved_model/saved_model.pb");
+    }
+}
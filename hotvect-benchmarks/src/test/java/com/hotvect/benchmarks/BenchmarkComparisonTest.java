@@ -0,0 +1,117 @@
+package com.hotvect.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BenchmarkComparisonTest {
+    private static final ObjectMapper OM = new ObjectMapper();
+
+    private static String result(String mode, int candidateCount, double score, double scoreError, double allocation) {
+        return """
+                {
+                  "benchmark": "com.hotvect.benchmarks.StandardRankingTransformerBenchmark.transform",
+                  "mode": "%s",
+                  "threads": 1,
+                  "params": {"candidateCount": "%d", "featureCount": "8"},
+                  "primaryMetric": {"score": %s, "scoreError": %s, "scoreUnit": "us/op"},
+                  "secondaryMetrics": {
+                    "gc.alloc.rate.norm": {"score": %s, "scoreError": "NaN", "scoreUnit": "B/op"}
+                  }
+                }
+                """.formatted(mode, candidateCount, score, scoreError, allocation);
+    }
+
+    private static Map<String, JsonNode> results(String... results) throws Exception {
+        return BenchmarkComparison.index(OM.readTree("[" + String.join(",", results) + "]"));
+    }
+
+    private static List<BenchmarkComparison.Difference> regressions(List<BenchmarkComparison.Difference> differences) {
+        List<BenchmarkComparison.Difference> ret = new ArrayList<>();
+        for (BenchmarkComparison.Difference difference : differences) {
+            if (difference.regression()) {
+                ret.add(difference);
+            }
+        }
+        return ret;
+    }
+
+    @Test
+    void flagsSlowdownsBeyondThresholdAndError() throws Exception {
+        List<BenchmarkComparison.Difference> differences = BenchmarkComparison.compare(
+                results(result("avgt", 10, 100, 1, 512), result("avgt", 100, 1000, 10, 4096)),
+                results(result("avgt", 10, 110, 1, 512), result("avgt", 100, 1010, 10, 4096)),
+                0.05);
+
+        assertEquals(4, differences.size());
+        List<BenchmarkComparison.Difference> regressions = regressions(differences);
+        assertEquals(1, regressions.size());
+        assertTrue(regressions.get(0).benchmark().contains("candidateCount=10,"));
+        assertEquals("score", regressions.get(0).metric());
+        assertEquals(0.1, regressions.get(0).relativeChange(), 1e-9);
+    }
+
+    @Test
+    void ignoresChangesWithinScoreError() throws Exception {
+        List<BenchmarkComparison.Difference> differences = BenchmarkComparison.compare(
+                results(result("avgt", 10, 100, 15, 512)),
+                results(result("avgt", 10, 120, 15, 512)),
+                0.05);
+        assertTrue(regressions(differences).isEmpty());
+    }
+
+    @Test
+    void treatsLowerThroughputAsRegression() throws Exception {
+        List<BenchmarkComparison.Difference> slower = BenchmarkComparison.compare(
+                results(result("thrpt", 10, 100, 1, 512)),
+                results(result("thrpt", 10, 80, 1, 512)),
+                0.05);
+        assertEquals(1, regressions(slower).size());
+
+        List<BenchmarkComparison.Difference> faster = BenchmarkComparison.compare(
+                results(result("thrpt", 10, 100, 1, 512)),
+                results(result("thrpt", 10, 120, 1, 512)),
+                0.05);
+        assertTrue(regressions(faster).isEmpty());
+    }
+
+    @Test
+    void flagsAllocationRegressions() throws Exception {
+        List<BenchmarkComparison.Difference> differences = BenchmarkComparison.compare(
+                results(result("avgt", 10, 100, 1, 0), result("avgt", 100, 100, 1, 4096)),
+                results(result("avgt", 10, 100, 1, 24), result("avgt", 100, 100, 1, 4000)),
+                0.05);
+
+        List<BenchmarkComparison.Difference> regressions = regressions(differences);
+        assertEquals(1, regressions.size());
+        assertEquals(BenchmarkComparison.ALLOCATION_METRIC, regressions.get(0).metric());
+        assertTrue(regressions.get(0).benchmark().contains("candidateCount=10,"));
+    }
+
+    @Test
+    void matchesResultsByThreadsAndParams() throws Exception {
+        String multiThreaded = result("avgt", 10, 500, 1, 512).replace("\"threads\": 1", "\"threads\": 4");
+        Map<String, JsonNode> baseline = results(result("avgt", 10, 100, 1, 512), multiThreaded);
+        assertEquals(2, baseline.size());
+
+        // The candidate only has the single-threaded run, which did not change
+        List<BenchmarkComparison.Difference> differences = BenchmarkComparison.compare(
+                baseline, results(result("avgt", 10, 100, 1, 512)), 0.05);
+        assertEquals(2, differences.size());
+        assertFalse(differences.get(0).regression());
+    }
+
+    @Test
+    void rejectsNonArrayResults() {
+        assertThrows(IllegalArgumentException.class, () -> BenchmarkComparison.index(OM.readTree("{}")));
+    }
+}
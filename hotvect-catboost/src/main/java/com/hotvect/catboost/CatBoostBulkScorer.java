@@ -4,17 +4,18 @@ import com.hotvect.api.data.FeatureStoreResponseContainer;
 import com.hotvect.api.data.ranking.RankingRequest;
 import com.hotvect.api.data.scoring.BulkScoreResponse;
 import com.hotvect.api.data.scoring.ScoringDecision;
+import com.hotvect.core.transform.ranking.BroadcastRankingTransformer;
 import com.hotvect.core.transform.ranking.ComputingBulkScorer;
 import com.hotvect.core.transform.ranking.ComputingCandidate;
 import com.hotvect.core.transform.ranking.ComputingRankingRequest;
 import com.hotvect.core.transform.ranking.ComputingRankingTransformer;
-import com.hotvect.onlineutils.concurrency.CommonPool;
+import com.hotvect.onlineutils.concurrency.AdaptiveForkThreshold;
+import com.hotvect.onlineutils.concurrency.RankingExecutor;
 import com.hotvect.onlineutils.nativelibraries.catboost.HotvectCatBoostModel;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.RecursiveTask;
 import java.util.function.Function;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -22,8 +23,13 @@ import static com.hotvect.utils.AdditionalProperties.mergeAdditionalProperties;
 
 public class CatBoostBulkScorer<SHARED, ACTION> implements ComputingBulkScorer<SHARED, ACTION> {
     private final ComputingRankingTransformer<SHARED, ACTION> transformer;
+    // Non-null if the transformer can emit shared features as a separate broadcast row
+    private final BroadcastRankingTransformer<SHARED, ACTION> broadcastTransformer;
     private final CatBoostTransformedActionScorer<ACTION> transformedActionScorer;
     private final int noForkThreshold;
+    private final RankingExecutor rankingExecutor;
+    // Null unless the fork threshold adapts to the measured per-candidate cost
+    private final AdaptiveForkThreshold adaptiveForkThreshold;
     private final Function<ComputingRankingRequest<SHARED, ACTION>, FeatureStoreResponseContainer> featureStoreResponseContainerProvider;
 
     public CatBoostBulkScorer(
@@ -32,13 +38,7 @@ public class CatBoostBulkScorer<SHARED, ACTION> implements ComputingBulkScorer<S
             int noForkThreshold,
             String taskType
     ) {
-        this(
-                transformer,
-                hotvectCatBoostModel,
-                noForkThreshold,
-                taskType,
-                _request -> FeatureStoreResponseContainer.empty()
-        );
+        this(builder(transformer, hotvectCatBoostModel, taskType).withNoForkThreshold(noForkThreshold));
     }
 
     public CatBoostBulkScorer(
@@ -48,17 +48,115 @@ public class CatBoostBulkScorer<SHARED, ACTION> implements ComputingBulkScorer<S
             String taskType,
             Function<ComputingRankingRequest<SHARED, ACTION>, FeatureStoreResponseContainer> featureStoreResponseContainerProvider
     ) {
-        this.noForkThreshold = noForkThreshold;
-        this.transformer = Objects.requireNonNull(transformer, "transformer");
+        this(builder(transformer, hotvectCatBoostModel, taskType)
+                .withNoForkThreshold(noForkThreshold)
+                .withFeatureStoreResponseContainerProvider(featureStoreResponseContainerProvider));
+    }
+
+    private CatBoostBulkScorer(Builder<SHARED, ACTION> builder) {
+        this.noForkThreshold = builder.noForkThreshold;
+        this.rankingExecutor = builder.rankingExecutor;
+        this.adaptiveForkThreshold = builder.adaptiveForkThreshold;
+        this.transformer = builder.transformer;
+        this.broadcastTransformer = transformer instanceof BroadcastRankingTransformer<SHARED, ACTION> broadcast ? broadcast : null;
         this.transformedActionScorer = new CatBoostTransformedActionScorer<>(
                 transformer.getUsedFeatures(),
-                hotvectCatBoostModel,
-                taskType
-        );
-        this.featureStoreResponseContainerProvider = Objects.requireNonNull(
-                featureStoreResponseContainerProvider,
-                "featureStoreResponseContainerProvider"
+                builder.hotvectCatBoostModel,
+                builder.taskType,
+                builder.pooledFeatureMatrix,
+                builder.hashedCategoricals
         );
+        this.featureStoreResponseContainerProvider = builder.featureStoreResponseContainerProvider;
+    }
+
+    public static <SHARED, ACTION> Builder<SHARED, ACTION> builder(
+            ComputingRankingTransformer<SHARED, ACTION> transformer,
+            HotvectCatBoostModel hotvectCatBoostModel,
+            String taskType
+    ) {
+        return new Builder<>(transformer, hotvectCatBoostModel, taskType);
+    }
+
+    public static class Builder<SHARED, ACTION> {
+        private final ComputingRankingTransformer<SHARED, ACTION> transformer;
+        private final HotvectCatBoostModel hotvectCatBoostModel;
+        private final String taskType;
+        private int noForkThreshold = 100;
+        private boolean hashedCategoricals = false;
+        private boolean pooledFeatureMatrix = false;
+        private RankingExecutor rankingExecutor = RankingExecutor.common();
+        private AdaptiveForkThreshold adaptiveForkThreshold = null;
+        private Function<ComputingRankingRequest<SHARED, ACTION>, FeatureStoreResponseContainer> featureStoreResponseContainerProvider =
+                _request -> FeatureStoreResponseContainer.empty();
+
+        private Builder(
+                ComputingRankingTransformer<SHARED, ACTION> transformer,
+                HotvectCatBoostModel hotvectCatBoostModel,
+                String taskType
+        ) {
+            this.transformer = Objects.requireNonNull(transformer, "transformer");
+            this.hotvectCatBoostModel = Objects.requireNonNull(hotvectCatBoostModel, "hotvectCatBoostModel");
+            this.taskType = Objects.requireNonNull(taskType, "taskType");
+        }
+
+        /**
+         * Requests with more candidates than this are scored in chunks in parallel. Zero or less disables forking.
+         */
+        public Builder<SHARED, ACTION> withNoForkThreshold(int noForkThreshold) {
+            this.noForkThreshold = noForkThreshold;
+            return this;
+        }
+
+        /**
+         * If true, categorical features are hashed once into {@code int[][]} with CatBoost's own categorical hash
+         * before prediction, and hashes of recurring values are cached. Models with text or embedding features are
+         * not supported in this mode.
+         */
+        public Builder<SHARED, ACTION> withHashedCategoricals(boolean hashedCategoricals) {
+            this.hashedCategoricals = hashedCategoricals;
+            return this;
+        }
+
+        /**
+         * If true, each scoring thread reuses its own CatBoost input matrices across batches instead of allocating
+         * new ones.
+         */
+        public Builder<SHARED, ACTION> withPooledFeatureMatrix(boolean pooledFeatureMatrix) {
+            this.pooledFeatureMatrix = pooledFeatureMatrix;
+            return this;
+        }
+
+        /**
+         * Executor used to score chunks of large requests in parallel. It is closed together with the scorer.
+         */
+        public Builder<SHARED, ACTION> withRankingExecutor(RankingExecutor rankingExecutor) {
+            this.rankingExecutor = Objects.requireNonNull(rankingExecutor, "rankingExecutor");
+            return this;
+        }
+
+        /**
+         * If non-null, the fork threshold is taken from it for every request instead of the
+         * {@link #withNoForkThreshold(int) fixed threshold}, and the scoring time of every chunk is recorded to it.
+         * It is closed together with the scorer.
+         */
+        public Builder<SHARED, ACTION> withAdaptiveForkThreshold(AdaptiveForkThreshold adaptiveForkThreshold) {
+            this.adaptiveForkThreshold = adaptiveForkThreshold;
+            return this;
+        }
+
+        public Builder<SHARED, ACTION> withFeatureStoreResponseContainerProvider(
+                Function<ComputingRankingRequest<SHARED, ACTION>, FeatureStoreResponseContainer> featureStoreResponseContainerProvider
+        ) {
+            this.featureStoreResponseContainerProvider = Objects.requireNonNull(
+                    featureStoreResponseContainerProvider,
+                    "featureStoreResponseContainerProvider"
+            );
+            return this;
+        }
+
+        public CatBoostBulkScorer<SHARED, ACTION> build() {
+            return new CatBoostBulkScorer<>(this);
+        }
     }
 
     @Override
@@ -92,10 +190,19 @@ public class CatBoostBulkScorer<SHARED, ACTION> implements ComputingBulkScorer<S
 
 
     public List<ScoringDecision<ACTION>> doApply(ComputingRankingRequest<SHARED, ACTION> rankingRequest) {
-        if (rankingRequest.candidates().size() <= noForkThreshold || noForkThreshold <= 0) {
+        int forkThreshold = adaptiveForkThreshold == null ? noForkThreshold : adaptiveForkThreshold.threshold();
+        if (rankingRequest.candidates().size() <= forkThreshold || forkThreshold <= 0) {
             return process(rankingRequest);
         } else {
-            return CommonPool.commonForkJoinPool().invoke(new RecursiveScoringTask(rankingRequest));
+            return rankingExecutor.mapChunks(
+                    rankingRequest.candidates(),
+                    forkThreshold,
+                    chunk -> process(new ComputingRankingRequest<>(
+                            rankingRequest.rankingRequest(),
+                            rankingRequest.shared(),
+                            chunk
+                    ))
+            );
         }
     }
 
@@ -108,45 +215,14 @@ public class CatBoostBulkScorer<SHARED, ACTION> implements ComputingBulkScorer<S
 
 
 
-        private class RecursiveScoringTask extends RecursiveTask<List<ScoringDecision<ACTION>>> {
-        private final ComputingRankingRequest<SHARED, ACTION> request;
-
-        private RecursiveScoringTask(ComputingRankingRequest<SHARED, ACTION> request) {
-            this.request = request;
-        }
-
-        @Override
-        protected List<ScoringDecision<ACTION>> compute() {
-            if(request.candidates().size() <= noForkThreshold || noForkThreshold <= 0){
-                return process(request);
-            } else {
-                List<ComputingCandidate<SHARED,ACTION>> actions = request.candidates();
-                int mid = actions.size() / 2;
-                var secondTask = new RecursiveScoringTask(
-                        new ComputingRankingRequest<>(
-                                request.rankingRequest(),
-                                request.shared(),
-                                actions.subList(mid, actions.size())
-                        )
-                );
-                var secondResult = secondTask.fork();
-                var firstTask = new RecursiveScoringTask(
-                        new ComputingRankingRequest<>(
-                                request.rankingRequest(),
-                                request.shared(),
-                                actions.subList(0, mid)
-                        )
-                );
-                var firstResult = firstTask.compute();
-                firstResult.addAll(secondResult.join());
-                return firstResult;
-            }
-
-        }
-    }
-
     private List<ScoringDecision<ACTION>> process(ComputingRankingRequest<SHARED, ACTION> rankingRequest) {
-        List<ScoringDecision<ACTION>> decisions = transformedActionScorer.scoreTransformed(transformer.transform(rankingRequest));
+        long start = adaptiveForkThreshold == null ? 0 : System.nanoTime();
+        List<ScoringDecision<ACTION>> decisions = broadcastTransformer != null
+                ? transformedActionScorer.scoreBroadcast(broadcastTransformer.transformBroadcast(rankingRequest))
+                : transformedActionScorer.scoreTransformed(transformer.transform(rankingRequest));
+        if (adaptiveForkThreshold != null) {
+            adaptiveForkThreshold.record(rankingRequest.candidates().size(), System.nanoTime() - start);
+        }
         return mergeCandidateAdditionalProperties(decisions, rankingRequest.candidates());
     }
 
@@ -185,5 +261,9 @@ public class CatBoostBulkScorer<SHARED, ACTION> implements ComputingBulkScorer<S
     @Override
     public void close() throws Exception {
         this.transformedActionScorer.close();
+        this.rankingExecutor.close();
+        if (this.adaptiveForkThreshold != null) {
+            this.adaptiveForkThreshold.close();
+        }
     }
 }
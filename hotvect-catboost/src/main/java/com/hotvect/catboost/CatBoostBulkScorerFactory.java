@@ -7,8 +7,11 @@ import com.hotvect.api.data.FeatureStoreResponseContainer;
 import com.hotvect.core.transform.ranking.ComputingRankingRequest;
 import com.hotvect.core.transform.ranking.ComputingRankingTransformer;
 import com.hotvect.core.transform.ranking.StandardRankingTransformer;
+import com.hotvect.onlineutils.concurrency.AdaptiveForkThreshold;
+import com.hotvect.onlineutils.concurrency.RankingExecutor;
 import com.hotvect.onlineutils.nativelibraries.catboost.HotvectCatBoostModel;
 import com.hotvect.utils.HyperparamUtils;
+import io.micrometer.core.instrument.Metrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -94,14 +97,42 @@ public class CatBoostBulkScorerFactory<SHARED, ACTION> implements BulkScorerFact
                 "nofork_threshold"
         );
         String taskType = CatBoostFactoryUtils.getTaskType(hyperparameter);
-        log.info("Using nofork threshold of {}", noforkThreshold);
-
-        return new CatBoostBulkScorer<>(
-                rankingTransformer,
-                hotvectCatBoostModel,
+        boolean hashedCategoricals = HyperparamUtils.getOrDefault(
+                hyperparameter,
+                JsonNode::asBoolean,
+                false,
+                "catboost_scorer",
+                "hashed_categoricals"
+        );
+        boolean pooledFeatureMatrix = HyperparamUtils.getOrDefault(
+                hyperparameter,
+                JsonNode::asBoolean,
+                false,
+                "catboost_scorer",
+                "pooled_feature_matrix"
+        );
+        Optional<AdaptiveForkThreshold> adaptiveForkThreshold = AdaptiveForkThreshold.fromHyperparameter(
+                "catboost",
+                noforkThreshold,
+                hyperparameter,
+                Metrics.globalRegistry,
+                "catboost_scorer"
+        );
+        log.info(
+                "Using nofork threshold of {} (adaptive: {}), hashed categoricals: {}, pooled feature matrix: {}",
                 noforkThreshold,
-                taskType,
-                featureStoreResponseContainerProvider
+                adaptiveForkThreshold.isPresent(),
+                hashedCategoricals,
+                pooledFeatureMatrix
         );
+
+        return CatBoostBulkScorer.builder(rankingTransformer, hotvectCatBoostModel, taskType)
+                .withNoForkThreshold(noforkThreshold)
+                .withHashedCategoricals(hashedCategoricals)
+                .withPooledFeatureMatrix(pooledFeatureMatrix)
+                .withRankingExecutor(RankingExecutor.fromHyperparameter("catboost", hyperparameter, Metrics.globalRegistry))
+                .withAdaptiveForkThreshold(adaptiveForkThreshold.orElse(null))
+                .withFeatureStoreResponseContainerProvider(featureStoreResponseContainerProvider)
+                .build();
     }
 }
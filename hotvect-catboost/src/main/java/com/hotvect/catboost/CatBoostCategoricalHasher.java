@@ -0,0 +1,72 @@
+package com.hotvect.catboost;
+
+import com.hotvect.onlineutils.nativelibraries.catboost.HotvectCatBoostModel;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToIntFunction;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Hashes categorical values with CatBoost's own categorical hash and remembers the result for recurring values.
+ *
+ * <p>Every hash is a native call, while categorical columns are usually low-cardinality and many values (e.g.
+ * precomputed shared features, which are the same for every candidate and every request) recur constantly. Hashes
+ * are cached by the raw feature value, so that integers, booleans and enums are only converted to the string CatBoost
+ * hashes when they are first seen. Up to {@code maxCachedValues} values are cached. Once the cache is full, new values
+ * are hashed without being cached, so unbounded high-cardinality features cannot grow memory. Instances are
+ * thread-safe.</p>
+ */
+final class CatBoostCategoricalHasher {
+    static final int DEFAULT_MAX_CACHED_VALUES = 1 << 16;
+
+    private final ToIntFunction<String> hashFunction;
+    private final int maxCachedValues;
+    // Keyed by String, Integer, Long, Boolean or enum values; other CharSequences are keyed by their String
+    private final ConcurrentHashMap<Object, Integer> cache = new ConcurrentHashMap<>();
+
+    CatBoostCategoricalHasher() {
+        this(HotvectCatBoostModel::hashCategoricalFeature, DEFAULT_MAX_CACHED_VALUES);
+    }
+
+    CatBoostCategoricalHasher(ToIntFunction<String> hashFunction, int maxCachedValues) {
+        checkArgument(maxCachedValues >= 0, "maxCachedValues must be non-negative: %s", maxCachedValues);
+        this.hashFunction = hashFunction;
+        this.maxCachedValues = maxCachedValues;
+    }
+
+    /**
+     * Hashes a categorical feature value as it is returned by the transformer. Gives the same hash as hashing
+     * {@link CatBoostEncodingUtils#normalizeCategoricalValue(Object)} of the value.
+     */
+    int hash(Object value) {
+        Object key = switch (value) {
+            case null -> CatBoostEncodingUtils.MISSING_CATEGORICAL;
+            case String s -> s;
+            // Equality of other CharSequences is not by content, and they may be mutable
+            case CharSequence cs -> cs.toString();
+            default -> value;
+        };
+        Integer cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        int hash = hashFunction.applyAsInt(CatBoostEncodingUtils.normalizeCategoricalValue(key));
+        if (cache.size() < maxCachedValues) {
+            cache.putIfAbsent(key, hash);
+        }
+        return hash;
+    }
+
+    int hash(int value) {
+        return hash(Integer.valueOf(value));
+    }
+
+    int hash(long value) {
+        return hash(Long.valueOf(value));
+    }
+
+    int cachedValueCount() {
+        return cache.size();
+    }
+}
@@ -171,10 +171,12 @@ final class CatBoostEncodingUtils {
             case Integer i -> i.toString();
             case Long l -> l.toString();
             case Boolean b -> b.toString();
+            case Enum<?> e -> e.name();
+            case CharSequence cs -> cs.toString();
             default -> throw new RuntimeException(
                     "Unexpected value type for CATEGORICAL feature: "
                             + v
-                            + ". Allowed types: null, String, Integer, Long, Boolean."
+                            + ". Allowed types: null, String, Integer, Long, Boolean, enum, CharSequence."
             );
         };
     }
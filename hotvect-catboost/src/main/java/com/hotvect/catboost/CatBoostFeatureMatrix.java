@@ -0,0 +1,122 @@
+package com.hotvect.catboost;
+
+import java.util.Arrays;
+
+/**
+ * Reusable input matrices for {@code HotvectCatBoostModel.predict}, owned by a single scoring thread.
+ *
+ * <p>CatBoost takes the number of rows from the length of the outer arrays, so every batch needs arrays of exactly
+ * its size. Row arrays are pooled up to the largest batch seen and the exact-size outer arrays are cached for the two
+ * most recent batch sizes, which covers the usual "full batches plus one shorter tail batch" pattern. Steady-state
+ * scoring therefore allocates no feature arrays at all.</p>
+ *
+ * <p>Every row is fully overwritten before each prediction, so no state leaks between batches. Since a matrix lives
+ * as long as its thread, {@link Sized#clearReferences()} should be called after each prediction, so that the strings
+ * and embeddings of the last batch are not kept reachable. Instances are not thread-safe.</p>
+ */
+final class CatBoostFeatureMatrix {
+    private final int numericalWidth;
+    private final int categoricalWidth;
+    private final int textWidth;
+    private final int embeddingWidth;
+    private final int categoricalHashWidth;
+
+    private float[][] numericalRows = new float[0][];
+    private String[][] categoricalRows = new String[0][];
+    private String[][] textRows = new String[0][];
+    private float[][][] embeddingRows = new float[0][][];
+    private int[][] categoricalHashRows = new int[0][];
+
+    private Sized recent;
+    private Sized previous;
+
+    CatBoostFeatureMatrix(int numericalWidth, int categoricalWidth, int textWidth, int embeddingWidth) {
+        this(numericalWidth, categoricalWidth, textWidth, embeddingWidth, 0);
+    }
+
+    CatBoostFeatureMatrix(int numericalWidth, int categoricalWidth, int textWidth, int embeddingWidth, int categoricalHashWidth) {
+        this.numericalWidth = numericalWidth;
+        this.categoricalWidth = categoricalWidth;
+        this.textWidth = textWidth;
+        this.embeddingWidth = embeddingWidth;
+        this.categoricalHashWidth = categoricalHashWidth;
+    }
+
+    /**
+     * {@code categoricalHashes} has a width of zero unless the scorer hashes categoricals before prediction.
+     */
+    record Sized(float[][] numericals, String[][] categoricals, String[][] texts, float[][][] embeddings, int[][] categoricalHashes) {
+        int rows() {
+            return numericals.length;
+        }
+
+        /**
+         * Drops the references to feature values, leaving the primitive rows as they are.
+         */
+        void clearReferences() {
+            for (int row = 0; row < rows(); row++) {
+                Arrays.fill(categoricals[row], null);
+                Arrays.fill(texts[row], null);
+                Arrays.fill(embeddings[row], null);
+            }
+        }
+    }
+
+    /**
+     * Returns matrices with exactly {@code rows} rows. The returned arrays are only valid until the next call.
+     */
+    Sized forRows(int rows) {
+        if (recent != null && recent.rows() == rows) {
+            return recent;
+        }
+        if (previous != null && previous.rows() == rows) {
+            Sized tmp = recent;
+            recent = previous;
+            previous = tmp;
+            return recent;
+        }
+        ensureCapacity(rows);
+        Sized sized = new Sized(
+                Arrays.copyOf(numericalRows, rows),
+                Arrays.copyOf(categoricalRows, rows),
+                Arrays.copyOf(textRows, rows),
+                Arrays.copyOf(embeddingRows, rows),
+                Arrays.copyOf(categoricalHashRows, rows)
+        );
+        previous = recent;
+        recent = sized;
+        return sized;
+    }
+
+    /**
+     * Allocates matrices of exactly {@code rows} rows without pooling, as done before pooling was introduced.
+     */
+    static Sized allocate(int rows, int numericalWidth, int categoricalWidth, int textWidth, int embeddingWidth, int categoricalHashWidth) {
+        return new Sized(
+                new float[rows][numericalWidth],
+                new String[rows][categoricalWidth],
+                new String[rows][textWidth],
+                new float[rows][embeddingWidth][],
+                new int[rows][categoricalHashWidth]
+        );
+    }
+
+    private void ensureCapacity(int rows) {
+        int capacity = numericalRows.length;
+        if (rows <= capacity) {
+            return;
+        }
+        numericalRows = Arrays.copyOf(numericalRows, rows);
+        categoricalRows = Arrays.copyOf(categoricalRows, rows);
+        textRows = Arrays.copyOf(textRows, rows);
+        embeddingRows = Arrays.copyOf(embeddingRows, rows);
+        categoricalHashRows = Arrays.copyOf(categoricalHashRows, rows);
+        for (int i = capacity; i < rows; i++) {
+            numericalRows[i] = new float[numericalWidth];
+            categoricalRows[i] = new String[categoricalWidth];
+            textRows[i] = new String[textWidth];
+            embeddingRows[i] = new float[embeddingWidth][];
+            categoricalHashRows[i] = new int[categoricalHashWidth];
+        }
+    }
+}
@@ -33,13 +33,11 @@ public class CatBoostGreedyRankerFactory<SHARED, ACTION> implements RankerFactor
         int noforkThreshold = HyperparamUtils.getOrDefault(hyperparameter, JsonNode::asInt, 100, "catboost_scorer", "nofork_threshold");
         String taskType = HyperparamUtils.getOrDefault(hyperparameter, JsonNode::asText, "classification", "task_type");
         log.info("Using nofork threshold of {}", noforkThreshold);
-        BulkScorer<SHARED, ACTION> bulkScorer = new CatBoostBulkScorer<>(
-                catBoostRankingTransformer,
-                hotvectCatBoostModel,
-                noforkThreshold,
-                taskType
-        );
-        return new BulkScoreGreedyRanker<>(bulkScorer);
+        BulkScorer<SHARED, ACTION> bulkScorer = CatBoostBulkScorer.builder(catBoostRankingTransformer, hotvectCatBoostModel, taskType)
+                .withNoForkThreshold(noforkThreshold)
+                .build();
+        int topK = HyperparamUtils.getOrDefault(hyperparameter, JsonNode::asInt, Integer.MAX_VALUE, "ranker", "top_k");
+        return new BulkScoreGreedyRanker<>(bulkScorer, topK);
 
     }
 }
@@ -7,8 +7,11 @@ import com.hotvect.api.data.scoring.BulkScoreResponse;
 import com.hotvect.api.data.scoring.ScoringDecision;
 import com.hotvect.api.algorithms.BulkScorer;
 import com.hotvect.api.data.AvailableAction;
+import com.hotvect.core.transform.ranking.ColumnarRankingTransformer;
 import com.hotvect.core.transform.ranking.PreparedBatchStream;
+import com.hotvect.core.transform.ranking.PreparedFillableBatchStream;
 import com.hotvect.core.transform.ranking.StreamingRankingTransformer;
+import com.hotvect.onlineutils.concurrency.RankingExecutor;
 import com.hotvect.onlineutils.nativelibraries.catboost.HotvectCatBoostModel;
 
 import java.util.ArrayList;
@@ -17,6 +20,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.function.Function;
+import java.util.stream.Stream;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.hotvect.utils.AdditionalProperties.mergeAdditionalProperties;
@@ -29,11 +33,17 @@ import static com.hotvect.utils.AdditionalProperties.mergeAdditionalProperties;
  *
  * <p>Batching is lazy: batches are formed as the stream is consumed, so scoring can begin on early
  * batches while later batches are still being transformed.</p>
+ *
+ * <p>If the transformer is a {@link ColumnarRankingTransformer} (as generated transformers are), it writes each batch's
+ * features straight into the CatBoost input matrices on the thread that scores the batch, so primitive features are
+ * never boxed and neither per-action records nor intermediate columns are created.</p>
  */
 public class CatBoostStreamingBulkScorer<SHARED, ACTION> implements BulkScorer<SHARED, ACTION> {
     private final StreamingRankingTransformer<SHARED, ACTION> transformer;
+    private final ColumnarRankingTransformer<SHARED, ACTION> columnarTransformer;
     private final CatBoostTransformedActionScorer<ACTION> transformedActionScorer;
     private final boolean parallelBatchScoring;
+    private final RankingExecutor rankingExecutor;
     private final Function<Map<String, FeatureStoreResponse>, FeatureStoreResponseContainer> featureStoreResponseContainerProvider;
 
     public CatBoostStreamingBulkScorer(
@@ -68,12 +78,82 @@ public class CatBoostStreamingBulkScorer<SHARED, ACTION> implements BulkScorer<S
             String taskType,
             boolean parallelBatchScoring,
             Function<Map<String, FeatureStoreResponse>, FeatureStoreResponseContainer> featureStoreResponseContainerProvider
+    ) {
+        this(transformer, hotvectCatBoostModel, taskType, parallelBatchScoring, false, featureStoreResponseContainerProvider);
+    }
+
+    /**
+     * @param hashedCategoricals if true, categorical features are hashed once into {@code int[][]} with CatBoost's own
+     *                           categorical hash before prediction, and hashes of recurring values are cached. Models
+     *                           with text or embedding features are not supported in this mode.
+     */
+    public CatBoostStreamingBulkScorer(
+            StreamingRankingTransformer<SHARED, ACTION> transformer,
+            HotvectCatBoostModel hotvectCatBoostModel,
+            String taskType,
+            boolean parallelBatchScoring,
+            boolean hashedCategoricals,
+            Function<Map<String, FeatureStoreResponse>, FeatureStoreResponseContainer> featureStoreResponseContainerProvider
+    ) {
+        this(
+                transformer,
+                hotvectCatBoostModel,
+                taskType,
+                parallelBatchScoring,
+                hashedCategoricals,
+                RankingExecutor.common(),
+                featureStoreResponseContainerProvider
+        );
+    }
+
+    /**
+     * @param rankingExecutor executor that scores batches in parallel when {@code parallelBatchScoring} is enabled. It
+     *                        is closed together with this scorer.
+     */
+    public CatBoostStreamingBulkScorer(
+            StreamingRankingTransformer<SHARED, ACTION> transformer,
+            HotvectCatBoostModel hotvectCatBoostModel,
+            String taskType,
+            boolean parallelBatchScoring,
+            boolean hashedCategoricals,
+            RankingExecutor rankingExecutor,
+            Function<Map<String, FeatureStoreResponse>, FeatureStoreResponseContainer> featureStoreResponseContainerProvider
+    ) {
+        this(
+                transformer,
+                hotvectCatBoostModel,
+                taskType,
+                parallelBatchScoring,
+                hashedCategoricals,
+                false,
+                rankingExecutor,
+                featureStoreResponseContainerProvider
+        );
+    }
+
+    /**
+     * @param pooledFeatureMatrix if true, each scoring thread reuses its own CatBoost input matrices across batches
+     *                            instead of allocating new ones
+     */
+    public CatBoostStreamingBulkScorer(
+            StreamingRankingTransformer<SHARED, ACTION> transformer,
+            HotvectCatBoostModel hotvectCatBoostModel,
+            String taskType,
+            boolean parallelBatchScoring,
+            boolean hashedCategoricals,
+            boolean pooledFeatureMatrix,
+            RankingExecutor rankingExecutor,
+            Function<Map<String, FeatureStoreResponse>, FeatureStoreResponseContainer> featureStoreResponseContainerProvider
     ) {
         this.transformer = transformer;
+        this.rankingExecutor = Objects.requireNonNull(rankingExecutor, "rankingExecutor cannot be null");
+        this.columnarTransformer = transformer instanceof ColumnarRankingTransformer<SHARED, ACTION> columnar ? columnar : null;
         this.transformedActionScorer = new CatBoostTransformedActionScorer<>(
                 transformer.getUsedFeatures(),
                 hotvectCatBoostModel,
-                taskType
+                taskType,
+                pooledFeatureMatrix,
+                hashedCategoricals
         );
         this.parallelBatchScoring = parallelBatchScoring;
         this.featureStoreResponseContainerProvider = Objects.requireNonNull(
@@ -88,15 +168,19 @@ public class CatBoostStreamingBulkScorer<SHARED, ACTION> implements BulkScorer<S
             return BulkScoreResponse.of(Collections.emptyList(), FeatureStoreResponseContainer.empty());
         }
 
-        PreparedBatchStream<ACTION> prepared = transformer.prepareBatchStream(rankingRequest);
-        List<ScoringDecision<ACTION>> decisions = (parallelBatchScoring
-                ? prepared.batchStream().parallel()
-                : prepared.batchStream().sequential())
-                .map(transformedActionScorer::scoreTransformed)
-                .flatMap(List::stream)
-                .toList();
+        List<ScoringDecision<ACTION>> decisions;
+        Map<String, FeatureStoreResponse> featureStoreResponses;
+        if (columnarTransformer != null) {
+            PreparedFillableBatchStream<ACTION> prepared = columnarTransformer.prepareFillableBatchStream(rankingRequest);
+            decisions = scoreBatches(prepared.batchStream(), transformedActionScorer::scoreFillable);
+            featureStoreResponses = prepared.featureStoreResponses();
+        } else {
+            PreparedBatchStream<ACTION> prepared = transformer.prepareBatchStream(rankingRequest);
+            decisions = scoreBatches(prepared.batchStream(), transformedActionScorer::scoreTransformed);
+            featureStoreResponses = prepared.featureStoreResponses();
+        }
         decisions = mergeRequestAdditionalProperties(decisions, rankingRequest.actions());
-        FeatureStoreResponseContainer container = featureStoreResponseContainerProvider.apply(prepared.featureStoreResponses());
+        FeatureStoreResponseContainer container = featureStoreResponseContainerProvider.apply(featureStoreResponses);
         return BulkScoreResponse.of(decisions, container);
     }
 
@@ -106,9 +190,34 @@ public class CatBoostStreamingBulkScorer<SHARED, ACTION> implements BulkScorer<S
         return score(rankingRequest).decisions();
     }
 
+    /**
+     * Transforms and scores the batches, in parallel on the ranking executor if enabled. Batches are split off the
+     * stream's source, and each task applies the stream's transformation itself, so transformation runs in parallel
+     * as well.
+     */
+    private <BATCH> List<ScoringDecision<ACTION>> scoreBatches(
+            Stream<BATCH> batchStream,
+            Function<BATCH, List<ScoringDecision<ACTION>>> scoreBatch
+    ) {
+        if (!parallelBatchScoring) {
+            return batchStream.sequential().map(scoreBatch).flatMap(List::stream).toList();
+        }
+        List<List<ScoringDecision<ACTION>>> scoredBatches = rankingExecutor.mapOrdered(batchStream, scoreBatch);
+        List<ScoringDecision<ACTION>> ret = new ArrayList<>();
+        for (List<ScoringDecision<ACTION>> scoredBatch : scoredBatches) {
+            ret.addAll(scoredBatch);
+        }
+        return ret;
+    }
+
     @Override
     public void close() throws Exception {
         this.transformedActionScorer.close();
+        this.rankingExecutor.close();
+        // Generated transformers own their cross-request caches, whose gauges are removed on close
+        if (this.transformer instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
     }
 
     private List<ScoringDecision<ACTION>> mergeRequestAdditionalProperties(
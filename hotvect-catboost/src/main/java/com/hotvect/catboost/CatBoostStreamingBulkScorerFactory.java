@@ -2,10 +2,13 @@ package com.hotvect.catboost;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.hotvect.api.algodefinition.ranking.BulkScorerFactory;
+import com.hotvect.api.data.FeatureStoreResponseContainer;
 import com.hotvect.core.transform.ranking.StreamingRankingTransformer;
 import com.hotvect.api.algorithms.BulkScorer;
+import com.hotvect.onlineutils.concurrency.RankingExecutor;
 import com.hotvect.onlineutils.nativelibraries.catboost.HotvectCatBoostModel;
 import com.hotvect.utils.HyperparamUtils;
+import io.micrometer.core.instrument.Metrics;
 
 import java.io.InputStream;
 import java.util.Map;
@@ -37,12 +40,28 @@ public class CatBoostStreamingBulkScorerFactory<SHARED, ACTION>
                 true,
                 "parallel_batch_scoring"
         );
+        boolean hashedCategoricals = HyperparamUtils.getOrDefault(
+                hyperparameter,
+                JsonNode::asBoolean,
+                false,
+                "hashed_categoricals"
+        );
+        boolean pooledFeatureMatrix = HyperparamUtils.getOrDefault(
+                hyperparameter,
+                JsonNode::asBoolean,
+                false,
+                "pooled_feature_matrix"
+        );
 
         return new CatBoostStreamingBulkScorer<>(
                 rankingTransformer,
                 hotvectCatBoostModel,
                 taskType,
-                parallelBatchScoring
+                parallelBatchScoring,
+                hashedCategoricals,
+                pooledFeatureMatrix,
+                RankingExecutor.fromHyperparameter("catboost-streaming", hyperparameter, Metrics.globalRegistry),
+                _responses -> FeatureStoreResponseContainer.empty()
         );
     }
 }
@@ -4,16 +4,24 @@ import com.google.common.collect.ImmutableList;
 import com.hotvect.api.data.Namespace;
 import com.hotvect.api.data.common.NamespacedRecord;
 import com.hotvect.api.data.ranking.TransformedAction;
+import com.hotvect.api.data.AvailableAction;
 import com.hotvect.api.data.scoring.ScoringDecision;
+import com.hotvect.core.transform.ranking.BroadcastTransformedActions;
+import com.hotvect.core.transform.ranking.FeatureRowSink;
+import com.hotvect.core.transform.ranking.FillableBatch;
+import com.hotvect.core.transform.ranking.TransformedBatch;
+import com.hotvect.core.vector.VectorMath;
 import com.hotvect.onlineutils.nativelibraries.catboost.HotvectCatBoostModel;
 import it.unimi.dsi.fastutil.doubles.DoubleList;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.hotvect.core.util.Utils.checkCollectionIsEnumsOrNamespaceIdObjects;
 
 final class CatBoostTransformedActionScorer<ACTION> {
@@ -25,11 +33,44 @@ final class CatBoostTransformedActionScorer<ACTION> {
     private final List<Namespace> textFeatures;
     private final List<Namespace> embdeddedFeatures;
     private final TaskType taskType;
+    // Layouts are fixed per transformer, so in practice this is computed once
+    private volatile ColumnMapping columnMapping;
+    // One matrix per scoring thread; null when pooling is disabled
+    private final ThreadLocal<CatBoostFeatureMatrix> featureMatrices;
+    // Null unless categoricals are hashed before prediction
+    private final CatBoostCategoricalHasher categoricalHasher;
 
     CatBoostTransformedActionScorer(
             Set<? extends Namespace> usedFeatures,
             HotvectCatBoostModel hotvectCatBoostModel,
             String taskType
+    ) {
+        this(usedFeatures, hotvectCatBoostModel, taskType, false, false);
+    }
+
+    CatBoostTransformedActionScorer(
+            Set<? extends Namespace> usedFeatures,
+            HotvectCatBoostModel hotvectCatBoostModel,
+            String taskType,
+            boolean pooledFeatureMatrix
+    ) {
+        this(usedFeatures, hotvectCatBoostModel, taskType, pooledFeatureMatrix, false);
+    }
+
+    /**
+     * @param pooledFeatureMatrix if true, every scoring thread reuses its own input matrices instead of allocating new
+     *                           ones per batch. The matrices stay with the thread between requests, but references to
+     *                           feature values are cleared after each prediction.
+     * @param hashedCategoricals if true, categorical values are hashed with CatBoost's categorical hash (caching
+     *                           recurring values) and passed to the model as {@code int[][]}. Not supported for
+     *                           models that use text or embedding features.
+     */
+    CatBoostTransformedActionScorer(
+            Set<? extends Namespace> usedFeatures,
+            HotvectCatBoostModel hotvectCatBoostModel,
+            String taskType,
+            boolean pooledFeatureMatrix,
+            boolean hashedCategoricals
     ) {
         this.hotvectCatBoostModel = Objects.requireNonNull(hotvectCatBoostModel, "hotvectCatBoostModel");
         this.taskType = TaskType.fromString(taskType);
@@ -60,30 +101,86 @@ final class CatBoostTransformedActionScorer<ACTION> {
                         .map(x -> (Namespace) x)
                         .collect(Collectors.toList())
         );
+        checkArgument(
+                !hashedCategoricals || (this.textFeatures.isEmpty() && this.embdeddedFeatures.isEmpty()),
+                "Hashed categoricals cannot be used together with text or embedding features. Text features: %s, embedding features: %s",
+                this.textFeatures,
+                this.embdeddedFeatures
+        );
+        this.categoricalHasher = hashedCategoricals ? new CatBoostCategoricalHasher() : null;
+        this.featureMatrices = pooledFeatureMatrix
+                ? ThreadLocal.withInitial(() -> new CatBoostFeatureMatrix(
+                        this.numericalFeatures.size(),
+                        categoricalStringWidth(),
+                        this.textFeatures.size(),
+                        this.embdeddedFeatures.size(),
+                        categoricalHashWidth()))
+                : null;
     }
 
     List<ScoringDecision<ACTION>> scoreTransformed(List<TransformedAction<ACTION>> transformed) {
+        return scoreRows(null, transformed);
+    }
+
+    /**
+     * Scores actions whose shared features are held in a separate broadcast row. Shared features are encoded once
+     * and the encoded values replicated into every row, which gives the same decisions as
+     * {@link #scoreTransformed(List)} on {@link BroadcastTransformedActions#toTransformedActions()}.
+     */
+    List<ScoringDecision<ACTION>> scoreBroadcast(BroadcastTransformedActions<ACTION> broadcast) {
+        return scoreRows(broadcast.shared(), broadcast.actions());
+    }
+
+    private List<ScoringDecision<ACTION>> scoreRows(
+            NamespacedRecord<Namespace, Object> shared,
+            List<TransformedAction<ACTION>> transformed
+    ) {
         int actionSize = transformed.size();
-        float[][] numericals = new float[actionSize][this.numericalFeatures.size()];
-        float[][][] embeddings = new float[actionSize][this.embdeddedFeatures.size()][];
-        String[][] categoricals = new String[actionSize][this.categoricalFeatures.size()];
-        String[][] texts = new String[actionSize][this.textFeatures.size()];
+        CatBoostFeatureMatrix.Sized matrix = featureMatrix(actionSize);
+        float[][] numericals = matrix.numericals();
+        float[][][] embeddings = matrix.embeddings();
+        String[][] categoricals = matrix.categoricals();
+        int[][] categoricalHashes = this.categoricalHasher == null ? null : matrix.categoricalHashes();
+        String[][] texts = matrix.texts();
 
-        for (int actionIdx = 0; actionIdx < actionSize; actionIdx++) {
-            var dataRecord = transformed.get(actionIdx).transformed();
-            processNumericals(dataRecord, numericals[actionIdx]);
-            processCategorical(dataRecord, categoricals[actionIdx]);
-            processText(dataRecord, texts[actionIdx]);
-            processEmbedding(dataRecord, embeddings[actionIdx]);
+        // Features present in the broadcast row are encoded once here and skipped in the per-row loop below
+        int[] rowNumericals = rowFeatureIndices(this.numericalFeatures, shared);
+        int[] rowCategoricals = rowFeatureIndices(this.categoricalFeatures, shared);
+        int[] rowTexts = rowFeatureIndices(this.textFeatures, shared);
+        int[] rowEmbeddings = rowFeatureIndices(this.embdeddedFeatures, shared);
+        if (shared != null) {
+            broadcastShared(shared, actionSize, matrix);
         }
+        // The previous row's value per categorical feature. Values that are the same object in every row, as shared
+        // features are, are hashed once and the hash copied down.
+        Object[] previousCategoricals = categoricalHashes == null ? null : new Object[this.categoricalFeatures.size()];
 
-        DoubleList predictedScores = this.hotvectCatBoostModel.predict(numericals, categoricals, texts, embeddings);
-        if (this.taskType == TaskType.CLASSIFICATION) {
-            for (int i = 0; i < predictedScores.size(); i++) {
-                predictedScores.set(i, sigmoid(predictedScores.getDouble(i)));
+        for (int actionIdx = 0; actionIdx < actionSize; actionIdx++) {
+            var dataRecord = transformed.get(actionIdx).transformed();
+            for (int featureIdx : rowNumericals) {
+                numericals[actionIdx][featureIdx] = toNumerical(dataRecord.get(this.numericalFeatures.get(featureIdx)));
+            }
+            for (int featureIdx : rowCategoricals) {
+                Object value = dataRecord.get(this.categoricalFeatures.get(featureIdx));
+                if (categoricalHashes == null) {
+                    categoricals[actionIdx][featureIdx] = CatBoostEncodingUtils.normalizeCategoricalValue(value);
+                } else if (actionIdx > 0 && value == previousCategoricals[featureIdx]) {
+                    categoricalHashes[actionIdx][featureIdx] = categoricalHashes[actionIdx - 1][featureIdx];
+                } else {
+                    categoricalHashes[actionIdx][featureIdx] = this.categoricalHasher.hash(value);
+                    previousCategoricals[featureIdx] = value;
+                }
+            }
+            for (int featureIdx : rowTexts) {
+                texts[actionIdx][featureIdx] = CatBoostEncodingUtils.normalizeTextValue(dataRecord.get(this.textFeatures.get(featureIdx)));
+            }
+            for (int featureIdx : rowEmbeddings) {
+                embeddings[actionIdx][featureIdx] = toEmbedding(dataRecord.get(this.embdeddedFeatures.get(featureIdx)));
             }
         }
 
+        DoubleList predictedScores = predictAndRelease(matrix);
+
         List<ScoringDecision<ACTION>> ret = new ArrayList<>(predictedScores.size());
         for (int i = 0; i < predictedScores.size(); i++) {
             TransformedAction<ACTION> transformedAction = transformed.get(i);
@@ -99,62 +196,411 @@ final class CatBoostTransformedActionScorer<ACTION> {
         return ret;
     }
 
+    private void broadcastShared(
+            NamespacedRecord<Namespace, Object> shared,
+            int actionSize,
+            CatBoostFeatureMatrix.Sized matrix
+    ) {
+        float[][] numericals = matrix.numericals();
+        String[][] categoricals = matrix.categoricals();
+        int[][] categoricalHashes = matrix.categoricalHashes();
+        String[][] texts = matrix.texts();
+        float[][][] embeddings = matrix.embeddings();
+        for (int featureIdx = 0; featureIdx < this.numericalFeatures.size(); featureIdx++) {
+            Object value = shared.get(this.numericalFeatures.get(featureIdx));
+            if (value != null) {
+                float encoded = toNumerical(value);
+                for (int row = 0; row < actionSize; row++) {
+                    numericals[row][featureIdx] = encoded;
+                }
+            }
+        }
+        for (int featureIdx = 0; featureIdx < this.categoricalFeatures.size(); featureIdx++) {
+            Object value = shared.get(this.categoricalFeatures.get(featureIdx));
+            if (value == null) {
+                continue;
+            }
+            if (this.categoricalHasher == null) {
+                String encoded = CatBoostEncodingUtils.normalizeCategoricalValue(value);
+                for (int row = 0; row < actionSize; row++) {
+                    categoricals[row][featureIdx] = encoded;
+                }
+            } else {
+                int hash = this.categoricalHasher.hash(value);
+                for (int row = 0; row < actionSize; row++) {
+                    categoricalHashes[row][featureIdx] = hash;
+                }
+            }
+        }
+        for (int featureIdx = 0; featureIdx < this.textFeatures.size(); featureIdx++) {
+            Object value = shared.get(this.textFeatures.get(featureIdx));
+            if (value != null) {
+                String encoded = CatBoostEncodingUtils.normalizeTextValue(value);
+                for (int row = 0; row < actionSize; row++) {
+                    texts[row][featureIdx] = encoded;
+                }
+            }
+        }
+        for (int featureIdx = 0; featureIdx < this.embdeddedFeatures.size(); featureIdx++) {
+            Object value = shared.get(this.embdeddedFeatures.get(featureIdx));
+            if (value != null) {
+                float[] encoded = toEmbedding(value);
+                for (int row = 0; row < actionSize; row++) {
+                    embeddings[row][featureIdx] = encoded;
+                }
+            }
+        }
+    }
+
+    /**
+     * Indices of the features that must be read per row, i.e. those without a value in the broadcast row.
+     */
+    private static int[] rowFeatureIndices(List<Namespace> features, NamespacedRecord<Namespace, Object> shared) {
+        int[] ret = new int[features.size()];
+        int count = 0;
+        for (int i = 0; i < ret.length; i++) {
+            if (shared == null || shared.get(features.get(i)) == null) {
+                ret[count++] = i;
+            }
+        }
+        return count == ret.length ? ret : Arrays.copyOf(ret, count);
+    }
+
+    /**
+     * Scores a columnar batch. Produces the same decisions as {@link #scoreTransformed(List)} would for
+     * {@link TransformedBatch#toTransformedActions()}, but reads primitive columns without boxing.
+     */
+    List<ScoringDecision<ACTION>> scoreColumnar(TransformedBatch<ACTION> batch) {
+        return scoreFillable(FillableBatch.of(batch));
+    }
+
+    /**
+     * Scores a batch that the transformer fills directly into this thread's input matrices. Produces the same
+     * decisions as {@link #scoreColumnar(TransformedBatch)} on the equivalent columnar batch.
+     */
+    List<ScoringDecision<ACTION>> scoreFillable(FillableBatch<ACTION> batch) {
+        ColumnMapping mapping = columnMapping(batch.layout());
+        int actionSize = batch.size();
+        CatBoostFeatureMatrix.Sized matrix = featureMatrix(actionSize);
+        fillMissingFeatures(mapping, matrix, actionSize);
+        batch.fillInto(new MatrixSink(mapping, matrix, this.categoricalHasher));
+
+        DoubleList predictedScores = predictAndRelease(matrix);
+
+        List<AvailableAction<ACTION>> actions = batch.actions();
+        List<ScoringDecision<ACTION>> ret = new ArrayList<>(predictedScores.size());
+        for (int i = 0; i < predictedScores.size(); i++) {
+            AvailableAction<ACTION> action = actions.get(i);
+            ret.add(ScoringDecision.of(action.actionId(), action.action(), predictedScores.getDouble(i)));
+        }
+        return ret;
+    }
+
+    /**
+     * Features the transformer does not produce are written as missing values, since the sink never sees them.
+     */
+    private void fillMissingFeatures(ColumnMapping mapping, CatBoostFeatureMatrix.Sized matrix, int actionSize) {
+        for (int featureIdx = 0; featureIdx < mapping.numericalColumns.length; featureIdx++) {
+            if (mapping.numericalColumns[featureIdx] < 0) {
+                for (int row = 0; row < actionSize; row++) {
+                    matrix.numericals()[row][featureIdx] = Float.NaN;
+                }
+            }
+        }
+        for (int featureIdx = 0; featureIdx < mapping.categoricalColumns.length; featureIdx++) {
+            if (mapping.categoricalColumns[featureIdx] >= 0) {
+                continue;
+            }
+            if (this.categoricalHasher == null) {
+                for (int row = 0; row < actionSize; row++) {
+                    matrix.categoricals()[row][featureIdx] = CatBoostEncodingUtils.MISSING_CATEGORICAL;
+                }
+            } else {
+                int hash = this.categoricalHasher.hash(null);
+                for (int row = 0; row < actionSize; row++) {
+                    matrix.categoricalHashes()[row][featureIdx] = hash;
+                }
+            }
+        }
+        for (int featureIdx = 0; featureIdx < mapping.textColumns.length; featureIdx++) {
+            if (mapping.textColumns[featureIdx] < 0) {
+                for (int row = 0; row < actionSize; row++) {
+                    matrix.texts()[row][featureIdx] = CatBoostEncodingUtils.MISSING_TEXT;
+                }
+            }
+        }
+        for (int featureIdx = 0; featureIdx < mapping.embeddingColumns.length; featureIdx++) {
+            if (mapping.embeddingColumns[featureIdx] < 0) {
+                for (int row = 0; row < actionSize; row++) {
+                    matrix.embeddings()[row][featureIdx] = MISSING_EMBEDDING;
+                }
+            }
+        }
+    }
+
     void close() throws Exception {
         this.hotvectCatBoostModel.close();
     }
 
-    private void processEmbedding(NamespacedRecord<Namespace, Object> namespacedRecord, float[][] embeddings) {
-        for (int featureIdx = 0; featureIdx < this.embdeddedFeatures.size(); featureIdx++) {
-            Namespace feature = this.embdeddedFeatures.get(featureIdx);
-            Object value = namespacedRecord.get(feature);
-
-            embeddings[featureIdx] = switch (value) {
-                case null -> MISSING_EMBEDDING;
-                case float[] fs when fs.length == 0 -> MISSING_EMBEDDING;
-                case float[] fs -> fs;
-                case double[] ds when ds.length == 0 -> MISSING_EMBEDDING;
-                case double[] ds -> {
-                    float[] farr = new float[ds.length];
-                    for (int i = 0; i < ds.length; i++) {
-                        farr[i] = (float) ds[i];
-                    }
-                    yield farr;
-                }
-                default -> throw new RuntimeException("Invalid type for embedding:%s" + value);
-            };
+    private CatBoostFeatureMatrix.Sized featureMatrix(int actionSize) {
+        if (featureMatrices == null) {
+            return CatBoostFeatureMatrix.allocate(
+                    actionSize,
+                    this.numericalFeatures.size(),
+                    categoricalStringWidth(),
+                    this.textFeatures.size(),
+                    this.embdeddedFeatures.size(),
+                    categoricalHashWidth()
+            );
         }
+        return featureMatrices.get().forRows(actionSize);
     }
 
-    private void processText(NamespacedRecord<Namespace, Object> namespacedRecord, String[] texts) {
-        for (int featureIdx = 0; featureIdx < this.textFeatures.size(); featureIdx++) {
-            Namespace feature = this.textFeatures.get(featureIdx);
-            Object value = namespacedRecord.get(feature);
-            texts[featureIdx] = CatBoostEncodingUtils.normalizeTextValue(value);
+    // Categoricals are either passed as strings or hashed straight into ints, never both
+    private int categoricalStringWidth() {
+        return this.categoricalHasher == null ? this.categoricalFeatures.size() : 0;
+    }
+
+    private int categoricalHashWidth() {
+        return this.categoricalHasher == null ? 0 : this.categoricalFeatures.size();
+    }
+
+    /**
+     * Predicts and then, if the matrix is pooled, drops its references to this batch's feature values, so that an idle
+     * scoring thread does not keep the last request's strings and embeddings alive.
+     */
+    private DoubleList predictAndRelease(CatBoostFeatureMatrix.Sized matrix) {
+        try {
+            return predict(matrix);
+        } finally {
+            if (featureMatrices != null) {
+                matrix.clearReferences();
+            }
         }
     }
 
-    private void processCategorical(NamespacedRecord<Namespace, Object> namespacedRecord, String[] categoricals) {
-        for (int featureIdx = 0; featureIdx < this.categoricalFeatures.size(); featureIdx++) {
-            Namespace feature = this.categoricalFeatures.get(featureIdx);
-            Object value = namespacedRecord.get(feature);
-            categoricals[featureIdx] = CatBoostEncodingUtils.normalizeCategoricalValue(value);
+    private DoubleList predict(CatBoostFeatureMatrix.Sized matrix) {
+        DoubleList predictedScores;
+        if (this.categoricalHasher == null) {
+            predictedScores = this.hotvectCatBoostModel.predict(matrix.numericals(), matrix.categoricals(), matrix.texts(), matrix.embeddings());
+        } else {
+            predictedScores = this.hotvectCatBoostModel.predict(matrix.numericals(), matrix.categoricalHashes());
         }
+        if (this.taskType == TaskType.CLASSIFICATION) {
+            for (int i = 0; i < predictedScores.size(); i++) {
+                predictedScores.set(i, sigmoid(predictedScores.getDouble(i)));
+            }
+        }
+        return predictedScores;
     }
 
-    private void processNumericals(NamespacedRecord<Namespace, Object> namespacedRecord, float[] numericals) {
-        for (int featureIdx = 0; featureIdx < this.numericalFeatures.size(); featureIdx++) {
-            Namespace feature = this.numericalFeatures.get(featureIdx);
-            Object value = namespacedRecord.get(feature);
+    private ColumnMapping columnMapping(TransformedBatch.Layout layout) {
+        ColumnMapping mapping = this.columnMapping;
+        if (mapping == null || mapping.layout != layout) {
+            int[] numericalColumns = columnIndices(layout, this.numericalFeatures);
+            int[] categoricalColumns = columnIndices(layout, this.categoricalFeatures);
+            int[] textColumns = columnIndices(layout, this.textFeatures);
+            int[] embeddingColumns = columnIndices(layout, this.embdeddedFeatures);
+            CatBoostFeatureType[] columnFeatureTypes = new CatBoostFeatureType[layout.columnCount()];
+            int[] columnFeatureIndices = new int[layout.columnCount()];
+            mapColumns(numericalColumns, CatBoostFeatureType.NUMERICAL, columnFeatureTypes, columnFeatureIndices);
+            mapColumns(categoricalColumns, CatBoostFeatureType.CATEGORICAL, columnFeatureTypes, columnFeatureIndices);
+            mapColumns(textColumns, CatBoostFeatureType.TEXT, columnFeatureTypes, columnFeatureIndices);
+            mapColumns(embeddingColumns, CatBoostFeatureType.EMBEDDING, columnFeatureTypes, columnFeatureIndices);
+            mapping = new ColumnMapping(
+                    layout,
+                    numericalColumns,
+                    categoricalColumns,
+                    textColumns,
+                    embeddingColumns,
+                    columnFeatureTypes,
+                    columnFeatureIndices
+            );
+            this.columnMapping = mapping;
+        }
+        return mapping;
+    }
 
-            numericals[featureIdx] = switch (value) {
-                case null -> Float.NaN;
-                case Double d -> d.floatValue();
-                case Float f -> f;
-                default -> throw new RuntimeException("Invalid numerical value:" + value);
-            };
+    private static int[] columnIndices(TransformedBatch.Layout layout, List<Namespace> features) {
+        int[] ret = new int[features.size()];
+        for (int i = 0; i < ret.length; i++) {
+            ret[i] = layout.columnIndex(features.get(i));
+        }
+        return ret;
+    }
+
+    private static void mapColumns(
+            int[] featureColumns,
+            CatBoostFeatureType featureType,
+            CatBoostFeatureType[] columnFeatureTypes,
+            int[] columnFeatureIndices
+    ) {
+        for (int featureIdx = 0; featureIdx < featureColumns.length; featureIdx++) {
+            int column = featureColumns[featureIdx];
+            if (column >= 0) {
+                columnFeatureTypes[column] = featureType;
+                columnFeatureIndices[column] = featureIdx;
+            }
         }
     }
 
+    /**
+     * For each feature, its column in the layout (or -1), and for each column, the feature type and index it fills
+     * (a null type for columns the model does not use).
+     */
+    private record ColumnMapping(
+            TransformedBatch.Layout layout,
+            int[] numericalColumns,
+            int[] categoricalColumns,
+            int[] textColumns,
+            int[] embeddingColumns,
+            CatBoostFeatureType[] columnFeatureTypes,
+            int[] columnFeatureIndices
+    ) {}
+
+    /**
+     * Encodes the values written by the transformer straight into the input matrices. Primitive values are only boxed
+     * where CatBoost needs something other than a float, and hashed categoricals are hashed from the raw value.
+     */
+    private static final class MatrixSink implements FeatureRowSink {
+        private static final Object NO_VALUE = new Object();
+
+        private final CatBoostFeatureType[] columnFeatureTypes;
+        private final int[] columnFeatureIndices;
+        private final float[][] numericals;
+        private final String[][] categoricals;
+        private final String[][] texts;
+        private final float[][][] embeddings;
+        // Null unless categoricals are hashed
+        private final CatBoostCategoricalHasher categoricalHasher;
+        private final int[][] categoricalHashes;
+        // Per column, the previous row's categorical value and its hash, so that a value repeated in every row (e.g.
+        // a shared feature) is hashed once. Integral values of both int and long columns are kept in previousIntegrals.
+        private final Object[] previousObjects;
+        private final long[] previousIntegrals;
+        private final boolean[] hasPreviousIntegral;
+        private final int[] previousHashes;
+
+        MatrixSink(ColumnMapping mapping, CatBoostFeatureMatrix.Sized matrix, CatBoostCategoricalHasher categoricalHasher) {
+            this.columnFeatureTypes = mapping.columnFeatureTypes;
+            this.columnFeatureIndices = mapping.columnFeatureIndices;
+            this.numericals = matrix.numericals();
+            this.categoricals = matrix.categoricals();
+            this.texts = matrix.texts();
+            this.embeddings = matrix.embeddings();
+            this.categoricalHasher = categoricalHasher;
+            this.categoricalHashes = matrix.categoricalHashes();
+            int columns = mapping.columnFeatureTypes.length;
+            this.previousObjects = categoricalHasher == null ? null : new Object[columns];
+            if (previousObjects != null) {
+                Arrays.fill(previousObjects, NO_VALUE);
+            }
+            this.previousIntegrals = categoricalHasher == null ? null : new long[columns];
+            this.hasPreviousIntegral = categoricalHasher == null ? null : new boolean[columns];
+            this.previousHashes = categoricalHasher == null ? null : new int[columns];
+        }
+
+        @Override
+        public void putFloat(int row, int column, float value) {
+            if (columnFeatureTypes[column] == CatBoostFeatureType.NUMERICAL) {
+                numericals[row][columnFeatureIndices[column]] = value;
+            } else {
+                putObject(row, column, value);
+            }
+        }
+
+        @Override
+        public void putDouble(int row, int column, double value) {
+            if (columnFeatureTypes[column] == CatBoostFeatureType.NUMERICAL) {
+                numericals[row][columnFeatureIndices[column]] = (float) value;
+            } else {
+                putObject(row, column, value);
+            }
+        }
+
+        @Override
+        public void putInt(int row, int column, int value) {
+            if (columnFeatureTypes[column] != CatBoostFeatureType.CATEGORICAL) {
+                putObject(row, column, value);
+            } else if (categoricalHasher == null) {
+                categoricals[row][columnFeatureIndices[column]] = Integer.toString(value);
+            } else {
+                putIntegralHash(row, column, value);
+            }
+        }
+
+        @Override
+        public void putLong(int row, int column, long value) {
+            if (columnFeatureTypes[column] != CatBoostFeatureType.CATEGORICAL) {
+                putObject(row, column, value);
+            } else if (categoricalHasher == null) {
+                categoricals[row][columnFeatureIndices[column]] = Long.toString(value);
+            } else {
+                putIntegralHash(row, column, value);
+            }
+        }
+
+        // An int and a long of the same value are written as the same string, so they also hash the same
+        private void putIntegralHash(int row, int column, long value) {
+            if (!hasPreviousIntegral[column] || previousIntegrals[column] != value) {
+                previousHashes[column] = categoricalHasher.hash(value);
+                previousIntegrals[column] = value;
+                hasPreviousIntegral[column] = true;
+            }
+            categoricalHashes[row][columnFeatureIndices[column]] = previousHashes[column];
+        }
+
+        private void putObjectHash(int row, int column, Object value) {
+            if (value != previousObjects[column]) {
+                previousHashes[column] = categoricalHasher.hash(value);
+                previousObjects[column] = value;
+            }
+            categoricalHashes[row][columnFeatureIndices[column]] = previousHashes[column];
+        }
+
+        @Override
+        public void putObject(int row, int column, Object value) {
+            CatBoostFeatureType featureType = columnFeatureTypes[column];
+            if (featureType == null) {
+                return;
+            }
+            int featureIdx = columnFeatureIndices[column];
+            switch (featureType) {
+                case NUMERICAL -> numericals[row][featureIdx] = toNumerical(value);
+                case CATEGORICAL -> {
+                    if (categoricalHasher == null) {
+                        categoricals[row][featureIdx] = CatBoostEncodingUtils.normalizeCategoricalValue(value);
+                    } else {
+                        putObjectHash(row, column, value);
+                    }
+                }
+                case TEXT -> texts[row][featureIdx] = CatBoostEncodingUtils.normalizeTextValue(value);
+                case EMBEDDING -> embeddings[row][featureIdx] = toEmbedding(value);
+                default -> throw new AssertionError("Unexpected feature type " + featureType);
+            }
+        }
+    }
+
+    private static float[] toEmbedding(Object value) {
+        return switch (value) {
+            case null -> MISSING_EMBEDDING;
+            case float[] fs when fs.length == 0 -> MISSING_EMBEDDING;
+            case float[] fs -> fs;
+            case double[] ds when ds.length == 0 -> MISSING_EMBEDDING;
+            case double[] ds -> VectorMath.toFloat(ds);
+            default -> throw new RuntimeException("Invalid type for embedding:%s" + value);
+        };
+    }
+
+    private static float toNumerical(Object value) {
+        return switch (value) {
+            case null -> Float.NaN;
+            case Double d -> d.floatValue();
+            case Float f -> f;
+            default -> throw new RuntimeException("Invalid numerical value:" + value);
+        };
+    }
+
     private static double sigmoid(double x) {
         return 1 / (1 + Math.exp(-x));
     }
@@ -12,12 +12,16 @@ import com.hotvect.api.data.scoring.ScoringDecision;
 import com.hotvect.core.transform.Computable;
 import com.hotvect.core.transform.Computing;
 import com.hotvect.core.transform.TransformationMetadata;
+import com.hotvect.core.transform.ranking.BroadcastTransformedActions;
 import com.hotvect.core.transform.ranking.ComputingCandidate;
 import com.hotvect.core.transform.ranking.ComputingRankingRequest;
 import com.hotvect.core.transform.ranking.ComputingRankingTransformer;
+import com.hotvect.onlineutils.concurrency.AdaptiveForkThreshold;
 import com.hotvect.onlineutils.nativelibraries.catboost.HotvectCatBoostModel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -26,7 +30,9 @@ import java.util.SortedSet;
 import java.util.TreeSet;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class CatBoostBulkScorerTest {
     private enum TestNamespace implements Namespace {
@@ -186,6 +192,29 @@ class CatBoostBulkScorerTest {
         }
     }
 
+    @Test
+    void adaptiveForkThresholdRecordsScoringCost() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AdaptiveForkThreshold adaptiveForkThreshold = AdaptiveForkThreshold.builder("test", meterRegistry)
+                .withInitialThreshold(2)
+                .build();
+        // Closing the scorer closes the model and removes the gauges of the threshold
+        try (CatBoostBulkScorer<String, String> scorer = CatBoostBulkScorer.builder(
+                        new RecordingTransformer(),
+                        HotvectCatBoostModel.loadModel(CatBoostBulkScorerTest.class.getResourceAsStream("categorical_example_model.bin")),
+                        "regression"
+                )
+                .withAdaptiveForkThreshold(adaptiveForkThreshold)
+                .build()) {
+            List<ScoringDecision<String>> decisions = scorer.score(RankingTestData.request("example", "shared", "a0", "a1", "a2", "a3")).decisions();
+
+            assertEquals(List.of("a0", "a1", "a2", "a3"), decisions.stream().map(ScoringDecision::actionId).toList());
+            assertFalse(Double.isNaN(adaptiveForkThreshold.nanosPerCandidate()));
+            assertFalse(meterRegistry.getMeters().isEmpty());
+        }
+        assertTrue(meterRegistry.getMeters().isEmpty(), meterRegistry.getMeters().toString());
+    }
+
     @Test
     void scorePreparesRankingRequestOnlyOnce() throws Exception {
         try (HotvectCatBoostModel model = HotvectCatBoostModel.loadModel(
@@ -261,6 +290,44 @@ class CatBoostBulkScorerTest {
         }
     }
 
+    @Test
+    void broadcastSharedFeaturesScoreLikeMergedRecords() throws Exception {
+        try (HotvectCatBoostModel model = HotvectCatBoostModel.loadModel(
+                CatBoostBulkScorerTest.class.getResourceAsStream("categorical_example_model.bin")
+        )) {
+            SortedSet<Namespace> usedFeatures = new TreeSet<>(Namespace.alphabetical());
+            usedFeatures.add(TestNamespace.CAT);
+            usedFeatures.add(TestNamespace.NUM);
+            CatBoostTransformedActionScorer<String> scorer = new CatBoostTransformedActionScorer<>(
+                    usedFeatures,
+                    model,
+                    "regression"
+            );
+
+            NamespacedRecordImpl<Namespace, Object> shared = new NamespacedRecordImpl<>();
+            shared.put(TestNamespace.NUM, 2.0d);
+            List<TransformedAction<String>> actions = new ArrayList<>();
+            for (String action : List.of("a0", "a1", "a2")) {
+                NamespacedRecordImpl<Namespace, Object> record = new NamespacedRecordImpl<>();
+                record.put(TestNamespace.CAT, action);
+                actions.add(TransformedAction.of("sku-" + action, action, record));
+            }
+            BroadcastTransformedActions<String> broadcast = new BroadcastTransformedActions<>(shared, actions);
+
+            List<ScoringDecision<String>> broadcastDecisions = scorer.scoreBroadcast(broadcast);
+            List<ScoringDecision<String>> mergedDecisions = scorer.scoreTransformed(broadcast.toTransformedActions());
+
+            assertEquals(
+                    mergedDecisions.stream().map(ScoringDecision::actionId).toList(),
+                    broadcastDecisions.stream().map(ScoringDecision::actionId).toList()
+            );
+            assertEquals(
+                    mergedDecisions.stream().map(ScoringDecision::score).toList(),
+                    broadcastDecisions.stream().map(ScoringDecision::score).toList()
+            );
+        }
+    }
+
     private static final class EmptyFeatureStoreResponse implements FeatureStoreResponse {
         @Override
         public Map<String, Object> getEntity(Map<String, Object> entityId) {
@@ -0,0 +1,72 @@
+package com.hotvect.catboost;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CatBoostCategoricalHasherTest {
+    @Test
+    void recurringValuesAreHashedOnce() {
+        AtomicInteger calls = new AtomicInteger();
+        CatBoostCategoricalHasher hasher = new CatBoostCategoricalHasher(v -> {
+            calls.incrementAndGet();
+            return v.length();
+        }, 10);
+
+        assertEquals(3, hasher.hash("abc"));
+        assertEquals(3, hasher.hash(new String("abc")));
+        assertEquals(1, hasher.hash("x"));
+
+        assertEquals(2, calls.get());
+        assertEquals(2, hasher.cachedValueCount());
+    }
+
+    @Test
+    void cacheIsBounded() {
+        AtomicInteger calls = new AtomicInteger();
+        CatBoostCategoricalHasher hasher = new CatBoostCategoricalHasher(v -> {
+            calls.incrementAndGet();
+            return v.hashCode();
+        }, 2);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(Integer.toString(i).hashCode(), hasher.hash(Integer.toString(i)));
+        }
+        assertEquals(2, hasher.cachedValueCount());
+        hasher.hash("4");
+        assertEquals(6, calls.get());
+    }
+
+    @Test
+    void hashesRawValuesLikeTheirCategoricalStrings() {
+        CatBoostCategoricalHasher hasher = new CatBoostCategoricalHasher(String::hashCode, 10);
+
+        assertEquals("42".hashCode(), hasher.hash(42));
+        assertEquals("42".hashCode(), hasher.hash(42L));
+        assertEquals("true".hashCode(), hasher.hash(Boolean.TRUE));
+        assertEquals("DAYS".hashCode(), hasher.hash(TimeUnit.DAYS));
+        assertEquals("abc".hashCode(), hasher.hash(new StringBuilder("abc")));
+        assertEquals(CatBoostEncodingUtils.MISSING_CATEGORICAL.hashCode(), hasher.hash(null));
+    }
+
+    @Test
+    void recurringRawValuesAreNotConvertedAgain() {
+        AtomicInteger calls = new AtomicInteger();
+        CatBoostCategoricalHasher hasher = new CatBoostCategoricalHasher(v -> {
+            calls.incrementAndGet();
+            return v.hashCode();
+        }, 10);
+
+        for (int i = 0; i < 3; i++) {
+            hasher.hash(1000);
+            hasher.hash(TimeUnit.DAYS);
+            hasher.hash(new StringBuilder("abc"));
+        }
+
+        assertEquals(3, calls.get());
+        assertEquals(3, hasher.cachedValueCount());
+    }
+}
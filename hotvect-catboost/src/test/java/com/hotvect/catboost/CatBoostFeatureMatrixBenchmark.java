@@ -0,0 +1,97 @@
+package com.hotvect.catboost;
+
+import com.hotvect.api.data.AvailableAction;
+import com.hotvect.api.data.Namespace;
+import com.hotvect.api.data.ValueType;
+import com.hotvect.api.data.scoring.ScoringDecision;
+import com.hotvect.core.transform.ranking.TransformedBatch;
+import com.hotvect.onlineutils.nativelibraries.catboost.HotvectCatBoostModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(2)
+@State(Scope.Thread)
+public class CatBoostFeatureMatrixBenchmark {
+    // Run with "-prof gc" and compare gc.alloc.rate.norm (bytes per request) between the two variants. The allocating
+    // variant reproduces the previous behaviour of allocating fresh float[][]/String[][] matrices for every batch.
+    @Param({"100", "1000", "5000"})
+    int actionCount;
+
+    private enum TestNamespace implements Namespace {
+        CAT {
+            @Override
+            public ValueType getFeatureValueType() {
+                return CatBoostFeatureType.CATEGORICAL;
+            }
+        },
+        NUM {
+            @Override
+            public ValueType getFeatureValueType() {
+                return CatBoostFeatureType.NUMERICAL;
+            }
+        }
+    }
+
+    HotvectCatBoostModel model;
+    CatBoostTransformedActionScorer<String> pooled;
+    CatBoostTransformedActionScorer<String> allocating;
+    TransformedBatch<String> batch;
+
+    @Setup
+    public void setUp() {
+        model = HotvectCatBoostModel.loadModel(
+                CatBoostFeatureMatrixBenchmark.class.getResourceAsStream("categorical_example_model.bin")
+        );
+        Set<TestNamespace> usedFeatures = Set.of(TestNamespace.CAT, TestNamespace.NUM);
+        pooled = new CatBoostTransformedActionScorer<>(usedFeatures, model, "regression", true);
+        allocating = new CatBoostTransformedActionScorer<>(usedFeatures, model, "regression", false);
+
+        List<AvailableAction<String>> actions = new ArrayList<>(actionCount);
+        String[] cat = new String[actionCount];
+        double[] num = new double[actionCount];
+        for (int i = 0; i < actionCount; i++) {
+            actions.add(AvailableAction.of("a" + i, "a" + i));
+            cat[i] = "a" + (i % 4);
+            num[i] = i;
+        }
+        TransformedBatch.Layout layout = new TransformedBatch.Layout(
+                new Namespace[]{TestNamespace.CAT, TestNamespace.NUM},
+                new TransformedBatch.ColumnType[]{TransformedBatch.ColumnType.STRING, TransformedBatch.ColumnType.DOUBLE}
+        );
+        batch = new TransformedBatch<>(actions, layout, new Object[]{cat, num});
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        model.close();
+    }
+
+    @Benchmark
+    public List<ScoringDecision<String>> pooledFeatureMatrix() {
+        return pooled.scoreColumnar(batch);
+    }
+
+    @Benchmark
+    public List<ScoringDecision<String>> allocatingFeatureMatrix() {
+        return allocating.scoreColumnar(batch);
+    }
+}
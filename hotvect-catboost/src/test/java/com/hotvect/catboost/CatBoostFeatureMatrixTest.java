@@ -0,0 +1,68 @@
+package com.hotvect.catboost;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class CatBoostFeatureMatrixTest {
+    @Test
+    void matricesHaveExactlyTheRequestedShape() {
+        CatBoostFeatureMatrix matrix = new CatBoostFeatureMatrix(3, 2, 1, 4);
+        CatBoostFeatureMatrix.Sized sized = matrix.forRows(5);
+
+        assertEquals(5, sized.numericals().length);
+        assertEquals(5, sized.categoricals().length);
+        assertEquals(5, sized.texts().length);
+        assertEquals(5, sized.embeddings().length);
+        assertEquals(3, sized.numericals()[4].length);
+        assertEquals(2, sized.categoricals()[4].length);
+        assertEquals(1, sized.texts()[4].length);
+        assertEquals(4, sized.embeddings()[4].length);
+    }
+
+    @Test
+    void fullAndTailBatchSizesAreReusedWithoutReallocation() {
+        CatBoostFeatureMatrix matrix = new CatBoostFeatureMatrix(1, 1, 0, 0);
+        CatBoostFeatureMatrix.Sized full = matrix.forRows(8);
+        CatBoostFeatureMatrix.Sized tail = matrix.forRows(3);
+
+        assertSame(full, matrix.forRows(8));
+        assertSame(tail, matrix.forRows(3));
+        assertSame(full, matrix.forRows(8));
+        // Row arrays are shared between sizes
+        assertSame(full.numericals()[2], tail.numericals()[2]);
+    }
+
+    @Test
+    void growingKeepsExistingRows() {
+        CatBoostFeatureMatrix matrix = new CatBoostFeatureMatrix(2, 0, 0, 0);
+        float[] firstRow = matrix.forRows(2).numericals()[0];
+        CatBoostFeatureMatrix.Sized larger = matrix.forRows(10);
+
+        assertSame(firstRow, larger.numericals()[0]);
+        assertNotSame(larger.numericals()[0], larger.numericals()[9]);
+        assertEquals(10, larger.rows());
+    }
+
+    @Test
+    void clearingReferencesKeepsTheRowArrays() {
+        CatBoostFeatureMatrix matrix = new CatBoostFeatureMatrix(1, 1, 1, 1);
+        CatBoostFeatureMatrix.Sized sized = matrix.forRows(2);
+        String[] categoricalRow = sized.categoricals()[1];
+        sized.numericals()[1][0] = 1.0f;
+        sized.categoricals()[1][0] = "value";
+        sized.texts()[1][0] = "text";
+        sized.embeddings()[1][0] = new float[]{1.0f};
+
+        sized.clearReferences();
+
+        assertSame(categoricalRow, matrix.forRows(2).categoricals()[1]);
+        assertNull(sized.categoricals()[1][0]);
+        assertNull(sized.texts()[1][0]);
+        assertNull(sized.embeddings()[1][0]);
+        assertEquals(1.0f, sized.numericals()[1][0]);
+    }
+}
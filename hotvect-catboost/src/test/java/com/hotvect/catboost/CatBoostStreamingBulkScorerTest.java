@@ -2,23 +2,35 @@ package com.hotvect.catboost;
 
 import com.hotvect.api.data.Namespace;
 import com.hotvect.api.data.AvailableAction;
+import com.hotvect.api.data.FeatureStoreResponseContainer;
 import com.hotvect.api.data.ValueType;
 import com.hotvect.api.data.common.NamespacedRecordImpl;
 import com.hotvect.api.data.ranking.RankingRequest;
 import com.hotvect.api.data.ranking.TransformedAction;
 import com.hotvect.api.data.scoring.ScoringDecision;
+import com.hotvect.core.transform.ranking.ColumnarRankingTransformer;
 import com.hotvect.core.transform.ranking.PreparedBatchStream;
+import com.hotvect.core.transform.ranking.PreparedColumnarBatchStream;
 import com.hotvect.core.transform.ranking.StreamingRankingTransformer;
+import com.hotvect.core.transform.ranking.TransformedBatch;
+import com.hotvect.onlineutils.concurrency.RankingExecutor;
 import com.hotvect.onlineutils.nativelibraries.catboost.HotvectCatBoostModel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class CatBoostStreamingBulkScorerTest {
     private enum TestNamespace implements Namespace {
@@ -154,4 +166,241 @@ class CatBoostStreamingBulkScorerTest {
             );
         }
     }
+
+    private final ColumnarRankingTransformer<String, String> columnarTransformer = new ColumnarRankingTransformer<>() {
+        private final TransformedBatch.Layout layout = new TransformedBatch.Layout(
+                new Namespace[]{TestNamespace.CAT, TestNamespace.NUM},
+                new TransformedBatch.ColumnType[]{TransformedBatch.ColumnType.STRING, TransformedBatch.ColumnType.DOUBLE}
+        );
+
+        @Override
+        public PreparedColumnarBatchStream<String> prepareColumnarBatchStream(RankingRequest<String, String> request) {
+            return new PreparedColumnarBatchStream<>(Stream.of(
+                    toBatch(request.actions().subList(0, 2)),
+                    toBatch(request.actions().subList(2, 4))
+            ), Map.of());
+        }
+
+        @Override
+        public Stream<TransformedAction<String>> transformStream(RankingRequest<String, String> request) {
+            return transformer.transformStream(request);
+        }
+
+        @Override
+        public PreparedBatchStream<String> prepareBatchStream(RankingRequest<String, String> request) {
+            return transformer.prepareBatchStream(request);
+        }
+
+        @Override
+        public SortedSet<? extends Namespace> getUsedFeatures() {
+            return transformer.getUsedFeatures();
+        }
+
+        private TransformedBatch<String> toBatch(List<AvailableAction<String>> actions) {
+            String[] cat = new String[actions.size()];
+            double[] num = new double[actions.size()];
+            for (int i = 0; i < actions.size(); i++) {
+                cat[i] = actions.get(i).action();
+                num[i] = 1.0d;
+            }
+            return new TransformedBatch<>(actions, layout, new Object[]{cat, num});
+        }
+    };
+
+    @Test
+    void columnarBatchesScoreLikeTransformedActions() throws Exception {
+        try (HotvectCatBoostModel modelColumnar = HotvectCatBoostModel.loadModel(
+                CatBoostStreamingBulkScorerTest.class.getResourceAsStream("categorical_example_model.bin")
+        );
+             HotvectCatBoostModel modelRows = HotvectCatBoostModel.loadModel(
+                     CatBoostStreamingBulkScorerTest.class.getResourceAsStream("categorical_example_model.bin")
+             )) {
+            RankingRequest<String, String> request = RankingTestData.request("example", "shared", "a0", "a1", "a2", "a3");
+
+            List<ScoringDecision<String>> columnarDecisions = new CatBoostStreamingBulkScorer<>(
+                    columnarTransformer,
+                    modelColumnar,
+                    "regression",
+                    false
+            ).bulkScore(request);
+            List<ScoringDecision<String>> rowDecisions = new CatBoostStreamingBulkScorer<>(
+                    transformer,
+                    modelRows,
+                    "regression",
+                    false
+            ).bulkScore(request);
+
+            assertEquals(
+                    rowDecisions.stream().map(ScoringDecision::actionId).toList(),
+                    columnarDecisions.stream().map(ScoringDecision::actionId).toList()
+            );
+            assertEquals(
+                    rowDecisions.stream().map(ScoringDecision::score).toList(),
+                    columnarDecisions.stream().map(ScoringDecision::score).toList()
+            );
+        }
+    }
+
+    @Test
+    void hashedCategoricalsScoreLikeStringCategoricals() throws Exception {
+        try (HotvectCatBoostModel modelHashed = HotvectCatBoostModel.loadModel(
+                CatBoostStreamingBulkScorerTest.class.getResourceAsStream("categorical_example_model.bin")
+        );
+             HotvectCatBoostModel modelStrings = HotvectCatBoostModel.loadModel(
+                     CatBoostStreamingBulkScorerTest.class.getResourceAsStream("categorical_example_model.bin")
+             )) {
+            RankingRequest<String, String> request = RankingTestData.request("example", "shared", "a0", "a1", "a2", "a3");
+
+            List<ScoringDecision<String>> hashedDecisions = new CatBoostStreamingBulkScorer<>(
+                    columnarTransformer,
+                    modelHashed,
+                    "regression",
+                    false,
+                    true,
+                    _responses -> FeatureStoreResponseContainer.empty()
+            ).bulkScore(request);
+            List<ScoringDecision<String>> stringDecisions = new CatBoostStreamingBulkScorer<>(
+                    columnarTransformer,
+                    modelStrings,
+                    "regression",
+                    false
+            ).bulkScore(request);
+
+            assertEquals(
+                    stringDecisions.stream().map(ScoringDecision::score).toList(),
+                    hashedDecisions.stream().map(ScoringDecision::score).toList()
+            );
+        }
+    }
+
+    @Test
+    void hashedCategoricalsOfTransformedActionsScoreLikeStringCategoricals() throws Exception {
+        try (HotvectCatBoostModel modelHashed = HotvectCatBoostModel.loadModel(
+                CatBoostStreamingBulkScorerTest.class.getResourceAsStream("categorical_example_model.bin")
+        );
+             HotvectCatBoostModel modelStrings = HotvectCatBoostModel.loadModel(
+                     CatBoostStreamingBulkScorerTest.class.getResourceAsStream("categorical_example_model.bin")
+             )) {
+            // Consecutive candidates with the same categorical value take the cached hash of the previous row
+            RankingRequest<String, String> request = RankingRequest.ofAvailableActions("example", "shared", List.of(
+                    AvailableAction.of("a0", "x"),
+                    AvailableAction.of("a1", "x"),
+                    AvailableAction.of("a2", "y"),
+                    AvailableAction.of("a3", "x")
+            ));
+
+            List<ScoringDecision<String>> hashedDecisions = new CatBoostStreamingBulkScorer<>(
+                    transformer,
+                    modelHashed,
+                    "regression",
+                    false,
+                    true,
+                    _responses -> FeatureStoreResponseContainer.empty()
+            ).bulkScore(request);
+            List<ScoringDecision<String>> stringDecisions = new CatBoostStreamingBulkScorer<>(
+                    transformer,
+                    modelStrings,
+                    "regression",
+                    false
+            ).bulkScore(request);
+
+            assertEquals(
+                    stringDecisions.stream().map(ScoringDecision::score).toList(),
+                    hashedDecisions.stream().map(ScoringDecision::score).toList()
+            );
+        }
+    }
+
+    @Test
+    void batchesOfAMappedStreamAreTransformedAndScoredOnSeveralWorkers() throws Exception {
+        // The batches are produced by a map over a sequential stream, whose spliterator does not split
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        Set<Thread> workers = ConcurrentHashMap.newKeySet();
+        StreamingRankingTransformer<String, String> mappedTransformer = new StreamingRankingTransformer<>() {
+            @Override
+            public Stream<TransformedAction<String>> transformStream(RankingRequest<String, String> request) {
+                return transformer.transformStream(request);
+            }
+
+            @Override
+            public PreparedBatchStream<String> prepareBatchStream(RankingRequest<String, String> request) {
+                List<TransformedAction<String>> transformed = transformer.transformStream(request).toList();
+                return new PreparedBatchStream<>(Stream.of(0, 2).map(start -> {
+                    workers.add(Thread.currentThread());
+                    try {
+                        // Times out unless both batches are transformed at the same time
+                        barrier.await(10, TimeUnit.SECONDS);
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                    return transformed.subList(start, start + 2);
+                }), Map.of());
+            }
+
+            @Override
+            public SortedSet<? extends Namespace> getUsedFeatures() {
+                return transformer.getUsedFeatures();
+            }
+        };
+
+        try (HotvectCatBoostModel model = HotvectCatBoostModel.loadModel(
+                CatBoostStreamingBulkScorerTest.class.getResourceAsStream("categorical_example_model.bin")
+        );
+             RankingExecutor rankingExecutor = RankingExecutor.builder("test", new SimpleMeterRegistry())
+                     .withParallelism(2)
+                     .withMaxParallelismPerRequest(2)
+                     .build()) {
+            RankingRequest<String, String> request = RankingTestData.request("example", "shared", "a0", "a1", "a2", "a3");
+
+            List<ScoringDecision<String>> decisions = new CatBoostStreamingBulkScorer<>(
+                    mappedTransformer,
+                    model,
+                    "regression",
+                    true,
+                    false,
+                    rankingExecutor,
+                    _responses -> FeatureStoreResponseContainer.empty()
+            ).bulkScore(request);
+
+            assertEquals(List.of("a0", "a1", "a2", "a3"), decisions.stream().map(ScoringDecision::actionId).toList());
+            assertEquals(2, workers.size(), workers.toString());
+        }
+    }
+
+    @Test
+    void closingTheScorerClosesACloseableTransformer() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        abstract class CloseableTransformer implements StreamingRankingTransformer<String, String>, AutoCloseable {
+        }
+        StreamingRankingTransformer<String, String> closeableTransformer = new CloseableTransformer() {
+            @Override
+            public Stream<TransformedAction<String>> transformStream(RankingRequest<String, String> request) {
+                return transformer.transformStream(request);
+            }
+
+            @Override
+            public PreparedBatchStream<String> prepareBatchStream(RankingRequest<String, String> request) {
+                return transformer.prepareBatchStream(request);
+            }
+
+            @Override
+            public SortedSet<? extends Namespace> getUsedFeatures() {
+                return transformer.getUsedFeatures();
+            }
+
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+
+        new CatBoostStreamingBulkScorer<>(
+                closeableTransformer,
+                HotvectCatBoostModel.loadModel(CatBoostStreamingBulkScorerTest.class.getResourceAsStream("categorical_example_model.bin")),
+                "regression",
+                false
+        ).close();
+
+        assertTrue(closed.get());
+    }
 }
@@ -0,0 +1,31 @@
+package com.hotvect.core.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Caches the values of a {@link Feature} or {@link SharedFeature} across requests, in a
+ * {@link com.hotvect.core.transform.CrossRequestCache}. The cache key is made of the values of the method's parameters,
+ * which must therefore all be {@link Inject} parameters whose values implement {@code equals} and {@code hashCode}
+ * (e.g. a product id feature rather than the action itself).
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.METHOD)
+public @interface CrossRequestMemoized {
+    long DEFAULT_MAXIMUM_SIZE = 100_000;
+    long DEFAULT_TTL_SECONDS = 600;
+
+    /**
+     * The maximum number of cached values.
+     */
+    long maximumSize() default DEFAULT_MAXIMUM_SIZE;
+
+    /**
+     * The number of seconds after which a cached value expires.
+     */
+    long ttlSeconds() default DEFAULT_TTL_SECONDS;
+}
@@ -0,0 +1,255 @@
+package com.hotvect.core.combine;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.hotvect.api.audit.RawFeatureName;
+import com.hotvect.api.data.FeatureNamespace;
+import com.hotvect.api.data.HashedValue;
+import com.hotvect.api.data.HashedValueType;
+import com.hotvect.api.data.SparseVector;
+import com.hotvect.api.data.common.NamespacedRecord;
+import com.hotvect.core.audit.AuditableCombiner;
+import com.hotvect.core.audit.HashedFeatureName;
+import com.hotvect.core.audit.HasherAuditState;
+import com.hotvect.core.hash.HashUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.hotvect.core.hash.HashUtils.FNV1_PRIME_32;
+
+/**
+ * Constructs feature vectors of single features and n-way crosses of hashed features, replacing
+ * {@link InteractionCombiner}.
+ *
+ * <p>Features are hashed like {@link InteractionCombiner} does, so definitions added with
+ * {@link Builder#withFeature(FeatureDefinition)} produce the same vectors. Crosses are enumerated depth first over the
+ * components' values. Each level extends the hash of the level above, so no intermediate lists are created and every
+ * element is hashed once per prefix. {@link #combine(NamespacedRecord, SparseVectorBuilder)} writes into a reusable
+ * {@link SparseVectorBuilder} and allocates nothing unless audit is enabled.</p>
+ *
+ * <p>A cross may include numerical components. Its feature is then numerical, and its value is the product of the
+ * values of its numerical components, e.g. a price weighted per category. A cross is skipped if any of its components
+ * is missing. Like {@link InteractionCombiner}, a constant categorical feature with index 0 is always added.</p>
+ *
+ * <p>Audit maps every produced feature hash to the raw features it was built from, using the source values that the
+ * hasher registered in a {@link HasherAuditState}.</p>
+ */
+@SuppressWarnings({"deprecation", "removal"})
+public class HashedInteractionCombiner<FEATURE extends FeatureNamespace> implements AuditableCombiner<FEATURE> {
+    private final int bitMask;
+    private final Interaction[] interactions;
+    private final int maxArity;
+
+    // Auditing
+    private volatile ThreadLocal<Map<HashedFeatureName, RawFeatureName>> featureName2SourceRawValue;
+    private volatile ThreadLocal<Map<Integer, List<RawFeatureName>>> featureHash2SourceRawValue;
+
+    private HashedInteractionCombiner(int bitMask, List<Interaction> interactions) {
+        this.bitMask = bitMask;
+        this.interactions = interactions.toArray(new Interaction[0]);
+        this.maxArity = interactions.stream().mapToInt(x -> x.components.length).max().orElse(0);
+    }
+
+    /**
+     * @param bits number of bits to use for the feature hashes, between 1 and 32
+     */
+    public static <FEATURE extends FeatureNamespace> Builder<FEATURE> builder(int bits) {
+        return new Builder<>(bits);
+    }
+
+    public static class Builder<FEATURE extends FeatureNamespace> {
+        private final int bitMask;
+        private final List<Interaction> interactions = new ArrayList<>();
+
+        private Builder(int bits) {
+            checkArgument(bits > 0 && bits <= 32, "bits must be between 1 and 32: %s", bits);
+            this.bitMask = bits == 32 ? -1 : (1 << bits) - 1;
+        }
+
+        /**
+         * Adds a feature, which is a cross of its components if there are more than one. The order of the components
+         * does not matter.
+         */
+        @SafeVarargs
+        public final Builder<FEATURE> withFeature(FEATURE first, FEATURE... rest) {
+            checkNotNull(first);
+            List<FeatureNamespace> components = new ArrayList<>(rest.length + 1);
+            components.add(first);
+            components.addAll(Arrays.asList(rest));
+            components.sort(FeatureNamespace.alphabetical());
+            for (int i = 1; i < components.size(); i++) {
+                checkArgument(!components.get(i).equals(components.get(i - 1)), "Component %s is repeated", components.get(i));
+            }
+            String name = Joiner.on("^").join(components);
+            interactions.add(new Interaction(HashUtils.hashUnencodedChars(name), components.toArray(new FeatureNamespace[0])));
+            return this;
+        }
+
+        /**
+         * Adds a feature of the deprecated {@link InteractionCombiner}, hashed as it hashes it.
+         */
+        public Builder<FEATURE> withFeature(FeatureDefinition featureDefinition) {
+            interactions.add(new Interaction(featureDefinition.getFeatureNamespace(), featureDefinition.getComponents().clone()));
+            return this;
+        }
+
+        public HashedInteractionCombiner<FEATURE> build() {
+            checkArgument(!interactions.isEmpty(), "At least one feature must be added");
+            return new HashedInteractionCombiner<>(bitMask, interactions);
+        }
+    }
+
+    private record Interaction(int namespace, FeatureNamespace[] components) {
+    }
+
+    /**
+     * Constructs the feature vector of {@code input}. Prefer {@link #combine(NamespacedRecord, SparseVectorBuilder)}
+     * with a builder that is reused between calls.
+     */
+    @Override
+    public SparseVector apply(NamespacedRecord<FEATURE, HashedValue> input) {
+        SparseVectorBuilder builder = new SparseVectorBuilder();
+        combine(input, builder);
+        return builder.build();
+    }
+
+    /**
+     * Adds the features of {@code input} to {@code builder}. The builder is not cleared first.
+     */
+    public void combine(NamespacedRecord<FEATURE, HashedValue> input, SparseVectorBuilder builder) {
+        Map<Integer, List<RawFeatureName>> audit = featureHash2SourceRawValue == null ? null : featureHash2SourceRawValue.get();
+        HashedValue[] values = builder.components(maxArity);
+        int[] chosen = builder.chosen(maxArity);
+
+        // Add constant feature
+        builder.addCategorical(0);
+
+        for (Interaction interaction : interactions) {
+            FeatureNamespace[] components = interaction.components;
+            boolean missing = false;
+            for (int i = 0; i < components.length; i++) {
+                values[i] = input.get(components[i]);
+                missing |= values[i] == null;
+            }
+            if (missing) {
+                continue;
+            }
+            if (components.length == 1) {
+                single(interaction, values[0], builder, audit);
+            } else {
+                cross(interaction, values, chosen, 0, interaction.namespace, 1.0, false, builder, audit);
+            }
+        }
+        Arrays.fill(values, 0, maxArity, null);
+    }
+
+    private void single(Interaction interaction, HashedValue value, SparseVectorBuilder builder, Map<Integer, List<RawFeatureName>> audit) {
+        int namespace = interaction.namespace * FNV1_PRIME_32;
+        if (value.getValueType() == HashedValueType.CATEGORICAL) {
+            for (int featureName : value.getCategoricalIndices()) {
+                int featureHash = (namespace ^ HashUtils.hashInt(featureName)) & bitMask;
+                builder.addCategorical(featureHash);
+                if (audit != null) {
+                    audit.put(featureHash, ImmutableList.of(sourceRawValue(interaction.components[0], featureName)));
+                }
+            }
+        } else {
+            int[] featureNames = value.getNumericalIndices();
+            double[] featureValues = value.getNumericalValues();
+            for (int i = 0; i < featureNames.length; i++) {
+                int featureHash = (namespace ^ HashUtils.hashInt(featureNames[i])) & bitMask;
+                builder.addNumerical(featureHash, featureValues[i]);
+                if (audit != null) {
+                    audit.put(featureHash, ImmutableList.of(sourceRawValue(interaction.components[0], featureNames[i])));
+                }
+            }
+        }
+    }
+
+    /**
+     * Emits every combination of the values of {@code components[depth..]}, given the hash and weight of the values
+     * chosen from the components before {@code depth}.
+     */
+    private void cross(Interaction interaction, HashedValue[] values, int[] chosen, int depth, int hash, double weight,
+                       boolean numerical, SparseVectorBuilder builder, Map<Integer, List<RawFeatureName>> audit) {
+        HashedValue value = values[depth];
+        boolean last = depth == interaction.components.length - 1;
+        if (value.getValueType() == HashedValueType.CATEGORICAL) {
+            for (int featureName : value.getCategoricalIndices()) {
+                chosen[depth] = featureName;
+                int extended = (hash ^ HashUtils.hashInt(featureName)) * FNV1_PRIME_32;
+                if (last) {
+                    emit(interaction, chosen, extended, weight, numerical, builder, audit);
+                } else {
+                    cross(interaction, values, chosen, depth + 1, extended, weight, numerical, builder, audit);
+                }
+            }
+        } else {
+            int[] featureNames = value.getNumericalIndices();
+            double[] featureValues = value.getNumericalValues();
+            for (int i = 0; i < featureNames.length; i++) {
+                chosen[depth] = featureNames[i];
+                int extended = (hash ^ HashUtils.hashInt(featureNames[i])) * FNV1_PRIME_32;
+                if (last) {
+                    emit(interaction, chosen, extended, weight * featureValues[i], true, builder, audit);
+                } else {
+                    cross(interaction, values, chosen, depth + 1, extended, weight * featureValues[i], true, builder, audit);
+                }
+            }
+        }
+    }
+
+    private void emit(Interaction interaction, int[] chosen, int hash, double weight, boolean numerical,
+                      SparseVectorBuilder builder, Map<Integer, List<RawFeatureName>> audit) {
+        int featureHash = hash & bitMask;
+        if (numerical) {
+            builder.addNumerical(featureHash, weight);
+        } else {
+            builder.addCategorical(featureHash);
+        }
+        if (audit != null) {
+            FeatureNamespace[] components = interaction.components;
+            List<RawFeatureName> rawFeatureNames = new ArrayList<>(components.length);
+            for (int i = 0; i < components.length; i++) {
+                rawFeatureNames.add(sourceRawValue(components[i], chosen[i]));
+            }
+            audit.put(featureHash, rawFeatureNames);
+        }
+    }
+
+    private RawFeatureName sourceRawValue(FeatureNamespace namespace, int featureName) {
+        RawFeatureName ret = featureName2SourceRawValue.get().get(new HashedFeatureName(namespace, featureName));
+        // The hasher did not register this value, e.g. because it was hashed before audit was enabled
+        return ret != null ? ret : new RawFeatureName(namespace, String.valueOf(featureName));
+    }
+
+    /**
+     * Enables audit with the source values registered in {@code hasherAuditState}.
+     *
+     * @return the thread's map from feature hash to the raw features it was built from, for the last vectors
+     */
+    public ThreadLocal<Map<Integer, List<RawFeatureName>>> enableAudit(HasherAuditState hasherAuditState) {
+        return enableAudit(hasherAuditState.getFeatureName2SourceRawValue());
+    }
+
+    @Override
+    public ThreadLocal<Map<Integer, List<RawFeatureName>>> enableAudit(ThreadLocal<Map<HashedFeatureName, RawFeatureName>> featureName2SourceRawValue) {
+        checkNotNull(featureName2SourceRawValue, "featureName2SourceRawValue");
+        this.featureName2SourceRawValue = featureName2SourceRawValue;
+        this.featureHash2SourceRawValue = ThreadLocal.withInitial(HashMap::new);
+        return this.featureHash2SourceRawValue;
+    }
+
+    @Override
+    public void clearAuditState() {
+        if (this.featureHash2SourceRawValue != null) {
+            this.featureHash2SourceRawValue.get().clear();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.hotvect.core.combine;
+
+import com.hotvect.api.data.HashedValue;
+import com.hotvect.api.data.SparseVector;
+
+import java.util.Arrays;
+
+/**
+ * Accumulates the features of one {@link SparseVector} in growable primitive arrays, so that a single builder can be
+ * {@linkplain #clear() cleared} and reused for every vector a thread builds. A builder is not thread-safe.
+ *
+ * <p>{@link #build()} sorts the indices and removes duplicates. A categorical index is kept once, and of several
+ * numerical values for the same index the last one added is kept.</p>
+ */
+public final class SparseVectorBuilder {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private int[] categoricalIndices = new int[INITIAL_CAPACITY];
+    private int categoricalCount;
+    private int[] numericalIndices = new int[INITIAL_CAPACITY];
+    private double[] numericalValues = new double[INITIAL_CAPACITY];
+    private int numericalCount;
+
+    // Scratch space for sorting and for combiners, reused between vectors
+    private long[] sortKeys = new long[0];
+    private HashedValue[] components = new HashedValue[0];
+    private int[] chosen = new int[0];
+
+    public SparseVectorBuilder addCategorical(int index) {
+        if (categoricalCount == categoricalIndices.length) {
+            categoricalIndices = Arrays.copyOf(categoricalIndices, categoricalCount * 2);
+        }
+        categoricalIndices[categoricalCount++] = index;
+        return this;
+    }
+
+    public SparseVectorBuilder addNumerical(int index, double value) {
+        if (numericalCount == numericalIndices.length) {
+            numericalIndices = Arrays.copyOf(numericalIndices, numericalCount * 2);
+            numericalValues = Arrays.copyOf(numericalValues, numericalCount * 2);
+        }
+        numericalIndices[numericalCount] = index;
+        numericalValues[numericalCount] = value;
+        numericalCount++;
+        return this;
+    }
+
+    /**
+     * Returns the number of categorical indices added since the last {@link #clear()}, including duplicates.
+     */
+    public int categoricalCount() {
+        return categoricalCount;
+    }
+
+    /**
+     * Returns the number of numerical values added since the last {@link #clear()}, including duplicates.
+     */
+    public int numericalCount() {
+        return numericalCount;
+    }
+
+    /**
+     * Removes all features, keeping the allocated capacity.
+     */
+    public void clear() {
+        categoricalCount = 0;
+        numericalCount = 0;
+    }
+
+    /**
+     * Returns a vector of the features added since the last {@link #clear()}. The builder is left unchanged.
+     */
+    public SparseVector build() {
+        int[] categorical = Arrays.copyOf(categoricalIndices, categoricalCount);
+        Arrays.sort(categorical);
+        categorical = distinct(categorical);
+        if (numericalCount == 0) {
+            return new SparseVector(categorical);
+        }
+
+        // Sort by index, then by the order of addition, so that the last value of each index ends up last
+        if (sortKeys.length < numericalCount) {
+            sortKeys = new long[Math.max(numericalCount, sortKeys.length * 2)];
+        }
+        for (int i = 0; i < numericalCount; i++) {
+            sortKeys[i] = ((long) numericalIndices[i] << 32) | i;
+        }
+        Arrays.sort(sortKeys, 0, numericalCount);
+        int distinct = 0;
+        for (int i = 0; i < numericalCount; i++) {
+            if (i + 1 == numericalCount || (int) (sortKeys[i + 1] >> 32) != (int) (sortKeys[i] >> 32)) {
+                distinct++;
+            }
+        }
+        int[] indices = new int[distinct];
+        double[] values = new double[distinct];
+        int next = 0;
+        for (int i = 0; i < numericalCount; i++) {
+            if (i + 1 == numericalCount || (int) (sortKeys[i + 1] >> 32) != (int) (sortKeys[i] >> 32)) {
+                indices[next] = (int) (sortKeys[i] >> 32);
+                values[next] = numericalValues[(int) sortKeys[i]];
+                next++;
+            }
+        }
+        return new SparseVector(categorical, indices, values);
+    }
+
+    /**
+     * Returns scratch space for the values of the components of one interaction.
+     */
+    HashedValue[] components(int arity) {
+        if (components.length < arity) {
+            components = new HashedValue[arity];
+        }
+        return components;
+    }
+
+    /**
+     * Returns scratch space for the feature names chosen from each component of one interaction.
+     */
+    int[] chosen(int arity) {
+        if (chosen.length < arity) {
+            chosen = new int[arity];
+        }
+        return chosen;
+    }
+
+    private static int[] distinct(int[] sorted) {
+        int distinct = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[distinct++] = sorted[i];
+            }
+        }
+        return distinct == sorted.length ? sorted : Arrays.copyOf(sorted, distinct);
+    }
+}
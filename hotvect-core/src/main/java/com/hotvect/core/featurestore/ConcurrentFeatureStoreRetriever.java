@@ -0,0 +1,185 @@
+package com.hotvect.core.featurestore;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import com.hotvect.api.data.featurestore.FeatureStore;
+import com.hotvect.api.data.featurestore.FeatureStoreResponse;
+import com.hotvect.api.data.featurestore.SimpleFeatureStoreResponse;
+import com.hotvect.api.data.ranking.RankingRequest;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A {@link FeatureStoreRetriever} that starts the lookups of all configured views as soon as a request arrives, instead
+ * of waiting for them one after the other.
+ *
+ * <p>All lookups of a request share one deadline. A lookup that has not completed when the deadline passes resolves to
+ * a failed response (see {@link SimpleFeatureStoreResponse#failure(String)}), so a slow view degrades the features that
+ * depend on it rather than the latency of the whole request.</p>
+ *
+ * <p>Optionally, a lookup that is still pending after the hedge delay is sent a second time, and whichever attempt
+ * first returns a response without a request failure is used. A failed response is only used once no other attempt
+ * of the same lookup is outstanding. Hedging trades extra feature store load for lower tail latency, so the hedge delay
+ * should be around the latency percentile that is considered slow (e.g. p95).</p>
+ */
+public class ConcurrentFeatureStoreRetriever<SHARED, ACTION> implements FeatureStoreRetriever<SHARED, ACTION> {
+    private final FeatureStore featureStore;
+    private final List<View<SHARED, ACTION>> views;
+    private final long deadlineNanos;
+    private final long hedgeDelayNanos;
+
+    private ConcurrentFeatureStoreRetriever(Builder<SHARED, ACTION> builder) {
+        this.featureStore = builder.featureStore;
+        this.views = List.copyOf(builder.views);
+        this.deadlineNanos = builder.deadline == null ? 0 : builder.deadline.toNanos();
+        this.hedgeDelayNanos = builder.hedgeDelay == null ? 0 : builder.hedgeDelay.toNanos();
+    }
+
+    public static <SHARED, ACTION> Builder<SHARED, ACTION> builder(FeatureStore featureStore) {
+        return new Builder<>(featureStore);
+    }
+
+    private record View<SHARED, ACTION>(
+            String viewName,
+            int viewVersion,
+            Function<RankingRequest<SHARED, ACTION>, List<Map<String, Object>>> ids,
+            String[] featureNames
+    ) {}
+
+    public static class Builder<SHARED, ACTION> {
+        private final FeatureStore featureStore;
+        private final List<View<SHARED, ACTION>> views = new ArrayList<>();
+        private final Set<String> viewNames = new HashSet<>();
+        private Duration deadline;
+        private Duration hedgeDelay;
+
+        private Builder(FeatureStore featureStore) {
+            this.featureStore = checkNotNull(featureStore);
+        }
+
+        /**
+         * Adds a view to look up for every request. The response is keyed by {@code viewName}.
+         *
+         * @param ids extracts the entity ids to look up from the request
+         */
+        public Builder<SHARED, ACTION> withView(
+                String viewName,
+                int viewVersion,
+                Function<RankingRequest<SHARED, ACTION>, List<Map<String, Object>>> ids,
+                String... featureNames
+        ) {
+            checkArgument(viewNames.add(checkNotNull(viewName)), "View %s is already registered", viewName);
+            views.add(new View<>(viewName, viewVersion, checkNotNull(ids), featureNames.clone()));
+            return this;
+        }
+
+        /**
+         * Lookups that have not completed within {@code deadline} after the request arrived resolve to a failed
+         * response. By default, lookups are waited for indefinitely.
+         */
+        public Builder<SHARED, ACTION> withDeadline(Duration deadline) {
+            checkArgument(!deadline.isNegative() && !deadline.isZero(), "deadline must be positive: %s", deadline);
+            this.deadline = deadline;
+            return this;
+        }
+
+        /**
+         * Sends a second lookup for views that have not responded within {@code hedgeDelay}. Hedging is disabled by
+         * default, and has no effect if the delay is not shorter than the deadline.
+         */
+        public Builder<SHARED, ACTION> withHedgeDelay(Duration hedgeDelay) {
+            checkArgument(!hedgeDelay.isNegative() && !hedgeDelay.isZero(), "hedgeDelay must be positive: %s", hedgeDelay);
+            this.hedgeDelay = hedgeDelay;
+            return this;
+        }
+
+        public ConcurrentFeatureStoreRetriever<SHARED, ACTION> build() {
+            return new ConcurrentFeatureStoreRetriever<>(this);
+        }
+    }
+
+    @Override
+    public Map<String, FeatureStoreResponse> fetch(RankingRequest<SHARED, ACTION> request) {
+        return fetchAsync(request).join();
+    }
+
+    @Override
+    public CompletableFuture<Map<String, FeatureStoreResponse>> fetchAsync(RankingRequest<SHARED, ACTION> request) {
+        List<CompletableFuture<FeatureStoreResponse>> lookups = new ArrayList<>(views.size());
+        for (View<SHARED, ACTION> view : views) {
+            lookups.add(lookup(view, request));
+        }
+        return CompletableFuture.allOf(lookups.toArray(CompletableFuture[]::new)).thenApply(ignored -> {
+            Map<String, FeatureStoreResponse> responses = new HashMap<>(views.size() * 2);
+            for (int i = 0; i < views.size(); i++) {
+                responses.put(views.get(i).viewName(), lookups.get(i).join());
+            }
+            return responses;
+        });
+    }
+
+    private CompletableFuture<FeatureStoreResponse> lookup(View<SHARED, ACTION> view, RankingRequest<SHARED, ACTION> request) {
+        List<Map<String, Object>> ids;
+        try {
+            ids = view.ids().apply(request);
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(SimpleFeatureStoreResponse.failure(
+                    "Could not extract ids for view " + view.viewName() + ": " + e));
+        }
+
+        // Completed by the first usable attempt, or on timeout. The feature store's own futures are never completed
+        // from here, since they may be shared with other callers
+        CompletableFuture<FeatureStoreResponse> result = new CompletableFuture<>();
+        AtomicInteger outstandingAttempts = new AtomicInteger(1);
+        attempt(view, ids, result, outstandingAttempts);
+        if (deadlineNanos > 0) {
+            result.completeOnTimeout(SimpleFeatureStoreResponse.failure(
+                    "Lookup for view " + view.viewName() + " did not complete within " + Duration.ofNanos(deadlineNanos)
+            ), deadlineNanos, TimeUnit.NANOSECONDS);
+        }
+        if (hedgeDelayNanos > 0 && (deadlineNanos == 0 || hedgeDelayNanos < deadlineNanos) && !result.isDone()) {
+            CompletableFuture.delayedExecutor(hedgeDelayNanos, TimeUnit.NANOSECONDS).execute(() -> {
+                if (!result.isDone()) {
+                    outstandingAttempts.incrementAndGet();
+                    attempt(view, ids, result, outstandingAttempts);
+                }
+            });
+        }
+        return result;
+    }
+
+    private void attempt(
+            View<SHARED, ACTION> view,
+            List<Map<String, Object>> ids,
+            CompletableFuture<FeatureStoreResponse> result,
+            AtomicInteger outstandingAttempts
+    ) {
+        CompletableFuture<FeatureStoreResponse> response;
+        try {
+            response = featureStore.getFeatures(ids, view.viewName(), view.viewVersion(), view.featureNames());
+        } catch (RuntimeException e) {
+            // Violates the feature store contract, but must not fail the request
+            response = CompletableFuture.failedFuture(e);
+        }
+        response.whenComplete((r, e) -> {
+            FeatureStoreResponse completed = r != null
+                    ? r
+                    : SimpleFeatureStoreResponse.failure("Lookup for view " + view.viewName() + " failed: " + e);
+            boolean lastAttempt = outstandingAttempts.decrementAndGet() == 0;
+            if (lastAttempt || completed.getRequestFailure().isEmpty()) {
+                result.complete(completed);
+            }
+        });
+    }
+}
@@ -1,10 +1,22 @@
 package com.hotvect.core.featurestore;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import com.hotvect.api.data.featurestore.FeatureStoreResponse;
 import com.hotvect.api.data.ranking.RankingRequest;
 
 public interface FeatureStoreRetriever<SHARED, ACTION> {
     Map<String, FeatureStoreResponse> fetch(RankingRequest<SHARED, ACTION> request);
+
+    /**
+     * Starts the feature store lookups for {@code request} and returns without waiting for them, so that callers can
+     * compute features that do not depend on the responses in the meantime. Like {@link com.hotvect.api.data.featurestore.FeatureStore},
+     * the returned future must always complete successfully; failed lookups are reported in the responses.
+     *
+     * <p>The default implementation calls {@link #fetch(RankingRequest)} and therefore blocks until it returns.</p>
+     */
+    default CompletableFuture<Map<String, FeatureStoreResponse>> fetchAsync(RankingRequest<SHARED, ACTION> request) {
+        return CompletableFuture.completedFuture(fetch(request));
+    }
 }
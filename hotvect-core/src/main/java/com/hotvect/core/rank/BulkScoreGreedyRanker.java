@@ -8,17 +8,31 @@ import com.hotvect.api.data.ranking.RankingResponse;
 import com.hotvect.api.data.scoring.BulkScoreResponse;
 import com.hotvect.api.data.scoring.ScoringDecision;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.hotvect.utils.AdditionalProperties.mergeAdditionalProperties;
 
 public class BulkScoreGreedyRanker<SHARED, ACTION> implements Ranker<SHARED, ACTION> {
     private final BulkScorer<SHARED, ACTION> bulkScorer;
+    private final int topK;
 
     public BulkScoreGreedyRanker(BulkScorer<SHARED, ACTION> bulkScorer) {
+        this(bulkScorer, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param topK number of top ranks to sort eagerly. If a request has more actions, the remaining decisions of the
+     *             (then unmodifiable) response list are only sorted when first accessed. The order is the same either way.
+     */
+    public BulkScoreGreedyRanker(BulkScorer<SHARED, ACTION> bulkScorer, int topK) {
+        checkArgument(topK > 0, "topK must be positive: %s", topK);
         this.bulkScorer = bulkScorer;
+        this.topK = topK;
     }
 
     @Override
@@ -50,14 +64,58 @@ public class BulkScoreGreedyRanker<SHARED, ACTION> implements Ranker<SHARED, ACT
             ));
         }
 
-        RankingTieBreakers.sortDecisions(decisions, request.exampleId());
         return RankingResponse.newResponse(
-                decisions,
+                rankDecisions(decisions, request.exampleId()),
                 scoringResponse.featureStoreResponseContainer(),
                 scoringResponse.additionalProperties()
         );
     }
 
+    private List<RankingDecision<ACTION>> rankDecisions(List<RankingDecision<ACTION>> decisions, String exampleId) {
+        int numActions = decisions.size();
+        if (numActions < 2) {
+            return decisions;
+        }
+        double[] scores = new double[numActions];
+        String[] actionIds = new String[numActions];
+        for (int i = 0; i < numActions; i++) {
+            scores[i] = decisions.get(i).score();
+            actionIds[i] = decisions.get(i).actionId();
+        }
+        TopKRankingOrder order = TopKRankingOrder.of(exampleId, scores, actionIds, topK);
+        if (topK < numActions) {
+            return new TopKRankedDecisions<>(decisions, order);
+        }
+        List<RankingDecision<ACTION>> ranked = new ArrayList<>(numActions);
+        for (int rank = 0; rank < numActions; rank++) {
+            ranked.add(decisions.get(order.actionIndexAt(rank)));
+        }
+        return ranked;
+    }
+
+    /**
+     * Decisions in ranking order, of which only the top ranks are sorted until a lower rank is accessed.
+     */
+    private static final class TopKRankedDecisions<ACTION> extends AbstractList<RankingDecision<ACTION>> implements RandomAccess {
+        private final List<RankingDecision<ACTION>> decisionsByActionIndex;
+        private final TopKRankingOrder order;
+
+        private TopKRankedDecisions(List<RankingDecision<ACTION>> decisionsByActionIndex, TopKRankingOrder order) {
+            this.decisionsByActionIndex = decisionsByActionIndex;
+            this.order = order;
+        }
+
+        @Override
+        public RankingDecision<ACTION> get(int rank) {
+            return decisionsByActionIndex.get(order.actionIndexAt(Objects.checkIndex(rank, size())));
+        }
+
+        @Override
+        public int size() {
+            return order.size();
+        }
+    }
+
     private static <SHARED, ACTION> boolean validateScoreActionIds(
             RankingRequest<SHARED, ACTION> request,
             List<ScoringDecision<ACTION>> scores
@@ -0,0 +1,189 @@
+package com.hotvect.core.rank;
+
+import java.util.Arrays;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Ranking order of a request's actions (by descending score, then {@link RankingTieBreakers#stableTieBreakKey}, then
+ * action id), the same order as {@link RankingTieBreakers#sortDecisions}.
+ *
+ * <p>Tie-break keys are computed once per action into a {@code long[]}. Only the first {@code k} ranks are selected
+ * and sorted eagerly, with a bounded heap in O(n log k). The remaining ranks are sorted on the first access beyond
+ * {@code k}, so callers that only consume the top of the ranking never pay for sorting the tail.</p>
+ */
+final class TopKRankingOrder {
+    private final double[] scores;
+    private final long[] tieBreakKeys;
+    private final String[] actionIds;
+    // Action indices in ranking order; positions [sortedUpTo, length) hold the unsorted tail
+    private final int[] order;
+    private volatile int sortedUpTo;
+
+    private TopKRankingOrder(double[] scores, long[] tieBreakKeys, String[] actionIds, int[] order, int sortedUpTo) {
+        this.scores = scores;
+        this.tieBreakKeys = tieBreakKeys;
+        this.actionIds = actionIds;
+        this.order = order;
+        this.sortedUpTo = sortedUpTo;
+    }
+
+    /**
+     * @param scores    scores by action index
+     * @param actionIds action ids by action index
+     * @param k         number of ranks to sort eagerly
+     */
+    static TopKRankingOrder of(String exampleId, double[] scores, String[] actionIds, int k) {
+        checkArgument(scores.length == actionIds.length, "Got %s scores for %s actions", scores.length, actionIds.length);
+        checkArgument(k >= 0, "k must not be negative: %s", k);
+        int n = scores.length;
+        long[] tieBreakKeys = new long[n];
+        for (int i = 0; i < n; i++) {
+            tieBreakKeys[i] = RankingTieBreakers.stableTieBreakKey(exampleId, actionIds[i]);
+        }
+        TopKRankingOrder ret = new TopKRankingOrder(scores, tieBreakKeys, actionIds, new int[n], 0);
+        ret.selectTopK(Math.min(k, n));
+        return ret;
+    }
+
+    int size() {
+        return order.length;
+    }
+
+    /**
+     * Returns the action index at {@code rank}.
+     */
+    int actionIndexAt(int rank) {
+        if (rank >= sortedUpTo) {
+            sortTail();
+        }
+        return order[rank];
+    }
+
+    private void selectTopK(int k) {
+        int n = order.length;
+        if (k == n) {
+            for (int i = 0; i < n; i++) {
+                order[i] = i;
+            }
+            sort(order, 0, n);
+            sortedUpTo = n;
+            return;
+        }
+        // order[0, k) is a heap with the worst ranked action at its root, order[k, n) collects the rest
+        int tail = k;
+        for (int i = 0; i < n; i++) {
+            if (i < k) {
+                order[i] = i;
+                siftUp(i);
+            } else if (k > 0 && ranksBefore(i, order[0])) {
+                order[tail++] = order[0];
+                order[0] = i;
+                siftDown(0, k);
+            } else {
+                order[tail++] = i;
+            }
+        }
+        sort(order, 0, k);
+        sortedUpTo = k;
+    }
+
+    private synchronized void sortTail() {
+        if (sortedUpTo < order.length) {
+            sort(order, sortedUpTo, order.length);
+            sortedUpTo = order.length;
+        }
+    }
+
+    private boolean ranksBefore(int left, int right) {
+        return compare(left, right) < 0;
+    }
+
+    private int compare(int left, int right) {
+        int byScore = Double.compare(scores[right], scores[left]);
+        if (byScore != 0) {
+            return byScore;
+        }
+        int byTieBreakKey = RankingTieBreakers.compare(tieBreakKeys[left], tieBreakKeys[right]);
+        if (byTieBreakKey != 0) {
+            return byTieBreakKey;
+        }
+        return actionIds[left].compareTo(actionIds[right]);
+    }
+
+    private void siftUp(int position) {
+        int action = order[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (!ranksBefore(order[parent], action)) {
+                break;
+            }
+            order[position] = order[parent];
+            position = parent;
+        }
+        order[position] = action;
+    }
+
+    private void siftDown(int position, int heapSize) {
+        int action = order[position];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && ranksBefore(order[child], order[child + 1])) {
+                child++;
+            }
+            if (!ranksBefore(action, order[child])) {
+                break;
+            }
+            order[position] = order[child];
+            position = child;
+        }
+        order[position] = action;
+    }
+
+    /**
+     * Merge sorts {@code indices[from, to)} by ranking order.
+     */
+    private void sort(int[] indices, int from, int to) {
+        int length = to - from;
+        if (length < 2) {
+            return;
+        }
+        int[] range = Arrays.copyOfRange(indices, from, to);
+        mergeSort(range, new int[length], 0, length);
+        System.arraycopy(range, 0, indices, from, length);
+    }
+
+    private void mergeSort(int[] indices, int[] buffer, int from, int to) {
+        if (to - from <= 16) {
+            for (int i = from + 1; i < to; i++) {
+                int action = indices[i];
+                int j = i;
+                while (j > from && ranksBefore(action, indices[j - 1])) {
+                    indices[j] = indices[j - 1];
+                    j--;
+                }
+                indices[j] = action;
+            }
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(indices, buffer, from, mid);
+        mergeSort(indices, buffer, mid, to);
+        if (!ranksBefore(indices[mid], indices[mid - 1])) {
+            return;
+        }
+        System.arraycopy(indices, from, buffer, from, to - from);
+        int left = from;
+        int right = mid;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < mid && !ranksBefore(buffer[right], buffer[left]))) {
+                indices[i] = buffer[left++];
+            } else {
+                indices[i] = buffer[right++];
+            }
+        }
+    }
+}
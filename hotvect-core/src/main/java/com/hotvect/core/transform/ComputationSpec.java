@@ -19,6 +19,14 @@ public enum ComputationSpec {
      */
     LAZY_ON_DEMAND,
 
+    /**
+     * Result of computation is memoized within a request as with {@link #LAZY_MEMOIZED}, and also cached across
+     * requests in a {@link CrossRequestCache}, under a key that is extracted from the computation's input. This is
+     * advantageous for expensive computations that only depend on a key that repeats between requests, like attributes
+     * of a product. It cannot be set manually, since it requires a key extractor and a cache.
+     */
+    CROSS_REQUEST_MEMOIZED,
+
     /**
      * The computation is pre-executed (so that the result of the computation is stored directly as a value at the
      * time the algorithm is instantiated).
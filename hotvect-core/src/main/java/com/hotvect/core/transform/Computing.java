@@ -4,11 +4,10 @@ import com.google.common.base.MoreObjects;
 import com.hotvect.api.data.Namespace;
 import com.hotvect.api.data.common.Mapping;
 import com.hotvect.api.data.common.NamespacedRecord;
-import com.hotvect.api.data.common.NamespacedRecordImpl;
+import com.hotvect.api.data.common.NamespacedRecords;
 import com.hotvect.utils.ArrayTransform;
 import com.hotvect.utils.FuzzyMatch;
 
-import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -298,11 +297,10 @@ public class Computing<ARGUMENT> implements Computable<ARGUMENT> {
             } else {
                 Namespace[] keys = memoized.keys();
                 Computation<ARGUMENT, Object>[] values = memoized.values();
-                IdentityHashMap<Namespace, MemoizedValue<Computation<ARGUMENT, Object>, Object>> map = new IdentityHashMap<>(keys.length);
+                memoizations = NamespacedRecords.newRecord(Namespaces.slots());
                 for (int i = 0; i < keys.length; i++) {
-                    map.put(keys[i], new MemoizedValue<>(values[i]));
+                    memoizations.put(keys[i], new MemoizedValue<>(values[i]));
                 }
-                memoizations = new NamespacedRecordImpl<>(map);
             }
             if (onDemand == null) {
                 onDemand = NamespacedRecord.empty();
@@ -0,0 +1,227 @@
+package com.hotvect.core.transform;
+
+import com.google.common.base.Throwables;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Caches the values of one feature across requests, for features that are expensive and depend only on a key that
+ * repeats between requests, such as embeddings or catalog attributes of a product.
+ *
+ * <p>The cache is bounded by the number of entries, and entries expire after the TTL. Concurrent misses for the same
+ * key are coalesced, so that the value is computed once. {@code null} values are cached, and a {@code null} key
+ * bypasses the cache. Keys must implement {@code equals} and {@code hashCode}, and cached values are shared between
+ * requests and must not be modified.</p>
+ *
+ * <p>Hits, misses, the hit ratio, evictions and the size are exposed as gauges tagged by feature and by a
+ * per-process instance number, so that caches of the same feature in several algorithms do not share gauges. The
+ * owner of a cache {@link #close() closes} it when it is discarded, which removes the gauges.</p>
+ *
+ * @see ComputationSpec#CROSS_REQUEST_MEMOIZED
+ */
+public final class CrossRequestCache implements AutoCloseable {
+    private static final String METRIC_PREFIX = "hotvect.transformer.cross.request.cache";
+    private static final AtomicInteger INSTANCE_COUNTER = new AtomicInteger();
+
+    private final String feature;
+    private final String instance = Integer.toString(INSTANCE_COUNTER.incrementAndGet());
+    private final Cache<Object, Holder<Object>> cache;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final MeterRegistry meterRegistry;
+    private final List<Gauge> gauges = new ArrayList<>();
+
+    private CrossRequestCache(Builder builder) {
+        this.feature = builder.feature;
+        this.meterRegistry = builder.meterRegistry;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(builder.maximumSize)
+                .expireAfterWrite(builder.ttl.toNanos(), TimeUnit.NANOSECONDS)
+                .ticker(builder.ticker)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * @param feature       the name of the cached feature, used as the {@code feature} tag of the gauges
+     * @param meterRegistry registry the gauges are published to, until the cache is closed
+     */
+    public static Builder builder(String feature, MeterRegistry meterRegistry) {
+        return new Builder(feature, meterRegistry);
+    }
+
+    public static class Builder {
+        private final String feature;
+        private long maximumSize = 100_000;
+        private Duration ttl = Duration.ofMinutes(10);
+        private Ticker ticker = Ticker.systemTicker();
+        private final MeterRegistry meterRegistry;
+
+        private Builder(String feature, MeterRegistry meterRegistry) {
+            this.feature = checkNotNull(feature);
+            this.meterRegistry = checkNotNull(meterRegistry);
+        }
+
+        public Builder withMaximumSize(long maximumSize) {
+            checkArgument(maximumSize > 0, "maximumSize must be positive: %s", maximumSize);
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * Entries expire this long after they were computed. Defaults to 10 minutes.
+         */
+        public Builder withTtl(Duration ttl) {
+            checkArgument(!ttl.isNegative() && !ttl.isZero(), "ttl must be positive: %s", ttl);
+            this.ttl = ttl;
+            return this;
+        }
+
+        public Builder withTicker(Ticker ticker) {
+            this.ticker = checkNotNull(ticker);
+            return this;
+        }
+
+        public CrossRequestCache build() {
+            CrossRequestCache ret = new CrossRequestCache(this);
+            ret.registerGauge("hits", "Number of values served from the cache", x -> x.hits.sum());
+            ret.registerGauge("misses", "Number of values computed because they were not cached", x -> x.misses.sum());
+            ret.registerGauge("hit.ratio", "Ratio of values served from the cache", CrossRequestCache::hitRatio);
+            ret.registerGauge("evictions", "Number of values evicted for size or expiry", x -> x.cache.stats().evictionCount());
+            ret.registerGauge("size", "Number of cached values", x -> x.cache.size());
+            return ret;
+        }
+    }
+
+    private void registerGauge(String metric, String description, ToDoubleFunction<CrossRequestCache> value) {
+        gauges.add(Gauge.builder(METRIC_PREFIX + "." + metric, this, value)
+                .description(description)
+                .tag("feature", feature)
+                .tag("instance", instance)
+                .register(meterRegistry));
+    }
+
+    /**
+     * Returns the cached value of {@code key}, or computes it with {@code loader} and caches it.
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V get(Object key, Supplier<V> loader) {
+        if (key == null) {
+            return loader.get();
+        }
+        Holder<Object> cached = cache.getIfPresent(key);
+        if (cached != null) {
+            hits.increment();
+            return (V) cached.value();
+        }
+        misses.increment();
+        try {
+            // Misses for the same key wait for the value that the first of them computes
+            return (V) cache.get(key, () -> new Holder<>(loader.get())).value();
+        } catch (UncheckedExecutionException | ExecutionError e) {
+            throw propagate(e.getCause());
+        } catch (ExecutionException e) {
+            throw propagate(e.getCause());
+        }
+    }
+
+    /**
+     * Returns a computation that caches the result of {@code computation} under the key that {@code keyExtractor}
+     * extracts from the computation's input. Within a request, the result should additionally be memoized as with
+     * {@link ComputationSpec#LAZY_MEMOIZED}.
+     */
+    public <ARGUMENT, V> Computation<ARGUMENT, V> memoize(Computation<ARGUMENT, V> computation, Function<? super ARGUMENT, ?> keyExtractor) {
+        checkNotNull(computation);
+        checkNotNull(keyExtractor);
+        return new MemoizedComputation<>(this, computation, keyExtractor);
+    }
+
+    /**
+     * A computation whose results are cached in a {@link CrossRequestCache}.
+     */
+    public static final class MemoizedComputation<ARGUMENT, V> implements Computation<ARGUMENT, V> {
+        private final transient CrossRequestCache cache;
+        private final Computation<ARGUMENT, V> delegate;
+        private final transient Function<? super ARGUMENT, ?> keyExtractor;
+
+        private MemoizedComputation(CrossRequestCache cache, Computation<ARGUMENT, V> delegate, Function<? super ARGUMENT, ?> keyExtractor) {
+            this.cache = cache;
+            this.delegate = delegate;
+            this.keyExtractor = keyExtractor;
+        }
+
+        @Override
+        public V apply(Computing<ARGUMENT> computing) {
+            return cache.get(keyExtractor.apply(computing.getOriginalInput()), () -> delegate.apply(computing));
+        }
+
+        /**
+         * Returns the computation whose results are cached.
+         */
+        public Computation<ARGUMENT, V> delegate() {
+            return delegate;
+        }
+    }
+
+    public String feature() {
+        return feature;
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public double hitRatio() {
+        long hits = this.hits.sum();
+        long total = hits + misses.sum();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Removes the gauges from the registry and drops the cached values.
+     */
+    @Override
+    public void close() {
+        for (Gauge gauge : gauges) {
+            meterRegistry.remove(gauge);
+        }
+        gauges.clear();
+        cache.invalidateAll();
+    }
+
+    private static RuntimeException propagate(Throwable cause) {
+        Throwables.throwIfUnchecked(cause);
+        return new IllegalStateException("Computation of a cross-request memoized value failed", cause);
+    }
+}
@@ -4,15 +4,20 @@ import com.google.common.base.Joiner;
 import com.hotvect.api.data.FeatureNamespace;
 import com.hotvect.api.data.Namespace;
 import com.hotvect.api.data.ValueType;
+import com.hotvect.api.data.common.NamespaceSlots;
+import com.hotvect.api.data.common.SlottedNamespace;
 import com.hotvect.core.util.InvalidTransformationDefinitionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
 import java.util.regex.Pattern;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -43,6 +48,14 @@ import static com.google.common.base.Preconditions.checkArgument;
  * identity-based maps instead of repeatedly hashing and allocating
  * strings.</p>
  *
+ * <p>Every canonical namespace also receives a dense integer slot from
+ * the {@link NamespaceSlots} registry returned by {@link #slots()} at
+ * declaration time, which lets array-backed records such as
+ * {@link com.hotvect.api.data.common.ArrayNamespacedRecord} store values
+ * in a plain array. Each algorithm loads this class in its own class
+ * loader, so each algorithm has its own registry. The slot is not part
+ * of namespace equality, which stays defined by name and type alone.</p>
+ *
  * <h3>Creation rules</h3>
  *
  * <ul>
@@ -87,8 +100,11 @@ import static com.google.common.base.Preconditions.checkArgument;
  *
  * <p>The factory methods are <strong>not</strong> intended for
  * performance-critical paths at inference time, but they are
- * <strong>thread-safe</strong>: every access to the internal registry
- * is guarded by a dedicated lock object. Declare each namespace once
+ * <strong>thread-safe</strong> and do not take a global lock. The
+ * registry is a {@link ConcurrentHashMap} whose bindings are never
+ * replaced, so looking up or re-declaring an existing namespace is a
+ * lock-free read, and only the first declaration of a name locks (a
+ * single bin of) the map to intern the new instance. Declare each namespace once
  * during pipeline initialisation, <strong>cache the returned
  * singleton</strong> (for example in a {@code static} field) and reuse
  * it on hot paths. Singletons live as long as their defining
@@ -104,19 +120,30 @@ import static com.google.common.base.Preconditions.checkArgument;
 public final class Namespaces {
 
     private static final Logger log = LoggerFactory.getLogger(Namespaces.class);
-    private static final AtomicInteger WARN_COUNT = new AtomicInteger(0);
+    private static final int WARN_AT = 50_000;
+    // Striped so that concurrent declarations do not contend on one counter; summed on a sample of the calls only
+    private static final LongAdder DECLARATION_COUNT = new LongAdder();
+    private static final AtomicLong WARNED_AT = new AtomicLong(0);
 
-    /** Global lock guarding {@link #NAME_REGISTER}. */
-    private static final Object LOCK = new Object();
+    /** Textual namespace → singleton instance. Bindings are only ever added (or cleared by tests). */
+    private static final ConcurrentMap<String, Namespace> NAME_REGISTER = new ConcurrentHashMap<>();
 
-    /** Textual namespace → singleton instance. */
-    private static final Map<String, Namespace> NAME_REGISTER = new HashMap<>();
+    /** Slots of the namespaces of this algorithm; never cleared, since records may still hold them. */
+    private static final NamespaceSlots SLOTS = new NamespaceSlots();
 
     /** First character must be a letter, subsequent characters may be letters, digits or underscores. */
     private static final Pattern VALID_NAME = Pattern.compile("^[A-Za-z][A-Za-z0-9_]*$");
 
     private Namespaces() { }
 
+    /**
+     * Returns the slot registry of the namespaces declared here, for creating
+     * {@link com.hotvect.api.data.common.ArrayNamespacedRecord}s.
+     */
+    public static NamespaceSlots slots() {
+        return SLOTS;
+    }
+
     /* ───────────────────────────── declareNamespace (enum / composite) ───────────────────────────── */
 
     public static Namespace declareNamespace(Class<?> returnTypeHint, Namespace... namespaces) {
@@ -134,31 +161,29 @@ public final class Namespaces {
             validateName(candidate.toString());
             warnOnHotLoop();
 
-            synchronized (LOCK) {
-                return NAME_REGISTER.compute(candidate.toString(), (k, existing) -> {
+            return intern(candidate.toString(), (k, existing) -> {
 
-                    /* first encounter – store caller’s object as canonical */
-                    if (existing == null) {
-                        /* basic consistency check against optional hint      */
-                        if (returnTypeHint != null && candidate.getReturnTypeHint() != null && !returnTypeHint.equals(candidate.getReturnTypeHint())) {
-                            throw new IllegalArgumentException(String.format("Attempted to set returnTypeHint to %s, but candidate already declares %s for namespace %s", returnTypeHint, candidate.getReturnTypeHint(), k));
-                        }
-                        return candidate;
+                /* first encounter – store caller’s object as canonical */
+                if (existing == null) {
+                    /* basic consistency check against optional hint      */
+                    if (returnTypeHint != null && candidate.getReturnTypeHint() != null && !returnTypeHint.equals(candidate.getReturnTypeHint())) {
+                        throw new IllegalArgumentException(String.format("Attempted to set returnTypeHint to %s, but candidate already declares %s for namespace %s", returnTypeHint, candidate.getReturnTypeHint(), k));
                     }
+                    return candidate;
+                }
 
-                    /* already registered – validate compatibility */
-                    if (returnTypeHint != null && existing.getReturnTypeHint() != null && !returnTypeHint.equals(existing.getReturnTypeHint())) {
-                        throw new IllegalArgumentException(String.format("Attempted to set returnTypeHint to %s, but it was already set to %s for namespace %s", returnTypeHint, existing.getReturnTypeHint(), existing));
-                    }
+                /* already registered – validate compatibility */
+                if (returnTypeHint != null && existing.getReturnTypeHint() != null && !returnTypeHint.equals(existing.getReturnTypeHint())) {
+                    throw new IllegalArgumentException(String.format("Attempted to set returnTypeHint to %s, but it was already set to %s for namespace %s", returnTypeHint, existing.getReturnTypeHint(), existing));
+                }
 
-                    if (existing.getFeatureValueType() != null && candidate.getFeatureValueType() != null && !existing.getFeatureValueType().equals(candidate.getFeatureValueType())) {
-                        throw new IllegalArgumentException(String.format("Attempted to redeclare feature namespace %s with a different ValueType (%s vs %s)", k, existing.getFeatureValueType(), candidate.getFeatureValueType()));
-                    }
+                if (existing.getFeatureValueType() != null && candidate.getFeatureValueType() != null && !existing.getFeatureValueType().equals(candidate.getFeatureValueType())) {
+                    throw new IllegalArgumentException(String.format("Attempted to redeclare feature namespace %s with a different ValueType (%s vs %s)", k, existing.getFeatureValueType(), candidate.getFeatureValueType()));
+                }
 
-                    /* compatible – keep the previously registered singleton */
-                    return existing;
-                });
-            }
+                /* compatible – keep the previously registered singleton */
+                return existing;
+            });
         }
 
         /* ================================================================ */
@@ -166,26 +191,23 @@ public final class Namespaces {
         /* ================================================================ */
         String joinedName = Joiner.on('_').join(Arrays.stream(namespaces).map(Object::toString).toList());
 
-        Namespace result;
-        synchronized (LOCK) {
-            result = NAME_REGISTER.compute(joinedName, (k, existing) -> {
-                if (existing == null) {
-                    return new NamespaceId(k, returnTypeHint, null);
+        Namespace result = intern(joinedName, (k, existing) -> {
+            if (existing == null) {
+                return newNamespaceId(k, returnTypeHint, null);
+            }
+            if (existing instanceof NamespaceId nid) {
+                if (returnTypeHint != null && nid.returnTypeHint() != null && !returnTypeHint.equals(nid.returnTypeHint())) {
+                    throw new IllegalArgumentException(String.format("Attempted to set returnTypeHint to %s, but it was already set to %s for namespace %s", returnTypeHint, nid.returnTypeHint(), nid));
                 }
-                if (existing instanceof NamespaceId nid) {
-                    if (returnTypeHint != null && nid.returnTypeHint() != null && !returnTypeHint.equals(nid.returnTypeHint())) {
-                        throw new IllegalArgumentException(String.format("Attempted to set returnTypeHint to %s, but it was already set to %s for namespace %s", returnTypeHint, nid.returnTypeHint(), nid));
-                    }
-                    return nid;
-                } else if (existing instanceof FeatureNamespaceId fid) {
-                    if (returnTypeHint != null && !returnTypeHint.equals(fid.getReturnTypeHint())) {
-                        throw new IllegalArgumentException(String.format("Attempted to set returnTypeHint to %s, but it was already set to %s for namespace %s", returnTypeHint, fid.featureValueType().getJavaType(), fid));
-                    }
-                    return fid;
+                return nid;
+            } else if (existing instanceof FeatureNamespaceId fid) {
+                if (returnTypeHint != null && !returnTypeHint.equals(fid.getReturnTypeHint())) {
+                    throw new IllegalArgumentException(String.format("Attempted to set returnTypeHint to %s, but it was already set to %s for namespace %s", returnTypeHint, fid.featureValueType().getJavaType(), fid));
                 }
-                throw new IllegalArgumentException("Namespace name \"" + k + "\" already bound to a feature namespace");
-            });
-        }
+                return fid;
+            }
+            throw new IllegalArgumentException("Namespace name \"" + k + "\" already bound to a feature namespace");
+        });
 
         warnOnHotLoop();
         return result;
@@ -200,33 +222,36 @@ public final class Namespaces {
     public static Namespace declareNamespace(String namespaceName) {
         validateName(namespaceName);
         warnOnHotLoop();
-        synchronized (LOCK) {
-            return NAME_REGISTER.computeIfAbsent(namespaceName,
-                    n -> new NamespaceId(n, null, null));
+        Namespace existing = NAME_REGISTER.get(namespaceName);
+        if (existing != null) {
+            return existing;
         }
+        return NAME_REGISTER.computeIfAbsent(namespaceName, n -> newNamespaceId(n, null, null));
     }
 
     public static Namespace declareNamespace(Enum<?> constant) {
         validateName(constant.name());
         warnOnHotLoop();
-        synchronized (LOCK) {
-            if (constant instanceof Namespace) {
-                Namespace previous =  NAME_REGISTER.computeIfAbsent(constant.name(),
-                        n -> (Namespace) constant);
-                if (previous != constant) {
-                    throw new InvalidTransformationDefinitionException(String.format(
-                            "Namespace name \"%s\" from enum %s already bound to a different namespace: %s of class %s. " +
-                            "Please register the enum with Namespaces.register(%s.class) during initialization, " +
-                            "BEFORE any string-based declarations like declareNamespace(\"%s\").",
-                            constant.name(), constant.getDeclaringClass().getCanonicalName(),
-                            previous, previous.getClass().getCanonicalName(),
-                            constant.getDeclaringClass().getSimpleName(), constant.name()));
-                }
-                return previous;
-            } else {
-                return NAME_REGISTER.computeIfAbsent(constant.name(),
-                        n -> new NamespaceId(n, null, null));
+        Namespace existing = NAME_REGISTER.get(constant.name());
+        if (existing == constant || (existing != null && !(constant instanceof Namespace))) {
+            return existing;
+        }
+        if (constant instanceof Namespace) {
+            Namespace previous =  NAME_REGISTER.computeIfAbsent(constant.name(),
+                    n -> (Namespace) constant);
+            if (previous != constant) {
+                throw new InvalidTransformationDefinitionException(String.format(
+                        "Namespace name \"%s\" from enum %s already bound to a different namespace: %s of class %s. " +
+                        "Please register the enum with Namespaces.register(%s.class) during initialization, " +
+                        "BEFORE any string-based declarations like declareNamespace(\"%s\").",
+                        constant.name(), constant.getDeclaringClass().getCanonicalName(),
+                        previous, previous.getClass().getCanonicalName(),
+                        constant.getDeclaringClass().getSimpleName(), constant.name()));
             }
+            return previous;
+        } else {
+            return NAME_REGISTER.computeIfAbsent(constant.name(),
+                    n -> newNamespaceId(n, null, null));
         }
     }
 
@@ -234,27 +259,25 @@ public final class Namespaces {
         validateName(namespaceName);
         warnOnHotLoop();
 
-        synchronized (LOCK) {
-            return NAME_REGISTER.compute(namespaceName, (k, existing) -> {
-                if (existing == null) {
-                    return new NamespaceId(k, returnTypeHint, null);
+        return intern(namespaceName, (k, existing) -> {
+            if (existing == null) {
+                return newNamespaceId(k, returnTypeHint, null);
+            }
+            if (existing instanceof NamespaceId nid) {
+                if (nid.returnTypeHint() == null) {
+                    throw new IllegalArgumentException(
+                            "Namespace \"" + k + "\" was declared without returnTypeHint; cannot add one later");
                 }
-                if (existing instanceof NamespaceId nid) {
-                    if (nid.returnTypeHint() == null) {
-                        throw new IllegalArgumentException(
-                                "Namespace \"" + k + "\" was declared without returnTypeHint; cannot add one later");
-                    }
-                    if (!nid.returnTypeHint().equals(returnTypeHint)) {
-                        throw new IllegalArgumentException(String.format(
-                                "Attempted to set returnTypeHint to %s, but it was already set to %s for namespace %s",
-                                returnTypeHint, nid.returnTypeHint(), nid));
-                    }
-                    return nid;
+                if (!nid.returnTypeHint().equals(returnTypeHint)) {
+                    throw new IllegalArgumentException(String.format(
+                            "Attempted to set returnTypeHint to %s, but it was already set to %s for namespace %s",
+                            returnTypeHint, nid.returnTypeHint(), nid));
                 }
-                throw new IllegalArgumentException(
-                        "Namespace name \"" + k + "\" already bound to a feature namespace");
-            });
-        }
+                return nid;
+            }
+            throw new IllegalArgumentException(
+                    "Namespace name \"" + k + "\" already bound to a feature namespace");
+        });
     }
 
     /* ───────────────────────────── declareFeatureNamespace ───────────────────────────── */
@@ -272,24 +295,21 @@ public final class Namespaces {
         String joinedName = Joiner.on('_').join(
                 Arrays.stream(namespaces).map(Object::toString).toList());
 
-        Namespace singleton;
-        synchronized (LOCK) {
-            singleton = NAME_REGISTER.compute(joinedName, (k, existing) -> {
-                if (existing == null) {
-                    return new FeatureNamespaceId(k, featureValueType);
-                }
-                if (existing instanceof FeatureNamespaceId fid) {
-                    if (!fid.featureValueType().equals(featureValueType)) {
-                        throw new IllegalArgumentException(String.format(
-                                "Attempted to set featureValueType to %s, but it was already set to %s for namespace %s",
-                                featureValueType, fid.featureValueType(), fid));
-                    }
-                    return fid;
+        Namespace singleton = intern(joinedName, (k, existing) -> {
+            if (existing == null) {
+                return newFeatureNamespaceId(k, featureValueType);
+            }
+            if (existing instanceof FeatureNamespaceId fid) {
+                if (!fid.featureValueType().equals(featureValueType)) {
+                    throw new IllegalArgumentException(String.format(
+                            "Attempted to set featureValueType to %s, but it was already set to %s for namespace %s",
+                            featureValueType, fid.featureValueType(), fid));
                 }
-                throw new IllegalArgumentException(
-                        "Namespace name \"" + k + "\" already bound to a plain namespace");
-            });
-        }
+                return fid;
+            }
+            throw new IllegalArgumentException(
+                    "Namespace name \"" + k + "\" already bound to a plain namespace");
+        });
 
         warnOnHotLoop();
         return singleton;
@@ -302,23 +322,21 @@ public final class Namespaces {
         validateName(namespaceName);
         warnOnHotLoop();
 
-        synchronized (LOCK) {
-            return NAME_REGISTER.compute(namespaceName, (k, existing) -> {
-                if (existing == null) {
-                    return new FeatureNamespaceId(k, featureValueType);
-                }
-                if (existing instanceof FeatureNamespaceId fid) {
-                    if (!fid.featureValueType().equals(featureValueType)) {
-                        throw new IllegalArgumentException(String.format(
-                                "Attempted to set featureValueType to %s, but it was already set to %s for namespace %s",
-                                featureValueType, fid.featureValueType(), fid));
-                    }
-                    return fid;
+        return intern(namespaceName, (k, existing) -> {
+            if (existing == null) {
+                return newFeatureNamespaceId(k, featureValueType);
+            }
+            if (existing instanceof FeatureNamespaceId fid) {
+                if (!fid.featureValueType().equals(featureValueType)) {
+                    throw new IllegalArgumentException(String.format(
+                            "Attempted to set featureValueType to %s, but it was already set to %s for namespace %s",
+                            featureValueType, fid.featureValueType(), fid));
                 }
-                throw new IllegalArgumentException(
-                        "Namespace name \"" + k + "\" already bound to a plain namespace");
-            });
-        }
+                return fid;
+            }
+            throw new IllegalArgumentException(
+                    "Namespace name \"" + k + "\" already bound to a plain namespace");
+        });
     }
 
     /* ───────────────────────────── optional feature namespace ───────────────────────────── */
@@ -387,26 +405,27 @@ public final class Namespaces {
             return;
         }
 
-        synchronized (LOCK) {
-            for (E constant : constants) {
-                String name = constant.name();
-                validateName(name);
+        // Reserve the slot block of the enum up-front so that slots are assigned at declaration time
+        SLOTS.slotOf(constants[0]);
 
-                NAME_REGISTER.compute(name, (k, existing) -> {
-                    if (existing == null) {
-                        return constant;
-                    }
-                    if (existing != constant) {
-                        throw new IllegalArgumentException(String.format(
-                                "Namespace name \"%s\" from enum %s already bound to a different namespace: %s of class %s. " +
-                                "Please register the enum with Namespaces.register(%s.class) during initialization, " +
-                                "BEFORE any string-based declarations like declareNamespace(\"%s\").",
-                                name, enumType.getCanonicalName(), existing, existing.getClass().getCanonicalName(),
-                                enumType.getSimpleName(), name));
-                    }
-                    return existing;
-                });
-            }
+        for (E constant : constants) {
+            String name = constant.name();
+            validateName(name);
+
+            intern(name, (k, existing) -> {
+                if (existing == null) {
+                    return constant;
+                }
+                if (existing != constant) {
+                    throw new IllegalArgumentException(String.format(
+                            "Namespace name \"%s\" from enum %s already bound to a different namespace: %s of class %s. " +
+                            "Please register the enum with Namespaces.register(%s.class) during initialization, " +
+                            "BEFORE any string-based declarations like declareNamespace(\"%s\").",
+                            name, enumType.getCanonicalName(), existing, existing.getClass().getCanonicalName(),
+                            enumType.getSimpleName(), name));
+                }
+                return existing;
+            });
         }
 
         log.debug("Registered {} namespace constants from enum {}", constants.length, enumType.getCanonicalName());
@@ -502,9 +521,7 @@ public final class Namespaces {
      * Returns {@code null} if the name is unregistered.
      */
     private static Namespace peekCanonical(String name) {
-        synchronized (LOCK) {
-            return NAME_REGISTER.get(name);
-        }
+        return NAME_REGISTER.get(name);
     }
 
     /* ───────────────────────────── deprecated helpers ───────────────────────────── */
@@ -524,31 +541,128 @@ public final class Namespaces {
         return (FeatureNamespace) declareFeatureNamespace(featureValueType, namespaces);
     }
 
-    /* ───────────────────────────── internal namespace records ───────────────────────────── */
+    /* ───────────────────────────── internal namespace types ───────────────────────────── */
 
-    public record NamespaceId(String namespaceName,
-                              Class<?> returnTypeHint,
-                              ValueType featureValueType) implements Namespace {
+    /**
+     * A string-named or composite namespace. Equality is defined by name and types; the slot is only set on the
+     * canonical instance and is {@code -1} on instances created with the public constructor.
+     */
+    public static final class NamespaceId implements SlottedNamespace {
+        private final String namespaceName;
+        private final Class<?> returnTypeHint;
+        private final ValueType featureValueType;
+        private final int slot;
+
+        public NamespaceId(String namespaceName, Class<?> returnTypeHint, ValueType featureValueType) {
+            this(namespaceName, returnTypeHint, featureValueType, -1);
+        }
+
+        private NamespaceId(String namespaceName, Class<?> returnTypeHint, ValueType featureValueType, int slot) {
+            this.namespaceName = Objects.requireNonNull(namespaceName, "namespaceName");
+            this.returnTypeHint = returnTypeHint;
+            this.featureValueType = featureValueType;
+            this.slot = slot;
+        }
+
+        public String    namespaceName()    { return namespaceName; }
+        public Class<?>  returnTypeHint()   { return returnTypeHint; }
+        public ValueType featureValueType() { return featureValueType; }
 
+        @Override public int       slot()                { return slot; }
         @Override public Class<?>  getReturnTypeHint()   { return returnTypeHint; }
         @Override public ValueType getFeatureValueType() { return featureValueType; }
         @Override public String    toString()            { return namespaceName; }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof NamespaceId that
+                    && namespaceName.equals(that.namespaceName)
+                    && Objects.equals(returnTypeHint, that.returnTypeHint)
+                    && Objects.equals(featureValueType, that.featureValueType);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(namespaceName, returnTypeHint, featureValueType);
+        }
     }
 
-    public record FeatureNamespaceId(String namespaceName,
-                                     ValueType featureValueType) implements Namespace, FeatureNamespace {
+    /**
+     * A string-named or composite feature namespace. Equality is defined by name and value type; the slot is only set
+     * on the canonical instance and is {@code -1} on instances created with the public constructor.
+     */
+    public static final class FeatureNamespaceId implements SlottedNamespace, FeatureNamespace {
+        private final String namespaceName;
+        private final ValueType featureValueType;
+        private final int slot;
+
+        public FeatureNamespaceId(String namespaceName, ValueType featureValueType) {
+            this(namespaceName, featureValueType, -1);
+        }
+
+        private FeatureNamespaceId(String namespaceName, ValueType featureValueType, int slot) {
+            this.namespaceName = Objects.requireNonNull(namespaceName, "namespaceName");
+            this.featureValueType = Objects.requireNonNull(featureValueType, "featureValueType");
+            this.slot = slot;
+        }
+
+        public String    namespaceName()    { return namespaceName; }
+        public ValueType featureValueType() { return featureValueType; }
 
+        @Override public int       slot()                { return slot; }
         @Override public Class<?>  getReturnTypeHint()   { return featureValueType.getJavaType(); }
         @Override public ValueType getFeatureValueType() { return featureValueType; }
         @Override public String    toString()            { return namespaceName; }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof FeatureNamespaceId that
+                    && namespaceName.equals(that.namespaceName)
+                    && featureValueType.equals(that.featureValueType);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(namespaceName, featureValueType);
+        }
     }
 
     /* ───────────────────────────── helpers ───────────────────────────── */
 
+    /**
+     * Creates the canonical instance for a new name and gives it its slot. Only called when the name is being bound,
+     * so every canonical namespace is registered exactly once.
+     */
+    private static NamespaceId newNamespaceId(String namespaceName, Class<?> returnTypeHint, ValueType featureValueType) {
+        return SLOTS.allocate(slot -> new NamespaceId(namespaceName, returnTypeHint, featureValueType, slot));
+    }
+
+    private static FeatureNamespaceId newFeatureNamespaceId(String namespaceName, ValueType featureValueType) {
+        return SLOTS.allocate(slot -> new FeatureNamespaceId(namespaceName, featureValueType, slot));
+    }
+
+    /**
+     * Binds {@code name} with {@code remapping}, which receives the existing binding or {@code null} and must either
+     * return the existing binding unchanged, return a new instance if there is none, or throw. Because existing
+     * bindings are never replaced, they are validated without locking.
+     */
+    private static Namespace intern(String name, BiFunction<String, Namespace, Namespace> remapping) {
+        Namespace existing = NAME_REGISTER.get(name);
+        if (existing != null) {
+            return remapping.apply(name, existing);
+        }
+        return NAME_REGISTER.compute(name, remapping);
+    }
+
     private static void warnOnHotLoop() {
-        int calls = WARN_COUNT.incrementAndGet();
-        int warnAt = 50_000;
-        if (calls > warnAt && calls % warnAt == 0) {
+        DECLARATION_COUNT.increment();
+        if ((ThreadLocalRandom.current().nextInt() & 1023) != 0) {
+            return;
+        }
+        long calls = DECLARATION_COUNT.sum();
+        long warnAt = calls / WARN_AT * WARN_AT;
+        long warnedAt = WARNED_AT.get();
+        if (warnAt > warnedAt && WARNED_AT.compareAndSet(warnedAt, warnAt)) {
             log.warn("Namespace declaration methods are called very frequently ({} times) - this could indicate a bug. "
                     + " You must cache Namespace handle (objects) into fields etc. You may not obtain (declare) them at inference time.", calls);
         }
@@ -562,9 +676,8 @@ public final class Namespaces {
 
     /** <b>TEST-ONLY</b> – clears the internal registry and warning counters. */
     static void clear() {
-        synchronized (LOCK) {
-            NAME_REGISTER.clear();
-        }
-        WARN_COUNT.set(0);
+        NAME_REGISTER.clear();
+        DECLARATION_COUNT.reset();
+        WARNED_AT.set(0);
     }
 }
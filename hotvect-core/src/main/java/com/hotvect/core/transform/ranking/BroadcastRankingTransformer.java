@@ -0,0 +1,20 @@
+package com.hotvect.core.transform.ranking;
+
+import com.hotvect.api.data.ranking.RankingRequest;
+
+/**
+ * A {@link ComputingRankingTransformer} that can emit shared features as a separate
+ * {@link BroadcastTransformedActions#shared() broadcast row} rather than copying them into every action.
+ *
+ * <p>Scorers that understand the broadcast row should prefer {@link #transformBroadcast(ComputingRankingRequest)}
+ * over {@link #transform(ComputingRankingRequest)}, so that request-level features are encoded once per request
+ * instead of once per candidate. {@link BroadcastTransformedActions#toTransformedActions()} must equal the output of
+ * {@link #transform(ComputingRankingRequest)}.</p>
+ */
+public interface BroadcastRankingTransformer<SHARED, ACTION> extends ComputingRankingTransformer<SHARED, ACTION> {
+    default BroadcastTransformedActions<ACTION> transformBroadcast(RankingRequest<SHARED, ACTION> rankingRequest) {
+        return this.transformBroadcast(this.prepare(rankingRequest));
+    }
+
+    BroadcastTransformedActions<ACTION> transformBroadcast(ComputingRankingRequest<SHARED, ACTION> rankingRequest);
+}
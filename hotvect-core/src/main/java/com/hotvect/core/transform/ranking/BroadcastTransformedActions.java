@@ -0,0 +1,41 @@
+package com.hotvect.core.transform.ranking;
+
+import com.hotvect.api.data.Namespace;
+import com.hotvect.api.data.common.NamespacedRecord;
+import com.hotvect.api.data.ranking.TransformedAction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Transformer output in which request-level (shared) features are held once in {@link #shared()} instead of being
+ * copied into every action's record.
+ *
+ * <p>The records in {@link #actions()} only hold action and interaction features (and stacked scores). Every action
+ * implicitly has all features of {@link #shared()}; consumers are expected to encode the shared row once and replicate
+ * the encoded values into each row. Failures of shared computations are still reported in each action's
+ * additional properties.</p>
+ */
+public record BroadcastTransformedActions<ACTION>(
+        NamespacedRecord<Namespace, Object> shared,
+        List<TransformedAction<ACTION>> actions
+) {
+    public int size() {
+        return actions.size();
+    }
+
+    /**
+     * Returns the equivalent per-action output, with the shared features copied into each action's record.
+     */
+    public List<TransformedAction<ACTION>> toTransformedActions() {
+        Map<Namespace, Object> sharedValues = shared.asMap();
+        List<TransformedAction<ACTION>> ret = new ArrayList<>(actions.size());
+        for (TransformedAction<ACTION> action : actions) {
+            NamespacedRecord<Namespace, Object> merged = action.transformed().shallowCopy();
+            sharedValues.forEach(merged::put);
+            ret.add(TransformedAction.of(action.actionId(), action.action(), merged, action.additionalProperties()));
+        }
+        return ret;
+    }
+}
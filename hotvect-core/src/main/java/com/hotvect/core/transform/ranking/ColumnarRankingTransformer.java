@@ -0,0 +1,35 @@
+package com.hotvect.core.transform.ranking;
+
+import com.hotvect.api.data.ranking.RankingRequest;
+
+/**
+ * A {@link StreamingRankingTransformer} that can also emit its output as {@link TransformedBatch columns}.
+ *
+ * <p>The columnar path avoids the per-action {@code NamespacedRecord} and keeps primitive features unboxed, which
+ * matters for requests with thousands of candidates. Scorers that understand columns should prefer
+ * {@link #prepareColumnarBatchStream(RankingRequest)} over {@link #prepareBatchStream(RankingRequest)}; both must
+ * produce the same feature values in the same action order.</p>
+ */
+public interface ColumnarRankingTransformer<SHARED, ACTION> extends StreamingRankingTransformer<SHARED, ACTION> {
+    /**
+     * Returns a stream of columnar batches together with any feature store responses collected during transformation.
+     * Batches are formed the same way as in {@link #prepareBatchStream(RankingRequest)}.
+     */
+    PreparedColumnarBatchStream<ACTION> prepareColumnarBatchStream(RankingRequest<SHARED, ACTION> request);
+
+    /**
+     * Like {@link #prepareColumnarBatchStream(RankingRequest)}, but the features of each batch are only computed when
+     * the batch is {@link FillableBatch#fillInto filled}, and are written directly into the consumer's sink. Shared
+     * values are still computed here, once per request.
+     *
+     * <p>The default implementation wraps the columnar batches, so their columns are copied into the sink.
+     * Generated transformers override it and never materialize the columns.</p>
+     */
+    default PreparedFillableBatchStream<ACTION> prepareFillableBatchStream(RankingRequest<SHARED, ACTION> request) {
+        PreparedColumnarBatchStream<ACTION> prepared = prepareColumnarBatchStream(request);
+        return new PreparedFillableBatchStream<>(
+                prepared.batchStream().map(FillableBatch::of),
+                prepared.featureStoreResponses()
+        );
+    }
+}
@@ -4,7 +4,7 @@ import com.google.common.collect.Sets;
 import com.hotvect.api.data.Namespace;
 import com.hotvect.api.data.common.Mapping;
 import com.hotvect.api.data.common.NamespacedRecord;
-import com.hotvect.api.data.common.NamespacedRecordImpl;
+import com.hotvect.api.data.common.NamespacedRecords;
 import com.hotvect.api.data.ranking.RankingRequest;
 import com.hotvect.core.transform.*;
 import com.hotvect.utils.FuzzyMatch;
@@ -83,7 +83,7 @@ public class ComputingCandidate<SHARED, ACTION> implements Computable<Pair<Ranki
         );
 
         NamespacedRecord<Namespace, MemoizedValue<InteractingComputation<SHARED, ACTION, Object>, Object>> memoizedRecord =
-                new NamespacedRecordImpl<>();
+                NamespacedRecords.newRecord(Namespaces.slots());
         if (memoized != null && memoized.keys().length > 0) {
             Namespace[] keys = memoized.keys();
             InteractingComputation<SHARED, ACTION, Object>[] values = memoized.values();
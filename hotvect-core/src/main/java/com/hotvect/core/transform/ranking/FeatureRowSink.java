@@ -0,0 +1,22 @@
+package com.hotvect.core.transform.ranking;
+
+/**
+ * Receives the features of a {@link FillableBatch} as the transformer computes them, so that a scorer can have them
+ * written straight into its own input buffers instead of copying them out of a {@link TransformedBatch}.
+ *
+ * <p>{@code row} is the position of the action in the batch and {@code column} the column index in the batch's
+ * {@link TransformedBatch.Layout}. Primitive columns are written with the method matching their
+ * {@link TransformedBatch.ColumnType}, {@code STRING} and {@code OBJECT} columns with {@link #putObject}. Every
+ * column of every row is written exactly once.</p>
+ */
+public interface FeatureRowSink {
+    void putFloat(int row, int column, float value);
+
+    void putDouble(int row, int column, double value);
+
+    void putInt(int row, int column, int value);
+
+    void putLong(int row, int column, long value);
+
+    void putObject(int row, int column, Object value);
+}
@@ -0,0 +1,98 @@
+package com.hotvect.core.transform.ranking;
+
+import com.hotvect.api.data.AvailableAction;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A batch of actions whose features are computed only when {@link #fillInto(FeatureRowSink)} is called, and are then
+ * written directly into the sink instead of into intermediate columns.
+ *
+ * <p>This lets a scorer fill pooled input buffers of its own layout in place, on the thread that scores the batch.
+ * A batch is meant to be filled once.</p>
+ */
+public final class FillableBatch<ACTION> {
+    /**
+     * Computes the features of a batch and writes them into a sink.
+     */
+    @FunctionalInterface
+    public interface Filler {
+        void fill(FeatureRowSink sink);
+    }
+
+    private final List<AvailableAction<ACTION>> actions;
+    private final TransformedBatch.Layout layout;
+    private final Filler filler;
+
+    public FillableBatch(List<AvailableAction<ACTION>> actions, TransformedBatch.Layout layout, Filler filler) {
+        this.actions = Objects.requireNonNull(actions, "actions");
+        this.layout = Objects.requireNonNull(layout, "layout");
+        this.filler = Objects.requireNonNull(filler, "filler");
+    }
+
+    /**
+     * Wraps an already transformed batch, whose columns are copied into the sink.
+     */
+    public static <ACTION> FillableBatch<ACTION> of(TransformedBatch<ACTION> batch) {
+        return new FillableBatch<>(batch.actions(), batch.layout(), sink -> copyColumns(batch, sink));
+    }
+
+    public int size() {
+        return actions.size();
+    }
+
+    public List<AvailableAction<ACTION>> actions() {
+        return actions;
+    }
+
+    public TransformedBatch.Layout layout() {
+        return layout;
+    }
+
+    /**
+     * Computes the features of this batch and writes every column of every row into {@code sink}.
+     */
+    public void fillInto(FeatureRowSink sink) {
+        filler.fill(sink);
+    }
+
+    private static <ACTION> void copyColumns(TransformedBatch<ACTION> batch, FeatureRowSink sink) {
+        TransformedBatch.Layout layout = batch.layout();
+        int size = batch.size();
+        for (int column = 0; column < layout.columnCount(); column++) {
+            switch (layout.columnType(column)) {
+                case FLOAT -> {
+                    float[] values = batch.floatColumn(column);
+                    for (int row = 0; row < size; row++) {
+                        sink.putFloat(row, column, values[row]);
+                    }
+                }
+                case DOUBLE -> {
+                    double[] values = batch.doubleColumn(column);
+                    for (int row = 0; row < size; row++) {
+                        sink.putDouble(row, column, values[row]);
+                    }
+                }
+                case INT -> {
+                    int[] values = batch.intColumn(column);
+                    for (int row = 0; row < size; row++) {
+                        sink.putInt(row, column, values[row]);
+                    }
+                }
+                case LONG -> {
+                    long[] values = batch.longColumn(column);
+                    for (int row = 0; row < size; row++) {
+                        sink.putLong(row, column, values[row]);
+                    }
+                }
+                case STRING, OBJECT -> {
+                    Object[] values = batch.objectColumn(column);
+                    for (int row = 0; row < size; row++) {
+                        sink.putObject(row, column, values[row]);
+                    }
+                }
+            }
+        }
+    }
+}
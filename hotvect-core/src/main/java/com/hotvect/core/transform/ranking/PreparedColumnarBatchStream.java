@@ -0,0 +1,11 @@
+package com.hotvect.core.transform.ranking;
+
+import com.hotvect.api.data.featurestore.FeatureStoreResponse;
+
+import java.util.Map;
+import java.util.stream.Stream;
+
+public record PreparedColumnarBatchStream<ACTION>(
+        Stream<TransformedBatch<ACTION>> batchStream,
+        Map<String, FeatureStoreResponse> featureStoreResponses
+) {}
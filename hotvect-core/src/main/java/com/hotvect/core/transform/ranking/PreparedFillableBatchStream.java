@@ -0,0 +1,11 @@
+package com.hotvect.core.transform.ranking;
+
+import com.hotvect.api.data.featurestore.FeatureStoreResponse;
+
+import java.util.Map;
+import java.util.stream.Stream;
+
+public record PreparedFillableBatchStream<ACTION>(
+        Stream<FillableBatch<ACTION>> batchStream,
+        Map<String, FeatureStoreResponse> featureStoreResponses
+) {}
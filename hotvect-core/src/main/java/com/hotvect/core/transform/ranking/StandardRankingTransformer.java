@@ -8,11 +8,13 @@ import com.hotvect.api.data.Namespace;
 import com.hotvect.api.data.ValueType;
 import com.hotvect.api.data.common.Mapping;
 import com.hotvect.api.data.common.NamespacedRecord;
-import com.hotvect.api.data.common.NamespacedRecordImpl;
+import com.hotvect.api.data.common.NamespacedRecords;
 import com.hotvect.api.data.ranking.RankingRequest;
 import com.hotvect.api.data.ranking.TransformedAction;
 import com.hotvect.api.data.scoring.ScoringDecision;
 import com.hotvect.api.transformation.AuditableTransformer;
+import com.hotvect.api.transformation.FeatureProfiler;
+import com.hotvect.api.transformation.ProfilableTransformer;
 import com.hotvect.core.transform.*;
 import com.hotvect.core.util.Utils;
 import com.hotvect.utils.FuzzyMatch;
@@ -26,11 +28,16 @@ import java.lang.invoke.SerializedLambda;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
 
 import static com.google.common.base.Preconditions.*;
 
 @SuppressWarnings({"rawtypes"})
-public class StandardRankingTransformer<SHARED, ACTION> implements ComputingRankingTransformer<SHARED, ACTION>, AuditableTransformer {
+public class StandardRankingTransformer<SHARED, ACTION> implements BroadcastRankingTransformer<SHARED, ACTION>, AuditableTransformer, ProfilableTransformer {
     private static final Logger log = LoggerFactory.getLogger(StandardRankingTransformer.class);
 
     private final Mapping<Namespace, Computation<RankingRequest<SHARED, ACTION>, Object>> sharedMemoizedComputations;
@@ -51,12 +58,17 @@ public class StandardRankingTransformer<SHARED, ACTION> implements ComputingRank
     private final EnumMap<RankingFeatureComputationDependency, Namespace[]> computationFeatures;
     private final NamespacedRecord<Namespace, RankingFeatureComputationDependency> dependencyLookupMap;
     private final Namespace[] algorithmFeatures;
+    private final ComputingBulkScorer<SHARED, ACTION>[] algorithmFeatureScorers;
+    private final Executor stackingExecutor;
     private final SortedSet<Namespace> usedFeatures;
 
     // Feature logging support (mutable for post-construction configuration)
     private boolean logFeatures = false;
     private String algorithmName = null;
 
+    // Feature profiling support (mutable for post-construction configuration), null while profiling is disabled
+    private FeatureProbes featureProbes = null;
+
     public static class Builder<SHARED, ACTION> {
         private final Map<String, Computation> sharedComputations = new HashMap<>();
         private final Map<String, Computation> actionComputations = new HashMap<>();
@@ -67,6 +79,7 @@ public class StandardRankingTransformer<SHARED, ACTION> implements ComputingRank
         private final Set<String> usedFeatures = new HashSet<>();
         private final Map<String, Object> sharedPrecomputations = new HashMap<>();
         private final LinkedHashMap<Namespace, EagerRankingTransformation<SHARED, ACTION>> eagerTransformations = new LinkedHashMap<>();
+        private Executor stackingExecutor = ForkJoinPool.commonPool();
 
         private Builder() {
         }
@@ -135,6 +148,31 @@ public class StandardRankingTransformer<SHARED, ACTION> implements ComputingRank
 
 
 
+        /**
+         * Registers a shared computation whose results are cached across requests by the key that
+         * {@code keyExtractor} extracts from the request. See {@link ComputationSpec#CROSS_REQUEST_MEMOIZED}.
+         */
+        public <V> Builder<SHARED, ACTION> withSharedComputation(Namespace namespace, Computation<RankingRequest<SHARED, ACTION>, V> computation, Function<? super RankingRequest<SHARED, ACTION>, ?> keyExtractor, CrossRequestCache cache) {
+            String namespaceString = namespace.toString();
+            this.sharedComputations.put(namespaceString, cache.memoize(computation, keyExtractor));
+            this.namespaceDictionary.put(namespaceString, namespace);
+            this.namespeceComputationSpec.put(namespaceString, ComputationSpec.CROSS_REQUEST_MEMOIZED);
+            return this;
+        }
+
+        /**
+         * Registers an action computation whose results are cached across requests by the key that
+         * {@code keyExtractor} extracts from the action, e.g. a product id. See
+         * {@link ComputationSpec#CROSS_REQUEST_MEMOIZED}.
+         */
+        public <V> Builder<SHARED, ACTION> withActionComputation(Namespace namespace, Computation<ACTION, V> computation, Function<? super ACTION, ?> keyExtractor, CrossRequestCache cache) {
+            String namespaceString = namespace.toString();
+            this.actionComputations.put(namespaceString, cache.memoize(computation, keyExtractor));
+            this.namespaceDictionary.put(namespaceString, namespace);
+            this.namespeceComputationSpec.put(namespaceString, ComputationSpec.CROSS_REQUEST_MEMOIZED);
+            return this;
+        }
+
         public <V> Builder<SHARED, ACTION> withActionComputation(Namespace namespace, Computation<ACTION, V> computation, boolean cached) {
             String namespaceString = namespace.toString();
             this.actionComputations.put(namespaceString, computation);
@@ -157,6 +195,16 @@ public class StandardRankingTransformer<SHARED, ACTION> implements ComputingRank
             return this;
         }
 
+        /**
+         * Sets the executor used to run stacked bulk scorers concurrently when more than one of them is used as a
+         * feature. Each stacked bulk scorer is invoked once per request regardless of the executor.
+         * Defaults to {@link ForkJoinPool#commonPool()}.
+         */
+        public Builder<SHARED, ACTION> withStackingExecutor(Executor stackingExecutor) {
+            this.stackingExecutor = checkNotNull(stackingExecutor, "stackingExecutor");
+            return this;
+        }
+
         public Builder<SHARED, ACTION> withFeature(String namespace) {
             this.usedFeatures.add(namespace);
             return this;
@@ -165,9 +213,12 @@ public class StandardRankingTransformer<SHARED, ACTION> implements ComputingRank
         public Builder<SHARED, ACTION> setComputationSpec(String namespace, ComputationSpec computationSpec) {
             Namespace ns = findNamespace(namespace);
             checkState(this.namespeceComputationSpec.get(namespace) != ComputationSpec.PRECOMPUTED, "Namespace: " + ns + " is set as PRECOMPUTED and cannot be set as " + computationSpec);
+            checkState(this.namespeceComputationSpec.get(namespace) != ComputationSpec.CROSS_REQUEST_MEMOIZED, "Namespace: " + ns + " is set as CROSS_REQUEST_MEMOIZED and cannot be set as " + computationSpec);
             switch (computationSpec) {
                 case PRECOMPUTED ->
                         throw new IllegalArgumentException("ComputationSpec.PRECOMPUTED is not allowed to be set manually. It is set automatically by the builder. Violating namespace: " + ns);
+                case CROSS_REQUEST_MEMOIZED ->
+                        throw new IllegalArgumentException("ComputationSpec.CROSS_REQUEST_MEMOIZED is not allowed to be set manually. Register the computation with a key extractor and a CrossRequestCache instead. Violating namespace: " + ns);
                 case LAZY_ON_DEMAND ->
                         this.namespeceComputationSpec.put(namespace, ComputationSpec.LAZY_ON_DEMAND);
                 case LAZY_MEMOIZED ->
@@ -239,7 +290,8 @@ public class StandardRankingTransformer<SHARED, ACTION> implements ComputingRank
                     asNamespaceMap(namespeceComputationSpec),
                     asNamespaceMap(sharedPrecomputations),
                     sortedUsedFeatures,
-                    eagerTransformations
+                    eagerTransformations,
+                    stackingExecutor
             );
         }
 
@@ -292,7 +344,8 @@ public class StandardRankingTransformer<SHARED, ACTION> implements ComputingRank
             Map<Namespace, ComputationSpec> computationSpec,
             Map<Namespace, Object> precomputedShared,
             SortedSet<Namespace> usedFeatures,
-            LinkedHashMap<Namespace, EagerRankingTransformation<SHARED, ACTION>> eagerTransformations
+            LinkedHashMap<Namespace, EagerRankingTransformation<SHARED, ACTION>> eagerTransformations,
+            Executor stackingExecutor
     ) {
         Utils.checkCollectionIsEnumsOrNamespaceIdObjects(sharedComputations.keySet());
 
@@ -308,7 +361,7 @@ public class StandardRankingTransformer<SHARED, ACTION> implements ComputingRank
         Map<Namespace, Computation<RankingRequest<SHARED, ACTION>, Object>> sharedMemoMap =
                 (Map<Namespace, Computation<RankingRequest<SHARED, ACTION>, Object>>) (Map<?, ?>) ImmutableMap.copyOf(
                         Maps.filterEntries(sharedComputations, e ->
-                                EnumSet.of(ComputationSpec.LAZY_MEMOIZED)
+                                EnumSet.of(ComputationSpec.LAZY_MEMOIZED, ComputationSpec.CROSS_REQUEST_MEMOIZED)
                                         .contains(computationSpec.get(e.getKey()))));
         this.sharedMemoizedComputations = new Mapping<>(sharedMemoMap, Namespace[]::new, Computation[]::new);
 
@@ -316,28 +369,29 @@ public class StandardRankingTransformer<SHARED, ACTION> implements ComputingRank
                 (Map<Namespace, Computation<RankingRequest<SHARED, ACTION>, Object>>) (Map<?, ?>) ImmutableMap.copyOf(
                         Maps.filterEntries(sharedComputations, x ->
                                 computationSpec.get(x.getKey()) == ComputationSpec.LAZY_ON_DEMAND));
-        this.sharedNonMemoizedComputations = new NamespacedRecordImpl<>(sharedNonMemoMap);
+        this.sharedNonMemoizedComputations = NamespacedRecords.newRecord(Namespaces.slots(), sharedNonMemoMap);
 
         this.eagerTransformations = new LinkedHashMap<>(checkNotNull(eagerTransformations, "eagerTransformations"));
 
         // Precomputed - Shared
         Map<Namespace, Object> sharedPrecomputedMap = Maps.filterEntries(precomputedShared,
                 e -> computationSpec.get(e.getKey()) == ComputationSpec.PRECOMPUTED);
-        this.precomputedShared = new NamespacedRecordImpl<>(Maps.transformValues(sharedPrecomputedMap, Holder::new));
+        this.precomputedShared = NamespacedRecords.newRecord(Namespaces.slots(), Maps.transformValues(sharedPrecomputedMap, Holder::new));
 
         // Memoized / NonMemoized - Action
         Utils.checkCollectionIsEnumsOrNamespaceIdObjects(actionComputations.keySet());
         Map<Namespace, Computation<ACTION, Object>> actionMemoMap =
                 (Map<Namespace, Computation<ACTION, Object>>) (Map<?, ?>) ImmutableMap.copyOf(
                         Maps.filterEntries(actionComputations, e ->
-                                computationSpec.get(e.getKey()) == ComputationSpec.LAZY_MEMOIZED));
+                                EnumSet.of(ComputationSpec.LAZY_MEMOIZED, ComputationSpec.CROSS_REQUEST_MEMOIZED)
+                                        .contains(computationSpec.get(e.getKey()))));
         this.actionMemoizedComputations = new Mapping<>(actionMemoMap, Namespace[]::new, Computation[]::new);
 
         Map<Namespace, Computation<ACTION, Object>> actionNonMemoMap =
                 (Map<Namespace, Computation<ACTION, Object>>) (Map<?, ?>) ImmutableMap.copyOf(
                         Maps.filterEntries(actionComputations, x ->
                                 computationSpec.get(x.getKey()) == ComputationSpec.LAZY_ON_DEMAND));
-        this.actionNonMemoizedComputations = new NamespacedRecordImpl<>(actionNonMemoMap);
+        this.actionNonMemoizedComputations = NamespacedRecords.newRecord(Namespaces.slots(), actionNonMemoMap);
 
         // Memoized / NonMemoized - Interaction
         Utils.checkCollectionIsEnumsOrNamespaceIdObjects(interactionComputations.keySet());
@@ -351,7 +405,7 @@ public class StandardRankingTransformer<SHARED, ACTION> implements ComputingRank
                 (Map<Namespace, InteractingComputation<SHARED, ACTION, Object>>) (Map<?, ?>) ImmutableMap.copyOf(
                         Maps.filterEntries(interactionComputations, x ->
                                 computationSpec.get(x.getKey()) == ComputationSpec.LAZY_ON_DEMAND));
-        this.interactionNonMemoizedComputations = new NamespacedRecordImpl<>(interactionNonMemoMap);
+        this.interactionNonMemoizedComputations = NamespacedRecords.newRecord(Namespaces.slots(), interactionNonMemoMap);
 
         // Additional Mappings for NonMemoized sets
         this.sharedNonMemoizedMapping = new Mapping<>(
@@ -372,7 +426,7 @@ public class StandardRankingTransformer<SHARED, ACTION> implements ComputingRank
 
         // BulkScorers
         Utils.checkCollectionIsEnumsOrNamespaceIdObjects(bulkScorers.keySet());
-        this.bulkScorers = new NamespacedRecordImpl<>(bulkScorers);
+        this.bulkScorers = NamespacedRecords.newRecord(Namespaces.slots(), bulkScorers);
 
         this.usedFeatures = ImmutableSortedSet.copyOf(Namespace.alphabetical(), usedFeatures);
 
@@ -413,6 +467,11 @@ public class StandardRankingTransformer<SHARED, ACTION> implements ComputingRank
             ));
         }
         this.algorithmFeatures = algorithmFeatures.toArray(new Namespace[0]);
+        this.algorithmFeatureScorers = new ComputingBulkScorer[this.algorithmFeatures.length];
+        for (int i = 0; i < this.algorithmFeatures.length; i++) {
+            this.algorithmFeatureScorers[i] = checkNotNull(this.bulkScorers.get(this.algorithmFeatures[i]));
+        }
+        this.stackingExecutor = checkNotNull(stackingExecutor, "stackingExecutor");
         if ((this.computationFeatures == null || this.computationFeatures.isEmpty()) && this.algorithmFeatures.length == 0) {
             log.warn("No features were registered for this transformer. This makes only sense for debugging");
         }
@@ -425,7 +484,7 @@ public class StandardRankingTransformer<SHARED, ACTION> implements ComputingRank
             Map<Namespace, ?> bulkScorers,
             Map<Namespace, Object> precomputedShared
     ) {
-        NamespacedRecord<Namespace, RankingFeatureComputationDependency> ret = new NamespacedRecordImpl<>();
+        NamespacedRecord<Namespace, RankingFeatureComputationDependency> ret = NamespacedRecords.newRecord(Namespaces.slots());
         sharedComputations.keySet().forEach(namespace -> ret.put(namespace, RankingFeatureComputationDependency.SHARED));
         actionComputations.keySet().forEach(namespace -> ret.put(namespace, RankingFeatureComputationDependency.ACTION));
         interactionComputations.keySet().forEach(namespace -> ret.put(namespace, RankingFeatureComputationDependency.INTERACTION));
@@ -454,52 +513,125 @@ public class StandardRankingTransformer<SHARED, ACTION> implements ComputingRank
 
     @Override
     public List<TransformedAction<ACTION>> transform(ComputingRankingRequest<SHARED, ACTION> input) {
-        List<TransformedAction<ACTION>> ret = new ArrayList<>(input.candidates().size());
-        for (ComputingCandidate<SHARED, ACTION> candidate : input.candidates()) {
-            NamespacedRecord<Namespace, Object> transformed = new NamespacedRecordImpl<>();
+        return transformCandidates(input, null, null, ProfiledRequest.sample(this.featureProbes));
+    }
+
+    /**
+     * Computes the shared features once into the broadcast row, and only action, interaction and stacked features
+     * per candidate.
+     */
+    @Override
+    public BroadcastTransformedActions<ACTION> transformBroadcast(ComputingRankingRequest<SHARED, ACTION> input) {
+        ProfiledRequest profiled = ProfiledRequest.sample(this.featureProbes);
+        NamespacedRecord<Namespace, Object> shared = NamespacedRecords.newRecord(Namespaces.slots());
+        Map<String, Object> sharedFailures = null;
+        Namespace[] sharedFeatures = this.computationFeatures == null
+                ? null
+                : this.computationFeatures.get(RankingFeatureComputationDependency.SHARED);
+        if (sharedFeatures != null) {
+            for (int f = 0; f < sharedFeatures.length; f++) {
+                Namespace feature = sharedFeatures[f];
+                if (profiled != null) {
+                    profiled.sample().begin();
+                }
+                Object computationResult = input.shared().compute(feature);
+                if (profiled != null) {
+                    profiled.sample().end(profiled.probes().shared()[f]);
+                }
+                sharedFailures = checkAndAdd(shared, sharedFailures, feature, computationResult);
+            }
+        }
+        return new BroadcastTransformedActions<>(shared, transformCandidates(input, shared, sharedFailures, profiled));
+    }
+
+    /**
+     * @param broadcastShared if non-null, shared features were already computed into this record and are not copied
+     *                        into the candidates' records
+     * @param sharedFailures  failures of the shared computations in {@code broadcastShared}, added to every candidate
+     * @param profiled        if non-null, the cost of each feature is recorded to it
+     */
+    private List<TransformedAction<ACTION>> transformCandidates(
+            ComputingRankingRequest<SHARED, ACTION> input,
+            NamespacedRecord<Namespace, Object> broadcastShared,
+            Map<String, Object> sharedFailures,
+            ProfiledRequest profiled
+    ) {
+        List<ComputingCandidate<SHARED, ACTION>> candidates = input.candidates();
+        List<ScoringDecision<ACTION>>[] stackedScores = scoreStacked(input, profiled);
+        List<TransformedAction<ACTION>> ret = new ArrayList<>(candidates.size());
+        for (int i = 0; i < candidates.size(); i++) {
+            ComputingCandidate<SHARED, ACTION> candidate = candidates.get(i);
+            NamespacedRecord<Namespace, Object> transformed = NamespacedRecords.newRecord(Namespaces.slots());
 
             Map<String, Object> additionalProperties = candidate.additionalProperties().isEmpty()
                     ? null
                     : new HashMap<>(candidate.additionalProperties());
+            if (sharedFailures != null) {
+                if (additionalProperties == null) {
+                    additionalProperties = new HashMap<>();
+                }
+                additionalProperties.putAll(sharedFailures);
+            }
 
             if (this.computationFeatures != null) {
-                Namespace[] sharedFeatures = this.computationFeatures.get(RankingFeatureComputationDependency.SHARED);
+                Namespace[] sharedFeatures = broadcastShared == null
+                        ? this.computationFeatures.get(RankingFeatureComputationDependency.SHARED)
+                        : null;
                 if (sharedFeatures != null) {
-                    for (Namespace feature : sharedFeatures) {
+                    // Shared features are memoized after the first candidate, so only that one measures their cost
+                    ProfiledRequest sharedProfiled = i == 0 ? profiled : null;
+                    for (int f = 0; f < sharedFeatures.length; f++) {
+                        Namespace feature = sharedFeatures[f];
+                        if (sharedProfiled != null) {
+                            sharedProfiled.sample().begin();
+                        }
                         Object computationResult = candidate.getShared().compute(feature);
+                        if (sharedProfiled != null) {
+                            sharedProfiled.sample().end(sharedProfiled.probes().shared()[f]);
+                        }
                         additionalProperties = checkAndAdd(transformed, additionalProperties, feature, computationResult);
                     }
                 }
                 Namespace[] actionFeatures = this.computationFeatures.get(RankingFeatureComputationDependency.ACTION);
                 if (actionFeatures != null) {
-                    for (Namespace feature : actionFeatures) {
+                    for (int f = 0; f < actionFeatures.length; f++) {
+                        Namespace feature = actionFeatures[f];
+                        if (profiled != null) {
+                            profiled.sample().begin();
+                        }
                         Object computationResult = candidate.getAction().compute(feature);
+                        if (profiled != null) {
+                            profiled.sample().end(profiled.probes().action()[f]);
+                        }
                         additionalProperties = checkAndAdd(transformed, additionalProperties, feature, computationResult);
                     }
                 }
                 Namespace[] interactionFeatures = this.computationFeatures.get(RankingFeatureComputationDependency.INTERACTION);
                 if (interactionFeatures != null) {
-                    for (Namespace feature : interactionFeatures) {
+                    for (int f = 0; f < interactionFeatures.length; f++) {
+                        Namespace feature = interactionFeatures[f];
+                        if (profiled != null) {
+                            profiled.sample().begin();
+                        }
                         Object computationResult = candidate.compute(feature);
+                        if (profiled != null) {
+                            profiled.sample().end(profiled.probes().interaction()[f]);
+                        }
                         additionalProperties = checkAndAdd(transformed, additionalProperties, feature, computationResult);
                     }
                 }
             }
 
-            if(this.algorithmFeatures != null){
-                for (Namespace Namespace : this.algorithmFeatures) {
-                    ComputingBulkScorer<SHARED, ACTION> bulkScorer = this.bulkScorers.get(Namespace);
-                    List<ScoringDecision<ACTION>> scores = bulkScorer.bulkScore(input);
-                    for (ScoringDecision<ACTION> decision : scores) {
-                        double score = decision.score();
-                        if (!decision.additionalProperties().isEmpty()) {
-                            if (additionalProperties == null) {
-                                additionalProperties = new HashMap<>();
-                            }
-                            additionalProperties.putAll(decision.additionalProperties());
+            if (stackedScores != null) {
+                for (int j = 0; j < this.algorithmFeatures.length; j++) {
+                    ScoringDecision<ACTION> decision = stackedScores[j].get(i);
+                    if (!decision.additionalProperties().isEmpty()) {
+                        if (additionalProperties == null) {
+                            additionalProperties = new HashMap<>();
                         }
-                        transformed.put(Namespace, score);
+                        additionalProperties.putAll(decision.additionalProperties());
                     }
+                    transformed.put(this.algorithmFeatures[j], decision.score());
                 }
             }
 
@@ -512,6 +644,9 @@ public class StandardRankingTransformer<SHARED, ACTION> implements ComputingRank
                 Map<String, Object> loggedFeatures = new HashMap<>();
                 for (Namespace usedFeature : this.usedFeatures) {
                     Object featureValue = transformed.get(usedFeature);
+                    if (featureValue == null && broadcastShared != null) {
+                        featureValue = broadcastShared.get(usedFeature);
+                    }
                     if (featureValue != null) {
                         loggedFeatures.put(usedFeature.toString(), featureValue);
                     }
@@ -541,6 +676,65 @@ public class StandardRankingTransformer<SHARED, ACTION> implements ComputingRank
         return ret;
     }
 
+    /**
+     * Scores the whole request once with every stacked bulk scorer. The scorers run concurrently on the stacking
+     * executor when there is more than one of them; the calling thread scores the last one itself. The returned
+     * lists are joined to the candidates by index, so each scorer must preserve the request's candidate order.
+     *
+     * @return one score list per entry of {@link #algorithmFeatures}, or {@code null} if no stacked feature is used
+     */
+    @SuppressWarnings("unchecked")
+    private List<ScoringDecision<ACTION>>[] scoreStacked(ComputingRankingRequest<SHARED, ACTION> input, ProfiledRequest profiled) {
+        int scorerCount = this.algorithmFeatureScorers.length;
+        if (scorerCount == 0) {
+            return null;
+        }
+        List<ScoringDecision<ACTION>>[] ret = new List[scorerCount];
+        if (scorerCount == 1) {
+            ret[0] = bulkScore(0, input, profiled);
+        } else {
+            CompletableFuture<List<ScoringDecision<ACTION>>>[] futures = new CompletableFuture[scorerCount - 1];
+            for (int j = 0; j < scorerCount - 1; j++) {
+                int scorerIndex = j;
+                futures[j] = CompletableFuture.supplyAsync(() -> bulkScore(scorerIndex, input, profiled), this.stackingExecutor);
+            }
+            ret[scorerCount - 1] = bulkScore(scorerCount - 1, input, profiled);
+            for (int j = 0; j < scorerCount - 1; j++) {
+                try {
+                    ret[j] = futures[j].join();
+                } catch (CompletionException e) {
+                    if (e.getCause() instanceof RuntimeException cause) {
+                        throw cause;
+                    }
+                    throw e;
+                }
+            }
+        }
+
+        int numCandidates = input.candidates().size();
+        for (int j = 0; j < scorerCount; j++) {
+            if (ret[j].size() != numCandidates) {
+                throw new IllegalArgumentException(
+                        "Stacked BulkScorer for " + this.algorithmFeatures[j] + " returned " + ret[j].size() + " scores for " + numCandidates + " candidates"
+                );
+            }
+        }
+        return ret;
+    }
+
+    private List<ScoringDecision<ACTION>> bulkScore(int scorerIndex, ComputingRankingRequest<SHARED, ACTION> input, ProfiledRequest profiled) {
+        ComputingBulkScorer<SHARED, ACTION> scorer = this.algorithmFeatureScorers[scorerIndex];
+        if (profiled == null) {
+            return scorer.bulkScore(input);
+        }
+        // Stacked scorers may run on other threads, which a sample must not be shared with
+        FeatureProfiler.Sample sample = profiled.probes().profiler().newSample();
+        sample.begin();
+        List<ScoringDecision<ACTION>> ret = scorer.bulkScore(input);
+        sample.end(profiled.probes().stacking()[scorerIndex]);
+        return ret;
+    }
+
     @Override
     public SortedSet<Namespace> getUsedFeatures() {
         return usedFeatures;
@@ -562,6 +756,71 @@ public class StandardRankingTransformer<SHARED, ACTION> implements ComputingRank
         log.info("Feature auditing {} for algorithm: {}", enabled ? "enabled" : "disabled", algorithmName);
     }
 
+    /**
+     * Enable or disable per-feature profiling. When enabled, a sample of the requests records the time and the
+     * allocations of computing each used feature, by stage. A feature's cost includes the lazy computations it is the
+     * first to trigger, and stacked features are measured per request rather than per candidate.
+     *
+     * @param featureProfiler the profiler to record to, or null to disable profiling
+     * @param algorithmName the name of the algorithm (used to tag the recorded features)
+     */
+    @Override
+    public void setFeatureProfiler(FeatureProfiler featureProfiler, String algorithmName) {
+        if (featureProfiler == null) {
+            this.featureProbes = null;
+            log.info("Feature profiling disabled for algorithm: {}", algorithmName);
+            return;
+        }
+        checkNotNull(algorithmName);
+        checkArgument(!algorithmName.isEmpty());
+        this.featureProbes = new FeatureProbes(
+                featureProfiler,
+                probes(featureProfiler, algorithmName, FeatureProfiler.Stage.SHARED, RankingFeatureComputationDependency.SHARED),
+                probes(featureProfiler, algorithmName, FeatureProfiler.Stage.ACTION, RankingFeatureComputationDependency.ACTION),
+                probes(featureProfiler, algorithmName, FeatureProfiler.Stage.INTERACTION, RankingFeatureComputationDependency.INTERACTION),
+                probes(featureProfiler, algorithmName, FeatureProfiler.Stage.STACKING, this.algorithmFeatures)
+        );
+        log.info("Feature profiling enabled for algorithm: {}", algorithmName);
+    }
+
+    private FeatureProfiler.Probe[] probes(FeatureProfiler featureProfiler, String algorithmName, FeatureProfiler.Stage stage, RankingFeatureComputationDependency dependency) {
+        Namespace[] features = this.computationFeatures == null ? null : this.computationFeatures.get(dependency);
+        return probes(featureProfiler, algorithmName, stage, features == null ? new Namespace[0] : features);
+    }
+
+    private static FeatureProfiler.Probe[] probes(FeatureProfiler featureProfiler, String algorithmName, FeatureProfiler.Stage stage, Namespace[] features) {
+        FeatureProfiler.Probe[] ret = new FeatureProfiler.Probe[features.length];
+        for (int i = 0; i < features.length; i++) {
+            ret[i] = featureProfiler.probe(algorithmName, stage, features[i].toString());
+        }
+        return ret;
+    }
+
+    /**
+     * Probes of the used features, indexed like the feature arrays of each stage.
+     */
+    private record FeatureProbes(
+            FeatureProfiler profiler,
+            FeatureProfiler.Probe[] shared,
+            FeatureProfiler.Probe[] action,
+            FeatureProfiler.Probe[] interaction,
+            FeatureProfiler.Probe[] stacking
+    ) {
+    }
+
+    /**
+     * A request that was sampled for profiling.
+     */
+    private record ProfiledRequest(FeatureProbes probes, FeatureProfiler.Sample sample) {
+        static ProfiledRequest sample(FeatureProbes probes) {
+            if (probes == null) {
+                return null;
+            }
+            FeatureProfiler.Sample sample = probes.profiler().sample();
+            return sample == null ? null : new ProfiledRequest(probes, sample);
+        }
+    }
+
     @Override
     public ComputingRankingRequest<SHARED, ACTION> prepare(
             String exampleId,
@@ -906,6 +1165,9 @@ public class StandardRankingTransformer<SHARED, ACTION> implements ComputingRank
     }
 
     private static String resolveMethodName(Serializable lambda) {
+        if (lambda instanceof CrossRequestCache.MemoizedComputation<?, ?> memoized) {
+            return resolveMethodName(memoized.delegate());
+        }
         try {
             SerializedLambda serializedLambda = getSerializedLambda(lambda);
             return serializedLambda.getImplClass().replace('/', '.') + "::" + serializedLambda.getImplMethodName();
@@ -0,0 +1,177 @@
+package com.hotvect.core.transform.ranking;
+
+import com.google.common.collect.ImmutableMap;
+import com.hotvect.api.data.AvailableAction;
+import com.hotvect.api.data.Namespace;
+import com.hotvect.api.data.common.NamespacedRecord;
+import com.hotvect.api.data.common.NamespacedRecords;
+import com.hotvect.api.data.ranking.TransformedAction;
+import com.hotvect.core.transform.Namespaces;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Columnar output of a {@link ColumnarRankingTransformer} for one batch of actions.
+ *
+ * <p>Each output feature is stored as one array with one entry per action, in action order. Features whose
+ * computation returns a {@code float}, {@code double}, {@code int} or {@code long} are stored in primitive columns of
+ * that type, so they are never boxed, and {@link #value(int, int)} boxes them back to the declared type.
+ * {@code String} features are stored in {@code String[]} columns and all other types, including the narrower
+ * primitives, in {@code Object[]} columns.</p>
+ *
+ * <p>The {@link Layout} is fixed per transformer and shared by every batch it produces, which allows consumers to
+ * resolve their feature → column mapping once and reuse it for every batch.</p>
+ */
+public final class TransformedBatch<ACTION> {
+    public enum ColumnType {
+        FLOAT,
+        DOUBLE,
+        INT,
+        LONG,
+        STRING,
+        OBJECT
+    }
+
+    /**
+     * The features and column types of a batch. Instances are expected to be created once per transformer.
+     */
+    public static final class Layout {
+        private final Namespace[] features;
+        private final ColumnType[] columnTypes;
+        private final Map<Namespace, Integer> columnIndex;
+
+        public Layout(Namespace[] features, ColumnType[] columnTypes) {
+            checkArgument(features.length == columnTypes.length,
+                    "Got %s features but %s column types", features.length, columnTypes.length);
+            this.features = features.clone();
+            this.columnTypes = columnTypes.clone();
+            this.columnIndex = new IdentityHashMap<>(features.length);
+            for (int i = 0; i < features.length; i++) {
+                checkArgument(this.columnIndex.put(features[i], i) == null, "Duplicate feature %s", features[i]);
+            }
+        }
+
+        public int columnCount() {
+            return features.length;
+        }
+
+        public Namespace feature(int column) {
+            return features[column];
+        }
+
+        public ColumnType columnType(int column) {
+            return columnTypes[column];
+        }
+
+        /**
+         * @return the column index of {@code feature}, or {@code -1} if the feature is not part of this layout
+         */
+        public int columnIndex(Namespace feature) {
+            Integer idx = columnIndex.get(feature);
+            return idx == null ? -1 : idx;
+        }
+    }
+
+    private final List<AvailableAction<ACTION>> actions;
+    private final Layout layout;
+    private final Object[] columns;
+
+    public TransformedBatch(List<AvailableAction<ACTION>> actions, Layout layout, Object[] columns) {
+        checkArgument(columns.length == layout.columnCount(),
+                "Got %s columns for a layout with %s columns", columns.length, layout.columnCount());
+        for (int i = 0; i < columns.length; i++) {
+            checkColumn(layout.columnType(i), columns[i], actions.size(), layout.feature(i));
+        }
+        this.actions = actions;
+        this.layout = layout;
+        this.columns = columns;
+    }
+
+    public int size() {
+        return actions.size();
+    }
+
+    public List<AvailableAction<ACTION>> actions() {
+        return actions;
+    }
+
+    public Layout layout() {
+        return layout;
+    }
+
+    public float[] floatColumn(int column) {
+        return (float[]) columns[column];
+    }
+
+    public double[] doubleColumn(int column) {
+        return (double[]) columns[column];
+    }
+
+    public int[] intColumn(int column) {
+        return (int[]) columns[column];
+    }
+
+    public long[] longColumn(int column) {
+        return (long[]) columns[column];
+    }
+
+    public String[] stringColumn(int column) {
+        return (String[]) columns[column];
+    }
+
+    public Object[] objectColumn(int column) {
+        return (Object[]) columns[column];
+    }
+
+    /**
+     * Returns a single (boxed, for primitive columns) value. Intended for fallbacks and tests, not for hot loops.
+     */
+    public Object value(int column, int row) {
+        return switch (layout.columnType(column)) {
+            case FLOAT -> floatColumn(column)[row];
+            case DOUBLE -> doubleColumn(column)[row];
+            case INT -> intColumn(column)[row];
+            case LONG -> longColumn(column)[row];
+            case STRING, OBJECT -> objectColumn(column)[row];
+        };
+    }
+
+    /**
+     * Converts this batch to the per-action representation, for consumers that do not support columnar input.
+     */
+    public List<TransformedAction<ACTION>> toTransformedActions() {
+        List<TransformedAction<ACTION>> ret = new ArrayList<>(size());
+        for (int row = 0; row < size(); row++) {
+            NamespacedRecord<Namespace, Object> transformed = NamespacedRecords.newRecord(Namespaces.slots());
+            for (int column = 0; column < columns.length; column++) {
+                transformed.put(layout.feature(column), value(column, row));
+            }
+            AvailableAction<ACTION> action = actions.get(row);
+            ret.add(TransformedAction.of(action.actionId(), action.action(), transformed, ImmutableMap.of()));
+        }
+        return ret;
+    }
+
+    @Override
+    public String toString() {
+        return "TransformedBatch{size=" + size() + ", features=" + Arrays.toString(layout.features) + "}";
+    }
+
+    private static void checkColumn(ColumnType type, Object column, int size, Namespace feature) {
+        int length = switch (type) {
+            case FLOAT -> ((float[]) column).length;
+            case DOUBLE -> ((double[]) column).length;
+            case INT -> ((int[]) column).length;
+            case LONG -> ((long[]) column).length;
+            case STRING -> ((String[]) column).length;
+            case OBJECT -> ((Object[]) column).length;
+        };
+        checkArgument(length == size, "Column for %s has %s rows, expected %s", feature, length, size);
+    }
+}
@@ -0,0 +1,87 @@
+package com.hotvect.core.vector;
+
+/**
+ * Plain loops, used when the Vector API is unavailable. They are also the reference the SIMD kernels are tested
+ * against.
+ */
+final class ScalarVectorKernels extends VectorKernels {
+    @Override
+    public String description() {
+        return "scalar";
+    }
+
+    @Override
+    float dotUnchecked(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        float sum = 0.0f;
+        for (int i = 0; i < length; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+        return sum;
+    }
+
+    @Override
+    double dotUnchecked(double[] a, int aOffset, double[] b, int bOffset, int length) {
+        double sum = 0.0;
+        for (int i = 0; i < length; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+        return sum;
+    }
+
+    @Override
+    float cosineUnchecked(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        float dot = 0.0f;
+        float aNorm = 0.0f;
+        float bNorm = 0.0f;
+        for (int i = 0; i < length; i++) {
+            float x = a[aOffset + i];
+            float y = b[bOffset + i];
+            dot += x * y;
+            aNorm += x * x;
+            bNorm += y * y;
+        }
+        return cosine(dot, aNorm, bNorm);
+    }
+
+    @Override
+    double cosineUnchecked(double[] a, int aOffset, double[] b, int bOffset, int length) {
+        double dot = 0.0;
+        double aNorm = 0.0;
+        double bNorm = 0.0;
+        for (int i = 0; i < length; i++) {
+            double x = a[aOffset + i];
+            double y = b[bOffset + i];
+            dot += x * y;
+            aNorm += x * x;
+            bNorm += y * y;
+        }
+        return cosine(dot, aNorm, bNorm);
+    }
+
+    @Override
+    float squaredL2Unchecked(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        float sum = 0.0f;
+        for (int i = 0; i < length; i++) {
+            float diff = a[aOffset + i] - b[bOffset + i];
+            sum += diff * diff;
+        }
+        return sum;
+    }
+
+    @Override
+    double squaredL2Unchecked(double[] a, int aOffset, double[] b, int bOffset, int length) {
+        double sum = 0.0;
+        for (int i = 0; i < length; i++) {
+            double diff = a[aOffset + i] - b[bOffset + i];
+            sum += diff * diff;
+        }
+        return sum;
+    }
+
+    @Override
+    void toFloatUnchecked(double[] src, int srcOffset, float[] dst, int dstOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            dst[dstOffset + i] = (float) src[srcOffset + i];
+        }
+    }
+}
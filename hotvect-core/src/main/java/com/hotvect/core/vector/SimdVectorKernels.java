@@ -0,0 +1,160 @@
+package com.hotvect.core.vector;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Kernels on the widest vectors the CPU supports. Each loop processes whole vectors and finishes the remaining
+ * elements with scalar code.
+ *
+ * <p>This class references {@code jdk.incubator.vector} and must only be loaded when that module is present, see
+ * {@link VectorKernels#simd()}.</p>
+ */
+final class SimdVectorKernels extends VectorKernels {
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+    // Holds as many floats as DOUBLES holds doubles, for narrowing without changing the lane count
+    private static final VectorSpecies<Float> NARROWED_FLOATS = VectorSpecies.of(float.class, VectorShape.forBitSize(DOUBLES.vectorBitSize() / 2));
+
+    /**
+     * Returns whether the CPU has vector registers of at least 128 bits. Otherwise, the Vector API emulates vectors
+     * and is slower than scalar loops.
+     */
+    boolean isAccelerated() {
+        return FLOATS.vectorBitSize() >= 128 && DOUBLES.length() >= 2;
+    }
+
+    @Override
+    public String description() {
+        return "simd(" + FLOATS.vectorBitSize() + " bits, " + FLOATS.length() + " floats, " + DOUBLES.length() + " doubles)";
+    }
+
+    @Override
+    float dotUnchecked(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        FloatVector sum = FloatVector.zero(FLOATS);
+        int i = 0;
+        for (int bound = FLOATS.loopBound(length); i < bound; i += FLOATS.length()) {
+            sum = FloatVector.fromArray(FLOATS, a, aOffset + i).fma(FloatVector.fromArray(FLOATS, b, bOffset + i), sum);
+        }
+        float ret = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            ret += a[aOffset + i] * b[bOffset + i];
+        }
+        return ret;
+    }
+
+    @Override
+    double dotUnchecked(double[] a, int aOffset, double[] b, int bOffset, int length) {
+        DoubleVector sum = DoubleVector.zero(DOUBLES);
+        int i = 0;
+        for (int bound = DOUBLES.loopBound(length); i < bound; i += DOUBLES.length()) {
+            sum = DoubleVector.fromArray(DOUBLES, a, aOffset + i).fma(DoubleVector.fromArray(DOUBLES, b, bOffset + i), sum);
+        }
+        double ret = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            ret += a[aOffset + i] * b[bOffset + i];
+        }
+        return ret;
+    }
+
+    @Override
+    float cosineUnchecked(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        FloatVector dots = FloatVector.zero(FLOATS);
+        FloatVector aNorms = FloatVector.zero(FLOATS);
+        FloatVector bNorms = FloatVector.zero(FLOATS);
+        int i = 0;
+        for (int bound = FLOATS.loopBound(length); i < bound; i += FLOATS.length()) {
+            FloatVector x = FloatVector.fromArray(FLOATS, a, aOffset + i);
+            FloatVector y = FloatVector.fromArray(FLOATS, b, bOffset + i);
+            dots = x.fma(y, dots);
+            aNorms = x.fma(x, aNorms);
+            bNorms = y.fma(y, bNorms);
+        }
+        float dot = dots.reduceLanes(VectorOperators.ADD);
+        float aNorm = aNorms.reduceLanes(VectorOperators.ADD);
+        float bNorm = bNorms.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            float x = a[aOffset + i];
+            float y = b[bOffset + i];
+            dot += x * y;
+            aNorm += x * x;
+            bNorm += y * y;
+        }
+        return cosine(dot, aNorm, bNorm);
+    }
+
+    @Override
+    double cosineUnchecked(double[] a, int aOffset, double[] b, int bOffset, int length) {
+        DoubleVector dots = DoubleVector.zero(DOUBLES);
+        DoubleVector aNorms = DoubleVector.zero(DOUBLES);
+        DoubleVector bNorms = DoubleVector.zero(DOUBLES);
+        int i = 0;
+        for (int bound = DOUBLES.loopBound(length); i < bound; i += DOUBLES.length()) {
+            DoubleVector x = DoubleVector.fromArray(DOUBLES, a, aOffset + i);
+            DoubleVector y = DoubleVector.fromArray(DOUBLES, b, bOffset + i);
+            dots = x.fma(y, dots);
+            aNorms = x.fma(x, aNorms);
+            bNorms = y.fma(y, bNorms);
+        }
+        double dot = dots.reduceLanes(VectorOperators.ADD);
+        double aNorm = aNorms.reduceLanes(VectorOperators.ADD);
+        double bNorm = bNorms.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            double x = a[aOffset + i];
+            double y = b[bOffset + i];
+            dot += x * y;
+            aNorm += x * x;
+            bNorm += y * y;
+        }
+        return cosine(dot, aNorm, bNorm);
+    }
+
+    @Override
+    float squaredL2Unchecked(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        FloatVector sum = FloatVector.zero(FLOATS);
+        int i = 0;
+        for (int bound = FLOATS.loopBound(length); i < bound; i += FLOATS.length()) {
+            FloatVector diff = FloatVector.fromArray(FLOATS, a, aOffset + i).sub(FloatVector.fromArray(FLOATS, b, bOffset + i));
+            sum = diff.fma(diff, sum);
+        }
+        float ret = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            float diff = a[aOffset + i] - b[bOffset + i];
+            ret += diff * diff;
+        }
+        return ret;
+    }
+
+    @Override
+    double squaredL2Unchecked(double[] a, int aOffset, double[] b, int bOffset, int length) {
+        DoubleVector sum = DoubleVector.zero(DOUBLES);
+        int i = 0;
+        for (int bound = DOUBLES.loopBound(length); i < bound; i += DOUBLES.length()) {
+            DoubleVector diff = DoubleVector.fromArray(DOUBLES, a, aOffset + i).sub(DoubleVector.fromArray(DOUBLES, b, bOffset + i));
+            sum = diff.fma(diff, sum);
+        }
+        double ret = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            double diff = a[aOffset + i] - b[bOffset + i];
+            ret += diff * diff;
+        }
+        return ret;
+    }
+
+    @Override
+    void toFloatUnchecked(double[] src, int srcOffset, float[] dst, int dstOffset, int length) {
+        int i = 0;
+        for (int bound = DOUBLES.loopBound(length); i < bound; i += DOUBLES.length()) {
+            DoubleVector.fromArray(DOUBLES, src, srcOffset + i)
+                    .convertShape(VectorOperators.D2F, NARROWED_FLOATS, 0)
+                    .reinterpretAsFloats()
+                    .intoArray(dst, dstOffset + i);
+        }
+        for (; i < length; i++) {
+            dst[dstOffset + i] = (float) src[srcOffset + i];
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.hotvect.core.vector;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Objects;
+
+/**
+ * Dense numeric kernels over ranges of arrays. {@link VectorMath} offers the same operations on whole arrays, which
+ * is what most callers need.
+ *
+ * <p>Two implementations exist: scalar loops, and SIMD loops built on the incubating Vector API
+ * ({@code jdk.incubator.vector}). The SIMD kernels are only {@linkplain #preferred() preferred} when the JVM was
+ * started with {@code --add-modules jdk.incubator.vector} and the CPU has vector registers of at least 128 bits.
+ * Setting the system property {@value #SIMD_PROPERTY} to {@code false} forces the scalar kernels.</p>
+ *
+ * <p>The SIMD kernels sum in a different order than the scalar ones, so their results may differ in the last bits.</p>
+ */
+public abstract class VectorKernels {
+    public static final String SIMD_PROPERTY = "hotvect.vector.simd";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(VectorKernels.class);
+    private static final VectorKernels SCALAR = new ScalarVectorKernels();
+    private static final VectorKernels SIMD = loadSimd();
+    private static final VectorKernels PREFERRED = selectPreferred();
+
+    VectorKernels() {
+    }
+
+    /**
+     * Returns the SIMD kernels if they are available and enabled, otherwise the scalar kernels.
+     */
+    public static VectorKernels preferred() {
+        return PREFERRED;
+    }
+
+    public static VectorKernels scalar() {
+        return SCALAR;
+    }
+
+    /**
+     * Returns the SIMD kernels, regardless of {@value #SIMD_PROPERTY}.
+     *
+     * @throws UnsupportedOperationException if the Vector API or a vector unit is not available
+     */
+    public static VectorKernels simd() {
+        if (SIMD == null) {
+            throw new UnsupportedOperationException("SIMD kernels are not available. Start the JVM with --add-modules jdk.incubator.vector");
+        }
+        return SIMD;
+    }
+
+    public static boolean isSimdAvailable() {
+        return SIMD != null;
+    }
+
+    /**
+     * Returns a short description of the kernels, e.g. for logs and benchmark reports.
+     */
+    public abstract String description();
+
+    public final float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        checkRanges(a.length, aOffset, b.length, bOffset, length);
+        return dotUnchecked(a, aOffset, b, bOffset, length);
+    }
+
+    public final double dot(double[] a, int aOffset, double[] b, int bOffset, int length) {
+        checkRanges(a.length, aOffset, b.length, bOffset, length);
+        return dotUnchecked(a, aOffset, b, bOffset, length);
+    }
+
+    /**
+     * Returns the cosine similarity, or 0 if either range has a norm of zero.
+     */
+    public final float cosine(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        checkRanges(a.length, aOffset, b.length, bOffset, length);
+        return cosineUnchecked(a, aOffset, b, bOffset, length);
+    }
+
+    /**
+     * Returns the cosine similarity, or 0 if either range has a norm of zero.
+     */
+    public final double cosine(double[] a, int aOffset, double[] b, int bOffset, int length) {
+        checkRanges(a.length, aOffset, b.length, bOffset, length);
+        return cosineUnchecked(a, aOffset, b, bOffset, length);
+    }
+
+    public final float squaredL2(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        checkRanges(a.length, aOffset, b.length, bOffset, length);
+        return squaredL2Unchecked(a, aOffset, b, bOffset, length);
+    }
+
+    public final double squaredL2(double[] a, int aOffset, double[] b, int bOffset, int length) {
+        checkRanges(a.length, aOffset, b.length, bOffset, length);
+        return squaredL2Unchecked(a, aOffset, b, bOffset, length);
+    }
+
+    /**
+     * Narrows {@code src[srcOffset, srcOffset + length)} into {@code dst}, rounding as a {@code (float)} cast does.
+     */
+    public final void toFloat(double[] src, int srcOffset, float[] dst, int dstOffset, int length) {
+        checkRanges(src.length, srcOffset, dst.length, dstOffset, length);
+        toFloatUnchecked(src, srcOffset, dst, dstOffset, length);
+    }
+
+    abstract float dotUnchecked(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+    abstract double dotUnchecked(double[] a, int aOffset, double[] b, int bOffset, int length);
+
+    abstract float cosineUnchecked(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+    abstract double cosineUnchecked(double[] a, int aOffset, double[] b, int bOffset, int length);
+
+    abstract float squaredL2Unchecked(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+    abstract double squaredL2Unchecked(double[] a, int aOffset, double[] b, int bOffset, int length);
+
+    abstract void toFloatUnchecked(double[] src, int srcOffset, float[] dst, int dstOffset, int length);
+
+    static float cosine(float dot, float aNorm, float bNorm) {
+        return aNorm == 0.0f || bNorm == 0.0f ? 0.0f : (float) (dot / (Math.sqrt(aNorm) * Math.sqrt(bNorm)));
+    }
+
+    static double cosine(double dot, double aNorm, double bNorm) {
+        return aNorm == 0.0 || bNorm == 0.0 ? 0.0 : dot / (Math.sqrt(aNorm) * Math.sqrt(bNorm));
+    }
+
+    @Override
+    public String toString() {
+        return description();
+    }
+
+    private static void checkRanges(int aLength, int aOffset, int bLength, int bOffset, int length) {
+        Objects.checkFromIndexSize(aOffset, length, aLength);
+        Objects.checkFromIndexSize(bOffset, length, bLength);
+    }
+
+    private static VectorKernels loadSimd() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            // Only load the class when the module is present, as resolving it fails otherwise
+            VectorKernels ret = (VectorKernels) Class.forName("com.hotvect.core.vector.SimdVectorKernels")
+                    .getDeclaredConstructor()
+                    .newInstance();
+            return ((SimdVectorKernels) ret).isAccelerated() ? ret : null;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            LOGGER.warn("Could not load the SIMD vector kernels, using scalar kernels", e);
+            return null;
+        }
+    }
+
+    private static VectorKernels selectPreferred() {
+        boolean enabled = Boolean.parseBoolean(System.getProperty(SIMD_PROPERTY, "true"));
+        VectorKernels ret = enabled && SIMD != null ? SIMD : SCALAR;
+        LOGGER.debug("Using vector kernels: {}", ret.description());
+        return ret;
+    }
+}
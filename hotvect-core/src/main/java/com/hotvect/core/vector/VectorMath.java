@@ -0,0 +1,223 @@
+package com.hotvect.core.vector;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Dense vector operations for numeric features and scoring, such as dot product and cosine interaction features,
+ * embedding similarity, and narrowing {@code double[]} features for models that take {@code float[]}.
+ *
+ * <p>All operations run on the {@linkplain VectorKernels#preferred() preferred kernels}, which use SIMD instructions
+ * when the JVM was started with {@code --add-modules jdk.incubator.vector}. Candidate matrices are flat
+ * {@code float[]}s in row-major order, with one row of the query's dimension per candidate.</p>
+ */
+public final class VectorMath {
+    private static final VectorKernels KERNELS = VectorKernels.preferred();
+
+    private VectorMath() {
+    }
+
+    /**
+     * How similar two vectors are, larger meaning more similar.
+     */
+    public enum Similarity {
+        DOT_PRODUCT {
+            @Override
+            float score(VectorKernels kernels, float[] a, int aOffset, float[] b, int bOffset, int length) {
+                return kernels.dotUnchecked(a, aOffset, b, bOffset, length);
+            }
+        },
+        COSINE {
+            @Override
+            float score(VectorKernels kernels, float[] a, int aOffset, float[] b, int bOffset, int length) {
+                return kernels.cosineUnchecked(a, aOffset, b, bOffset, length);
+            }
+        },
+        /**
+         * The negated squared euclidean distance, which orders vectors like the euclidean distance but is cheaper.
+         */
+        EUCLIDEAN {
+            @Override
+            float score(VectorKernels kernels, float[] a, int aOffset, float[] b, int bOffset, int length) {
+                return -kernels.squaredL2Unchecked(a, aOffset, b, bOffset, length);
+            }
+        };
+
+        abstract float score(VectorKernels kernels, float[] a, int aOffset, float[] b, int bOffset, int length);
+    }
+
+    public static float dot(float[] a, float[] b) {
+        checkSameLength(a.length, b.length);
+        return KERNELS.dotUnchecked(a, 0, b, 0, a.length);
+    }
+
+    public static double dot(double[] a, double[] b) {
+        checkSameLength(a.length, b.length);
+        return KERNELS.dotUnchecked(a, 0, b, 0, a.length);
+    }
+
+    /**
+     * Returns the cosine similarity, or 0 if either vector has a norm of zero.
+     */
+    public static float cosine(float[] a, float[] b) {
+        checkSameLength(a.length, b.length);
+        return KERNELS.cosineUnchecked(a, 0, b, 0, a.length);
+    }
+
+    /**
+     * Returns the cosine similarity, or 0 if either vector has a norm of zero.
+     */
+    public static double cosine(double[] a, double[] b) {
+        checkSameLength(a.length, b.length);
+        return KERNELS.cosineUnchecked(a, 0, b, 0, a.length);
+    }
+
+    /**
+     * Returns the euclidean distance.
+     */
+    public static float l2(float[] a, float[] b) {
+        return (float) Math.sqrt(squaredL2(a, b));
+    }
+
+    /**
+     * Returns the euclidean distance.
+     */
+    public static double l2(double[] a, double[] b) {
+        return Math.sqrt(squaredL2(a, b));
+    }
+
+    public static float squaredL2(float[] a, float[] b) {
+        checkSameLength(a.length, b.length);
+        return KERNELS.squaredL2Unchecked(a, 0, b, 0, a.length);
+    }
+
+    public static double squaredL2(double[] a, double[] b) {
+        checkSameLength(a.length, b.length);
+        return KERNELS.squaredL2Unchecked(a, 0, b, 0, a.length);
+    }
+
+    /**
+     * Returns {@code values} narrowed to floats, rounding as a {@code (float)} cast does.
+     */
+    public static float[] toFloat(double[] values) {
+        float[] ret = new float[values.length];
+        KERNELS.toFloatUnchecked(values, 0, ret, 0, values.length);
+        return ret;
+    }
+
+    /**
+     * Writes {@code src} narrowed to floats into the start of {@code dst}.
+     */
+    public static void toFloat(double[] src, float[] dst) {
+        checkArgument(dst.length >= src.length, "Destination of length %s cannot hold %s values", dst.length, src.length);
+        KERNELS.toFloatUnchecked(src, 0, dst, 0, src.length);
+    }
+
+    /**
+     * Returns the similarity of {@code query} to every row of {@code candidates}.
+     */
+    public static float[] similarities(float[] query, float[] candidates, Similarity similarity) {
+        float[] ret = new float[rowCount(query, candidates)];
+        similarities(query, candidates, similarity, ret);
+        return ret;
+    }
+
+    /**
+     * Writes the similarity of {@code query} to every row of {@code candidates} into {@code out}, which is reused
+     * between calls by callers that score many queries.
+     */
+    public static void similarities(float[] query, float[] candidates, Similarity similarity, float[] out) {
+        int rows = rowCount(query, candidates);
+        checkArgument(out.length >= rows, "Output of length %s cannot hold %s similarities", out.length, rows);
+        int dimension = query.length;
+        for (int row = 0; row < rows; row++) {
+            out[row] = similarity.score(KERNELS, query, 0, candidates, row * dimension, dimension);
+        }
+    }
+
+    /**
+     * Returns the rows of {@code candidates} most similar to {@code query}, most similar first. Ties are ordered by
+     * row, and NaN similarities rank like negative infinity. Selection uses a bounded heap, in O(n log k).
+     *
+     * @param k maximum number of rows to return
+     */
+    public static int[] topK(float[] query, float[] candidates, int k, Similarity similarity) {
+        checkArgument(k >= 0, "k must not be negative: %s", k);
+        float[] scores = similarities(query, candidates, similarity);
+        for (int row = 0; row < scores.length; row++) {
+            if (Float.isNaN(scores[row])) {
+                scores[row] = Float.NEGATIVE_INFINITY;
+            }
+        }
+        int size = Math.min(k, scores.length);
+        if (size == 0) {
+            return new int[0];
+        }
+        // heap[0, size) has the least similar of the selected rows at its root
+        int[] heap = new int[size];
+        for (int row = 0; row < scores.length; row++) {
+            if (row < size) {
+                heap[row] = row;
+                siftUp(heap, scores, row);
+            } else if (ranksBefore(scores, row, heap[0])) {
+                heap[0] = row;
+                siftDown(heap, scores, size);
+            }
+        }
+        // Repeatedly moving the root behind the shrinking heap leaves the rows sorted, most similar first
+        for (int end = size - 1; end > 0; end--) {
+            int last = heap[0];
+            heap[0] = heap[end];
+            heap[end] = last;
+            siftDown(heap, scores, end);
+        }
+        return heap;
+    }
+
+    private static boolean ranksBefore(float[] scores, int left, int right) {
+        return scores[left] != scores[right] ? scores[left] > scores[right] : left < right;
+    }
+
+    private static void siftUp(int[] heap, float[] scores, int position) {
+        int row = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (!ranksBefore(scores, heap[parent], row)) {
+                break;
+            }
+            heap[position] = heap[parent];
+            position = parent;
+        }
+        heap[position] = row;
+    }
+
+    private static void siftDown(int[] heap, float[] scores, int heapSize) {
+        int position = 0;
+        int row = heap[0];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && ranksBefore(scores, heap[child], heap[child + 1])) {
+                child++;
+            }
+            if (!ranksBefore(scores, row, heap[child])) {
+                break;
+            }
+            heap[position] = heap[child];
+            position = child;
+        }
+        heap[position] = row;
+    }
+
+    private static int rowCount(float[] query, float[] candidates) {
+        checkArgument(query.length > 0, "query must not be empty");
+        checkArgument(candidates.length % query.length == 0,
+                "Candidates of length %s are not rows of dimension %s", candidates.length, query.length);
+        return candidates.length / query.length;
+    }
+
+    private static void checkSameLength(int aLength, int bLength) {
+        checkArgument(aLength == bLength, "Vectors have different dimensions: %s and %s", aLength, bLength);
+    }
+}
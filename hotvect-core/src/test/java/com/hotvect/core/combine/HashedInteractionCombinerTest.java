@@ -0,0 +1,205 @@
+package com.hotvect.core.combine;
+
+import com.google.common.collect.ImmutableSet;
+import com.hotvect.api.audit.RawFeatureName;
+import com.hotvect.api.data.FeatureNamespace;
+import com.hotvect.api.data.HashedValue;
+import com.hotvect.api.data.RawValue;
+import com.hotvect.api.data.SparseVector;
+import com.hotvect.api.data.common.NamespacedRecord;
+import com.hotvect.api.data.common.NamespacedRecordImpl;
+import com.hotvect.core.TestFeatureNamespace;
+import com.hotvect.core.audit.HasherAuditState;
+import com.hotvect.core.hash.HashUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static com.hotvect.core.TestFeatureNamespace.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings({"deprecation", "removal"})
+class HashedInteractionCombinerTest {
+
+    @Test
+    void producesTheSameFeaturesAsInteractionCombiner() {
+        List<Set<FeatureNamespace>> definitions = List.of(
+                alphabetical(single_categorical_1),
+                alphabetical(single_numerical_1),
+                alphabetical(categorical_id_to_numericals_1),
+                alphabetical(categoricals_1, single_categorical_1),
+                alphabetical(categoricals_1, single_categorical_1, strings_1),
+                alphabetical(categoricals_1, parsed_1, single_categorical_1, strings_1)
+        );
+        Set<FeatureDefinition> featureDefinitions = new LinkedHashSet<>();
+        HashedInteractionCombiner.Builder<TestFeatureNamespace> builder = HashedInteractionCombiner.builder(26);
+        for (Set<FeatureNamespace> definition : definitions) {
+            FeatureDefinition featureDefinition = new FeatureDefinition(definition);
+            featureDefinitions.add(featureDefinition);
+            builder.withFeature(featureDefinition);
+        }
+        InteractionCombiner<TestFeatureNamespace> expected = new InteractionCombiner<>(26, featureDefinitions);
+        HashedInteractionCombiner<TestFeatureNamespace> subject = builder.build();
+
+        Random random = new Random(3);
+        SparseVectorBuilder reused = new SparseVectorBuilder();
+        for (int i = 0; i < 200; i++) {
+            NamespacedRecord<TestFeatureNamespace, HashedValue> record = randomRecord(random);
+            Map<Integer, Double> expectedFeatures = features(expected.apply(record));
+            assertEquals(expectedFeatures, features(subject.apply(record)));
+
+            reused.clear();
+            subject.combine(record, reused);
+            assertEquals(expectedFeatures, features(reused.build()));
+        }
+    }
+
+    @Test
+    void crossesFeaturesInAnyComponentOrder() {
+        HashedInteractionCombiner<TestFeatureNamespace> subject = HashedInteractionCombiner.<TestFeatureNamespace>builder(32)
+                .withFeature(strings_1, categoricals_1)
+                .build();
+        HashedInteractionCombiner<TestFeatureNamespace> reordered = HashedInteractionCombiner.<TestFeatureNamespace>builder(32)
+                .withFeature(categoricals_1, strings_1)
+                .build();
+        NamespacedRecord<TestFeatureNamespace, HashedValue> record = new NamespacedRecordImpl<>();
+        record.put(categoricals_1, HashedValue.categoricals(new int[]{1, 2, 3}));
+        record.put(strings_1, HashedValue.categoricals(new int[]{10, 20}));
+
+        SparseVector actual = subject.apply(record);
+        assertEquals(actual, reordered.apply(record));
+        // The constant feature and 3 x 2 crosses
+        assertEquals(7, actual.getCategoricalIndices().length);
+        assertEquals(0, actual.getNumericalIndices().length);
+    }
+
+    @Test
+    void weightsCrossesByTheirNumericalComponents() {
+        HashedInteractionCombiner<TestFeatureNamespace> subject = HashedInteractionCombiner.<TestFeatureNamespace>builder(32)
+                .withFeature(categorical_id_to_numericals_1, single_categorical_1, single_numerical_1)
+                .build();
+        NamespacedRecord<TestFeatureNamespace, HashedValue> record = new NamespacedRecordImpl<>();
+        record.put(categorical_id_to_numericals_1, HashedValue.sparseVector(new int[]{7, 8}, new double[]{2.0, 3.0}));
+        record.put(single_categorical_1, HashedValue.singleCategorical(5));
+        record.put(single_numerical_1, HashedValue.singleNumerical(0.5));
+
+        SparseVector actual = subject.apply(record);
+        assertArrayEquals(new int[]{0}, actual.getCategoricalIndices());
+
+        int namespace = HashUtils.hashUnencodedChars("categorical_id_to_numericals_1^single_categorical_1^single_numerical_1");
+        Map<Integer, Double> expected = new HashMap<>();
+        for (int[] names : new int[][]{{7, 5, 0}, {8, 5, 0}}) {
+            int hash = namespace;
+            for (int name : names) {
+                hash ^= HashUtils.hashInt(name);
+                hash *= HashUtils.FNV1_PRIME_32;
+            }
+            expected.put(hash, names[0] == 7 ? 1.0 : 1.5);
+        }
+        assertEquals(expected, numericalFeatures(actual));
+    }
+
+    @Test
+    void skipsCrossesWithMissingComponents() {
+        HashedInteractionCombiner<TestFeatureNamespace> subject = HashedInteractionCombiner.<TestFeatureNamespace>builder(32)
+                .withFeature(categoricals_1, strings_1)
+                .withFeature(categoricals_1)
+                .build();
+        NamespacedRecord<TestFeatureNamespace, HashedValue> record = new NamespacedRecordImpl<>();
+        record.put(categoricals_1, HashedValue.categoricals(new int[]{1, 2}));
+        assertEquals(3, subject.apply(record).getCategoricalIndices().length);
+    }
+
+    @Test
+    void auditsTheSourcesOfEveryFeature() {
+        HasherAuditState hasherAuditState = new HasherAuditState();
+        HashedValue categoricals = HashedValue.categoricals(new int[]{1, 2});
+        HashedValue strings = HashedValue.categoricals(new int[]{HashUtils.hashUnencodedChars("a")});
+        hasherAuditState.registerSourceRawValue(categoricals_1, RawValue.categoricals(new int[]{1, 2}), categoricals);
+        hasherAuditState.registerSourceRawValue(strings_1, RawValue.strings(new String[]{"a"}), strings);
+
+        HashedInteractionCombiner<TestFeatureNamespace> subject = HashedInteractionCombiner.<TestFeatureNamespace>builder(32)
+                .withFeature(categoricals_1, strings_1)
+                .withFeature(strings_1)
+                .build();
+        Map<Integer, List<RawFeatureName>> audit = subject.enableAudit(hasherAuditState).get();
+
+        NamespacedRecord<TestFeatureNamespace, HashedValue> record = new NamespacedRecordImpl<>();
+        record.put(categoricals_1, categoricals);
+        record.put(strings_1, strings);
+        SparseVector actual = subject.apply(record);
+
+        assertEquals(actual.getCategoricalIndices().length - 1, audit.size());
+        assertTrue(audit.containsValue(List.of(new RawFeatureName(strings_1, "a"))));
+        assertTrue(audit.containsValue(List.of(new RawFeatureName(categoricals_1, "1"), new RawFeatureName(strings_1, "a"))));
+        assertTrue(audit.containsValue(List.of(new RawFeatureName(categoricals_1, "2"), new RawFeatureName(strings_1, "a"))));
+
+        subject.clearAuditState();
+        assertTrue(audit.isEmpty());
+    }
+
+    @Test
+    void builderDeduplicatesAndKeepsTheLastNumericalValue() {
+        SparseVectorBuilder builder = new SparseVectorBuilder();
+        builder.addCategorical(5).addCategorical(-1).addCategorical(5);
+        builder.addNumerical(3, 1.0).addNumerical(-2, 2.0).addNumerical(3, 4.0);
+        assertEquals(new SparseVector(new int[]{-1, 5}, new int[]{-2, 3}, new double[]{2.0, 4.0}), builder.build());
+
+        builder.clear();
+        for (int i = 0; i < 1_000; i++) {
+            builder.addCategorical(i % 100);
+        }
+        assertEquals(100, builder.build().getCategoricalIndices().length);
+        assertEquals(0, builder.build().getNumericalIndices().length);
+    }
+
+    @Test
+    void rejectsInvalidDefinitions() {
+        assertThrows(IllegalArgumentException.class, () -> HashedInteractionCombiner.builder(0));
+        assertThrows(IllegalArgumentException.class, () -> HashedInteractionCombiner.builder(33));
+        assertThrows(IllegalArgumentException.class, () -> HashedInteractionCombiner.<TestFeatureNamespace>builder(32).build());
+        assertThrows(IllegalArgumentException.class,
+                () -> HashedInteractionCombiner.<TestFeatureNamespace>builder(32).withFeature(strings_1, strings_1));
+    }
+
+    private static Set<FeatureNamespace> alphabetical(FeatureNamespace... components) {
+        // FeatureDefinition names crosses in the iteration order of its components
+        Set<FeatureNamespace> ret = new LinkedHashSet<>();
+        ImmutableSet.copyOf(components).stream().sorted(FeatureNamespace.alphabetical()).forEach(ret::add);
+        return ret;
+    }
+
+    private static NamespacedRecord<TestFeatureNamespace, HashedValue> randomRecord(Random random) {
+        NamespacedRecord<TestFeatureNamespace, HashedValue> ret = new NamespacedRecordImpl<>();
+        for (TestFeatureNamespace namespace : List.of(single_categorical_1, categoricals_1, strings_1, parsed_1)) {
+            if (random.nextInt(10) > 0) {
+                ret.put(namespace, HashedValue.categoricals(random.ints(random.nextInt(4), -50, 50).toArray()));
+            }
+        }
+        ret.put(single_numerical_1, HashedValue.singleNumerical(random.nextGaussian()));
+        int[] indices = random.ints(3, 0, 1000).distinct().toArray();
+        ret.put(categorical_id_to_numericals_1, HashedValue.sparseVector(indices, random.doubles(indices.length).toArray()));
+        return ret;
+    }
+
+    private static Map<Integer, Double> features(SparseVector vector) {
+        Map<Integer, Double> ret = numericalFeatures(vector);
+        for (int index : vector.getCategoricalIndices()) {
+            ret.put(index, 1.0);
+        }
+        return ret;
+    }
+
+    private static Map<Integer, Double> numericalFeatures(SparseVector vector) {
+        Map<Integer, Double> ret = new HashMap<>();
+        for (int i = 0; i < vector.getNumericalIndices().length; i++) {
+            ret.put(vector.getNumericalIndices()[i], vector.getNumericalValues()[i]);
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,134 @@
+package com.hotvect.core.featurestore;
+
+import com.hotvect.api.data.AvailableAction;
+import com.hotvect.api.data.featurestore.FeatureStore;
+import com.hotvect.api.data.featurestore.FeatureStoreResponse;
+import com.hotvect.api.data.featurestore.SimpleFeatureStoreResponse;
+import com.hotvect.api.data.ranking.RankingRequest;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrentFeatureStoreRetrieverTest {
+    private static final RankingRequest<String, String> REQUEST = RankingRequest.ofAvailableActions(
+            "example", "user1", List.of(AvailableAction.of("a1", "item1"), AvailableAction.of("a2", "item2")));
+
+    /**
+     * Records every lookup and leaves it pending until completed by the test.
+     */
+    private static class PendingFeatureStore implements FeatureStore {
+        private final List<String> views = new CopyOnWriteArrayList<>();
+        private final List<CompletableFuture<FeatureStoreResponse>> lookups = new CopyOnWriteArrayList<>();
+
+        @Override
+        public CompletableFuture<FeatureStoreResponse> getFeatures(List<Map<String, Object>> ids, String viewName, int viewVersion, String... featureNames) {
+            CompletableFuture<FeatureStoreResponse> lookup = new CompletableFuture<>();
+            views.add(viewName);
+            lookups.add(lookup);
+            return lookup;
+        }
+    }
+
+    private static FeatureStoreResponse success(String id) {
+        return SimpleFeatureStoreResponse.success(Map.of(Map.of("id", id), Map.of("score", 1.0)));
+    }
+
+    @Test
+    void startsAllLookupsBeforeAnyCompletes() {
+        PendingFeatureStore featureStore = new PendingFeatureStore();
+        ConcurrentFeatureStoreRetriever<String, String> subject = ConcurrentFeatureStoreRetriever.<String, String>builder(featureStore)
+                .withView("user", 1, r -> List.of(Map.of("id", r.shared())), "score")
+                .withView("item", 2, r -> r.actions().stream().map(a -> Map.<String, Object>of("id", a.action())).toList(), "score")
+                .build();
+
+        CompletableFuture<Map<String, FeatureStoreResponse>> responses = subject.fetchAsync(REQUEST);
+        assertEquals(List.of("user", "item"), featureStore.views);
+        assertFalse(responses.isDone());
+
+        FeatureStoreResponse item = success("item1");
+        FeatureStoreResponse user = success("user1");
+        featureStore.lookups.get(1).complete(item);
+        featureStore.lookups.get(0).complete(user);
+        assertEquals(Map.of("user", user, "item", item), responses.join());
+    }
+
+    @Test
+    void lookupsPendingAtTheDeadlineFail() {
+        PendingFeatureStore featureStore = new PendingFeatureStore();
+        ConcurrentFeatureStoreRetriever<String, String> subject = ConcurrentFeatureStoreRetriever.<String, String>builder(featureStore)
+                .withView("fast", 1, r -> List.of(Map.of("id", r.shared())), "score")
+                .withView("slow", 1, r -> List.of(Map.of("id", r.shared())), "score")
+                .withDeadline(Duration.ofMillis(20))
+                .build();
+
+        CompletableFuture<Map<String, FeatureStoreResponse>> responses = subject.fetchAsync(REQUEST);
+        FeatureStoreResponse fast = success("user1");
+        featureStore.lookups.get(0).complete(fast);
+
+        Map<String, FeatureStoreResponse> result = responses.join();
+        assertSame(fast, result.get("fast"));
+        assertTrue(result.get("slow").getRequestFailure().orElseThrow().contains("did not complete within"));
+        // The feature store's own future is left alone
+        assertFalse(featureStore.lookups.get(1).isDone());
+    }
+
+    @Test
+    void hedgedLookupWinsOverSlowLookup() throws Exception {
+        PendingFeatureStore featureStore = new PendingFeatureStore();
+        ConcurrentFeatureStoreRetriever<String, String> subject = ConcurrentFeatureStoreRetriever.<String, String>builder(featureStore)
+                .withView("user", 1, r -> List.of(Map.of("id", r.shared())), "score")
+                .withHedgeDelay(Duration.ofMillis(5))
+                .build();
+
+        CompletableFuture<Map<String, FeatureStoreResponse>> responses = subject.fetchAsync(REQUEST);
+        while (featureStore.lookups.size() < 2) {
+            Thread.sleep(1);
+        }
+        FeatureStoreResponse hedged = success("user1");
+        featureStore.lookups.get(1).complete(hedged);
+        assertSame(hedged, responses.join().get("user"));
+    }
+
+    @Test
+    void failedAttemptWaitsForOutstandingHedge() throws Exception {
+        PendingFeatureStore featureStore = new PendingFeatureStore();
+        ConcurrentFeatureStoreRetriever<String, String> subject = ConcurrentFeatureStoreRetriever.<String, String>builder(featureStore)
+                .withView("user", 1, r -> List.of(Map.of("id", r.shared())), "score")
+                .withHedgeDelay(Duration.ofMillis(5))
+                .build();
+
+        CompletableFuture<Map<String, FeatureStoreResponse>> responses = subject.fetchAsync(REQUEST);
+        while (featureStore.lookups.size() < 2) {
+            Thread.sleep(1);
+        }
+        featureStore.lookups.get(1).complete(SimpleFeatureStoreResponse.failure("unavailable"));
+        assertFalse(responses.isDone());
+
+        FeatureStoreResponse primary = success("user1");
+        featureStore.lookups.get(0).complete(primary);
+        assertSame(primary, responses.join().get("user"));
+    }
+
+    @Test
+    void idExtractionFailuresBecomeFailedResponses() {
+        PendingFeatureStore featureStore = new PendingFeatureStore();
+        ConcurrentFeatureStoreRetriever<String, String> subject = ConcurrentFeatureStoreRetriever.<String, String>builder(featureStore)
+                .withView("broken", 1, r -> {
+                    throw new IllegalStateException("no ids");
+                }, "score")
+                .build();
+
+        Map<String, FeatureStoreResponse> result = subject.fetch(REQUEST);
+        assertTrue(result.get("broken").getRequestFailure().orElseThrow().contains("no ids"));
+        assertTrue(featureStore.lookups.isEmpty());
+    }
+}
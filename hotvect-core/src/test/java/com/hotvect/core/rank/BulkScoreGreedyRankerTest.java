@@ -15,12 +15,14 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 
@@ -396,6 +398,61 @@ public class BulkScoreGreedyRankerTest {
         );
     }
 
+    @ParameterizedTest
+    @ValueSource(ints = {1, 20, 50, 999, 1000, Integer.MAX_VALUE})
+    void topKRankingMatchesFullSort(int topK) {
+        Random random = new Random(42);
+        List<AvailableAction<String>> actions = new ArrayList<>();
+        List<Double> scores = new ArrayList<>();
+        double[] scoreValues = {-0.0, 0.0, 0.5, 1.0, Double.NaN, Double.NEGATIVE_INFINITY};
+        for (int i = 0; i < 1000; i++) {
+            actions.add(AvailableAction.of("sku-" + i, "item-" + i));
+            // Few distinct scores, so most comparisons fall through to the tie-break key
+            scores.add(scoreValues[random.nextInt(scoreValues.length)]);
+        }
+        RankingRequest<Void, String> request = RankingRequest.ofAvailableActions("exampleId", null, actions);
+        BulkScorer<Void, String> scorer = new BulkScorer<>() {
+            @Override
+            public List<ScoringDecision<String>> bulkScore(RankingRequest<Void, String> rankingRequest) {
+                List<ScoringDecision<String>> decisions = new ArrayList<>();
+                for (int i = 0; i < rankingRequest.availableActions().size(); i++) {
+                    decisions.add(ScoringDecision.of(rankingRequest.availableActions().get(i), scores.get(i)));
+                }
+                return decisions;
+            }
+        };
+
+        List<RankingDecision<String>> expected = new ArrayList<>();
+        for (int i = 0; i < actions.size(); i++) {
+            expected.add(new RankingDecision<>(actions.get(i).actionId(), i, scores.get(i), actions.get(i).action(), null, Map.of()));
+        }
+        RankingTieBreakers.sortDecisions(expected, request.exampleId());
+
+        List<RankingDecision<String>> ranked = new BulkScoreGreedyRanker<>(scorer, topK).rank(request).rankingDecisions();
+        // The top ranks are read first, as callers typically do, before the tail is sorted
+        assertEquals(
+                expected.subList(0, Math.min(topK, expected.size())).stream().map(RankingDecision::actionId).toList(),
+                ranked.subList(0, Math.min(topK, ranked.size())).stream().map(RankingDecision::actionId).toList()
+        );
+        assertEquals(
+                expected.stream().map(RankingDecision::actionId).toList(),
+                ranked.stream().map(RankingDecision::actionId).toList()
+        );
+    }
+
+    @Test
+    void topKOrderSortsTailOnlyWhenAccessed() {
+        double[] scores = {0.1, 0.9, 0.5, 0.7, 0.3};
+        String[] actionIds = {"a", "b", "c", "d", "e"};
+        TopKRankingOrder order = TopKRankingOrder.of("exampleId", scores, actionIds, 2);
+
+        assertEquals(1, order.actionIndexAt(0));
+        assertEquals(3, order.actionIndexAt(1));
+        assertEquals(2, order.actionIndexAt(2));
+        assertEquals(4, order.actionIndexAt(3));
+        assertEquals(0, order.actionIndexAt(4));
+    }
+
     private Comparator<String> stableTieBreakOrder(String exampleId) {
         return (left, right) -> {
             int byTieBreakKey = RankingTieBreakers.compare(
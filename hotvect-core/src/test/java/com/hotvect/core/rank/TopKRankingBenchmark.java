@@ -0,0 +1,77 @@
+package com.hotvect.core.rank;
+
+import com.hotvect.api.data.ranking.RankingDecision;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(2)
+@State(Scope.Thread)
+public class TopKRankingBenchmark {
+    // comparatorSort is the previous BulkScoreGreedyRanker path, which hashes tie-break keys on every comparison.
+    // The topK variants read only the eagerly sorted ranks, as callers that consume the first positions do.
+    @Param({"1000", "10000"})
+    int actionCount;
+
+    @Param({"20", "50"})
+    int topK;
+
+    List<RankingDecision<Integer>> decisions;
+    double[] scores;
+    String[] actionIds;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        decisions = new ArrayList<>(actionCount);
+        scores = new double[actionCount];
+        actionIds = new String[actionCount];
+        for (int i = 0; i < actionCount; i++) {
+            // Quantized scores, so that ties are common as with calibrated model outputs
+            scores[i] = Math.round(random.nextDouble() * 100) / 100.0;
+            actionIds[i] = "sku-" + i;
+            decisions.add(new RankingDecision<>(actionIds[i], i, scores[i], i, null, Map.of()));
+        }
+    }
+
+    @Benchmark
+    public String comparatorSort() {
+        List<RankingDecision<Integer>> sorted = new ArrayList<>(decisions);
+        RankingTieBreakers.sortDecisions(sorted, "exampleId");
+        return sorted.get(0).actionId();
+    }
+
+    @Benchmark
+    public int precomputedKeysFullSort() {
+        TopKRankingOrder order = TopKRankingOrder.of("exampleId", scores, actionIds, Integer.MAX_VALUE);
+        return order.actionIndexAt(actionCount - 1);
+    }
+
+    @Benchmark
+    public int precomputedKeysTopK() {
+        TopKRankingOrder order = TopKRankingOrder.of("exampleId", scores, actionIds, topK);
+        int ret = 0;
+        for (int rank = 0; rank < topK; rank++) {
+            ret += order.actionIndexAt(rank);
+        }
+        return ret;
+    }
+}
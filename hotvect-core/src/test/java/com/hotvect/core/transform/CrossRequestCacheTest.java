@@ -0,0 +1,161 @@
+package com.hotvect.core.transform;
+
+import com.google.common.base.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CrossRequestCacheTest {
+    private static CrossRequestCache.Builder builder() {
+        return CrossRequestCache.builder("test_feature", new SimpleMeterRegistry());
+    }
+
+    @Test
+    void computesEachKeyOnce() {
+        CrossRequestCache cache = builder().build();
+        AtomicInteger computations = new AtomicInteger();
+
+        assertEquals("a!", cache.get("a", () -> computations.incrementAndGet() > 0 ? "a!" : null));
+        assertEquals("a!", cache.get("a", () -> computations.incrementAndGet() > 0 ? "other" : null));
+        assertEquals("b!", cache.get("b", () -> computations.incrementAndGet() > 0 ? "b!" : null));
+
+        assertEquals(2, computations.get());
+        assertEquals(1, cache.hitCount());
+        assertEquals(2, cache.missCount());
+        assertEquals(1.0 / 3, cache.hitRatio(), 1e-9);
+    }
+
+    @Test
+    void cachesNullValuesButNotNullKeys() {
+        CrossRequestCache cache = builder().build();
+        AtomicInteger computations = new AtomicInteger();
+
+        assertNull(cache.get("a", () -> {
+            computations.incrementAndGet();
+            return null;
+        }));
+        assertNull(cache.get("a", () -> {
+            computations.incrementAndGet();
+            return null;
+        }));
+        assertEquals(1, computations.get());
+
+        cache.get(null, computations::incrementAndGet);
+        cache.get(null, computations::incrementAndGet);
+        assertEquals(3, computations.get());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void expiresValuesAfterTtl() {
+        AtomicLong nanos = new AtomicLong();
+        Ticker ticker = new Ticker() {
+            @Override
+            public long read() {
+                return nanos.get();
+            }
+        };
+        CrossRequestCache cache = builder().withTtl(Duration.ofSeconds(10)).withTicker(ticker).build();
+
+        assertEquals(1, (int) cache.get("a", () -> 1));
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(9));
+        assertEquals(1, (int) cache.get("a", () -> 2));
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        assertEquals(3, (int) cache.get("a", () -> 3));
+    }
+
+    @Test
+    void boundsTheNumberOfValues() {
+        CrossRequestCache cache = builder().withMaximumSize(10).build();
+        for (int i = 0; i < 100; i++) {
+            int value = i;
+            cache.get(i, () -> value);
+        }
+        assertTrue(cache.size() <= 10, "size=" + cache.size());
+    }
+
+    @Test
+    void coalescesConcurrentMisses() throws Exception {
+        CrossRequestCache cache = builder().build();
+        AtomicInteger computations = new AtomicInteger();
+        CountDownLatch computing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> first = executor.submit(() -> cache.get("a", () -> {
+                computations.incrementAndGet();
+                computing.countDown();
+                awaitUninterruptibly(release);
+                return "value";
+            }));
+            assertTrue(computing.await(10, TimeUnit.SECONDS));
+            Future<String> second = executor.submit(() -> cache.get("a", () -> {
+                computations.incrementAndGet();
+                return "other";
+            }));
+            release.countDown();
+            assertEquals("value", first.get(10, TimeUnit.SECONDS));
+            assertEquals("value", second.get(10, TimeUnit.SECONDS));
+            assertEquals(1, computations.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void propagatesFailuresWithoutCachingThem() {
+        CrossRequestCache cache = builder().build();
+        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, () -> cache.get("a", () -> {
+            throw new IllegalArgumentException("boom");
+        }));
+        assertEquals("boom", thrown.getMessage());
+        assertEquals("ok", cache.get("a", () -> "ok"));
+    }
+
+    @Test
+    void publishesHitRatioPerFeature() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        CrossRequestCache cache = CrossRequestCache.builder("test_feature", registry).build();
+        cache.get("a", () -> 1);
+        cache.get("a", () -> 1);
+
+        assertEquals(0.5, registry.find("hotvect.transformer.cross.request.cache.hit.ratio").tag("feature", "test_feature").gauge().value(), 1e-9);
+        assertEquals(1.0, registry.find("hotvect.transformer.cross.request.cache.size").tag("feature", "test_feature").gauge().value(), 1e-9);
+    }
+
+    @Test
+    void removesTheGaugesOfEachInstanceWhenClosed() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        CrossRequestCache first = CrossRequestCache.builder("test_feature", registry).build();
+        CrossRequestCache second = CrossRequestCache.builder("test_feature", registry).build();
+        second.get("a", () -> 1);
+        assertEquals(2, registry.find("hotvect.transformer.cross.request.cache.size").tag("feature", "test_feature").gauges().size());
+
+        first.close();
+        assertEquals(1.0, registry.find("hotvect.transformer.cross.request.cache.size").tag("feature", "test_feature").gauge().value(), 1e-9);
+        assertEquals(1, registry.find("hotvect.transformer.cross.request.cache.hits").tag("feature", "test_feature").gauges().size());
+
+        second.close();
+        assertTrue(registry.getMeters().isEmpty(), registry.getMeters().toString());
+        assertEquals(0, second.size());
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -8,6 +8,7 @@ import com.google.common.collect.Iterators;
 import com.google.common.collect.Sets;
 import com.hotvect.api.data.Namespace;
 import com.hotvect.api.data.RawValueType;
+import com.hotvect.api.data.common.ArrayNamespacedRecord;
 import com.hotvect.api.data.common.NamespacedRecord;
 import com.hotvect.api.data.common.NamespacedRecordImpl;
 import com.hotvect.core.util.InvalidTransformationDefinitionException;
@@ -16,6 +17,10 @@ import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -544,4 +549,82 @@ public class NamespacesTest {
         assertThrows(NullPointerException.class, () ->
                 Namespaces.register(null));
     }
+
+    @Test
+    void declaredNamespacesHaveStableDistinctSlots() {
+        Namespace plain = Namespaces.declareNamespace("slot_plain");
+        Namespace feature = Namespaces.declareFeatureNamespace(RawValueType.STRINGS, "slot_feature");
+        Namespace composite = Namespaces.declareNamespace(plain, feature);
+
+        int plainSlot = Namespaces.slots().slotOf(plain);
+        assertEquals(plainSlot, Namespaces.slots().slotOf(Namespaces.declareNamespace("slot_plain")));
+        assertEquals(3, Set.of(plainSlot, Namespaces.slots().slotOf(feature), Namespaces.slots().slotOf(composite)).size());
+
+        NamespacedRecord<Namespace, String> record = new ArrayNamespacedRecord<>(Namespaces.slots());
+        record.put(plain, "p");
+        record.put(composite, "c");
+        assertEquals("p", record.get(Namespaces.declareNamespace("slot_plain")));
+        assertEquals("c", record.get(composite));
+        assertNull(record.get(feature));
+    }
+
+    @Test
+    void slotsDoNotAffectNamespaceEquality() {
+        Namespace declared = Namespaces.declareNamespace("slot_equality");
+        Namespaces.NamespaceId copy = new Namespaces.NamespaceId("slot_equality", null, null);
+
+        assertEquals(declared, copy);
+        assertEquals(declared.hashCode(), copy.hashCode());
+        assertEquals(Namespaces.slots().slotOf(declared), Namespaces.slots().slotOf(copy));
+        assertTrue(((Namespaces.NamespaceId) declared).slot() >= 0);
+        assertEquals(-1, copy.slot());
+        assertEquals(
+                new Namespaces.FeatureNamespaceId("slot_equality_feature", RawValueType.STRINGS),
+                Namespaces.declareFeatureNamespace(RawValueType.STRINGS, "slot_equality_feature")
+        );
+
+        NamespacedRecord<Namespace, String> record = new ArrayNamespacedRecord<>(Namespaces.slots());
+        record.put(declared, "v");
+        assertEquals("v", record.get(copy));
+    }
+
+    @Test
+    void concurrentDeclarationsInternOneInstancePerName() throws Exception {
+        int threads = 16;
+        int names = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Namespace[]>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int offset = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    Namespace[] declared = new Namespace[names * 3];
+                    // Each thread walks the names from a different offset, so that first declarations race
+                    for (int i = 0; i < names; i++) {
+                        int n = (i + offset * 13) % names;
+                        Namespace plain = Namespaces.declareNamespace("stress_plain_" + n);
+                        declared[n] = plain;
+                        declared[names + n] = Namespaces.declareFeatureNamespace(RawValueType.STRINGS, "stress_feature_" + n);
+                        declared[2 * names + n] = Namespaces.declareNamespace(plain, TestA.testA1);
+                    }
+                    return declared;
+                }));
+            }
+            start.countDown();
+
+            Namespace[] expected = futures.get(0).get();
+            for (Future<Namespace[]> future : futures) {
+                Namespace[] declared = future.get();
+                for (int i = 0; i < declared.length; i++) {
+                    assertSame(expected[i], declared[i]);
+                }
+            }
+            Set<Integer> slots = Arrays.stream(expected).map(Namespaces.slots()::slotOf).collect(Collectors.toSet());
+            assertEquals(expected.length, slots.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 }
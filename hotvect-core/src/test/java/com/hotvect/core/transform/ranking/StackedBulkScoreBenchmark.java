@@ -0,0 +1,108 @@
+package com.hotvect.core.transform.ranking;
+
+import com.hotvect.api.data.Namespace;
+import com.hotvect.api.data.RawValueType;
+import com.hotvect.api.data.ranking.RankingRequest;
+import com.hotvect.api.data.ranking.TransformedAction;
+import com.hotvect.api.data.scoring.ScoringDecision;
+import com.hotvect.core.transform.Namespaces;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(2)
+@State(Scope.Thread)
+public class StackedBulkScoreBenchmark {
+    // The per-candidate variant reproduces the previous transform loop, which re-scored the whole request for every
+    // candidate. It is kept as a baseline to show the quadratic vs linear scaling against candidate count.
+    @Param({"10", "100", "500", "1000"})
+    int candidateCount;
+
+    @Param({"1", "3"})
+    int scorerCount;
+
+    Namespace[] stackedFeatures;
+    LinearScorer[] scorers;
+    StandardRankingTransformer<Integer, Integer> transformer;
+    ComputingRankingRequest<Integer, Integer> request;
+
+    @Setup
+    public void setUp() {
+        StandardRankingTransformer.Builder<Integer, Integer> builder = StandardRankingTransformer.builder();
+        stackedFeatures = new Namespace[scorerCount];
+        scorers = new LinearScorer[scorerCount];
+        for (int j = 0; j < scorerCount; j++) {
+            stackedFeatures[j] = Namespaces.declareFeatureNamespace(RawValueType.SINGLE_NUMERICAL, "benchmark_stacked_score_" + j);
+            scorers[j] = new LinearScorer(j + 1);
+            builder.withBulkScorer(stackedFeatures[j], scorers[j])
+                    .withFeature(stackedFeatures[j].toString());
+        }
+        transformer = builder.build();
+
+        List<Integer> actions = new ArrayList<>(candidateCount);
+        for (int i = 0; i < candidateCount; i++) {
+            actions.add(i);
+        }
+        RankingRequest<Integer, Integer> rankingRequest = RankingTestData.rankingRequest("example", 0, actions);
+        request = transformer.prepare(rankingRequest);
+    }
+
+    @Benchmark
+    public List<TransformedAction<Integer>> scoreOncePerRequest() {
+        return transformer.transform(request);
+    }
+
+    @Benchmark
+    public double legacyScorePerCandidate() {
+        double ret = 0.0;
+        for (int i = 0; i < request.candidates().size(); i++) {
+            for (LinearScorer scorer : scorers) {
+                List<ScoringDecision<Integer>> scores = scorer.bulkScore(request);
+                for (ScoringDecision<Integer> decision : scores) {
+                    ret = decision.score();
+                }
+            }
+        }
+        return ret;
+    }
+
+    private static final class LinearScorer implements ComputingBulkScorer<Integer, Integer> {
+        private final double weight;
+
+        private LinearScorer(double weight) {
+            this.weight = weight;
+        }
+
+        @Override
+        public List<ScoringDecision<Integer>> bulkScore(ComputingRankingRequest<Integer, Integer> rankingRequest) {
+            List<ComputingCandidate<Integer, Integer>> candidates = rankingRequest.candidates();
+            List<ScoringDecision<Integer>> ret = new ArrayList<>(candidates.size());
+            for (ComputingCandidate<Integer, Integer> candidate : candidates) {
+                Integer action = candidate.getAction().getOriginalInput();
+                ret.add(ScoringDecision.of(candidate.actionId(), action, weight * action));
+            }
+            return ret;
+        }
+
+        @Override
+        public List<ScoringDecision<Integer>> bulkScore(RankingRequest<Integer, Integer> rankingRequest) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
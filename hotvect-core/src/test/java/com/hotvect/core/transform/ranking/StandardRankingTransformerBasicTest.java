@@ -7,7 +7,9 @@ import com.hotvect.api.data.common.NamespacedRecord;
 import com.hotvect.api.data.ranking.RankingRequest;
 import com.hotvect.api.data.ranking.TransformedAction;
 import com.hotvect.api.data.scoring.ScoringDecision;
+import com.hotvect.api.transformation.FeatureProfiler;
 import com.hotvect.core.transform.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
@@ -33,6 +35,7 @@ class StandardRankingTransformerBasicTest {
         ACTION_FEATURE,
         INTERACTION_FEATURE,
         BULK_SCORER_FEATURE,
+        SECOND_BULK_SCORER_FEATURE,
         UNKNOWN_COMPUTATION;
 
         @Override
@@ -261,6 +264,93 @@ class StandardRankingTransformerBasicTest {
         }
     }
 
+    @Test
+    void testStackedBulkScorersAreCalledOncePerRequest() {
+        TestShared shared = new TestShared();
+        shared.sharedField = "sharedData";
+        List<TestAction> actions = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            TestAction action = new TestAction();
+            action.actionField = "actionData" + i;
+            actions.add(action);
+        }
+
+        AtomicInteger firstCalls = new AtomicInteger();
+        AtomicInteger secondCalls = new AtomicInteger();
+        StandardRankingTransformer<TestShared, TestAction> transformer = StandardRankingTransformer.<TestShared, TestAction>builder()
+                .withBulkScorer(TestNamespace.BULK_SCORER_FEATURE, positionalScorer(firstCalls, 1.0, "first"))
+                .withBulkScorer(TestNamespace.SECOND_BULK_SCORER_FEATURE, positionalScorer(secondCalls, 100.0, "second"))
+                .withFeature(TestNamespace.BULK_SCORER_FEATURE.getName())
+                .withFeature(TestNamespace.SECOND_BULK_SCORER_FEATURE.getName())
+                .build();
+
+        RankingRequest<TestShared, TestAction> rankingRequest = RankingTestData.rankingRequest("exampleId", shared, actions);
+        List<TransformedAction<TestAction>> transformedList = transformer.transform(transformer.prepare(rankingRequest));
+
+        assertEquals(1, firstCalls.get());
+        assertEquals(1, secondCalls.get());
+        assertEquals(actions.size(), transformedList.size());
+        for (int i = 0; i < transformedList.size(); i++) {
+            TransformedAction<TestAction> transformed = transformedList.get(i);
+            assertEquals(1.0 * i, (Double) transformed.transformed().get(TestNamespace.BULK_SCORER_FEATURE));
+            assertEquals(100.0 * i, (Double) transformed.transformed().get(TestNamespace.SECOND_BULK_SCORER_FEATURE));
+            assertEquals(i, transformed.additionalProperties().get("first"));
+            assertEquals(i, transformed.additionalProperties().get("second"));
+        }
+    }
+
+    @Test
+    void testStackedBulkScorerReturningWrongNumberOfScoresThrows() {
+        TestShared shared = new TestShared();
+        TestAction action1 = new TestAction();
+        TestAction action2 = new TestAction();
+
+        ComputingBulkScorer<TestShared, TestAction> truncatingScorer = new ComputingBulkScorer<TestShared, TestAction>() {
+            @Override
+            public List<ScoringDecision<TestAction>> bulkScore(ComputingRankingRequest<TestShared, TestAction> rankingRequest) {
+                return List.of(ScoringDecision.of(rankingRequest.candidates().get(0).actionId(), action1, 1.0));
+            }
+
+            @Override
+            public List<ScoringDecision<TestAction>> bulkScore(RankingRequest<TestShared, TestAction> rankingRequest) {
+                throw new UnsupportedOperationException();
+            }
+        };
+        StandardRankingTransformer<TestShared, TestAction> transformer = StandardRankingTransformer.<TestShared, TestAction>builder()
+                .withBulkScorer(TestNamespace.BULK_SCORER_FEATURE, truncatingScorer)
+                .withFeature(TestNamespace.BULK_SCORER_FEATURE.getName())
+                .build();
+
+        RankingRequest<TestShared, TestAction> rankingRequest = RankingTestData.rankingRequest("exampleId", shared, Arrays.asList(action1, action2));
+        ComputingRankingRequest<TestShared, TestAction> computingRankingRequest = transformer.prepare(rankingRequest);
+        assertThrows(IllegalArgumentException.class, () -> transformer.transform(computingRankingRequest));
+    }
+
+    private static ComputingBulkScorer<TestShared, TestAction> positionalScorer(AtomicInteger calls, double multiplier, String propertyName) {
+        return new ComputingBulkScorer<TestShared, TestAction>() {
+            @Override
+            public List<ScoringDecision<TestAction>> bulkScore(ComputingRankingRequest<TestShared, TestAction> rankingRequest) {
+                calls.incrementAndGet();
+                List<ScoringDecision<TestAction>> ret = new ArrayList<>();
+                List<ComputingCandidate<TestShared, TestAction>> candidates = rankingRequest.candidates();
+                for (int i = 0; i < candidates.size(); i++) {
+                    ret.add(ScoringDecision.of(
+                            candidates.get(i).actionId(),
+                            candidates.get(i).getAction().getOriginalInput(),
+                            multiplier * i,
+                            Map.of(propertyName, i)
+                    ));
+                }
+                return ret;
+            }
+
+            @Override
+            public List<ScoringDecision<TestAction>> bulkScore(RankingRequest<TestShared, TestAction> rankingRequest) {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
     @Test
     void testMissingComputationThrowsException() {
         StandardRankingTransformer.Builder<TestShared, TestAction> builder =
@@ -272,4 +362,125 @@ class StandardRankingTransformerBasicTest {
                 "Namespace: " + TestNamespace.SHARED_FEATURE.getName() + " is not registered"
         ));
     }
+
+    @Test
+    void transformBroadcastHoldsSharedFeaturesOnce() {
+        TestShared shared = new TestShared();
+        shared.sharedField = "sharedData";
+        TestAction action1 = new TestAction();
+        action1.actionField = "actionData1";
+        TestAction action2 = new TestAction();
+        action2.actionField = "actionData2";
+
+        StandardRankingTransformer.Builder<TestShared, TestAction> builder = StandardRankingTransformer.builder();
+        builder.withSharedComputation(
+                TestNamespace.SHARED_FEATURE,
+                (Computation<RankingRequest<TestShared, TestAction>, Object>) memoized -> memoized.getOriginalInput().shared().sharedField,
+                true
+        );
+        builder.withActionComputation(
+                TestNamespace.ACTION_FEATURE,
+                (Computation<TestAction, Object>) memoized -> memoized.getOriginalInput().actionField,
+                true
+        );
+        builder.withFeature(TestNamespace.SHARED_FEATURE.getName());
+        builder.withFeature(TestNamespace.ACTION_FEATURE.getName());
+        StandardRankingTransformer<TestShared, TestAction> transformer = builder.build();
+
+        RankingRequest<TestShared, TestAction> rankingRequest = RankingTestData.rankingRequest("exampleId", shared, List.of(action1, action2));
+        BroadcastTransformedActions<TestAction> broadcast = transformer.transformBroadcast(transformer.prepare(rankingRequest));
+
+        assertEquals(Map.of(TestNamespace.SHARED_FEATURE, "sharedData"), broadcast.shared().asMap());
+        assertEquals(2, broadcast.size());
+        for (TransformedAction<TestAction> ta : broadcast.actions()) {
+            assertFalse(ta.transformed().asMap().containsKey(TestNamespace.SHARED_FEATURE));
+        }
+
+        List<TransformedAction<TestAction>> expected = transformer.transform(transformer.prepare(rankingRequest));
+        List<TransformedAction<TestAction>> actual = broadcast.toTransformedActions();
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).actionId(), actual.get(i).actionId());
+            assertEquals(new HashMap<>(expected.get(i).transformed().asMap()), new HashMap<>(actual.get(i).transformed().asMap()));
+        }
+    }
+
+    @Test
+    void testFeatureProfilerRecordsEveryUsedFeaturePerStage() {
+        StandardRankingTransformer.Builder<TestShared, TestAction> builder = StandardRankingTransformer.builder();
+        builder.withSharedComputation(TestNamespace.SHARED_FEATURE, memoized -> memoized.getOriginalInput().shared().sharedField, true);
+        builder.withActionComputation(TestNamespace.ACTION_FEATURE, memoized -> memoized.getOriginalInput().actionField, true);
+        builder.withInteractionComputation(TestNamespace.INTERACTION_FEATURE,
+                memoized -> memoized.getShared().compute(TestNamespace.SHARED_FEATURE) + "-" + memoized.getAction().compute(TestNamespace.ACTION_FEATURE), true);
+        builder.withFeature(TestNamespace.SHARED_FEATURE.getName());
+        builder.withFeature(TestNamespace.ACTION_FEATURE.getName());
+        builder.withFeature(TestNamespace.INTERACTION_FEATURE.getName());
+        StandardRankingTransformer<TestShared, TestAction> transformer = builder.build();
+
+        FeatureProfiler profiler = FeatureProfiler.builder().withSampleRate(1.0).build();
+        transformer.setFeatureProfiler(profiler, "test-algorithm");
+
+        TestShared shared = new TestShared();
+        shared.sharedField = "shared";
+        TestAction action1 = new TestAction();
+        action1.actionField = "action1";
+        TestAction action2 = new TestAction();
+        action2.actionField = "action2";
+        RankingRequest<TestShared, TestAction> rankingRequest = RankingTestData.rankingRequest("exampleId", shared, List.of(action1, action2));
+        transformer.transform(transformer.prepare(rankingRequest));
+
+        Map<FeatureProfiler.Stage, FeatureProfiler.FeatureCost> costs = new EnumMap<>(FeatureProfiler.Stage.class);
+        for (FeatureProfiler.FeatureCost cost : profiler.report()) {
+            assertEquals("test-algorithm", cost.algorithmName());
+            costs.put(cost.stage(), cost);
+        }
+        assertEquals(TestNamespace.SHARED_FEATURE.getName(), costs.get(FeatureProfiler.Stage.SHARED).feature());
+        assertEquals(1, costs.get(FeatureProfiler.Stage.SHARED).count());
+        assertEquals(2, costs.get(FeatureProfiler.Stage.ACTION).count());
+        assertEquals(2, costs.get(FeatureProfiler.Stage.INTERACTION).count());
+
+        transformer.setFeatureProfiler(null, "test-algorithm");
+        profiler.reset();
+        transformer.transform(transformer.prepare(rankingRequest));
+        assertTrue(profiler.report().isEmpty());
+    }
+
+    @Test
+    void crossRequestMemoizedComputationsAreComputedOncePerKey() {
+        AtomicInteger computations = new AtomicInteger();
+        CrossRequestCache cache = CrossRequestCache.builder(TestNamespace.ACTION_FEATURE.getName(), new SimpleMeterRegistry()).build();
+        StandardRankingTransformer.Builder<TestShared, TestAction> builder = StandardRankingTransformer.builder();
+        builder.withActionComputation(
+                TestNamespace.ACTION_FEATURE,
+                (Computation<TestAction, Object>) memoized -> {
+                    computations.incrementAndGet();
+                    return memoized.getOriginalInput().actionField.toUpperCase(Locale.ROOT);
+                },
+                action -> action.actionField,
+                cache
+        );
+        builder.withFeature(TestNamespace.ACTION_FEATURE.getName());
+        assertThrows(IllegalStateException.class,
+                () -> builder.setComputationSpec(TestNamespace.ACTION_FEATURE, ComputationSpec.LAZY_MEMOIZED));
+        StandardRankingTransformer<TestShared, TestAction> transformer = builder.build();
+
+        TestShared shared = new TestShared();
+        TestAction action1 = new TestAction();
+        action1.actionField = "a";
+        TestAction action2 = new TestAction();
+        action2.actionField = "b";
+        TestAction action3 = new TestAction();
+        action3.actionField = "a";
+
+        List<TransformedAction<TestAction>> first = transformer.transform(transformer.prepare(
+                RankingTestData.rankingRequest("first", shared, List.of(action1, action2))));
+        List<TransformedAction<TestAction>> second = transformer.transform(transformer.prepare(
+                RankingTestData.rankingRequest("second", shared, List.of(action3, action2))));
+
+        assertEquals("A", first.get(0).transformed().asMap().get(TestNamespace.ACTION_FEATURE));
+        assertEquals("B", first.get(1).transformed().asMap().get(TestNamespace.ACTION_FEATURE));
+        assertEquals("A", second.get(0).transformed().asMap().get(TestNamespace.ACTION_FEATURE));
+        assertEquals(2, computations.get());
+        assertEquals(2, cache.hitCount());
+    }
 }
@@ -0,0 +1,136 @@
+package com.hotvect.core.transform.ranking;
+
+import com.hotvect.api.data.AvailableAction;
+import com.hotvect.api.data.Namespace;
+import com.hotvect.api.data.ranking.TransformedAction;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransformedBatchTest {
+    enum TestFeature implements Namespace { price, count, brand, embedding }
+
+    private static final TransformedBatch.Layout LAYOUT = new TransformedBatch.Layout(
+            new Namespace[]{TestFeature.price, TestFeature.count, TestFeature.brand, TestFeature.embedding},
+            new TransformedBatch.ColumnType[]{
+                    TransformedBatch.ColumnType.DOUBLE,
+                    TransformedBatch.ColumnType.LONG,
+                    TransformedBatch.ColumnType.STRING,
+                    TransformedBatch.ColumnType.OBJECT
+            }
+    );
+
+    private static final List<AvailableAction<String>> ACTIONS = List.of(
+            AvailableAction.of("a0", "action0"),
+            AvailableAction.of("a1", "action1")
+    );
+
+    @Test
+    void columnsAreAccessibleByLayoutIndex() {
+        float[] embedding = {1.0f, 2.0f};
+        TransformedBatch<String> batch = new TransformedBatch<>(ACTIONS, LAYOUT, new Object[]{
+                new double[]{1.5, 2.5},
+                new long[]{3, 4},
+                new String[]{"x", null},
+                new Object[]{embedding, null}
+        });
+
+        assertEquals(2, batch.size());
+        assertEquals(0, LAYOUT.columnIndex(TestFeature.price));
+        assertEquals(2, LAYOUT.columnIndex(TestFeature.brand));
+        assertArrayEquals(new double[]{1.5, 2.5}, batch.doubleColumn(0));
+        assertArrayEquals(new long[]{3, 4}, batch.longColumn(1));
+        assertEquals("x", batch.stringColumn(2)[0]);
+        assertEquals(4L, batch.value(1, 1));
+        assertSame(embedding, batch.value(3, 0));
+    }
+
+    @Test
+    void convertsToTransformedActionsInActionOrder() {
+        TransformedBatch<String> batch = new TransformedBatch<>(ACTIONS, LAYOUT, new Object[]{
+                new double[]{1.5, 2.5},
+                new long[]{3, 4},
+                new String[]{"x", "y"},
+                new Object[]{null, null}
+        });
+
+        List<TransformedAction<String>> transformed = batch.toTransformedActions();
+
+        assertEquals(List.of("a0", "a1"), transformed.stream().map(TransformedAction::actionId).toList());
+        assertEquals(List.of("action0", "action1"), transformed.stream().map(TransformedAction::action).toList());
+        assertEquals(2.5, transformed.get(1).transformed().get(TestFeature.price));
+        assertEquals(3L, transformed.get(0).transformed().get(TestFeature.count));
+        assertEquals("y", transformed.get(1).transformed().get(TestFeature.brand));
+        assertNull(transformed.get(0).transformed().get(TestFeature.embedding));
+    }
+
+    @Test
+    void fillableBatchWritesEveryColumnWithItsTypedPut() {
+        TransformedBatch<String> batch = new TransformedBatch<>(ACTIONS, LAYOUT, new Object[]{
+                new double[]{1.5, 2.5},
+                new long[]{3, 4},
+                new String[]{"x", "y"},
+                new Object[]{null, null}
+        });
+        List<String> puts = new ArrayList<>();
+        FeatureRowSink sink = new FeatureRowSink() {
+            @Override
+            public void putFloat(int row, int column, float value) {
+                puts.add("float " + row + "," + column + "=" + value);
+            }
+
+            @Override
+            public void putDouble(int row, int column, double value) {
+                puts.add("double " + row + "," + column + "=" + value);
+            }
+
+            @Override
+            public void putInt(int row, int column, int value) {
+                puts.add("int " + row + "," + column + "=" + value);
+            }
+
+            @Override
+            public void putLong(int row, int column, long value) {
+                puts.add("long " + row + "," + column + "=" + value);
+            }
+
+            @Override
+            public void putObject(int row, int column, Object value) {
+                puts.add("object " + row + "," + column + "=" + value);
+            }
+        };
+
+        FillableBatch<String> fillable = FillableBatch.of(batch);
+        fillable.fillInto(sink);
+
+        assertEquals(ACTIONS, fillable.actions());
+        assertSame(LAYOUT, fillable.layout());
+        assertEquals(List.of(
+                "double 0,0=1.5", "double 1,0=2.5",
+                "long 0,1=3", "long 1,1=4",
+                "object 0,2=x", "object 1,2=y",
+                "object 0,3=null", "object 1,3=null"
+        ), puts);
+    }
+
+    @Test
+    void rejectsColumnsOfTheWrongLength() {
+        assertThrows(IllegalArgumentException.class, () -> new TransformedBatch<>(ACTIONS, LAYOUT, new Object[]{
+                new double[]{1.5},
+                new long[]{3, 4},
+                new String[]{"x", "y"},
+                new Object[]{null, null}
+        }));
+    }
+
+    @Test
+    void rejectsDuplicateFeaturesInLayout() {
+        assertThrows(IllegalArgumentException.class, () -> new TransformedBatch.Layout(
+                new Namespace[]{TestFeature.price, TestFeature.price},
+                new TransformedBatch.ColumnType[]{TransformedBatch.ColumnType.DOUBLE, TransformedBatch.ColumnType.DOUBLE}
+        ));
+    }
+}
@@ -0,0 +1,173 @@
+package com.hotvect.core.vector;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class VectorMathTest {
+    // Covers empty vectors, lengths below one vector, and every remainder of the scalar tail
+    private static final int[] DIMENSIONS = {0, 1, 3, 7, 8, 15, 16, 17, 31, 64, 65, 255, 256, 767, 768, 1000};
+
+    @Test
+    void scalarKernelsMatchTheReference() {
+        assertMatchesReference(VectorKernels.scalar());
+    }
+
+    @Test
+    void simdKernelsMatchTheReference() {
+        assumeTrue(VectorKernels.isSimdAvailable(), "Start the JVM with --add-modules jdk.incubator.vector");
+        assertMatchesReference(VectorKernels.simd());
+    }
+
+    @Test
+    void preferredKernelsAreSimdWhenAvailable() {
+        boolean enabled = Boolean.parseBoolean(System.getProperty(VectorKernels.SIMD_PROPERTY, "true"));
+        if (VectorKernels.isSimdAvailable() && enabled) {
+            assertSame(VectorKernels.simd(), VectorKernels.preferred());
+        } else {
+            assertSame(VectorKernels.scalar(), VectorKernels.preferred());
+        }
+    }
+
+    @Test
+    void toFloatRoundsLikeACast() {
+        List<VectorKernels> kernels = new ArrayList<>(List.of(VectorKernels.scalar()));
+        if (VectorKernels.isSimdAvailable()) {
+            kernels.add(VectorKernels.simd());
+        }
+        double[] values = {0.1, -0.1, 1e40, -1e40, 1e-50, Double.NaN, Double.POSITIVE_INFINITY, Double.MIN_VALUE,
+                16_777_217.0, 3.0000001, -0.0, 7.5, 1.0 / 3, Math.PI, Math.E, -2.5e-8, 123456.789};
+        for (VectorKernels kernel : kernels) {
+            float[] actual = new float[values.length + 2];
+            kernel.toFloat(values, 0, actual, 1, values.length);
+            for (int i = 0; i < values.length; i++) {
+                assertEquals(Float.floatToIntBits((float) values[i]), Float.floatToIntBits(actual[i + 1]), kernel + " at " + i);
+            }
+        }
+        assertArrayEquals(new float[]{0.5f, 2.0f}, VectorMath.toFloat(new double[]{0.5, 2.0}));
+    }
+
+    @Test
+    void cosineOfZeroVectorIsZero() {
+        assertEquals(0.0f, VectorMath.cosine(new float[4], new float[]{1, 2, 3, 4}));
+        assertEquals(0.0, VectorMath.cosine(new double[]{1, 2}, new double[2]));
+        assertEquals(1.0, VectorMath.cosine(new double[]{1, 2}, new double[]{2, 4}), 1e-12);
+        assertEquals(5.0f, VectorMath.l2(new float[]{0, 0}, new float[]{3, 4}), 1e-6f);
+    }
+
+    @Test
+    void topKReturnsTheMostSimilarRowsInOrder() {
+        Random random = new Random(7);
+        int dimension = 33;
+        int rows = 500;
+        float[] query = randomFloats(random, dimension);
+        float[] candidates = randomFloats(random, dimension * rows);
+
+        for (VectorMath.Similarity similarity : VectorMath.Similarity.values()) {
+            float[] scores = VectorMath.similarities(query, candidates, similarity);
+            Integer[] expected = new Integer[rows];
+            for (int i = 0; i < rows; i++) {
+                expected[i] = i;
+            }
+            Arrays.sort(expected, Comparator.<Integer>comparingDouble(i -> -scores[i]).thenComparingInt(i -> i));
+
+            for (int k : new int[]{0, 1, 10, 499, 500, 1000}) {
+                int[] actual = VectorMath.topK(query, candidates, k, similarity);
+                assertEquals(Math.min(k, rows), actual.length);
+                for (int i = 0; i < actual.length; i++) {
+                    assertEquals(expected[i], actual[i], similarity + " k=" + k + " rank=" + i);
+                }
+            }
+        }
+    }
+
+    @Test
+    void topKOrdersTiesByRowAndNaNLast() {
+        float[] query = {1.0f};
+        float[] candidates = {2.0f, Float.NaN, 3.0f, 2.0f, Float.NEGATIVE_INFINITY, 3.0f};
+        assertArrayEquals(new int[]{2, 5, 0, 3}, VectorMath.topK(query, candidates, 4, VectorMath.Similarity.DOT_PRODUCT));
+        assertArrayEquals(new int[]{2, 5, 0, 3, 1, 4}, VectorMath.topK(query, candidates, 6, VectorMath.Similarity.DOT_PRODUCT));
+    }
+
+    @Test
+    void rejectsMismatchedDimensions() {
+        assertThrows(IllegalArgumentException.class, () -> VectorMath.dot(new float[3], new float[4]));
+        assertThrows(IllegalArgumentException.class, () -> VectorMath.similarities(new float[3], new float[10], VectorMath.Similarity.COSINE));
+        assertThrows(IllegalArgumentException.class, () -> VectorMath.toFloat(new double[3], new float[2]));
+        assertThrows(IndexOutOfBoundsException.class, () -> VectorKernels.scalar().dot(new float[8], 4, new float[8], 0, 5));
+    }
+
+    private static void assertMatchesReference(VectorKernels kernels) {
+        Random random = new Random(42);
+        for (int dimension : DIMENSIONS) {
+            // Offsets exercise unaligned loads and ranges that do not start at the beginning of the array
+            int offset = dimension % 5;
+            double[] a = randomDoubles(random, dimension + offset);
+            double[] b = randomDoubles(random, dimension + 2 * offset);
+            float[] af = toFloats(a);
+            float[] bf = toFloats(b);
+            String message = kernels + " dimension=" + dimension;
+
+            double dot = 0.0;
+            double aNorm = 0.0;
+            double bNorm = 0.0;
+            double squaredL2 = 0.0;
+            for (int i = 0; i < dimension; i++) {
+                double x = af[offset + i];
+                double y = bf[2 * offset + i];
+                dot += x * y;
+                aNorm += x * x;
+                bNorm += y * y;
+                squaredL2 += (x - y) * (x - y);
+            }
+            double cosine = dimension == 0 ? 0.0 : dot / Math.sqrt(aNorm * bNorm);
+            double tolerance = 1e-4 * Math.max(1, dimension);
+
+            assertEquals(dot, kernels.dot(af, offset, bf, 2 * offset, dimension), tolerance, message);
+            assertEquals(dot, kernels.dot(toDoubles(af), offset, toDoubles(bf), 2 * offset, dimension), 1e-9 * Math.max(1, dimension), message);
+            assertEquals(cosine, kernels.cosine(af, offset, bf, 2 * offset, dimension), 1e-5, message);
+            assertEquals(cosine, kernels.cosine(toDoubles(af), offset, toDoubles(bf), 2 * offset, dimension), 1e-12, message);
+            assertEquals(squaredL2, kernels.squaredL2(af, offset, bf, 2 * offset, dimension), tolerance, message);
+            assertEquals(squaredL2, kernels.squaredL2(toDoubles(af), offset, toDoubles(bf), 2 * offset, dimension), 1e-9 * Math.max(1, dimension), message);
+
+            float[] narrowed = new float[dimension];
+            kernels.toFloat(a, offset, narrowed, 0, dimension);
+            assertArrayEquals(Arrays.copyOfRange(af, offset, offset + dimension), narrowed, message);
+        }
+    }
+
+    private static double[] randomDoubles(Random random, int length) {
+        double[] ret = new double[length];
+        for (int i = 0; i < length; i++) {
+            ret[i] = random.nextGaussian();
+        }
+        return ret;
+    }
+
+    private static float[] randomFloats(Random random, int length) {
+        return toFloats(randomDoubles(random, length));
+    }
+
+    private static float[] toFloats(double[] values) {
+        float[] ret = new float[values.length];
+        for (int i = 0; i < values.length; i++) {
+            ret[i] = (float) values[i];
+        }
+        return ret;
+    }
+
+    private static double[] toDoubles(float[] values) {
+        double[] ret = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            ret[i] = values[i];
+        }
+        return ret;
+    }
+}
@@ -22,6 +22,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
 
 import static com.google.common.base.Preconditions.checkState;
@@ -130,7 +131,8 @@ public class AuditTask<EXAMPLE extends Example<? extends OfflineRequest, ?>, SUB
                 .nThreads(this.offlineTaskContext.options().maxThreads < 0 ? nRecommendedComputationThreads : this.offlineTaskContext.options().maxThreads)
                 .batchSize(this.offlineTaskContext.options().batchSize)
                 .extension(extension)
-                .numberOfShards(effectiveWriterNumShards);
+                .numberOfShards(effectiveWriterNumShards)
+                .recordsAsJson(true);
         Integer readQueueSize = resolveReadQueueSize();
         Integer writeQueueSize = resolveWriteQueueSize();
         if (readQueueSize != null) {
@@ -139,6 +141,10 @@ public class AuditTask<EXAMPLE extends Example<? extends OfflineRequest, ?>, SUB
         if (writeQueueSize != null) {
             mapperBuilder = mapperBuilder.writeQueueSize(writeQueueSize);
         }
+        Set<String> sourceColumns = resolveSourceColumns(this.offlineTaskContext.algorithmDefinition().trainDecoderParameter());
+        if (sourceColumns != null) {
+            mapperBuilder = mapperBuilder.columns(sourceColumns);
+        }
         UnorderedFileMapper<String> mapper = mapperBuilder.build();
         Map<String, Object> metadata = new HashMap<>(callUnorderedFileMapper(mapper));
         long linesWritten = ((Number) metadata.getOrDefault("lines_written", 0L)).longValue();
@@ -19,6 +19,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -152,7 +153,8 @@ public class EncodeTask<EXAMPLE extends Example<? extends OfflineRequest, ?>> ex
                     .nThreads(this.offlineTaskContext.options().maxThreads < 0 ? nRecommendedComputationThread : this.offlineTaskContext.options().maxThreads)
                     .batchSize(this.offlineTaskContext.options().batchSize)
                     .extension(extension)
-                    .numberOfShards(effectiveWriterNumShards);
+                    .numberOfShards(effectiveWriterNumShards)
+                    .recordsAsJson(true);
             Integer readQueueSize = resolveReadQueueSize();
             Integer writeQueueSize = resolveWriteQueueSize();
             if (readQueueSize != null) {
@@ -161,6 +163,10 @@ public class EncodeTask<EXAMPLE extends Example<? extends OfflineRequest, ?>> ex
             if (writeQueueSize != null) {
                 mapperBuilder = mapperBuilder.writeQueueSize(writeQueueSize);
             }
+            Set<String> sourceColumns = resolveSourceColumns(this.offlineTaskContext.algorithmDefinition().trainDecoderParameter());
+            if (sourceColumns != null) {
+                mapperBuilder = mapperBuilder.columns(sourceColumns);
+            }
             UnorderedFileMapper<String> mapper = mapperBuilder.build();
             metadata = callUnorderedFileMapper(mapper);
 
@@ -147,7 +147,8 @@ public class Main {
                     PredictCommand.class,
                     AuditCommand.class,
                     GenerateStateCommand.class,
-                    PerformanceTestCommand.class
+                    PerformanceTestCommand.class,
+                    ProfileCommand.class
             }
     )
     public static final class RootCommand implements Callable<Integer> {
@@ -189,6 +190,7 @@ public class Main {
                 case "generate-state" -> new GenerateStateTask(offlineTaskContext);
                 case "audit" -> new AuditTask<>(offlineTaskContext);
                 case "performance-test" -> new PerformanceTestTask<>(offlineTaskContext);
+                case "profile" -> new ProfileTask<>(offlineTaskContext);
                 default -> throw new AssertionError("Unknown task: " + taskName);
             };
 
@@ -708,4 +710,48 @@ public class Main {
         }
     }
 
+    @Command(name = "profile", description = "Print the cost of each feature of the ranking transformers, most expensive first.", mixinStandardHelpOptions = true)
+    public static final class ProfileCommand implements Callable<Integer> {
+        @Mixin public AlgorithmJarAndDefinitionOptions algo = new AlgorithmJarAndDefinitionOptions();
+        @Mixin public ParametersOption parameters = new ParametersOption();
+        @Mixin public SourceFilesOption sources = new SourceFilesOption();
+        @Mixin public MetadataOption metadata = new MetadataOption();
+
+        @Option(
+                names = {"--samples"},
+                description = "Number of requests to profile, repeating the sample pool as needed. Defaults to the sample pool size.",
+                defaultValue = "-1"
+        )
+        public int samples = -1;
+
+        @Option(
+                names = {"--sample-pool-size"},
+                description = "Number of decoded requests to keep in the in-memory sample pool. Default: 3000.",
+                defaultValue = "-1"
+        )
+        public int samplePoolSize = -1;
+
+        @Option(
+                names = {"--profile-sample-rate"},
+                description = "Fraction of the requests that are measured, within (0, 1]. Default: 1.0.",
+                defaultValue = "1.0"
+        )
+        public double profileSampleRate = 1.0;
+
+        @Override
+        public Integer call() {
+            Options opts = new Options();
+            opts.algorithmJar = algo.algorithmJar;
+            opts.algorithmDefinition = algo.algorithmDefinition;
+            opts.additionalJarFiles = algo.additionalJarFiles;
+            opts.parameters = parameters.parameters;
+            opts.samples = samples;
+            opts.samplePoolSize = samplePoolSize;
+            opts.profileSampleRate = profileSampleRate;
+            opts.sourceFiles = sources.sourceFiles.files;
+            opts.metadataLocation = metadata.metadataLocation;
+            return runTask("profile", opts);
+        }
+    }
+
 }
@@ -46,6 +46,7 @@ public class Options {
     public double targetRps = -1.0;
     public double targetThroughputFraction = 0.8;
     public String performanceTestWorkloadMode;
+    public double profileSampleRate = 1.0;
 
     @Override
     public String toString() {
@@ -74,6 +75,7 @@ public class Options {
                 ", targetRps=" + targetRps +
                 ", targetThroughputFraction=" + targetThroughputFraction +
                 ", performanceTestWorkloadMode='" + performanceTestWorkloadMode + '\'' +
+                ", profileSampleRate=" + profileSampleRate +
                 '}';
     }
 }
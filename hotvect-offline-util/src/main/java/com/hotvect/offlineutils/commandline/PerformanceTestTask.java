@@ -518,51 +518,35 @@ public class PerformanceTestTask<EXAMPLE extends Example<? extends OfflineReques
     }
 
     private Function<EXAMPLE, Void> getSink(ALGO algo, Timer responseTimer, RateLimiter rateLimiter) {
+        Function<EXAMPLE, Object> invoker = algorithmInvoker(algo);
+        return example -> {
+            if (rateLimiter != null) {
+                rateLimiter.acquire();
+            }
+            try (var ignored = responseTimer.time()) {
+                consume(invoker.apply(example));
+                return null;
+            }
+        };
+    }
+
+    /**
+     * Returns a function that passes the request of an example to the algorithm and returns its result.
+     */
+    static <EXAMPLE extends Example<? extends OfflineRequest, ?>> Function<EXAMPLE, Object> algorithmInvoker(Algorithm algo) {
         if (algo instanceof Ranker<?, ?>) {
             Ranker ranker = (Ranker) algo;
-            return example -> {
-                RankingExample<?, ?, ?> rankingExample = (RankingExample<?, ?, ?>) example;
-                if (rateLimiter != null) {
-                    rateLimiter.acquire();
-                }
-                try (var ignored = responseTimer.time()) {
-                    var result = ranker.rank(rankingExample.rankingRequest());
-                    consume(result);
-                    return null;
-                }
-            };
-        } else if (algo instanceof BulkScorer bulkScorer){
-            return example -> {
-                RankingExample<?, ?, ?> rankingExample = (RankingExample<?, ?, ?>) example;
-                if (rateLimiter != null) {
-                    rateLimiter.acquire();
-                }
-                try (var ignored = responseTimer.time()) {
-                    var result = bulkScorer.score(rankingExample.rankingRequest());
-                    consume(result);
-                    return null;
-                }
-            };
-
+            return example -> ranker.rank(((RankingExample<?, ?, ?>) example).rankingRequest());
+        } else if (algo instanceof BulkScorer bulkScorer) {
+            return example -> bulkScorer.score(((RankingExample<?, ?, ?>) example).rankingRequest());
         } else if (algo instanceof TopK topK) {
-            return example -> {
-                TopKExample<?, ?, ?> topKExample = (TopKExample<?, ?, ?>) example;
-                if (rateLimiter != null) {
-                    rateLimiter.acquire();
-                }
-                try (var ignored = responseTimer.time()) {
-                    var result = topK.apply(topKExample.request());
-                    consume(result);
-                    return null;
-                }
-            };
-
+            return example -> topK.apply(((TopKExample<?, ?, ?>) example).request());
         } else {
             throw new AssertionError("Unknown algorithm type:" + algo.getClass().getCanonicalName());
         }
     }
 
-    private void consume(Object result) {
+    static void consume(Object result) {
         // A poor man's Blackhole (https://github.com/openjdk/jmh/blob/master/jmh-core/src/main/java/org/openjdk/jmh/infra/Blackhole.java)
         // Described in Tim Peierls, Brian Goetz, Joshua Bloch, Joseph Bowbeer, Doug Lea, and David Holmes. 2005. Java Concurrency in Practice. Addison-Wesley Professional.
 
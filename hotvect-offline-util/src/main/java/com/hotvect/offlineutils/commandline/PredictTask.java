@@ -30,6 +30,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
 
 import static com.google.common.base.Preconditions.checkState;
@@ -142,7 +143,8 @@ public class PredictTask<EXAMPLE extends Example<? extends OfflineRequest, ?>, A
                 .nThreads(effectiveComputationThreads)
                 .batchSize(this.offlineTaskContext.options().batchSize)
                 .extension(PREDICTION_EXTENSION)
-                .numberOfShards(effectiveWriterNumShards);
+                .numberOfShards(effectiveWriterNumShards)
+                .recordsAsJson(true);
         Integer readQueueSize = resolveReadQueueSize();
         Integer writeQueueSize = resolveWriteQueueSize();
         if (readQueueSize != null) {
@@ -151,6 +153,10 @@ public class PredictTask<EXAMPLE extends Example<? extends OfflineRequest, ?>, A
         if (writeQueueSize != null) {
             mapperBuilder = mapperBuilder.writeQueueSize(writeQueueSize);
         }
+        Set<String> sourceColumns = resolveSourceColumns(this.offlineTaskContext.algorithmDefinition().testDecoderParameter());
+        if (sourceColumns != null) {
+            mapperBuilder = mapperBuilder.columns(sourceColumns);
+        }
 
         int effectiveBatchSize = ConcurrentUtils.getBatchSize(Optional.of(this.offlineTaskContext.options().batchSize));
         int fallbackReadQueueSize = readQueueSize != null ? readQueueSize : effectiveComputationThreads * effectiveBatchSize * 4;
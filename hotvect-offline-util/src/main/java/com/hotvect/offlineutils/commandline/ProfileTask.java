@@ -0,0 +1,166 @@
+package com.hotvect.offlineutils.commandline;
+
+import com.hotvect.api.algodefinition.AlgorithmInstance;
+import com.hotvect.api.algorithms.Algorithm;
+import com.hotvect.api.codec.common.ExampleDecoder;
+import com.hotvect.api.data.OfflineRequest;
+import com.hotvect.api.data.common.Example;
+import com.hotvect.api.execution.ExecutionContext;
+import com.hotvect.api.execution.InputSemantic;
+import com.hotvect.api.execution.WorkloadMode;
+import com.hotvect.api.transformation.FeatureProfiler;
+import com.hotvect.offlineutils.hotdeploy.AlgorithmOfflineSupporterFactory;
+import com.hotvect.onlineutils.hotdeploy.AlgorithmInstanceFactory;
+import com.hotvect.onlineutils.util.StreamUtils;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Runs a sample of the examples through the algorithm on a single thread with a {@link FeatureProfiler} set on its
+ * transformers, and prints the features ranked by their total wall time.
+ */
+public class ProfileTask<EXAMPLE extends Example<? extends OfflineRequest, ?>, ALGO extends Algorithm> extends Task {
+    private static final int REPORT_LIMIT = 50;
+
+    protected ProfileTask(OfflineTaskContext offlineTaskContext) {
+        super(offlineTaskContext);
+    }
+
+    @Override
+    protected Map<String, Object> perform() throws Exception {
+        Options options = offlineTaskContext.options();
+        checkState(
+                options.sourceFiles.size() == 1 && options.sourceFiles.keySet().iterator().next().equals("default"),
+                "Only one source file type is supported for profiling"
+        );
+        checkState(
+                options.samplePoolSize == -1 || options.samplePoolSize > 0,
+                "--sample-pool-size must be > 0 (or left unset), got: %s",
+                options.samplePoolSize
+        );
+
+        FeatureProfiler featureProfiler = FeatureProfiler.builder()
+                .withSampleRate(options.profileSampleRate)
+                .withMeterRegistry(offlineTaskContext.meterRegistry())
+                .build();
+        if (!FeatureProfiler.isAllocationMeasured()) {
+            LOGGER.warn("This JVM does not report thread allocations, allocated bytes will be reported as zero");
+        }
+
+        AlgorithmOfflineSupporterFactory algorithmSupporterFactory = new AlgorithmOfflineSupporterFactory(offlineTaskContext.classLoader());
+        AlgorithmInstanceFactory algorithmInstanceFactory = new AlgorithmInstanceFactory(
+                offlineTaskContext.classLoader(),
+                ExecutionContext.of(WorkloadMode.REALTIME, InputSemantic.OFFLINE),
+                false,
+                false,
+                Optional.empty(),
+                featureProfiler
+        );
+        ExampleDecoder<EXAMPLE> decoder = algorithmSupporterFactory.getTestDecoder(offlineTaskContext.algorithmDefinition());
+
+        try (AlgorithmInstance<ALGO> algorithmInstance = algorithmInstanceFactory.load(
+                offlineTaskContext.algorithmDefinition(),
+                options.parameters,
+                Map.of()
+        )) {
+            LOGGER.info("Loaded AlgorithmInstance:{}", algorithmInstance);
+            int samplePoolSize = options.samplePoolSize > 0 ? options.samplePoolSize : PerformanceTestTask.DEFAULT_SAMPLE_POOL_SIZE;
+            List<EXAMPLE> sampledData = PerformanceTestTask.sampleDecodedExamples(
+                    options.sourceFiles.values().iterator().next(),
+                    decoder,
+                    samplePoolSize,
+                    3,
+                    42L,
+                    200,
+                    20
+            );
+            int samples = options.samples > 0 ? options.samples : sampledData.size();
+            Function<EXAMPLE, Object> invoker = PerformanceTestTask.algorithmInvoker(algorithmInstance.algorithm());
+
+            // Warm up, so that the report does not include class loading and compilation
+            sampledData.forEach(example -> PerformanceTestTask.consume(invoker.apply(example)));
+            featureProfiler.reset();
+
+            long start = System.nanoTime();
+            StreamUtils.repeatToLength(sampledData, samples).forEach(example -> PerformanceTestTask.consume(invoker.apply(example)));
+            long elapsedNanos = System.nanoTime() - start;
+
+            List<FeatureProfiler.FeatureCost> report = featureProfiler.report();
+            printReport(System.out, report, samples, elapsedNanos);
+
+            Map<String, Object> metadata = new HashMap<>();
+            metadata.put("samples", samples);
+            metadata.put("sample_pool_size", sampledData.size());
+            metadata.put("profile_sample_rate", options.profileSampleRate);
+            metadata.put("elapsed_ms", elapsedNanos / 1e6);
+            metadata.put("allocation_measured", FeatureProfiler.isAllocationMeasured());
+            metadata.put("stage_total_ms", stageTotalsMillis(report));
+            metadata.put("feature_costs", toMetadata(report));
+            return metadata;
+        }
+    }
+
+    static void printReport(PrintStream out, List<FeatureProfiler.FeatureCost> report, int samples, long elapsedNanos) {
+        long totalNanos = report.stream().mapToLong(FeatureProfiler.FeatureCost::totalNanos).sum();
+        out.printf(Locale.ROOT, "Profiled %d requests in %.1f ms (%d features, %.1f ms measured)%n",
+                samples, elapsedNanos / 1e6, report.size(), totalNanos / 1e6);
+        out.printf(Locale.ROOT, "%4s  %-24s %-11s %-40s %10s %10s %7s %10s %12s%n",
+                "rank", "algorithm", "stage", "feature", "calls", "total_ms", "share", "mean_us", "mean_bytes");
+        for (int i = 0; i < Math.min(report.size(), REPORT_LIMIT); i++) {
+            FeatureProfiler.FeatureCost cost = report.get(i);
+            out.printf(Locale.ROOT, "%4d  %-24s %-11s %-40s %10d %10.2f %6.1f%% %10.2f %12.0f%n",
+                    i + 1,
+                    cost.algorithmName(),
+                    cost.stage().name().toLowerCase(Locale.ROOT),
+                    cost.feature(),
+                    cost.count(),
+                    cost.totalNanos() / 1e6,
+                    totalNanos == 0 ? 0.0 : 100.0 * cost.totalNanos() / totalNanos,
+                    cost.meanNanos() / 1e3,
+                    cost.meanAllocatedBytes());
+        }
+        if (report.size() > REPORT_LIMIT) {
+            out.printf(Locale.ROOT, "... %d more features in the metadata%n", report.size() - REPORT_LIMIT);
+        }
+        for (Map.Entry<String, Double> stage : stageTotalsMillis(report).entrySet()) {
+            out.printf(Locale.ROOT, "%-11s %10.2f ms%n", stage.getKey(), stage.getValue());
+        }
+    }
+
+    private static Map<String, Double> stageTotalsMillis(List<FeatureProfiler.FeatureCost> report) {
+        Map<FeatureProfiler.Stage, Long> nanosByStage = new EnumMap<>(FeatureProfiler.Stage.class);
+        for (FeatureProfiler.FeatureCost cost : report) {
+            nanosByStage.merge(cost.stage(), cost.totalNanos(), Long::sum);
+        }
+        Map<String, Double> ret = new LinkedHashMap<>();
+        nanosByStage.forEach((stage, nanos) -> ret.put(stage.name().toLowerCase(Locale.ROOT), nanos / 1e6));
+        return ret;
+    }
+
+    private static List<Map<String, Object>> toMetadata(List<FeatureProfiler.FeatureCost> report) {
+        List<Map<String, Object>> ret = new ArrayList<>(report.size());
+        for (FeatureProfiler.FeatureCost cost : report) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("algorithm", cost.algorithmName());
+            entry.put("stage", cost.stage().name().toLowerCase(Locale.ROOT));
+            entry.put("feature", cost.feature());
+            entry.put("calls", cost.count());
+            entry.put("total_ms", cost.totalNanos() / 1e6);
+            entry.put("mean_us", cost.meanNanos() / 1e3);
+            entry.put("mean_allocated_bytes", cost.meanAllocatedBytes());
+            ret.add(entry);
+        }
+        return ret;
+    }
+}
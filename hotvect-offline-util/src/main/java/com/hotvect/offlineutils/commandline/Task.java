@@ -1,5 +1,6 @@
 package com.hotvect.offlineutils.commandline;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.hotvect.utils.VerboseCallable;
@@ -9,7 +10,10 @@ import org.slf4j.LoggerFactory;
 
 import java.lang.management.ManagementFactory;
 import java.lang.management.MemoryMXBean;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -41,6 +45,23 @@ public abstract class Task extends VerboseCallable<Map<String, Object>> {
         return offlineTaskContext.options().queueLength > 0 ? offlineTaskContext.options().queueLength : null;
     }
 
+    /**
+     * Resolves the "source_columns" decoder parameter, the top-level columns the decoder reads from columnar source
+     * files such as Parquet. Returns null when the parameter is absent, in which case every column is read.
+     */
+    protected Set<String> resolveSourceColumns(Optional<JsonNode> decoderParameter) {
+        Optional<JsonNode> columns = decoderParameter.flatMap(hp -> Optional.ofNullable(hp.get("source_columns")));
+        if (columns.isEmpty()) {
+            return null;
+        }
+        if (!columns.get().isArray()) {
+            throw new IllegalArgumentException("source_columns must be an array of column names, but was: " + columns.get());
+        }
+        Set<String> ret = new LinkedHashSet<>();
+        columns.get().forEach(column -> ret.add(column.asText()));
+        return ret;
+    }
+
     protected boolean resolveOrderedOutput(boolean algorithmDefault, String taskName) {
         if (offlineTaskContext.options().ordered && offlineTaskContext.options().unordered) {
             throw new IllegalArgumentException("At most one of ordered or unordered " + taskName + " modes may be enabled.");
@@ -15,7 +15,7 @@ class CliHelpTest {
         CommandLine cmd = new CommandLine(new Main.RootCommand());
 
         assertFalse(cmd.getUsageMessage().contains("--include-feature-store-responses"));
-        assertEquals(Set.of("encode", "predict", "audit", "generate-state", "performance-test"), cmd.getSubcommands().keySet());
+        assertEquals(Set.of("encode", "predict", "audit", "generate-state", "performance-test", "profile"), cmd.getSubcommands().keySet());
 
         assertTrue(cmd.getSubcommands().get("predict").getUsageMessage().contains("--include-feature-store-responses"));
         assertTrue(cmd.getSubcommands().get("audit").getUsageMessage().contains("--include-feature-store-responses"));
@@ -0,0 +1,189 @@
+package com.hotvect.onlineutils.concurrency;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.hotvect.utils.HyperparamUtils;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Chooses the fork threshold of a scorer from a measured per-candidate cost, instead of a hand-tuned constant.
+ *
+ * <p>Scorers {@link #record(int, long) record} how long each chunk of candidates took to transform and score. The
+ * per-candidate cost is kept as an exponentially weighted moving average, and {@link #threshold()} returns the number
+ * of candidates for which a task takes about twice the target duration. Since {@link RankingExecutor#mapChunks} halves
+ * requests until chunks are at most the threshold, every forked task then stays above the target duration, so the
+ * fork overhead stays small relative to the work. Until the first measurement, the initial threshold is used.</p>
+ *
+ * <p>The current threshold and per-candidate cost are exposed as gauges, tagged with the scorer name and a
+ * per-process instance number. The scorer owning the threshold {@link #close() closes} it to remove the gauges.
+ * Instances are thread-safe.</p>
+ */
+public class AdaptiveForkThreshold implements AutoCloseable {
+    private static final String METRIC_PREFIX = "hotvect.adaptive.fork";
+    private static final AtomicInteger INSTANCE_COUNTER = new AtomicInteger();
+
+    private final long targetTaskNanos;
+    private final int initialThreshold;
+    private final int minThreshold;
+    private final int maxThreshold;
+    private final double decay;
+    // Double bits of the moving average of nanoseconds per candidate, NaN until the first measurement
+    private final AtomicLong nanosPerCandidateBits = new AtomicLong(Double.doubleToRawLongBits(Double.NaN));
+    private final MeterRegistry meterRegistry;
+    private final List<Gauge> gauges;
+
+    private AdaptiveForkThreshold(Builder builder) {
+        this.targetTaskNanos = builder.targetTaskDuration.toNanos();
+        this.initialThreshold = builder.initialThreshold;
+        this.minThreshold = builder.minThreshold;
+        this.maxThreshold = builder.maxThreshold;
+        this.decay = builder.decay;
+        this.meterRegistry = builder.meterRegistry;
+        String instance = Integer.toString(INSTANCE_COUNTER.incrementAndGet());
+        this.gauges = List.of(
+                Gauge.builder(METRIC_PREFIX + ".threshold", this, x -> (double) x.threshold())
+                        .description("Current adaptive fork threshold, in candidates")
+                        .tag("scorer", builder.name)
+                        .tag("instance", instance)
+                        .register(meterRegistry),
+                Gauge.builder(METRIC_PREFIX + ".nanos.per.candidate", this, AdaptiveForkThreshold::nanosPerCandidate)
+                        .description("Moving average of the transform and inference time per candidate")
+                        .tag("scorer", builder.name)
+                        .tag("instance", instance)
+                        .register(meterRegistry)
+        );
+    }
+
+    /**
+     * @param meterRegistry registry the gauges are published to, until the threshold is closed
+     */
+    public static Builder builder(String name, MeterRegistry meterRegistry) {
+        return new Builder(name, meterRegistry);
+    }
+
+    /**
+     * Creates an adaptive threshold if {@code adaptive_target_task_micros} is set to a positive value under
+     * {@code paths}, e.g. {@code "catboost_scorer": {"adaptive_target_task_micros": 200}}. Returns empty otherwise.
+     * The gauges are published to {@code meterRegistry}.
+     */
+    public static Optional<AdaptiveForkThreshold> fromHyperparameter(
+            String name,
+            int initialThreshold,
+            Optional<JsonNode> hyperparameter,
+            MeterRegistry meterRegistry,
+            String... paths
+    ) {
+        String[] targetPath = new String[paths.length + 1];
+        System.arraycopy(paths, 0, targetPath, 0, paths.length);
+        targetPath[paths.length] = "adaptive_target_task_micros";
+        long targetMicros = HyperparamUtils.getOrDefault(hyperparameter, JsonNode::asLong, 0L, targetPath);
+        if (targetMicros <= 0) {
+            return Optional.empty();
+        }
+        return Optional.of(builder(name, meterRegistry)
+                .withTargetTaskDuration(Duration.ofNanos(targetMicros * 1000))
+                .withInitialThreshold(Math.max(1, initialThreshold))
+                .build());
+    }
+
+    public static class Builder {
+        private final String name;
+        private Duration targetTaskDuration = Duration.ofNanos(200_000);
+        private int initialThreshold = 100;
+        private int minThreshold = 16;
+        private int maxThreshold = 4096;
+        private double decay = 0.1;
+        private final MeterRegistry meterRegistry;
+
+        private Builder(String name, MeterRegistry meterRegistry) {
+            this.name = checkNotNull(name);
+            this.meterRegistry = checkNotNull(meterRegistry);
+        }
+
+        public Builder withTargetTaskDuration(Duration targetTaskDuration) {
+            checkArgument(!targetTaskDuration.isNegative() && !targetTaskDuration.isZero(), "targetTaskDuration must be positive: %s", targetTaskDuration);
+            this.targetTaskDuration = targetTaskDuration;
+            return this;
+        }
+
+        public Builder withInitialThreshold(int initialThreshold) {
+            checkArgument(initialThreshold > 0, "initialThreshold must be positive: %s", initialThreshold);
+            this.initialThreshold = initialThreshold;
+            return this;
+        }
+
+        public Builder withThresholdBounds(int minThreshold, int maxThreshold) {
+            checkArgument(0 < minThreshold && minThreshold <= maxThreshold, "Invalid threshold bounds: [%s, %s]", minThreshold, maxThreshold);
+            this.minThreshold = minThreshold;
+            this.maxThreshold = maxThreshold;
+            return this;
+        }
+
+        /**
+         * @param decay weight of each new measurement in the moving average, in (0, 1]
+         */
+        public Builder withDecay(double decay) {
+            checkArgument(decay > 0 && decay <= 1, "decay must be in (0, 1]: %s", decay);
+            this.decay = decay;
+            return this;
+        }
+
+        public AdaptiveForkThreshold build() {
+            return new AdaptiveForkThreshold(this);
+        }
+    }
+
+    /**
+     * Returns the current fork threshold, in candidates.
+     */
+    public int threshold() {
+        double nanosPerCandidate = nanosPerCandidate();
+        if (Double.isNaN(nanosPerCandidate)) {
+            return initialThreshold;
+        }
+        // Chunks end up between threshold/2 and threshold candidates, hence the factor of 2
+        double threshold = Math.ceil(2.0 * targetTaskNanos / Math.max(nanosPerCandidate, 1.0));
+        return (int) Math.max(minThreshold, Math.min(maxThreshold, threshold));
+    }
+
+    /**
+     * Records that {@code candidates} candidates took {@code elapsedNanos} to transform and score.
+     */
+    public void record(int candidates, long elapsedNanos) {
+        if (candidates <= 0) {
+            return;
+        }
+        double sample = (double) elapsedNanos / candidates;
+        while (true) {
+            long currentBits = nanosPerCandidateBits.get();
+            double current = Double.longBitsToDouble(currentBits);
+            double updated = Double.isNaN(current) ? sample : current + decay * (sample - current);
+            if (nanosPerCandidateBits.compareAndSet(currentBits, Double.doubleToRawLongBits(updated))) {
+                return;
+            }
+        }
+    }
+
+    public double nanosPerCandidate() {
+        return Double.longBitsToDouble(nanosPerCandidateBits.get());
+    }
+
+    /**
+     * Removes the gauges from the registry. The threshold itself keeps working.
+     */
+    @Override
+    public void close() {
+        for (Gauge gauge : gauges) {
+            meterRegistry.remove(gauge);
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package com.hotvect.onlineutils.concurrency;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.hotvect.utils.HyperparamUtils;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Runs the CPU bound part of scoring a single ranking request on a fork join pool, while bounding how much of the
+ * pool one request can use.
+ *
+ * <p>Each request is split into at most {@code maxParallelismPerRequest} parts, so one very large request cannot
+ * occupy every worker and starve concurrent requests. When the pool already has {@code maxQueuedTasks} or more tasks
+ * queued, requests stop splitting and the remaining work is done by the task that would have forked, which keeps the
+ * queue bounded under load (similar to {@link java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy}).</p>
+ *
+ * <p>Algorithms can declare their own executor via the {@code ranking_executor} hyperparameter (see
+ * {@link #fromHyperparameter(String, Optional, MeterRegistry)}); otherwise {@link #common()} is used, which runs on
+ * {@link CommonPool#commonForkJoinPool()} without a per-request limit, as before.</p>
+ *
+ * <p>Dedicated executors publish pool gauges tagged with the executor name and a per-process instance number, so that
+ * two executors with the same name do not share gauges. The gauges are removed when the executor is closed.</p>
+ */
+public class RankingExecutor implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(RankingExecutor.class);
+    private static final String METRIC_PREFIX = "hotvect.ranking.executor";
+    private static final AtomicInteger INSTANCE_COUNTER = new AtomicInteger();
+    private static final RankingExecutor COMMON = new RankingExecutor(
+            "common",
+            CommonPool.commonForkJoinPool(),
+            Integer.MAX_VALUE,
+            Integer.MAX_VALUE,
+            false,
+            null
+    );
+
+    private final String name;
+    private final ForkJoinPool pool;
+    private final int maxParallelismPerRequest;
+    private final int maxQueuedTasks;
+    private final boolean ownsPool;
+    // Null for the common executor, which publishes no gauges
+    private final MeterRegistry meterRegistry;
+    private final List<Gauge> gauges = new ArrayList<>();
+
+    private RankingExecutor(String name, ForkJoinPool pool, int maxParallelismPerRequest, int maxQueuedTasks, boolean ownsPool, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.pool = pool;
+        this.maxParallelismPerRequest = maxParallelismPerRequest;
+        this.maxQueuedTasks = maxQueuedTasks;
+        this.ownsPool = ownsPool;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Returns the shared executor backed by {@link CommonPool#commonForkJoinPool()}, with no per-request limit.
+     */
+    public static RankingExecutor common() {
+        return COMMON;
+    }
+
+    /**
+     * @param meterRegistry registry the pool gauges are published to, until the executor is closed
+     */
+    public static Builder builder(String name, MeterRegistry meterRegistry) {
+        return new Builder(name, meterRegistry);
+    }
+
+    /**
+     * Creates a dedicated executor if the hyperparameter declares one, e.g.
+     * <pre>{@code
+     * "ranking_executor": {"name": "my-algorithm", "parallelism": 8, "max_parallelism_per_request": 4, "max_queued_tasks": 64}
+     * }</pre>
+     * and returns {@link #common()} otherwise. Omitted keys use the {@link Builder} defaults, and {@code defaultName}
+     * if no name is given. The name is used in thread names and as the {@code executor} tag of the gauges, which are
+     * published to {@code meterRegistry}.
+     */
+    public static RankingExecutor fromHyperparameter(String defaultName, Optional<JsonNode> hyperparameter, MeterRegistry meterRegistry) {
+        Optional<JsonNode> config = hyperparameter.map(x -> x.get("ranking_executor")).filter(x -> !x.isNull());
+        if (config.isEmpty()) {
+            return common();
+        }
+        Builder builder = builder(HyperparamUtils.getOrDefault(config, JsonNode::asText, defaultName, "name"), meterRegistry);
+        builder.withParallelism(HyperparamUtils.getOrDefault(config, JsonNode::asInt, builder.parallelism, "parallelism"));
+        builder.withMaxParallelismPerRequest(HyperparamUtils.getOrDefault(config, JsonNode::asInt, builder.maxParallelismPerRequest, "max_parallelism_per_request"));
+        builder.withMaxQueuedTasks(HyperparamUtils.getOrDefault(config, JsonNode::asInt, builder.maxQueuedTasks, "max_queued_tasks"));
+        return builder.build();
+    }
+
+    public static class Builder {
+        private final String name;
+        private int parallelism = ConcurrentUtils.getThreadNumForCpuBoundTasks(Optional.empty());
+        private int maxParallelismPerRequest = Math.max(1, parallelism / 2);
+        private int maxQueuedTasks = parallelism * 16;
+        private final MeterRegistry meterRegistry;
+
+        private Builder(String name, MeterRegistry meterRegistry) {
+            this.name = checkNotNull(name);
+            this.meterRegistry = checkNotNull(meterRegistry);
+        }
+
+        public Builder withParallelism(int parallelism) {
+            checkArgument(parallelism > 0, "parallelism must be positive: %s", parallelism);
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public Builder withMaxParallelismPerRequest(int maxParallelismPerRequest) {
+            checkArgument(maxParallelismPerRequest > 0, "maxParallelismPerRequest must be positive: %s", maxParallelismPerRequest);
+            this.maxParallelismPerRequest = maxParallelismPerRequest;
+            return this;
+        }
+
+        public Builder withMaxQueuedTasks(int maxQueuedTasks) {
+            checkArgument(maxQueuedTasks >= 0, "maxQueuedTasks must be non-negative: %s", maxQueuedTasks);
+            this.maxQueuedTasks = maxQueuedTasks;
+            return this;
+        }
+
+        public RankingExecutor build() {
+            // The pool index is only assigned once a worker starts, so threads are numbered here
+            AtomicInteger threadCounter = new AtomicInteger();
+            ForkJoinPool pool = new ForkJoinPool(
+                    parallelism,
+                    p -> {
+                        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+                        thread.setName("hotvect-ranking-" + name + "-" + threadCounter.getAndIncrement());
+                        return thread;
+                    },
+                    (t, e) -> log.error("Uncaught exception in thread:{}", t.getName(), e),
+                    false
+            );
+            RankingExecutor executor = new RankingExecutor(name, pool, maxParallelismPerRequest, maxQueuedTasks, true, meterRegistry);
+            executor.registerGauges();
+            log.info("Created ranking executor {} with parallelism {}, max parallelism per request {}, max queued tasks {}",
+                    name, parallelism, maxParallelismPerRequest, maxQueuedTasks);
+            return executor;
+        }
+    }
+
+    private void registerGauges() {
+        String instance = Integer.toString(INSTANCE_COUNTER.incrementAndGet());
+        gauges.add(Gauge.builder(METRIC_PREFIX + ".active.workers", pool, p -> (double) p.getActiveThreadCount())
+                .description("Number of workers currently running ranking tasks")
+                .tag("executor", name)
+                .tag("instance", instance)
+                .register(meterRegistry));
+        gauges.add(Gauge.builder(METRIC_PREFIX + ".queued.tasks", pool, p -> (double) (p.getQueuedSubmissionCount() + p.getQueuedTaskCount()))
+                .description("Number of ranking tasks waiting to be executed")
+                .tag("executor", name)
+                .tag("instance", instance)
+                .register(meterRegistry));
+        gauges.add(Gauge.builder(METRIC_PREFIX + ".steals", pool, p -> (double) p.getStealCount())
+                .description("Total number of tasks stolen between ranking workers")
+                .tag("executor", name)
+                .tag("instance", instance)
+                .register(meterRegistry));
+    }
+
+    /**
+     * Splits {@code items} into contiguous chunks of at least {@code minChunkSize} items (at most
+     * {@code maxParallelismPerRequest} chunks), applies {@code chunkFunction} to the chunks in parallel and
+     * concatenates the results in item order.
+     */
+    public <T, R> List<R> mapChunks(List<T> items, int minChunkSize, Function<List<T>, List<R>> chunkFunction) {
+        checkArgument(minChunkSize > 0, "minChunkSize must be positive: %s", minChunkSize);
+        return invoke(new ChunkTask<>(items, 0, items.size(), minChunkSize, maxParallelismPerRequest, chunkFunction));
+    }
+
+    /**
+     * Applies {@code function} to every element of {@code source}, splitting the source into at most
+     * {@code maxParallelismPerRequest} parts that are processed in parallel. Results are returned in encounter order.
+     */
+    public <T, R> List<R> mapOrdered(Spliterator<T> source, Function<? super T, ? extends R> function) {
+        return invoke(new SpliteratorTask<>(source, maxParallelismPerRequest, function));
+    }
+
+    /**
+     * Like {@link #mapOrdered(Spliterator, Function)} for the elements of a stream. The spliterator of a sequential
+     * stream with intermediate operations never splits, so the stream is traversed through its parallel spliterator,
+     * which splits the stream's source and applies the intermediate operations (e.g. a per-batch transformation)
+     * within each task. The stream is not run on any other pool.
+     */
+    public <T, R> List<R> mapOrdered(Stream<T> source, Function<? super T, ? extends R> function) {
+        return mapOrdered(source.parallel().spliterator(), function);
+    }
+
+    private <R> List<R> invoke(RecursiveTask<List<R>> task) {
+        if (isOwnWorker()) {
+            // Already running on one of our workers (e.g. nested scorers): fork/join within the pool
+            return task.invoke();
+        }
+        return pool.invoke(task);
+    }
+
+    private boolean isOwnWorker() {
+        return Thread.currentThread() instanceof ForkJoinWorkerThread worker && worker.getPool() == pool;
+    }
+
+    private boolean queueFull() {
+        return pool.getQueuedSubmissionCount() + pool.getQueuedTaskCount() >= maxQueuedTasks;
+    }
+
+    private final class ChunkTask<T, R> extends RecursiveTask<List<R>> {
+        private final List<T> items;
+        private final int from;
+        private final int to;
+        private final int minChunkSize;
+        private final int budget;
+        private final Function<List<T>, List<R>> chunkFunction;
+
+        private ChunkTask(List<T> items, int from, int to, int minChunkSize, int budget, Function<List<T>, List<R>> chunkFunction) {
+            this.items = items;
+            this.from = from;
+            this.to = to;
+            this.minChunkSize = minChunkSize;
+            this.budget = budget;
+            this.chunkFunction = chunkFunction;
+        }
+
+        @Override
+        protected List<R> compute() {
+            if (to - from <= minChunkSize || budget <= 1 || queueFull()) {
+                return chunkFunction.apply(items.subList(from, to));
+            }
+            int mid = (from + to) >>> 1;
+            int firstBudget = budget / 2;
+            var second = new ChunkTask<>(items, mid, to, minChunkSize, budget - firstBudget, chunkFunction).fork();
+            List<R> firstResult = new ChunkTask<>(items, from, mid, minChunkSize, firstBudget, chunkFunction).compute();
+            List<R> secondResult = second.join();
+            List<R> ret = new ArrayList<>(firstResult.size() + secondResult.size());
+            ret.addAll(firstResult);
+            ret.addAll(secondResult);
+            return ret;
+        }
+    }
+
+    private final class SpliteratorTask<T, R> extends RecursiveTask<List<R>> {
+        private final Spliterator<T> source;
+        private final int budget;
+        private final Function<? super T, ? extends R> function;
+
+        private SpliteratorTask(Spliterator<T> source, int budget, Function<? super T, ? extends R> function) {
+            this.source = source;
+            this.budget = budget;
+            this.function = function;
+        }
+
+        @Override
+        protected List<R> compute() {
+            Spliterator<T> prefix = budget <= 1 || queueFull() ? null : source.trySplit();
+            if (prefix == null) {
+                List<R> ret = new ArrayList<>();
+                source.forEachRemaining(element -> ret.add(function.apply(element)));
+                return ret;
+            }
+            int prefixBudget = budget / 2;
+            var suffix = new SpliteratorTask<T, R>(source, budget - prefixBudget, function).fork();
+            List<R> ret = new SpliteratorTask<T, R>(prefix, prefixBudget, function).compute();
+            ret.addAll(suffix.join());
+            return ret;
+        }
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public int maxParallelismPerRequest() {
+        return maxParallelismPerRequest;
+    }
+
+    /**
+     * Removes the gauges and shuts down the pool if this executor created it. Closing {@link #common()} has no effect.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        if (!ownsPool) {
+            return;
+        }
+        for (Gauge gauge : gauges) {
+            meterRegistry.remove(gauge);
+        }
+        gauges.clear();
+        pool.shutdown();
+        if (!pool.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Ranking executor {} did not terminate within 30 seconds", name);
+        }
+    }
+}
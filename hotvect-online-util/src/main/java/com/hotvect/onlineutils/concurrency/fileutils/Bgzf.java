@@ -0,0 +1,176 @@
+package com.hotvect.onlineutils.concurrency.fileutils;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Reads and writes BGZF blocks, the gzip members of the blocked gzip format used by samtools and htslib. Each member
+ * holds at most 64 KB of compressed data and records its compressed size in a {@code BC} extra subfield, so the
+ * members of a file can be located without inflating them, and inflated or deflated independently. Concatenated
+ * members are valid gzip, so standard gzip readers can read these files too.
+ */
+final class Bgzf {
+    static final int MAX_BLOCK_SIZE = 1 << 16;
+    // Leaves room for the header, the trailer and stored deflate blocks if the input is incompressible
+    static final int MAX_INPUT_SIZE = MAX_BLOCK_SIZE - 256;
+    private static final int HEADER_SIZE = 18;
+    private static final int TRAILER_SIZE = 8;
+    static final byte[] EOF_BLOCK = {
+            0x1f, (byte) 0x8b, 0x08, 0x04, 0, 0, 0, 0, 0, (byte) 0xff, 0x06, 0, 0x42, 0x43, 0x02, 0, 0x1b, 0,
+            0x03, 0, 0, 0, 0, 0, 0, 0, 0, 0
+    };
+
+    /**
+     * Inflates and deflates blocks for all parallel gzip streams. Streams bound how many of their blocks are in flight,
+     * and the tasks never wait on each other.
+     */
+    static final ExecutorService POOL = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(),
+            new ThreadFactoryBuilder().setNameFormat("parallel-gzip-%s").setDaemon(true).build()
+    );
+
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(() -> new Inflater(true));
+    // One deflater per compression level, -1 (default) to 9
+    private static final ThreadLocal<Deflater[]> DEFLATERS = ThreadLocal.withInitial(() -> new Deflater[11]);
+
+    private Bgzf() {
+    }
+
+    /**
+     * Returns the size of the BGZF block at {@code offset}, or -1 if there is no BGZF block header there.
+     */
+    static int blockSize(FileChannel channel, long offset) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, header, offset);
+        if (header.position() < HEADER_SIZE) {
+            return -1;
+        }
+        int xlen = header.getShort(10) & 0xffff;
+        if (header.get(0) != 0x1f || header.get(1) != (byte) 0x8b || header.get(2) != 8 || header.get(3) != 4) {
+            return -1;
+        }
+        ByteBuffer extra = ByteBuffer.allocate(xlen).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, extra, offset + 12);
+        if (extra.position() < xlen) {
+            return -1;
+        }
+        int i = 0;
+        while (i + 4 <= xlen) {
+            int subfieldLength = extra.getShort(i + 2) & 0xffff;
+            if (extra.get(i) == 'B' && extra.get(i + 1) == 'C' && subfieldLength == 2 && i + 6 <= xlen) {
+                return (extra.getShort(i + 4) & 0xffff) + 1;
+            }
+            i += 4 + subfieldLength;
+        }
+        return -1;
+    }
+
+    /**
+     * Reads and inflates the block of {@code blockSize} bytes at {@code offset}, verifying its length and CRC.
+     */
+    static byte[] inflate(FileChannel channel, long offset, int blockSize) throws IOException {
+        ByteBuffer block = ByteBuffer.allocate(blockSize).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, block, offset);
+        if (block.position() < blockSize) {
+            throw new ZipException("Truncated BGZF block at offset " + offset);
+        }
+        byte[] compressed = block.array();
+        int dataStart = 12 + (block.getShort(10) & 0xffff);
+        int dataEnd = blockSize - TRAILER_SIZE;
+        int crc = block.getInt(dataEnd);
+        int inflatedSize = block.getInt(dataEnd + 4);
+        if (dataStart > dataEnd || inflatedSize < 0 || inflatedSize > MAX_BLOCK_SIZE) {
+            throw new ZipException("Corrupt BGZF block at offset " + offset);
+        }
+
+        byte[] ret = new byte[inflatedSize];
+        Inflater inflater = INFLATER.get();
+        inflater.reset();
+        inflater.setInput(compressed, dataStart, dataEnd - dataStart);
+        try {
+            int n = 0;
+            while (n < inflatedSize && !inflater.finished()) {
+                int inflated = inflater.inflate(ret, n, inflatedSize - n);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                n += inflated;
+            }
+            // The output may be full before the end of the deflate stream has been read
+            if (n != inflatedSize || (!inflater.finished() && inflater.inflate(new byte[1]) > 0)) {
+                throw new ZipException("Corrupt BGZF block at offset " + offset);
+            }
+        } catch (DataFormatException e) {
+            throw new ZipException("Corrupt BGZF block at offset " + offset + ": " + e.getMessage());
+        }
+        CRC32 crc32 = new CRC32();
+        crc32.update(ret);
+        if ((int) crc32.getValue() != crc) {
+            throw new ZipException("CRC mismatch in BGZF block at offset " + offset);
+        }
+        return ret;
+    }
+
+    /**
+     * Deflates {@code length} bytes of {@code data}, at most {@link #MAX_INPUT_SIZE}, into a complete BGZF block.
+     */
+    static byte[] deflate(byte[] data, int length, int level) {
+        byte[] ret = new byte[MAX_BLOCK_SIZE];
+        int dataEnd = deflate(data, length, level, ret);
+        if (dataEnd < 0) {
+            // The input was incompressible, so store it
+            dataEnd = deflate(data, length, Deflater.NO_COMPRESSION, ret);
+        }
+
+        ByteBuffer block = ByteBuffer.wrap(ret).order(ByteOrder.LITTLE_ENDIAN);
+        block.put(EOF_BLOCK, 0, 16);
+        block.putShort(16, (short) (dataEnd + TRAILER_SIZE - 1));
+        CRC32 crc32 = new CRC32();
+        crc32.update(data, 0, length);
+        block.putInt(dataEnd, (int) crc32.getValue());
+        block.putInt(dataEnd + 4, length);
+        return Arrays.copyOf(ret, dataEnd + TRAILER_SIZE);
+    }
+
+    /**
+     * @return the end of the compressed data in {@code block}, or -1 if it does not fit
+     */
+    private static int deflate(byte[] data, int length, int level, byte[] block) {
+        Deflater[] deflaters = DEFLATERS.get();
+        Deflater deflater = deflaters[level + 1];
+        if (deflater == null) {
+            deflater = new Deflater(level, true);
+            deflaters[level + 1] = deflater;
+        }
+        deflater.reset();
+        deflater.setInput(data, 0, length);
+        deflater.finish();
+        int n = HEADER_SIZE;
+        int limit = block.length - TRAILER_SIZE;
+        while (!deflater.finished() && n < limit) {
+            n += deflater.deflate(block, n, limit - n);
+        }
+        return deflater.finished() ? n : -1;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, offset + buffer.position());
+            if (read < 0) {
+                return;
+            }
+        }
+    }
+}
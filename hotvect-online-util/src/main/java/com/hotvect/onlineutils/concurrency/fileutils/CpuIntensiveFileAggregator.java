@@ -91,7 +91,8 @@ public class CpuIntensiveFileAggregator<S, Z> extends VerboseCallable<Z> {
                 // For text files, return String stream (cast to S)
                 return (Stream<S>) readData(sources);
             case AVRO:
-                // For Avro files, we need to create a proper GenericRecord stream
+            case PARQUET:
+                // For Avro and Parquet files, we need to create a proper GenericRecord stream
                 return sources.stream()
                     .flatMap(file -> {
                         try {
@@ -105,7 +106,7 @@ public class CpuIntensiveFileAggregator<S, Z> extends VerboseCallable<Z> {
                             }
                             return records.stream();
                         } catch (Exception e) {
-                            throw new RuntimeException("Failed to read Avro file: " + file, e);
+                            throw new RuntimeException("Failed to read " + fileFormat + " file: " + file, e);
                         }
                     });
             default:
@@ -24,7 +24,14 @@ public enum FileFormat {
      * Records are read as org.apache.avro.generic.GenericRecord.
      * Avro files have built-in compression support (including Snappy).
      */
-    AVRO(ImmutableSet.of(".avro"));
+    AVRO(ImmutableSet.of(".avro")),
+
+    /**
+     * Apache Parquet columnar format (.parquet files).
+     * Records are read as org.apache.avro.generic.GenericRecord, like Avro.
+     * Row groups can be read in parallel, and only the requested columns are read.
+     */
+    PARQUET(ImmutableSet.of(".parquet"));
 
     private final ImmutableSet<String> extensions;
 
@@ -108,6 +115,32 @@ public enum FileFormat {
         return formats.iterator().next();
     }
 
+    /**
+     * Checks that the optional dependencies needed to read files of this format are on the classpath. Parquet
+     * support depends on parquet-avro and the Hadoop client, which hotvect-online-util declares as optional.
+     *
+     * @throws IllegalStateException if they are missing
+     */
+    void checkReadable() {
+        if (this == PARQUET && !isOnClasspath("org.apache.parquet.avro.AvroParquetReader", "org.apache.hadoop.conf.Configuration")) {
+            throw new IllegalStateException(
+                "Reading Parquet files requires org.apache.parquet:parquet-avro, org.apache.hadoop:hadoop-client-api "
+                + "and org.apache.hadoop:hadoop-client-runtime on the classpath"
+            );
+        }
+    }
+
+    private static boolean isOnClasspath(String... classNames) {
+        for (String className : classNames) {
+            try {
+                Class.forName(className, false, FileFormat.class.getClassLoader());
+            } catch (ClassNotFoundException | LinkageError e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public ImmutableSet<String> getExtensions() {
         return extensions;
     }
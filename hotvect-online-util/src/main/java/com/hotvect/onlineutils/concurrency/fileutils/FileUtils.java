@@ -13,24 +13,36 @@ import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Spliterator;
 import java.util.Spliterators;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
-import java.util.zip.GZIPInputStream;
 
 public class FileUtils {
     public static BufferedReader toBufferedReader(File source){
         try {
             //noinspection UnstableApiUsage
             String ext = Files.getFileExtension(source.toPath().getFileName().toString());
-            InputStream file = java.nio.file.Files.newInputStream(source.toPath(), StandardOpenOption.READ);
-            InputStream spout = "gz".equalsIgnoreCase(ext) ? new GZIPInputStream(file, 128 << 10) : file;
+            InputStream spout = "gz".equalsIgnoreCase(ext)
+                    ? ParallelGzipInputStream.open(source)
+                    : java.nio.file.Files.newInputStream(source.toPath(), StandardOpenOption.READ);
             return new BufferedReader(new InputStreamReader(spout, StandardCharsets.UTF_8), 128 * 1024);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * Opens a buffered stream writing to {@code dest}. Files with a {@code .gz} extension are compressed into BGZF
+     * blocks with {@link ParallelGzipOutputStream}, so that {@link #toBufferedReader(File)} can read them in parallel.
+     */
+    public static OutputStream toBufferedOutputStream(File dest) throws IOException {
+        //noinspection UnstableApiUsage
+        String ext = Files.getFileExtension(dest.toPath().getFileName().toString());
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(dest), 128 << 10);
+        return "gz".equalsIgnoreCase(ext) ? new ParallelGzipOutputStream(out) : out;
+    }
+
     public static Stream<String> readLines(File source) {
         return toBufferedReader(source).lines();
     }
@@ -76,7 +88,23 @@ public class FileUtils {
         }
 
         FileFormat.validateUniformFormat(files);
-        MultiFileRecordIterator<T> iterator = new MultiFileRecordIterator<>(files);
+        MultiFileRecordIterator<T> iterator = new MultiFileRecordIterator<>(files, RecordReader::create);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+                .onClose(iterator::close);
+    }
+
+    /**
+     * Reads the records of {@code sources} as text: lines of text files, and Avro and Parquet records rendered by
+     * {@link GenericRecordJson}.
+     */
+    public static Stream<String> readTextData(List<File> sources) {
+        List<File> files = flattenFiles(sources);
+        if (files.isEmpty()) {
+            return Stream.empty();
+        }
+
+        FileFormat.validateUniformFormat(files);
+        MultiFileRecordIterator<String> iterator = new MultiFileRecordIterator<>(files, file -> GenericRecordJson.textReader(file, null));
         return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
                 .onClose(iterator::close);
     }
@@ -87,11 +115,13 @@ public class FileUtils {
 
     private static final class MultiFileRecordIterator<T> implements Iterator<T>, AutoCloseable {
         private final List<File> files;
+        private final Function<File, RecordReader<T>> readerFactory;
         private int fileIndex = 0;
         private RecordReader<T> currentReader;
 
-        private MultiFileRecordIterator(List<File> files) {
+        private MultiFileRecordIterator(List<File> files, Function<File, RecordReader<T>> readerFactory) {
             this.files = files;
+            this.readerFactory = readerFactory;
         }
 
         @Override
@@ -106,7 +136,7 @@ public class FileUtils {
                     return false;
                 }
 
-                currentReader = RecordReader.create(files.get(fileIndex++));
+                currentReader = readerFactory.apply(files.get(fileIndex++));
             }
         }
 
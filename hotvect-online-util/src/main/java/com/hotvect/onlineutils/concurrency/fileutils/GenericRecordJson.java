@@ -0,0 +1,130 @@
+package com.hotvect.onlineutils.concurrency.fileutils;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericEnumSymbol;
+import org.apache.avro.generic.GenericFixed;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.generic.IndexedRecord;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Renders Avro and Parquet records as JSON lines, so that decoders of JSON text can read them without converting the
+ * files first. Fields are written in schema order, null fields included. Strings, enums and map keys are written as
+ * strings, and bytes and fixed values as base64 strings.
+ */
+public final class GenericRecordJson {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private GenericRecordJson() {
+    }
+
+    public static String toJson(GenericRecord record) {
+        StringWriter out = new StringWriter(256);
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+            write(generator, record);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to render record as JSON", e);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Returns a reader of the records of {@code file} as text: lines for text files, and JSON lines for Avro and
+     * Parquet files.
+     *
+     * @param columns the top-level Parquet columns to read, or null to read all of them
+     */
+    static RecordReader<String> textReader(File file, Set<String> columns) {
+        FileFormat format = FileFormat.detectFormat(file);
+        return switch (format) {
+            case TEXT -> new TextRecordReader(file);
+            case AVRO -> new JsonRecordReader(new AvroRecordReader(file));
+            case PARQUET -> new JsonRecordReader(new ParquetRecordReader(file, columns));
+        };
+    }
+
+    static RecordReader<String> asJson(RecordReader<GenericRecord> reader) {
+        return new JsonRecordReader(reader);
+    }
+
+    private static void write(JsonGenerator generator, Object value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof IndexedRecord record) {
+            generator.writeStartObject();
+            for (Schema.Field field : record.getSchema().getFields()) {
+                generator.writeFieldName(field.name());
+                write(generator, record.get(field.pos()));
+            }
+            generator.writeEndObject();
+        } else if (value instanceof CharSequence || value instanceof Enum<?> || value instanceof GenericEnumSymbol<?>) {
+            generator.writeString(value.toString());
+        } else if (value instanceof Integer i) {
+            generator.writeNumber(i);
+        } else if (value instanceof Long l) {
+            generator.writeNumber(l);
+        } else if (value instanceof Float f) {
+            generator.writeNumber(f);
+        } else if (value instanceof Double d) {
+            generator.writeNumber(d);
+        } else if (value instanceof Boolean b) {
+            generator.writeBoolean(b);
+        } else if (value instanceof ByteBuffer buffer) {
+            ByteBuffer duplicate = buffer.duplicate();
+            byte[] bytes = new byte[duplicate.remaining()];
+            duplicate.get(bytes);
+            generator.writeBinary(bytes);
+        } else if (value instanceof GenericFixed fixed) {
+            generator.writeBinary(fixed.bytes());
+        } else if (value instanceof Map<?, ?> map) {
+            generator.writeStartObject();
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                generator.writeFieldName(String.valueOf(entry.getKey()));
+                write(generator, entry.getValue());
+            }
+            generator.writeEndObject();
+        } else if (value instanceof Collection<?> collection) {
+            generator.writeStartArray();
+            for (Object element : collection) {
+                write(generator, element);
+            }
+            generator.writeEndArray();
+        } else {
+            // Values of logical types with conversions, e.g. BigDecimal or Instant
+            generator.writeString(value.toString());
+        }
+    }
+
+    private static final class JsonRecordReader implements RecordReader<String> {
+        private final RecordReader<GenericRecord> reader;
+
+        private JsonRecordReader(RecordReader<GenericRecord> reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return reader.hasNext();
+        }
+
+        @Override
+        public String next() {
+            return toJson(reader.next());
+        }
+
+        @Override
+        public void close() throws Exception {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.hotvect.onlineutils.concurrency.fileutils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * RecordReader for uncompressed text files that reads the file through memory mappings instead of a
+ * {@link java.io.BufferedReader}, and can read a {@link Chunk} of a file, so that several threads can read one large
+ * file in parallel.
+ *
+ * <p>Lines are split like {@link java.io.BufferedReader#readLine()} does, at {@code \n}, {@code \r} or {@code \r\n},
+ * and decoded as UTF-8. {@link #chunks(File, long)} splits a file after {@code \n} bytes only, which never occur
+ * within a multi-byte UTF-8 character, so reading all chunks of a file yields the same lines as reading it whole.</p>
+ *
+ * <p>The file is mapped in windows of up to 1 GB, so files larger than 2 GB can be read. The
+ * mappings are released when they are garbage collected.</p>
+ */
+public class MappedTextRecordReader implements RecordReader<String> {
+    public static final long DEFAULT_CHUNK_SIZE = 64L << 20;
+    static final int WINDOW_SIZE = 1 << 30;
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /**
+     * A range of a file that starts at the beginning of a line and ends after a line terminator or at the end of the
+     * file.
+     */
+    public record Chunk(File file, long start, long end) {
+        public long length() {
+            return end - start;
+        }
+    }
+
+    private final FileChannel channel;
+    private final long end;
+    // Position in the file of the next byte to copy into the buffer
+    private long position;
+    private MappedByteBuffer window;
+    private long windowStart;
+
+    private byte[] buffer = new byte[BUFFER_SIZE];
+    private int bufferStart;
+    private int bufferEnd;
+    private String nextLine;
+
+    public MappedTextRecordReader(File file) {
+        this(new Chunk(file, 0, file.length()));
+    }
+
+    public MappedTextRecordReader(Chunk chunk) {
+        checkArgument(chunk.start() >= 0 && chunk.start() <= chunk.end(), "Invalid chunk: %s", chunk);
+        try {
+            this.channel = FileChannel.open(chunk.file().toPath(), StandardOpenOption.READ);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open file: " + chunk.file(), e);
+        }
+        this.end = Math.min(chunk.end(), size(channel, chunk.file()));
+        this.position = chunk.start();
+        this.nextLine = readLine();
+    }
+
+    /**
+     * Returns whether {@code file} is a text file that can be memory mapped, which excludes compressed files.
+     */
+    public static boolean isMappable(File file) {
+        return FileFormat.detectFormat(file) == FileFormat.TEXT && !file.getName().toLowerCase().endsWith(".gz");
+    }
+
+    /**
+     * Splits {@code file} into chunks of about {@code targetChunkSize} bytes, each of which ends after a line.
+     */
+    public static List<Chunk> chunks(File file, long targetChunkSize) {
+        checkArgument(targetChunkSize > 0, "targetChunkSize must be positive: %s", targetChunkSize);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            List<Chunk> ret = new ArrayList<>();
+            long start = 0;
+            while (start < size) {
+                long end = start + targetChunkSize >= size ? size : lineStartAtOrAfter(channel, start + targetChunkSize, size);
+                ret.add(new Chunk(file, start, end));
+                start = end;
+            }
+            return ret;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to split file: " + file, e);
+        }
+    }
+
+    /**
+     * Returns the first position at or after {@code position} that directly follows a {@code \n}, or {@code size}.
+     */
+    private static long lineStartAtOrAfter(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer scan = ByteBuffer.allocate(64 << 10);
+        long offset = position - 1;
+        while (offset < size) {
+            scan.clear();
+            int read = channel.read(scan, offset);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (scan.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+            offset += read;
+        }
+        return size;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return nextLine != null;
+    }
+
+    @Override
+    public String next() {
+        if (nextLine == null) {
+            throw new NoSuchElementException();
+        }
+        String ret = nextLine;
+        nextLine = readLine();
+        return ret;
+    }
+
+    /**
+     * Appends up to {@code maxLines} lines to {@code batch}.
+     *
+     * @return the number of lines appended, which is zero only at the end of the chunk
+     */
+    public int nextBatch(List<String> batch, int maxLines) {
+        int ret = 0;
+        while (ret < maxLines && nextLine != null) {
+            batch.add(nextLine);
+            nextLine = readLine();
+            ret++;
+        }
+        return ret;
+    }
+
+    @Override
+    public void close() {
+        window = null;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to close reader", e);
+        }
+    }
+
+    private String readLine() {
+        int scanFrom = bufferStart;
+        while (true) {
+            for (int i = scanFrom; i < bufferEnd; i++) {
+                byte b = buffer[i];
+                if (b == '\n' || b == '\r') {
+                    if (b == '\r' && i + 1 == bufferEnd && position < end) {
+                        // Whether the line ends with \r or \r\n depends on the next byte
+                        int shift = fill();
+                        i -= shift;
+                    }
+                    String line = new String(buffer, bufferStart, i - bufferStart, StandardCharsets.UTF_8);
+                    bufferStart = b == '\r' && i + 1 < bufferEnd && buffer[i + 1] == '\n' ? i + 2 : i + 1;
+                    return line;
+                }
+            }
+            if (position >= end) {
+                if (bufferStart < bufferEnd) {
+                    String line = new String(buffer, bufferStart, bufferEnd - bufferStart, StandardCharsets.UTF_8);
+                    bufferStart = bufferEnd;
+                    return line;
+                }
+                return null;
+            }
+            int scanned = bufferEnd - bufferStart;
+            fill();
+            scanFrom = bufferStart + scanned;
+        }
+    }
+
+    /**
+     * Moves the unread bytes to the start of the buffer, growing it if they fill it, and copies more bytes after them.
+     *
+     * @return how far the unread bytes moved towards the start of the buffer
+     */
+    private int fill() {
+        int shift = bufferStart;
+        int unread = bufferEnd - bufferStart;
+        if (unread == buffer.length) {
+            checkArgument(buffer.length < Integer.MAX_VALUE / 2, "Line is too long");
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        } else if (shift > 0) {
+            System.arraycopy(buffer, bufferStart, buffer, 0, unread);
+        }
+        bufferStart = 0;
+        bufferEnd = unread;
+
+        if (window == null || position >= windowStart + window.capacity()) {
+            windowStart = position;
+            try {
+                window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, Math.min(WINDOW_SIZE, end - windowStart));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to map file", e);
+            }
+        }
+        int length = (int) Math.min(buffer.length - bufferEnd, windowStart + window.capacity() - position);
+        window.get((int) (position - windowStart), buffer, bufferEnd, length);
+        bufferEnd += length;
+        position += length;
+        return shift;
+    }
+
+    private static long size(FileChannel channel, File file) {
+        try {
+            return channel.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read size of file: " + file, e);
+        }
+    }
+}
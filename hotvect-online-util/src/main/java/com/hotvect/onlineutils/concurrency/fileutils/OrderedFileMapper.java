@@ -24,7 +24,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Stream;
 
-import static com.hotvect.onlineutils.concurrency.fileutils.FileUtils.readData;
+import static com.hotvect.onlineutils.concurrency.fileutils.FileUtils.readTextData;
 
 
 public class OrderedFileMapper extends VerboseCallable<Map<String, Object>> {
@@ -112,7 +112,7 @@ public class OrderedFileMapper extends VerboseCallable<Map<String, Object>> {
         CpuIntensiveMapper<String, List<ByteBuffer>> processor = new CpuIntensiveMapper<>(meterRegistry, flatmapTransformation, nThreads, queueSize, batchSize);
 
 
-        try (Stream<String> source = readData(this.source)) {
+        try (Stream<String> source = readTextData(this.source)) {
             Throwable failure = null;
             try {
                 // Render %d pattern to 0 for ordered single-file mode
@@ -130,7 +130,8 @@ public class OrderedFileMapper extends VerboseCallable<Map<String, Object>> {
                     }
                 }
 
-                try (OutputStream out = new BufferedOutputStream(new FileOutputStream(actualDest), 128 << 10)) {
+                // .gz destinations are written as BGZF, like the part files of UnorderedFileWriter
+                try (OutputStream out = FileUtils.toBufferedOutputStream(actualDest)) {
                     process(source, processor, out, sampleCount);
                 }
             } catch (Throwable e) {
@@ -0,0 +1,152 @@
+package com.hotvect.onlineutils.concurrency.fileutils;
+
+import com.google.common.base.Throwables;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Decompresses BGZF files, such as those written by {@link ParallelGzipOutputStream}, by inflating several blocks
+ * concurrently ahead of the reader. Blocks are returned in file order.
+ *
+ * <p>Use {@link #open(File)}, which falls back to a streaming {@link GZIPInputStream} for other gzip files. The
+ * members of those can only be found by inflating the members before them. If a BGZF file is followed by other gzip
+ * members, the rest of the file is streamed as well. Set {@code -Dhotvect.gzip.parallel=false} to always stream.</p>
+ */
+public class ParallelGzipInputStream extends InputStream {
+    private static final boolean PARALLEL = Boolean.parseBoolean(System.getProperty("hotvect.gzip.parallel", "true"));
+    private static final int STREAMING_BUFFER_SIZE = 128 << 10;
+    private static final int DEFAULT_READ_AHEAD = 4 * Runtime.getRuntime().availableProcessors();
+
+    private final FileChannel channel;
+    private final long size;
+    private final int readAhead;
+    private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+    // Offset of the next block to schedule
+    private long offset;
+    private InputStream tail;
+
+    private byte[] current;
+    private int currentPosition;
+
+    /**
+     * Opens a gzip file, in parallel if it is a BGZF file.
+     */
+    public static InputStream open(File file) throws IOException {
+        if (PARALLEL) {
+            FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            try {
+                if (Bgzf.blockSize(channel, 0) > 0) {
+                    return new ParallelGzipInputStream(channel, DEFAULT_READ_AHEAD);
+                }
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+            channel.close();
+        }
+        return new GZIPInputStream(Files.newInputStream(file.toPath(), StandardOpenOption.READ), STREAMING_BUFFER_SIZE);
+    }
+
+    /**
+     * @param readAhead how many blocks to inflate ahead of the reader
+     */
+    public ParallelGzipInputStream(File file, int readAhead) throws IOException {
+        this(FileChannel.open(file.toPath(), StandardOpenOption.READ), readAhead);
+    }
+
+    private ParallelGzipInputStream(FileChannel channel, int readAhead) throws IOException {
+        checkArgument(readAhead > 0, "readAhead must be positive: %s", readAhead);
+        this.channel = channel;
+        this.size = channel.size();
+        this.readAhead = readAhead;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] one = new byte[1];
+        int n = read(one, 0, 1);
+        return n < 0 ? -1 : one[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        if (len == 0) {
+            return 0;
+        }
+        while (current == null || currentPosition == current.length) {
+            if (!nextBlock()) {
+                return tail == null ? -1 : tail.read(b, off, len);
+            }
+        }
+        int n = Math.min(len, current.length - currentPosition);
+        System.arraycopy(current, currentPosition, b, off, n);
+        currentPosition += n;
+        return n;
+    }
+
+    private boolean nextBlock() throws IOException {
+        schedule();
+        Future<byte[]> next = pending.pollFirst();
+        if (next == null) {
+            return false;
+        }
+        try {
+            current = next.get();
+            currentPosition = 0;
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while inflating");
+        } catch (ExecutionException e) {
+            Throwables.throwIfInstanceOf(e.getCause(), IOException.class);
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private void schedule() throws IOException {
+        while (tail == null && pending.size() < readAhead && offset < size) {
+            long blockOffset = offset;
+            int blockSize = Bgzf.blockSize(channel, blockOffset);
+            if (blockSize < 0) {
+                // Not BGZF, so stream the rest after the scheduled blocks
+                channel.position(blockOffset);
+                tail = new GZIPInputStream(Channels.newInputStream(channel), STREAMING_BUFFER_SIZE);
+                return;
+            }
+            pending.addLast(Bgzf.POOL.submit(() -> Bgzf.inflate(channel, blockOffset, blockSize)));
+            offset += blockSize;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Future<byte[]> future : pending) {
+            future.cancel(false);
+        }
+        pending.clear();
+        current = null;
+        try {
+            if (tail != null) {
+                tail.close();
+            }
+        } finally {
+            channel.close();
+        }
+    }
+}
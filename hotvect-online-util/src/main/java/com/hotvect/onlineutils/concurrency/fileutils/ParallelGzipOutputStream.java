@@ -0,0 +1,128 @@
+package com.hotvect.onlineutils.concurrency.fileutils;
+
+import com.google.common.base.Throwables;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.zip.Deflater;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Compresses into BGZF blocks of up to 64 KB, deflating several blocks concurrently. The output is valid gzip, and
+ * {@link ParallelGzipInputStream} can decompress it in parallel. {@link #flush()} ends the current block, so flushing
+ * often makes the output larger.
+ */
+public class ParallelGzipOutputStream extends OutputStream {
+    private static final int DEFAULT_MAX_PENDING = 4 * Runtime.getRuntime().availableProcessors();
+
+    private final OutputStream out;
+    private final int level;
+    private final int maxPending;
+    private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+    private byte[] buffer = new byte[Bgzf.MAX_INPUT_SIZE];
+    private int count;
+    private boolean closed;
+
+    public ParallelGzipOutputStream(OutputStream out) {
+        this(out, Deflater.DEFAULT_COMPRESSION, DEFAULT_MAX_PENDING);
+    }
+
+    /**
+     * @param level      the deflate compression level, -1 to 9
+     * @param maxPending how many blocks to deflate concurrently before the writer waits
+     */
+    public ParallelGzipOutputStream(OutputStream out, int level, int maxPending) {
+        checkArgument(level >= Deflater.DEFAULT_COMPRESSION && level <= Deflater.BEST_COMPRESSION, "Invalid compression level: %s", level);
+        checkArgument(maxPending > 0, "maxPending must be positive: %s", maxPending);
+        this.out = out;
+        this.level = level;
+        this.maxPending = maxPending;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        buffer[count++] = (byte) b;
+        if (count == buffer.length) {
+            submit();
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        while (len > 0) {
+            int n = Math.min(len, buffer.length - count);
+            System.arraycopy(b, off, buffer, count, n);
+            count += n;
+            off += n;
+            len -= n;
+            if (count == buffer.length) {
+                submit();
+            }
+        }
+    }
+
+    private void submit() throws IOException {
+        byte[] data = buffer;
+        int length = count;
+        pending.addLast(Bgzf.POOL.submit(() -> Bgzf.deflate(data, length, level)));
+        buffer = new byte[Bgzf.MAX_INPUT_SIZE];
+        count = 0;
+        while (pending.size() >= maxPending) {
+            writeNext();
+        }
+    }
+
+    private void writeNext() throws IOException {
+        try {
+            out.write(pending.removeFirst().get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while deflating");
+        } catch (ExecutionException e) {
+            Throwables.throwIfInstanceOf(e.getCause(), IOException.class);
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Ends the current block and writes every pending block.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (count > 0) {
+            submit();
+        }
+        while (!pending.isEmpty()) {
+            writeNext();
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes the remaining blocks and the BGZF end-of-file marker, and closes the underlying stream.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flush();
+            out.write(Bgzf.EOF_BLOCK);
+        } finally {
+            for (Future<byte[]> future : pending) {
+                future.cancel(false);
+            }
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.hotvect.onlineutils.concurrency.fileutils;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.avro.AvroParquetReader;
+import org.apache.parquet.avro.AvroReadSupport;
+import org.apache.parquet.avro.AvroSchemaConverter;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.FileMetaData;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.apache.parquet.io.InputFile;
+import org.apache.parquet.io.LocalInputFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * RecordReader implementation for Apache Parquet files (.parquet files).
+ * Reads records as GenericRecord objects, like {@link AvroRecordReader}.
+ * Can read a single {@link RowGroup}, so that the row groups of a file can be read in parallel,
+ * and can read only some top-level columns.
+ */
+class ParquetRecordReader implements RecordReader<GenericRecord> {
+    // Key under which parquet-avro stores the Avro schema in the footer (package-private in AvroReadSupport)
+    private static final String AVRO_SCHEMA_METADATA_KEY = "parquet.avro.schema";
+
+    /**
+     * A row group of a Parquet file, identified by the byte range of its column chunks.
+     */
+    record RowGroup(File file, long start, long end, long rowCount) {
+    }
+
+    private final ParquetReader<GenericRecord> reader;
+    private GenericRecord next;
+
+    public ParquetRecordReader(File file) {
+        this(file, 0, Long.MAX_VALUE, null);
+    }
+
+    /**
+     * @param columns the top-level columns to read, or null to read all of them
+     */
+    public ParquetRecordReader(File file, Set<String> columns) {
+        this(file, 0, Long.MAX_VALUE, columns);
+    }
+
+    /**
+     * @param columns the top-level columns to read, or null to read all of them
+     */
+    public ParquetRecordReader(RowGroup rowGroup, Set<String> columns) {
+        this(rowGroup.file(), rowGroup.start(), rowGroup.end(), columns);
+    }
+
+    private ParquetRecordReader(File file, long start, long end, Set<String> columns) {
+        try {
+            InputFile inputFile = new LocalInputFile(file.toPath());
+            Configuration conf = new Configuration(false);
+            if (columns != null) {
+                Schema projection = projection(inputFile, conf, columns);
+                AvroReadSupport.setRequestedProjection(conf, projection);
+                AvroReadSupport.setAvroReadSchema(conf, projection);
+            }
+            this.reader = AvroParquetReader.<GenericRecord>builder(inputFile)
+                    .withDataModel(GenericData.get())
+                    .withConf(conf)
+                    // Reads the row groups whose midpoint falls in the range
+                    .withFileRange(start, end)
+                    .build();
+            this.next = reader.read();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open Parquet file: " + file, e);
+        }
+    }
+
+    /**
+     * Lists the row groups of {@code file}.
+     */
+    static List<RowGroup> rowGroups(File file) {
+        try (ParquetFileReader fileReader = ParquetFileReader.open(new LocalInputFile(file.toPath()))) {
+            ParquetMetadata footer = fileReader.getFooter();
+            List<RowGroup> ret = new ArrayList<>(footer.getBlocks().size());
+            for (BlockMetaData block : footer.getBlocks()) {
+                ret.add(new RowGroup(file, block.getStartingPos(), block.getStartingPos() + block.getCompressedSize(), block.getRowCount()));
+            }
+            return ret;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read Parquet footer: " + file, e);
+        }
+    }
+
+    private static Schema projection(InputFile inputFile, Configuration conf, Set<String> columns) throws IOException {
+        Schema schema;
+        try (ParquetFileReader fileReader = ParquetFileReader.open(inputFile)) {
+            FileMetaData metadata = fileReader.getFooter().getFileMetaData();
+            // Files written from Avro keep the original schema, with its logical types
+            String avroSchema = metadata.getKeyValueMetaData().get(AVRO_SCHEMA_METADATA_KEY);
+            schema = avroSchema != null
+                    ? new Schema.Parser().parse(avroSchema)
+                    : new AvroSchemaConverter(conf).convert(metadata.getSchema());
+        }
+        List<Schema.Field> fields = new ArrayList<>(columns.size());
+        for (Schema.Field field : schema.getFields()) {
+            if (columns.contains(field.name())) {
+                fields.add(new Schema.Field(field, field.schema()));
+            }
+        }
+        if (fields.size() != columns.size()) {
+            List<String> missing = new ArrayList<>(columns);
+            schema.getFields().forEach(field -> missing.remove(field.name()));
+            throw new IllegalArgumentException("Columns " + missing + " do not exist in " + inputFile);
+        }
+        return Schema.createRecord(schema.getName(), schema.getDoc(), schema.getNamespace(), false, fields);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return next != null;
+    }
+
+    @Override
+    public GenericRecord next() {
+        if (next == null) {
+            throw new NoSuchElementException();
+        }
+        GenericRecord ret = next;
+        try {
+            next = reader.read();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read Parquet record", e);
+        }
+        return ret;
+    }
+
+    @Override
+    public void close() {
+        try {
+            reader.close();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to close Parquet reader", e);
+        }
+    }
+}
@@ -20,12 +20,31 @@ public interface RecordReader<T> extends Iterator<T>, AutoCloseable {
      * @param <T> the record type
      * @return a RecordReader instance
      */
-    @SuppressWarnings("unchecked")
     static <T> RecordReader<T> create(File file) {
+        return create(file, false);
+    }
+
+    /**
+     * Creates a RecordReader for the given file, auto-detecting the format.
+     *
+     * @param file the file to read
+     * @param memoryMapped whether to read uncompressed text files with a {@link MappedTextRecordReader}
+     * @param <T> the record type
+     * @return a RecordReader instance
+     */
+    @SuppressWarnings("unchecked")
+    static <T> RecordReader<T> create(File file, boolean memoryMapped) {
         FileFormat format = FileFormat.detectFormat(file);
         return switch (format) {
-            case TEXT -> (RecordReader<T>) new TextRecordReader(file);
+            case TEXT -> memoryMapped && MappedTextRecordReader.isMappable(file)
+                    ? (RecordReader<T>) new MappedTextRecordReader(file)
+                    : (RecordReader<T>) new TextRecordReader(file);
             case AVRO -> (RecordReader<T>) new AvroRecordReader(file);
+            case PARQUET -> {
+                // ParquetRecordReader, and with it the optional Parquet dependencies, is only loaded here
+                format.checkReadable();
+                yield (RecordReader<T>) new ParquetRecordReader(file);
+            }
         };
     }
 }
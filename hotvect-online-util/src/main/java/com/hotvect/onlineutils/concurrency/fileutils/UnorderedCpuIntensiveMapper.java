@@ -91,8 +91,7 @@ class UnorderedCpuIntensiveMapper<X, Y> {
                 try {
                     // Make sure you check for done BEFORE you poll the queue
                     var readDone = UnorderedCpuIntensiveMapper.this.state.isReadDone();
-                    List<X> batch = new ArrayList<>(UnorderedCpuIntensiveMapper.this.batchSize);
-                    UnorderedCpuIntensiveMapper.this.state.getReadQueue().drainTo(batch, UnorderedCpuIntensiveMapper.this.batchSize);
+                    List<X> batch = UnorderedCpuIntensiveMapper.this.state.pollBatch(UnorderedCpuIntensiveMapper.this.batchSize);
                     if (batch.isEmpty() && readDone) {
                         // No more data to process
                         log.debug("Processor task has no more data to process. Terminating. Data processed so far:{}", UnorderedCpuIntensiveMapper.this.recordCount.sum());
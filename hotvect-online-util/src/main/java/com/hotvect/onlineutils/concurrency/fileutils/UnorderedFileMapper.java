@@ -20,6 +20,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
@@ -47,6 +48,9 @@ public class UnorderedFileMapper<T> extends VerboseCallable<Map<String, Object>>
     private final Integer writeQueueSize;
     private final Integer nReaderThreads;
     private final Integer numberOfShards;
+    private final boolean memoryMapped;
+    private final Set<String> columns;
+    private final boolean recordsAsJson;
 
     /**
      * Creates an UnorderedFileMapper using provided parameters from the Builder.
@@ -65,6 +69,9 @@ public class UnorderedFileMapper<T> extends VerboseCallable<Map<String, Object>>
         this.writeQueueSize = builder.writeQueueSize;
         this.nReaderThreads = builder.nReaderThreads;
         this.numberOfShards = builder.numberOfShards;
+        this.memoryMapped = builder.memoryMapped;
+        this.columns = builder.columns;
+        this.recordsAsJson = builder.recordsAsJson;
     }
 
     /**
@@ -126,6 +133,9 @@ public class UnorderedFileMapper<T> extends VerboseCallable<Map<String, Object>>
         this.writeQueueSize = null;
         this.nReaderThreads = null;
         this.numberOfShards = null;
+        this.memoryMapped = false;
+        this.columns = null;
+        this.recordsAsJson = false;
     }
 
     /**
@@ -150,7 +160,8 @@ public class UnorderedFileMapper<T> extends VerboseCallable<Map<String, Object>>
         UnorderedMultiFileReader<T> reader = new UnorderedMultiFileReader<>(
                 actualReadQueueSize,
                 this.source,
-                actualNReaderThreads
+                actualNReaderThreads,
+                new UnorderedMultiFileReader.ReadOptions(this.memoryMapped, this.batchSize, this.columns, this.recordsAsJson)
         );
 
         MultiFileState<T, ByteBuffer> state = new MultiFileState<>(reader.getReadState(), actualWriteQueueSize);
@@ -216,6 +227,7 @@ public class UnorderedFileMapper<T> extends VerboseCallable<Map<String, Object>>
         metadata.put("unordered_mapper_write_queue_size", actualWriteQueueSize);
         metadata.put("unordered_mapper_reader_threads", actualNReaderThreads);
         metadata.put("unordered_mapper_writer_shards", this.numberOfShards != null ? this.numberOfShards : 1);
+        metadata.put("unordered_mapper_memory_mapped", this.memoryMapped);
 
 
         long end = System.nanoTime();
@@ -272,6 +284,10 @@ public class UnorderedFileMapper<T> extends VerboseCallable<Map<String, Object>>
             return this.readState.getReadQueue();
         }
 
+        public List<X> pollBatch(int maxRecords) {
+            return this.readState.pollBatch(maxRecords);
+        }
+
         public BlockingQueue<ByteBuffer> getWriteQueue() {
             return writeQueue;
         }
@@ -327,6 +343,9 @@ public class UnorderedFileMapper<T> extends VerboseCallable<Map<String, Object>>
         private Integer writeQueueSize = null;
         private Integer nReaderThreads = null;
         private Integer numberOfShards = null;
+        private boolean memoryMapped = false;
+        private Set<String> columns = null;
+        private boolean recordsAsJson = false;
 
         /**
          * Builder constructor with required parameters.
@@ -430,6 +449,43 @@ public class UnorderedFileMapper<T> extends VerboseCallable<Map<String, Object>>
             return this;
         }
 
+        /**
+         * Sets whether uncompressed text files are read through memory mappings. Each file is then split into chunks
+         * that the reader threads read in parallel, and whole batches of lines are handed to the computation threads,
+         * so a few large files are read as fast as many small ones. Compressed and Avro files are read as usual.
+         *
+         * @param memoryMapped whether to memory map uncompressed text files
+         * @return the Builder instance
+         */
+        public Builder<T> memoryMapped(boolean memoryMapped) {
+            this.memoryMapped = memoryMapped;
+            return this;
+        }
+
+        /**
+         * Sets the top-level columns to read from Parquet files. Other columns are not read at all. By default, all
+         * columns are read.
+         *
+         * @param columns the columns to read
+         * @return the Builder instance
+         */
+        public Builder<T> columns(Set<String> columns) {
+            this.columns = Set.copyOf(columns);
+            return this;
+        }
+
+        /**
+         * Sets whether Avro and Parquet records are passed to the transformation as JSON lines, for transformations
+         * that take text. By default, they are passed as {@code GenericRecord}.
+         *
+         * @param recordsAsJson whether to render records as JSON lines
+         * @return the Builder instance
+         */
+        public Builder<T> recordsAsJson(boolean recordsAsJson) {
+            this.recordsAsJson = recordsAsJson;
+            return this;
+        }
+
         /**
          * Builds and returns an UnorderedFileMapper instance.
          *
@@ -32,7 +32,8 @@ import static com.google.common.base.Preconditions.checkState;
  * <p>Output file naming defaults to zero-padded {@code part-%05d<extension>} inside the destination directory.
  * Caller provides the destination directory and file extension; numberOfShards &lt;= 0 is clamped to 1.
  * Empty part files are intentionally omitted: a shard file is created only after its writer thread
- * receives the first record to write.
+ * receives the first record to write. If the extension ends with {@code .gz}, part files are compressed into BGZF
+ * blocks with {@link ParallelGzipOutputStream}.
  */
 public class UnorderedFileWriter {
     private static final Logger log = LoggerFactory.getLogger(UnorderedFileWriter.class);
@@ -138,9 +139,7 @@ public class UnorderedFileWriter {
                     throw new IOException("Failed to create directory: " + parentDir);
                 }
             }
-            return new BufferedOutputStream(new FileOutputStream(shardDest), 128 << 10);
-        } catch (FileNotFoundException e) {
-            throw new RuntimeException(e);
+            return FileUtils.toBufferedOutputStream(shardDest);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
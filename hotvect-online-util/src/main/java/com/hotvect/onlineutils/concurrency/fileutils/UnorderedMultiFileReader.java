@@ -7,6 +7,7 @@ import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.hotvect.onlineutils.concurrency.CallerBlocksPolicy;
 import com.hotvect.onlineutils.util.MetricUtils;
 import com.hotvect.utils.VerboseRunnable;
+import org.apache.avro.generic.GenericRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -16,6 +17,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
@@ -33,6 +35,9 @@ class UnorderedMultiFileReader<X> {
     private long startTime;
     private final ReadState<X> state;
     private final FileFormat fileFormat;
+    private final ReadOptions options;
+    private final LongAdder chunkCounter;
+    private final LongAdder rowGroupCounter;
 
     public ReadState<X> getReadState() {
         return this.state;
@@ -41,17 +46,42 @@ class UnorderedMultiFileReader<X> {
 
     static class ReadState<X> {
         private final BlockingQueue<X> readQueue;
+        // Whole batches handed off by chunk readers, which bypass readQueue
+        private final BlockingQueue<List<X>> batchQueue;
         private volatile boolean readDone;
         private final AtomicReference<Throwable> error = new AtomicReference<>();
 
         ReadState(BlockingQueue<X> readQueue) {
+            this(readQueue, 2);
+        }
+
+        ReadState(BlockingQueue<X> readQueue, int batchQueueSize) {
             this.readQueue = readQueue;
+            this.batchQueue = new LinkedBlockingQueue<>(batchQueueSize);
         }
 
         public BlockingQueue<X> getReadQueue() {
             return readQueue;
         }
 
+        public void putBatch(List<X> batch) throws InterruptedException {
+            batchQueue.put(batch);
+        }
+
+        /**
+         * Returns the next batch handed off as a whole if there is one, and otherwise up to {@code maxRecords} records
+         * from the read queue. Returns an empty list if neither has any records.
+         */
+        public List<X> pollBatch(int maxRecords) {
+            List<X> ret = batchQueue.poll();
+            if (ret != null) {
+                return ret;
+            }
+            ret = new ArrayList<>(maxRecords);
+            readQueue.drainTo(ret, maxRecords);
+            return ret;
+        }
+
         public boolean isReadDone() {
             return readDone;
         }
@@ -81,9 +111,27 @@ class UnorderedMultiFileReader<X> {
         }
     }
 
+    /**
+     * @param memoryMapped  whether to split uncompressed text files into chunks that are read in parallel with
+     *                      {@link MappedTextRecordReader} and handed off in batches of {@code batchSize} lines, which
+     *                      consumers must take with {@link ReadState#pollBatch(int)}
+     * @param columns       the top-level Parquet columns to read, or null to read all of them
+     * @param recordsAsJson whether to read Avro and Parquet records as JSON lines
+     */
+    record ReadOptions(boolean memoryMapped, int batchSize, Set<String> columns, boolean recordsAsJson) {
+        static final ReadOptions DEFAULT = new ReadOptions(false, 1, null, false);
+    }
+
     public UnorderedMultiFileReader(int readQueueSize, List<File> files, int inputThreadNum){
-        this.state = new ReadState<>(new LinkedBlockingQueue<>(readQueueSize));
+        this(readQueueSize, files, inputThreadNum, ReadOptions.DEFAULT);
+    }
+
+    public UnorderedMultiFileReader(int readQueueSize, List<File> files, int inputThreadNum, ReadOptions options){
+        this.state = new ReadState<>(new LinkedBlockingQueue<>(readQueueSize), Math.max(2, readQueueSize / options.batchSize()));
         this.lineCounter = new LongAdder();
+        this.chunkCounter = new LongAdder();
+        this.rowGroupCounter = new LongAdder();
+        this.options = options;
 
         this.service = new ThreadPoolExecutor(
                 inputThreadNum,
@@ -103,6 +151,7 @@ class UnorderedMultiFileReader<X> {
         // Validate that all files have the same format
         if (!this.files.isEmpty()) {
             this.fileFormat = FileFormat.validateUniformFormat(this.files);
+            this.fileFormat.checkReadable();
             log.info("Detected file format: {} for {} files", this.fileFormat, this.files.size());
         } else {
             this.fileFormat = null;
@@ -113,33 +162,88 @@ class UnorderedMultiFileReader<X> {
         this.startTime = System.nanoTime();
         this.handles = new ArrayList<>(files.size());
         for (File file : files) {
-            handles.add(service.submit(new VerboseRunnable() {
-                @Override
-                protected void doRun() throws Exception {
-                    try(RecordReader<X> reader = RecordReader.create(file)){
-                        while (reader.hasNext()) {
-                            X record = reader.next();
-                            lineCounter.increment();
-                            state.getReadQueue().put(record);
-                        }
-                    }catch (Throwable e){
-                        Throwable root = Throwables.getRootCause(e);
-                        if(root instanceof InterruptedException){
-                            log.warn("Reader was interrupted. Aborting.");
-                        } else {
-                            log.error("Error encountered during reading, aborting", e);
-                        }
-                        state.reportError(e);
-                        state.setReadDone();
-                        service.shutdownNow();
-                        throw new RuntimeException(Throwables.getRootCause(e));
-                    }
+            if (options.memoryMapped() && MappedTextRecordReader.isMappable(file)) {
+                for (MappedTextRecordReader.Chunk chunk : MappedTextRecordReader.chunks(file, MappedTextRecordReader.DEFAULT_CHUNK_SIZE)) {
+                    handles.add(service.submit(new ReadTask(() -> readChunk(chunk))));
+                }
+            } else if (fileFormat == FileFormat.PARQUET) {
+                for (ParquetRecordReader.RowGroup rowGroup : ParquetRecordReader.rowGroups(file)) {
+                    handles.add(service.submit(new ReadTask(() -> {
+                        read(new ParquetRecordReader(rowGroup, options.columns()));
+                        rowGroupCounter.increment();
+                    })));
                 }
-            }));
+            } else {
+                handles.add(service.submit(new ReadTask(() -> readFile(file))));
+            }
         }
         service.shutdown();
     }
 
+    private interface ReadAction {
+        void read() throws Exception;
+    }
+
+    private class ReadTask extends VerboseRunnable {
+        private final ReadAction action;
+
+        private ReadTask(ReadAction action) {
+            this.action = action;
+        }
+
+        @Override
+        protected void doRun() throws Exception {
+            try {
+                action.read();
+            } catch (Throwable e) {
+                Throwable root = Throwables.getRootCause(e);
+                if(root instanceof InterruptedException){
+                    log.warn("Reader was interrupted. Aborting.");
+                } else {
+                    log.error("Error encountered during reading, aborting", e);
+                }
+                state.reportError(e);
+                state.setReadDone();
+                service.shutdownNow();
+                throw new RuntimeException(Throwables.getRootCause(e));
+            }
+        }
+    }
+
+    private void readFile(File file) throws Exception {
+        read(RecordReader.create(file));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void read(RecordReader<?> source) throws Exception {
+        RecordReader<?> reader = options.recordsAsJson() && fileFormat != FileFormat.TEXT
+                ? GenericRecordJson.asJson((RecordReader<GenericRecord>) source)
+                : source;
+        try (reader) {
+            while (reader.hasNext()) {
+                X record = (X) reader.next();
+                lineCounter.increment();
+                state.getReadQueue().put(record);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readChunk(MappedTextRecordReader.Chunk chunk) throws InterruptedException {
+        try (MappedTextRecordReader reader = new MappedTextRecordReader(chunk)) {
+            while (true) {
+                List<String> batch = new ArrayList<>(options.batchSize());
+                int read = reader.nextBatch(batch, options.batchSize());
+                if (read == 0) {
+                    break;
+                }
+                lineCounter.add(read);
+                state.putBatch((List<X>) batch);
+            }
+        }
+        chunkCounter.increment();
+    }
+
     public Map<String, Object> awaitTermination(){
         try {
             checkState(service.awaitTermination(10000, TimeUnit.DAYS));
@@ -159,6 +263,12 @@ class UnorderedMultiFileReader<X> {
             double rate = MetricUtils.calculateRate(startTime, System.nanoTime(), linesRead);
             metadata.put("lines_read_at_rate", rate);
             metadata.put("number_of_files_read", this.files.size());
+            if (options.memoryMapped()) {
+                metadata.put("memory_mapped_chunks_read", chunkCounter.sum());
+            }
+            if (fileFormat == FileFormat.PARQUET) {
+                metadata.put("parquet_row_groups_read", rowGroupCounter.sum());
+            }
             return metadata;
         } catch (InterruptedException | ExecutionException e) {
             throw new RuntimeException(Throwables.getRootCause(e));
@@ -0,0 +1,314 @@
+package com.hotvect.onlineutils.featurestore;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.hotvect.api.data.featurestore.FeatureStore;
+import com.hotvect.api.data.featurestore.FeatureStoreResponse;
+import com.hotvect.api.data.featurestore.SimpleFeatureStoreResponse;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A {@link FeatureStore} decorator that keeps recently fetched entities in memory, so that hot entities (e.g. popular
+ * products) are not fetched again for every ranking request.
+ *
+ * <p>Entries are keyed by view name, view version, requested feature names and entity id, and expire after the TTL of
+ * their view. The cache is bounded by weight, where an entity weighs one plus its number of feature values. Entities
+ * that a successful response did not contain are cached as absent, so that unknown ids are not looked up repeatedly.
+ * Entities missing from a response with a request failure are not cached, since they may have failed.</p>
+ *
+ * <p>Concurrent misses for the same key are coalesced: only the first caller fetches it, and the others wait for that
+ * lookup. Cached and fetched entities are merged into one {@link SimpleFeatureStoreResponse}. If any of the lookups a
+ * request depended on had a request failure, the response carries it as a partial failure (or as a failure if no
+ * entity was found), as the delegate would have reported it.</p>
+ *
+ * <p>Cached feature maps are shared between responses and must not be modified. Hits, misses, coalesced misses,
+ * evictions and the number of cached entities are exposed as gauges, tagged with the cache name and a per-process
+ * instance number. {@link #close()} removes the gauges.</p>
+ */
+public class CachingFeatureStore implements FeatureStore {
+    private static final String METRIC_PREFIX = "hotvect.feature.store.cache";
+    private static final AtomicInteger INSTANCE_COUNTER = new AtomicInteger();
+
+    private final FeatureStore delegate;
+    private final long defaultTtlNanos;
+    private final Map<String, Long> viewTtlNanos;
+    private final Ticker ticker;
+    private final Cache<CacheKey, CachedEntity> cache;
+    private final ConcurrentHashMap<CacheKey, CompletableFuture<EntityResult>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalescedMisses = new LongAdder();
+    private final MeterRegistry meterRegistry;
+    private final List<Gauge> gauges;
+
+    private CachingFeatureStore(Builder builder) {
+        this.delegate = builder.delegate;
+        this.defaultTtlNanos = builder.defaultTtl.toNanos();
+        Map<String, Long> viewTtlNanos = new HashMap<>();
+        builder.viewTtls.forEach((view, ttl) -> viewTtlNanos.put(view, ttl.toNanos()));
+        this.viewTtlNanos = Map.copyOf(viewTtlNanos);
+        this.ticker = builder.ticker;
+        long maxTtlNanos = viewTtlNanos.values().stream().mapToLong(Long::longValue).reduce(defaultTtlNanos, Math::max);
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(builder.maximumWeight)
+                .weigher((CacheKey key, CachedEntity value) -> value.weight())
+                // Per-view TTLs are checked on read; this only makes sure that expired entries are eventually dropped
+                .expireAfterWrite(Math.max(maxTtlNanos, 1), TimeUnit.NANOSECONDS)
+                .ticker(builder.ticker)
+                .recordStats()
+                .build();
+        this.meterRegistry = builder.meterRegistry;
+        String instance = Integer.toString(INSTANCE_COUNTER.incrementAndGet());
+        this.gauges = List.of(
+                gauge(builder.name, instance, "hits", "Number of entities served from the cache", x -> x.hits.sum()),
+                gauge(builder.name, instance, "misses", "Number of entities not found in the cache", x -> x.misses.sum()),
+                gauge(builder.name, instance, "coalesced", "Number of misses that waited for a lookup of another request", x -> x.coalescedMisses.sum()),
+                gauge(builder.name, instance, "evictions", "Number of entities evicted for size or expiry", x -> x.cache.stats().evictionCount()),
+                gauge(builder.name, instance, "size", "Number of cached entities", x -> x.cache.size())
+        );
+    }
+
+    /**
+     * @param meterRegistry registry the gauges are published to, until the cache is closed
+     */
+    public static Builder builder(FeatureStore delegate, MeterRegistry meterRegistry) {
+        return new Builder(delegate, meterRegistry);
+    }
+
+    public static class Builder {
+        private final FeatureStore delegate;
+        private String name = "default";
+        private Duration defaultTtl = Duration.ofSeconds(60);
+        private final Map<String, Duration> viewTtls = new HashMap<>();
+        private long maximumWeight = 1_000_000;
+        private Ticker ticker = Ticker.systemTicker();
+        private final MeterRegistry meterRegistry;
+
+        private Builder(FeatureStore delegate, MeterRegistry meterRegistry) {
+            this.delegate = checkNotNull(delegate);
+            this.meterRegistry = checkNotNull(meterRegistry);
+        }
+
+        /**
+         * Used as the {@code cache} tag of the gauges.
+         */
+        public Builder withName(String name) {
+            this.name = checkNotNull(name);
+            return this;
+        }
+
+        /**
+         * TTL of views without a {@link #withViewTtl(String, Duration) view specific} TTL.
+         */
+        public Builder withDefaultTtl(Duration defaultTtl) {
+            checkArgument(!defaultTtl.isNegative(), "defaultTtl must not be negative: %s", defaultTtl);
+            this.defaultTtl = defaultTtl;
+            return this;
+        }
+
+        /**
+         * TTL of the entities of {@code viewName}. A zero TTL disables caching for the view, while concurrent misses
+         * are still coalesced.
+         */
+        public Builder withViewTtl(String viewName, Duration ttl) {
+            checkArgument(!ttl.isNegative(), "ttl must not be negative: %s", ttl);
+            viewTtls.put(checkNotNull(viewName), ttl);
+            return this;
+        }
+
+        /**
+         * Bounds the total weight of the cached entities, where an entity weighs one plus its number of feature values.
+         */
+        public Builder withMaximumWeight(long maximumWeight) {
+            checkArgument(maximumWeight > 0, "maximumWeight must be positive: %s", maximumWeight);
+            this.maximumWeight = maximumWeight;
+            return this;
+        }
+
+        public Builder withTicker(Ticker ticker) {
+            this.ticker = checkNotNull(ticker);
+            return this;
+        }
+
+        public CachingFeatureStore build() {
+            return new CachingFeatureStore(this);
+        }
+    }
+
+    private Gauge gauge(String name, String instance, String metric, String description, ToDoubleFunction<CachingFeatureStore> value) {
+        return Gauge.builder(METRIC_PREFIX + "." + metric, this, value)
+                .description(description)
+                .tag("cache", name)
+                .tag("instance", instance)
+                .register(meterRegistry);
+    }
+
+    private record CacheKey(String viewName, int viewVersion, List<String> featureNames, Map<String, Object> entityId) {}
+
+    /**
+     * @param features null if the entity does not exist
+     */
+    private record CachedEntity(Map<String, Object> features, long expiresAtNanos) {
+        int weight() {
+            return features == null ? 1 : 1 + features.size();
+        }
+    }
+
+    /**
+     * @param features null if the entity does not exist or could not be fetched
+     * @param failure  the request failure of the lookup, if any
+     */
+    private record EntityResult(Map<String, Object> features, String failure) {}
+
+    @Override
+    public CompletableFuture<FeatureStoreResponse> getFeatures(List<Map<String, Object>> ids, String viewName, int viewVersion, String... featureNames) {
+        return getFeatures(ids, viewName, viewVersion, List.of(featureNames));
+    }
+
+    @Override
+    public CompletableFuture<FeatureStoreResponse> getFeatures(List<Map<String, Object>> ids, String viewName, int viewVersion, List<String> featureNames) {
+        try {
+            return getCachedFeatures(ids, viewName, viewVersion, List.copyOf(featureNames));
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(SimpleFeatureStoreResponse.failure(
+                    "Cached lookup for view " + viewName + " failed: " + e));
+        }
+    }
+
+    private CompletableFuture<FeatureStoreResponse> getCachedFeatures(List<Map<String, Object>> ids, String viewName, int viewVersion, List<String> names) {
+        long now = ticker.read();
+        Map<Map<String, Object>, Map<String, Object>> entities = new HashMap<>();
+        List<Map<String, Object>> pendingIds = new ArrayList<>();
+        List<CompletableFuture<EntityResult>> pending = new ArrayList<>();
+        List<CacheKey> missingKeys = new ArrayList<>();
+        List<CompletableFuture<EntityResult>> missing = new ArrayList<>();
+
+        for (Map<String, Object> id : ids) {
+            CacheKey key = new CacheKey(viewName, viewVersion, names, id);
+            CachedEntity cached = cache.getIfPresent(key);
+            if (cached != null && cached.expiresAtNanos() - now > 0) {
+                hits.increment();
+                if (cached.features() != null) {
+                    entities.put(id, cached.features());
+                }
+                continue;
+            }
+            misses.increment();
+            CompletableFuture<EntityResult> lookup = new CompletableFuture<>();
+            CompletableFuture<EntityResult> existing = inFlight.putIfAbsent(key, lookup);
+            if (existing != null) {
+                coalescedMisses.increment();
+                lookup = existing;
+            } else {
+                missingKeys.add(key);
+                missing.add(lookup);
+            }
+            pendingIds.add(id);
+            pending.add(lookup);
+        }
+
+        if (!missingKeys.isEmpty()) {
+            load(viewName, viewVersion, names, missingKeys, missing);
+        }
+        if (pending.isEmpty()) {
+            return CompletableFuture.completedFuture(SimpleFeatureStoreResponse.success(entities));
+        }
+        return CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> merge(entities, pendingIds, pending));
+    }
+
+    private void load(
+            String viewName,
+            int viewVersion,
+            List<String> featureNames,
+            List<CacheKey> keys,
+            List<CompletableFuture<EntityResult>> lookups
+    ) {
+        List<Map<String, Object>> ids = new ArrayList<>(keys.size());
+        for (CacheKey key : keys) {
+            ids.add(key.entityId());
+        }
+        CompletableFuture<FeatureStoreResponse> response;
+        try {
+            response = delegate.getFeatures(ids, viewName, viewVersion, featureNames);
+        } catch (RuntimeException e) {
+            // Violates the feature store contract, but must not leave the coalesced callers waiting
+            response = CompletableFuture.failedFuture(e);
+        }
+        long ttlNanos = viewTtlNanos.getOrDefault(viewName, defaultTtlNanos);
+        response.whenComplete((r, e) -> {
+            String failure = r == null
+                    ? "Lookup for view " + viewName + " failed: " + e
+                    : r.getRequestFailure().orElse(null);
+            long expiresAtNanos = ticker.read() + ttlNanos;
+            for (int i = 0; i < keys.size(); i++) {
+                CacheKey key = keys.get(i);
+                Map<String, Object> features = r == null ? null : r.getEntity(key.entityId());
+                if (ttlNanos > 0 && (features != null || failure == null)) {
+                    // Cache before leaving the in-flight map, so that a concurrent miss finds one or the other
+                    cache.put(key, new CachedEntity(features, expiresAtNanos));
+                }
+                inFlight.remove(key, lookups.get(i));
+                lookups.get(i).complete(new EntityResult(features, features == null ? failure : null));
+            }
+        });
+    }
+
+    private static FeatureStoreResponse merge(
+            Map<Map<String, Object>, Map<String, Object>> entities,
+            List<Map<String, Object>> pendingIds,
+            List<CompletableFuture<EntityResult>> pending
+    ) {
+        Set<String> failures = new LinkedHashSet<>();
+        for (int i = 0; i < pending.size(); i++) {
+            EntityResult result = pending.get(i).join();
+            if (result.features() != null) {
+                entities.put(pendingIds.get(i), result.features());
+            } else if (result.failure() != null) {
+                failures.add(result.failure());
+            }
+        }
+        if (failures.isEmpty()) {
+            return SimpleFeatureStoreResponse.success(entities);
+        }
+        String failure = String.join("; ", failures);
+        return entities.isEmpty() ? SimpleFeatureStoreResponse.failure(failure) : SimpleFeatureStoreResponse.partial(entities, failure);
+    }
+
+    /**
+     * Drops all cached entities.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Removes the gauges and closes the delegate.
+     */
+    @Override
+    public void close() throws Exception {
+        for (Gauge gauge : gauges) {
+            meterRegistry.remove(gauge);
+        }
+        delegate.close();
+    }
+}
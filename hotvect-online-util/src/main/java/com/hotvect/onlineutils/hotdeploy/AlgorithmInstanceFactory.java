@@ -21,6 +21,8 @@ import com.hotvect.api.algorithms.Algorithm;
 import com.hotvect.api.execution.ExecutionContext;
 import com.hotvect.api.transformation.AuditableTransformer;
 import com.hotvect.api.transformation.CompositeTransformerFactory;
+import com.hotvect.api.transformation.FeatureProfiler;
+import com.hotvect.api.transformation.ProfilableTransformer;
 import com.hotvect.onlineutils.hotdeploy.util.AlgorithmUtils;
 import com.hotvect.onlineutils.hotdeploy.util.MalformedAlgorithmException;
 import com.hotvect.utils.AlgorithmDefinitionReader;
@@ -49,6 +51,7 @@ public class AlgorithmInstanceFactory extends HotvectFactory implements Algorith
     private final boolean strictAlgorithmVersionCheck;
     private final boolean enableFeatureLogging;
     private final Optional<Path> localStateRoot;
+    private final FeatureProfiler featureProfiler;
 
     private ExecutionContext executionContext() {
         return executionContext;
@@ -68,6 +71,7 @@ public class AlgorithmInstanceFactory extends HotvectFactory implements Algorith
         this.strictAlgorithmVersionCheck = strictAlgorithmVersionCheck;
         this.enableFeatureLogging = enableFeatureLogging;
         this.localStateRoot = Optional.empty();
+        this.featureProfiler = null;
     }
 
     public AlgorithmInstanceFactory(ClassLoader classLoader, ExecutionContext executionContext, boolean strictAlgorithmVersionCheck) throws MalformedAlgorithmException {
@@ -92,11 +96,25 @@ public class AlgorithmInstanceFactory extends HotvectFactory implements Algorith
             boolean strictAlgorithmVersionCheck,
             boolean enableFeatureLogging,
             Optional<Path> localStateRoot) throws MalformedAlgorithmException {
+        this(classLoader, executionContext, strictAlgorithmVersionCheck, enableFeatureLogging, localStateRoot, null);
+    }
+
+    /**
+     * @param featureProfiler if not null, set on every loaded transformer that is a {@link ProfilableTransformer}
+     */
+    public AlgorithmInstanceFactory(
+            ClassLoader classLoader,
+            ExecutionContext executionContext,
+            boolean strictAlgorithmVersionCheck,
+            boolean enableFeatureLogging,
+            Optional<Path> localStateRoot,
+            FeatureProfiler featureProfiler) throws MalformedAlgorithmException {
         super(classLoader);
         this.executionContext = executionContext;
         this.strictAlgorithmVersionCheck = strictAlgorithmVersionCheck;
         this.enableFeatureLogging = enableFeatureLogging;
         this.localStateRoot = localStateRoot.map(Path::toAbsolutePath);
+        this.featureProfiler = featureProfiler;
     }
 
     public AlgorithmInstanceFactory(File algorithmJar, ClassLoader parent, ExecutionContext executionContext, boolean strictAlgorithmVersionCheck) throws MalformedAlgorithmException {
@@ -128,6 +146,7 @@ public class AlgorithmInstanceFactory extends HotvectFactory implements Algorith
         this.strictAlgorithmVersionCheck = strictAlgorithmVersionCheck;
         this.enableFeatureLogging = enableFeatureLogging;
         this.localStateRoot = localStateRoot.map(Path::toAbsolutePath);
+        this.featureProfiler = null;
     }
 
     public boolean requiresLocalStateStorage(String algorithmName) throws MalformedAlgorithmException {
@@ -392,10 +411,22 @@ public class AlgorithmInstanceFactory extends HotvectFactory implements Algorith
         if (this.enableFeatureLogging) {
             enableFeatureLoggingOnTransformer(dependency, algorithmDefinition.algorithmId().algorithmName());
         }
+        if (this.featureProfiler != null) {
+            setFeatureProfilerOnTransformer(dependency, algorithmDefinition.algorithmId().algorithmName());
+        }
 
         return dependency;
     }
 
+    private void setFeatureProfilerOnTransformer(Object transformer, String algorithmName) {
+        if (transformer instanceof ProfilableTransformer profilableTransformer) {
+            profilableTransformer.setFeatureProfiler(this.featureProfiler, algorithmName);
+        } else {
+            log.warn("Feature profiling requested but algorithm '{}' uses '{}' which does not support feature profiling. Skipping feature profiling for this dependency.",
+                algorithmName, transformer.getClass().getName());
+        }
+    }
+
     private void enableFeatureLoggingOnTransformer(Object transformer, String algorithmName) {
         if (transformer instanceof AuditableTransformer) {
             ((AuditableTransformer) transformer).setFeatureAuditEnabled(true, algorithmName);
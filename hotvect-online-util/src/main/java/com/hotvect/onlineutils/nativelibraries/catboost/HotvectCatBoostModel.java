@@ -82,19 +82,49 @@ public class HotvectCatBoostModel implements AutoCloseable {
         }
 
         try {
-            CatBoostPredictions predictions = this.catBoostModel.predict(numericFeatures, catFeatures, textFeatures, embeddingFeatures);
-            int objectCount = predictions.getObjectCount();
-            DoubleList ret = new DoubleArrayList(objectCount);
-            for (int i = 0; i < objectCount; i++) {
-                double rawFormulaVal = predictions.get(i, 0);
-                ret.add(rawFormulaVal);
-            }
-            return ret;
+            return toDoubleList(this.catBoostModel.predict(numericFeatures, catFeatures, textFeatures, embeddingFeatures));
         } catch (CatBoostError e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * Predicts using categorical features that were already hashed with {@link #hashCategoricalFeature(String)}.
+     * CatBoost does not accept text or embedding features together with hashed categoricals.
+     */
+    public DoubleList predict(@Nullable float[][] numericFeatures, int[][] catFeatureHashes) {
+        if (isClosed) {
+            throw new CatBoostModelClosedException("Cannot predict using a closed model");
+        }
+
+        try {
+            return toDoubleList(this.catBoostModel.predict(numericFeatures, catFeatureHashes));
+        } catch (CatBoostError e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Hashes a categorical value the same way CatBoost does internally for string categoricals.
+     */
+    public static int hashCategoricalFeature(String catFeature) {
+        try {
+            return CatBoostModel.hashCategoricalFeature(catFeature);
+        } catch (CatBoostError e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static DoubleList toDoubleList(CatBoostPredictions predictions) {
+        int objectCount = predictions.getObjectCount();
+        DoubleList ret = new DoubleArrayList(objectCount);
+        for (int i = 0; i < objectCount; i++) {
+            double rawFormulaVal = predictions.get(i, 0);
+            ret.add(rawFormulaVal);
+        }
+        return ret;
+    }
+
     public DoubleList predict(@Nullable float[][] numericFeatures, @Nullable String[][] catFeatures, @Nullable String[][] textFeatures) {
         return this.predict(numericFeatures, catFeatures, textFeatures, null);
     }
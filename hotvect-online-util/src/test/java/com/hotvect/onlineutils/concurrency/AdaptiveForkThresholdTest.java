@@ -0,0 +1,98 @@
+package com.hotvect.onlineutils.concurrency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveForkThresholdTest {
+    private static AdaptiveForkThreshold.Builder builder(SimpleMeterRegistry meterRegistry) {
+        return AdaptiveForkThreshold.builder("test", meterRegistry)
+                .withTargetTaskDuration(Duration.ofNanos(200_000))
+                .withInitialThreshold(100)
+                .withThresholdBounds(10, 1000);
+    }
+
+    @Test
+    void usesInitialThresholdUntilMeasured() {
+        AdaptiveForkThreshold subject = builder(new SimpleMeterRegistry()).build();
+        assertEquals(100, subject.threshold());
+        assertTrue(Double.isNaN(subject.nanosPerCandidate()));
+    }
+
+    @Test
+    void keepsChunksAboveTargetDuration() {
+        AdaptiveForkThreshold subject = builder(new SimpleMeterRegistry()).build();
+        // 1µs per candidate: a 200µs task needs 200 candidates, and chunks are at least threshold/2
+        subject.record(50, 50_000);
+        assertEquals(1_000.0, subject.nanosPerCandidate());
+        assertEquals(400, subject.threshold());
+    }
+
+    @Test
+    void decaysTowardsNewMeasurementsAndClamps() {
+        AdaptiveForkThreshold subject = builder(new SimpleMeterRegistry()).withDecay(0.5).build();
+        subject.record(10, 10_000);
+        subject.record(10, 30_000);
+        assertEquals(2_000.0, subject.nanosPerCandidate());
+
+        // Very expensive candidates: clamped to the lower bound
+        for (int i = 0; i < 50; i++) {
+            subject.record(1, 1_000_000_000);
+        }
+        assertEquals(10, subject.threshold());
+    }
+
+    @Test
+    void reportsGauges() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        builder(meterRegistry).build().record(10, 10_000);
+        assertEquals(400.0, meterRegistry.find("hotvect.adaptive.fork.threshold").tag("scorer", "test").gauge().value());
+        assertNotNull(meterRegistry.find("hotvect.adaptive.fork.nanos.per.candidate").tag("scorer", "test").gauge());
+    }
+
+    @Test
+    void keepsGaugesOfEachInstanceUntilClosed() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AdaptiveForkThreshold first = builder(meterRegistry).build();
+        AdaptiveForkThreshold second = builder(meterRegistry).build();
+        second.record(10, 10_000);
+        assertEquals(2, meterRegistry.find("hotvect.adaptive.fork.threshold").tag("scorer", "test").gauges().size());
+
+        first.close();
+        assertEquals(400.0, meterRegistry.find("hotvect.adaptive.fork.threshold").tag("scorer", "test").gauge().value());
+        assertEquals(1, meterRegistry.find("hotvect.adaptive.fork.nanos.per.candidate").tag("scorer", "test").gauges().size());
+
+        second.close();
+        assertTrue(meterRegistry.getMeters().isEmpty(), meterRegistry.getMeters().toString());
+    }
+
+    @Test
+    void enabledOnlyByPositiveTarget() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        assertTrue(AdaptiveForkThreshold.fromHyperparameter("test", 100, Optional.empty(), new SimpleMeterRegistry(), "catboost_scorer").isEmpty());
+        assertTrue(AdaptiveForkThreshold.fromHyperparameter(
+                "test",
+                100,
+                Optional.of(objectMapper.readTree("{\"catboost_scorer\": {\"nofork_threshold\": 100}}")),
+                new SimpleMeterRegistry(),
+                "catboost_scorer"
+        ).isEmpty());
+
+        Optional<AdaptiveForkThreshold> enabled = AdaptiveForkThreshold.fromHyperparameter(
+                "test",
+                100,
+                Optional.of(objectMapper.readTree("{\"catboost_scorer\": {\"adaptive_target_task_micros\": 200}}")),
+                new SimpleMeterRegistry(),
+                "catboost_scorer"
+        );
+        assertTrue(enabled.isPresent());
+        assertEquals(100, enabled.get().threshold());
+    }
+}
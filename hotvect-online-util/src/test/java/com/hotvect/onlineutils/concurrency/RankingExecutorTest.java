@@ -0,0 +1,121 @@
+package com.hotvect.onlineutils.concurrency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RankingExecutorTest {
+    private static final List<Integer> ITEMS = IntStream.range(0, 1000).boxed().toList();
+
+    @Test
+    void mapChunksKeepsOrderAndBoundsChunksPerRequest() throws Exception {
+        try (RankingExecutor executor = RankingExecutor.builder("test", new SimpleMeterRegistry())
+                .withParallelism(4)
+                .withMaxParallelismPerRequest(3)
+                .build()) {
+            AtomicInteger chunks = new AtomicInteger();
+            List<Integer> result = executor.mapChunks(ITEMS, 10, chunk -> {
+                chunks.incrementAndGet();
+                return chunk.stream().map(x -> x * 2).toList();
+            });
+
+            assertEquals(ITEMS.stream().map(x -> x * 2).toList(), result);
+            assertEquals(3, chunks.get());
+        }
+    }
+
+    @Test
+    void mapOrderedKeepsOrderAndBoundsConcurrencyPerRequest() throws Exception {
+        try (RankingExecutor executor = RankingExecutor.builder("test", new SimpleMeterRegistry())
+                .withParallelism(4)
+                .withMaxParallelismPerRequest(2)
+                .build()) {
+            AtomicInteger active = new AtomicInteger();
+            AtomicInteger maxActive = new AtomicInteger();
+            List<Integer> result = executor.mapOrdered(ITEMS.subList(0, 100).spliterator(), x -> {
+                maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                active.decrementAndGet();
+                return x + 1;
+            });
+
+            assertEquals(ITEMS.subList(0, 100).stream().map(x -> x + 1).toList(), result);
+            assertTrue(maxActive.get() <= 2, "max concurrency was " + maxActive.get());
+        }
+    }
+
+    @Test
+    void mapOrderedSplitsTheSourceOfAMappedStream() throws Exception {
+        try (RankingExecutor executor = RankingExecutor.builder("test", new SimpleMeterRegistry())
+                .withParallelism(2)
+                .withMaxParallelismPerRequest(2)
+                .build()) {
+            // The spliterator of a sequential mapped stream does not split, so one worker would time out here
+            CyclicBarrier barrier = new CyclicBarrier(2);
+            Set<Thread> workers = ConcurrentHashMap.newKeySet();
+            List<Integer> result = executor.mapOrdered(ITEMS.subList(0, 2).stream().map(x -> x + 1), x -> {
+                workers.add(Thread.currentThread());
+                try {
+                    barrier.await(10, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+                return x * 2;
+            });
+
+            assertEquals(List.of(2, 4), result);
+            assertEquals(2, workers.size(), workers.toString());
+        }
+    }
+
+    @Test
+    void registersGaugesUntilClosed() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RankingExecutor first = RankingExecutor.builder("gauged", meterRegistry).withParallelism(1).build();
+        try (RankingExecutor second = RankingExecutor.builder("gauged", meterRegistry).withParallelism(1).build()) {
+            for (String gauge : List.of("active.workers", "queued.tasks", "steals")) {
+                assertEquals(2, meterRegistry.find("hotvect.ranking.executor." + gauge).tag("executor", "gauged").gauges().size(), gauge);
+            }
+
+            first.close();
+            for (String gauge : List.of("active.workers", "queued.tasks", "steals")) {
+                assertNotNull(meterRegistry.find("hotvect.ranking.executor." + gauge).tag("executor", "gauged").gauge(), gauge);
+                assertEquals(1, meterRegistry.find("hotvect.ranking.executor." + gauge).tag("executor", "gauged").gauges().size(), gauge);
+            }
+        }
+        assertTrue(meterRegistry.getMeters().isEmpty(), meterRegistry.getMeters().toString());
+    }
+
+    @Test
+    void usesCommonExecutorUnlessDeclared() throws Exception {
+        assertSame(RankingExecutor.common(), RankingExecutor.fromHyperparameter("test", Optional.empty(), new SimpleMeterRegistry()));
+        assertSame(RankingExecutor.common(), RankingExecutor.fromHyperparameter("test", Optional.of(new ObjectMapper().readTree("{}")), new SimpleMeterRegistry()));
+
+        try (RankingExecutor declared = RankingExecutor.fromHyperparameter(
+                "test",
+                Optional.of(new ObjectMapper().readTree("{\"ranking_executor\": {\"name\": \"declared\", \"parallelism\": 2, \"max_parallelism_per_request\": 1}}")),
+                new SimpleMeterRegistry()
+        )) {
+            assertEquals("declared", declared.name());
+            assertEquals(1, declared.maxParallelismPerRequest());
+        }
+    }
+}
@@ -31,18 +31,27 @@ class FileFormatTest {
         assertEquals(FileFormat.AVRO, FileFormat.detectFormat(new File("data.AVRO")));
     }
 
+    @Test
+    void detectParquetFormat() {
+        assertEquals(FileFormat.PARQUET, FileFormat.detectFormat(new File("test.parquet")));
+        assertEquals(FileFormat.PARQUET, FileFormat.detectFormat(new File("part-00000.PARQUET")));
+    }
+
+    @Test
+    void everyFormatIsReadableWithTheOptionalDependenciesOnTheClasspath() {
+        for (FileFormat format : FileFormat.values()) {
+            assertDoesNotThrow(format::checkReadable);
+        }
+    }
+
     @Test
     void detectUnsupportedFormat() {
         assertThrows(IllegalArgumentException.class, () ->
                 FileFormat.detectFormat(new File("test.xml")));
-        assertThrows(IllegalArgumentException.class, () ->
-                FileFormat.detectFormat(new File("test.parquet")));
         assertThrows(IllegalArgumentException.class, () ->
                 FileFormat.detectFormat(new File("part-")));
         assertThrows(IllegalArgumentException.class, () ->
                 FileFormat.detectFormat(new File("part-.gz")));
-        assertThrows(IllegalArgumentException.class, () ->
-                FileFormat.detectFormat(new File("part-00000.parquet")));
         assertThrows(IllegalArgumentException.class, () ->
                 FileFormat.detectFormat(new File("part-00000.parquet.gz")));
         assertThrows(IllegalArgumentException.class, () ->
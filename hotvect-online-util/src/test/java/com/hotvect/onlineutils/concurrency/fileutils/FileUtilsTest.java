@@ -37,6 +37,7 @@ class FileUtilsTest {
                 List.of(
                         "train/dt=2025-08-08/part-00000",
                         "train/dt=2025-08-08/part-00001.gz",
+                        "train/dt=2025-08-08/part-00002.parquet",
                         "train/dt=2025-08-08/part-00004.json.gz"
                 ),
                 actual
@@ -0,0 +1,114 @@
+package com.hotvect.onlineutils.concurrency.fileutils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedTextRecordReaderTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void splitsLinesLikeBufferedReader() throws IOException {
+        String content = "a\nb\r\n\nc\rd\r\r\nあいう\r\nlast";
+        File file = write("mixed.txt", content);
+        assertEquals(List.of("a", "b", "", "c", "d", "", "あいう", "last"), readAll(new MappedTextRecordReader(file)));
+        assertEquals(readAll(new TextRecordReader(file)), readAll(new MappedTextRecordReader(file)));
+    }
+
+    @Test
+    void doesNotReturnAnEmptyLineAfterTheLastTerminator() throws IOException {
+        assertEquals(List.of("a", "b"), readAll(new MappedTextRecordReader(write("terminated.txt", "a\nb\n"))));
+        assertEquals(List.of(), readAll(new MappedTextRecordReader(write("empty.txt", ""))));
+    }
+
+    @Test
+    void chunksYieldTheSameLinesAsTheWholeFile() throws IOException {
+        Random random = new Random(7);
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 2_000; i++) {
+            content.append("line-").append(i).append("-é".repeat(random.nextInt(20)));
+            content.append(random.nextInt(4) == 0 ? "\r\n" : "\n");
+        }
+        File file = write("chunked.jsonl", content.toString());
+        List<String> expected = readAll(new TextRecordReader(file));
+
+        for (long chunkSize : new long[]{1, 17, 1_000, file.length() - 1, file.length(), file.length() * 2}) {
+            List<MappedTextRecordReader.Chunk> chunks = MappedTextRecordReader.chunks(file, chunkSize);
+            assertEquals(0, chunks.get(0).start());
+            assertEquals(file.length(), chunks.get(chunks.size() - 1).end());
+            List<String> actual = new ArrayList<>();
+            for (int i = 0; i < chunks.size(); i++) {
+                if (i > 0) {
+                    assertEquals(chunks.get(i - 1).end(), chunks.get(i).start());
+                }
+                assertTrue(chunks.get(i).length() > 0);
+                actual.addAll(readAll(new MappedTextRecordReader(chunks.get(i))));
+            }
+            assertEquals(expected, actual, "chunkSize=" + chunkSize);
+        }
+    }
+
+    @Test
+    void readsLinesLongerThanTheBuffer() throws IOException {
+        String longLine = "x".repeat(3 << 20);
+        File file = write("long.txt", "short\r\n" + longLine + "\r\nend");
+        assertEquals(List.of("short", longLine, "end"), readAll(new MappedTextRecordReader(file)));
+    }
+
+    @Test
+    void readsInBatches() throws IOException {
+        File file = write("batches.txt", "1\n2\n3\n4\n5\n");
+        try (MappedTextRecordReader reader = new MappedTextRecordReader(file)) {
+            List<String> batch = new ArrayList<>();
+            assertEquals(2, reader.nextBatch(batch, 2));
+            assertEquals(2, reader.nextBatch(batch, 2));
+            assertEquals(1, reader.nextBatch(batch, 2));
+            assertEquals(0, reader.nextBatch(batch, 2));
+            assertEquals(List.of("1", "2", "3", "4", "5"), batch);
+            assertFalse(reader.hasNext());
+        }
+    }
+
+    @Test
+    void onlyMapsUncompressedTextFiles() throws Exception {
+        assertTrue(MappedTextRecordReader.isMappable(new File("data.jsonl")));
+        assertFalse(MappedTextRecordReader.isMappable(new File("data.jsonl.gz")));
+        assertFalse(MappedTextRecordReader.isMappable(new File("data.avro")));
+
+        File file = write("create.txt", "a\n");
+        try (RecordReader<String> mapped = RecordReader.create(file, true);
+             RecordReader<String> buffered = RecordReader.create(file)) {
+            assertTrue(mapped instanceof MappedTextRecordReader);
+            assertTrue(buffered instanceof TextRecordReader);
+        }
+    }
+
+    private File write(String name, String content) throws IOException {
+        Path path = tempDir.resolve(name);
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+        return path.toFile();
+    }
+
+    private static List<String> readAll(RecordReader<String> reader) {
+        List<String> ret = new ArrayList<>();
+        try (reader) {
+            reader.forEachRemaining(ret::add);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,154 @@
+package com.hotvect.onlineutils.concurrency.fileutils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParallelGzipInputStreamTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void roundTripsCompressibleAndIncompressibleData() throws IOException {
+        Random random = new Random(11);
+        byte[] text = new byte[1_000_000];
+        for (int i = 0; i < text.length; i++) {
+            text[i] = (byte) ('a' + random.nextInt(4));
+        }
+        byte[] noise = new byte[300_000];
+        random.nextBytes(noise);
+
+        for (byte[] expected : List.of(new byte[0], new byte[]{42}, text, noise)) {
+            File file = tempDir.resolve("data.gz").toFile();
+            try (OutputStream out = new ParallelGzipOutputStream(new FileOutputStream(file))) {
+                // Write in uneven pieces so blocks do not line up with writes
+                for (int i = 0; i < expected.length; i += 10_007) {
+                    out.write(expected, i, Math.min(10_007, expected.length - i));
+                }
+            }
+            try (InputStream in = ParallelGzipInputStream.open(file)) {
+                assertTrue(in instanceof ParallelGzipInputStream);
+                assertArrayEquals(expected, in.readAllBytes());
+            }
+            // Standard gzip readers read concatenated members
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(file.toPath()))) {
+                assertArrayEquals(expected, in.readAllBytes());
+            }
+        }
+    }
+
+    @Test
+    void streamsOtherGzipFiles() throws IOException {
+        File file = tempDir.resolve("plain.jsonl.gz").toFile();
+        try (OutputStream out = new GZIPOutputStream(new FileOutputStream(file))) {
+            out.write("a\nb\n".getBytes(StandardCharsets.UTF_8));
+        }
+        try (InputStream in = ParallelGzipInputStream.open(file)) {
+            assertFalse(in instanceof ParallelGzipInputStream);
+            assertEquals("a\nb\n", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void streamsOtherMembersAfterBgzfBlocks() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ParallelGzipOutputStream bgzf = new ParallelGzipOutputStream(bytes);
+        bgzf.write("bgzf\n".getBytes(StandardCharsets.UTF_8));
+        bgzf.close();
+        try (GZIPOutputStream plain = new GZIPOutputStream(bytes)) {
+            plain.write("plain\n".getBytes(StandardCharsets.UTF_8));
+        }
+        File file = tempDir.resolve("mixed.txt.gz").toFile();
+        Files.write(file.toPath(), bytes.toByteArray());
+
+        try (InputStream in = new ParallelGzipInputStream(file, 2)) {
+            assertEquals("bgzf\nplain\n", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void detectsCorruptBlocks() throws IOException {
+        File file = tempDir.resolve("corrupt.gz").toFile();
+        try (OutputStream out = new ParallelGzipOutputStream(new FileOutputStream(file))) {
+            out.write("some text that will be corrupted".getBytes(StandardCharsets.UTF_8));
+        }
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        // Flip a bit of the CRC of the first block
+        int crcOffset = (bytes[16] & 0xff | (bytes[17] & 0xff) << 8) + 1 - 8;
+        bytes[crcOffset] ^= 1;
+        Files.write(file.toPath(), bytes);
+
+        try (InputStream in = ParallelGzipInputStream.open(file)) {
+            assertThrows(ZipException.class, in::readAllBytes);
+        }
+    }
+
+    @Test
+    void unorderedFileWriterCompressesGzipShards() throws Exception {
+        // Enough lines for several BGZF blocks
+        List<String> expected = IntStream.range(0, 50_000).mapToObj(i -> "line-" + i).sorted().collect(Collectors.toList());
+        Path sourceFile = tempDir.resolve("source.txt");
+        Files.write(sourceFile, expected);
+        File dest = tempDir.resolve("out").toFile();
+
+        UnorderedFileMapper<String> mapper = UnorderedFileMapper.<String>builder(
+                        List.of(sourceFile.toFile()),
+                        dest,
+                        s -> List.of(java.nio.ByteBuffer.wrap((s + "\n").getBytes(StandardCharsets.UTF_8))))
+                .numberOfShards(1)
+                .extension(".txt.gz")
+                .build();
+        mapper.call();
+
+        assertEquals(expected, readBgzfLines(new File(dest, "part-00000.txt.gz")).stream().sorted().collect(Collectors.toList()));
+    }
+
+    @Test
+    void orderedFileMapperCompressesGzipOutputs() throws Exception {
+        List<String> expected = IntStream.range(0, 50_000).mapToObj(i -> "line-" + i).collect(Collectors.toList());
+        Path sourceFile = tempDir.resolve("source.txt");
+        Files.write(sourceFile, expected);
+        File dest = tempDir.resolve("ordered.txt.gz").toFile();
+
+        OrderedFileMapper.mapper(
+                new SimpleMeterRegistry(),
+                List.of(sourceFile.toFile()),
+                dest,
+                s -> List.of(java.nio.ByteBuffer.wrap((s + "\n").getBytes(StandardCharsets.UTF_8)))
+        ).call();
+
+        assertEquals(expected, readBgzfLines(dest));
+    }
+
+    private static List<String> readBgzfLines(File file) throws IOException {
+        try (InputStream in = ParallelGzipInputStream.open(file)) {
+            // Only BGZF files are read block-parallel; other gzip files are streamed
+            assertInstanceOf(ParallelGzipInputStream.class, in);
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).lines().collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.hotvect.onlineutils.concurrency.fileutils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.avro.AvroParquetWriter;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.io.LocalOutputFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParquetRecordReaderTest {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final Schema SCHEMA = new Schema.Parser().parse(
+            "{\"type\":\"record\",\"name\":\"TestRecord\",\"fields\":[" +
+            "{\"name\":\"id\",\"type\":\"int\"}," +
+            "{\"name\":\"query\",\"type\":\"string\"}," +
+            "{\"name\":\"payload\",\"type\":[\"null\",\"string\"],\"default\":null}" +
+            "]}"
+    );
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void readsEveryRowGroupOnce() throws IOException {
+        File file = writeParquet("data.parquet", 1000);
+
+        List<ParquetRecordReader.RowGroup> rowGroups = ParquetRecordReader.rowGroups(file);
+        assertTrue(rowGroups.size() > 1, "Expected several row groups, got " + rowGroups.size());
+        assertEquals(1000L, rowGroups.stream().mapToLong(ParquetRecordReader.RowGroup::rowCount).sum());
+
+        Set<Integer> ids = new HashSet<>();
+        for (ParquetRecordReader.RowGroup rowGroup : rowGroups) {
+            long count = 0;
+            try (ParquetRecordReader reader = new ParquetRecordReader(rowGroup, null)) {
+                while (reader.hasNext()) {
+                    assertTrue(ids.add((Integer) reader.next().get("id")));
+                    count++;
+                }
+            }
+            assertEquals(rowGroup.rowCount(), count);
+        }
+        assertEquals(1000, ids.size());
+
+        try (ParquetRecordReader reader = new ParquetRecordReader(file)) {
+            long count = 0;
+            while (reader.hasNext()) {
+                reader.next();
+                count++;
+            }
+            assertEquals(1000L, count);
+        }
+    }
+
+    @Test
+    void readsOnlyRequestedColumns() throws IOException {
+        File file = writeParquet("data.parquet", 10);
+
+        try (ParquetRecordReader reader = new ParquetRecordReader(file, Set.of("query"))) {
+            GenericRecord record = reader.next();
+            assertEquals(1, record.getSchema().getFields().size());
+            assertEquals("q0", record.get("query").toString());
+        }
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> new ParquetRecordReader(file, Set.of("query", "missing")));
+        assertTrue(e.getMessage().contains("missing"));
+    }
+
+    @Test
+    void mapperReadsRowGroupsInParallelAsJson() throws Exception {
+        List<File> source = List.of(writeParquet("part-00000.parquet", 500), writeParquet("part-00001.parquet", 500));
+        File dest = tempDir.resolve("out").toFile();
+        int rowGroups = ParquetRecordReader.rowGroups(source.get(0)).size() + ParquetRecordReader.rowGroups(source.get(1)).size();
+
+        UnorderedFileMapper<String> mapper = UnorderedFileMapper.<String>builder(
+                        source,
+                        dest,
+                        json -> List.of(ByteBuffer.wrap((json + "\n").getBytes(StandardCharsets.UTF_8))))
+                .nThreads(2)
+                .readerThreads(4)
+                .numberOfShards(1)
+                .extension(".jsonl")
+                .columns(Set.of("id", "query"))
+                .recordsAsJson(true)
+                .build();
+        Map<String, Object> result = mapper.call();
+
+        assertEquals(1000L, result.get("lines_read"));
+        assertEquals((long) rowGroups, result.get("parquet_row_groups_read"));
+
+        List<String> lines;
+        try (var stream = FileUtils.readLines(new File(dest, "part-00000.jsonl"))) {
+            lines = stream.toList();
+        }
+        assertEquals(1000, lines.size());
+        Set<Integer> ids = new HashSet<>();
+        for (String line : lines) {
+            JsonNode node = OBJECT_MAPPER.readTree(line);
+            int id = node.get("id").asInt();
+            assertTrue(ids.add(id));
+            assertEquals("q" + id % 500, node.get("query").asText());
+            assertFalse(node.has("payload"));
+        }
+    }
+
+    @Test
+    void rendersRecordsAsJson() {
+        GenericRecord record = new GenericData.Record(SCHEMA);
+        record.put("id", 7);
+        record.put("query", "say \"hi\"");
+        record.put("payload", null);
+        assertEquals("{\"id\":7,\"query\":\"say \\\"hi\\\"\",\"payload\":null}", GenericRecordJson.toJson(record));
+    }
+
+    @Test
+    void orderedReadingRendersRecordsAsJson() throws IOException {
+        File file = writeParquet("data.parquet", 3);
+        try (var lines = FileUtils.readTextData(List.of(file))) {
+            List<String> actual = lines.toList();
+            assertEquals(3, actual.size());
+            assertEquals("{\"id\":0,\"query\":\"q0\",\"payload\":\"" + "x".repeat(64) + "\"}", actual.get(0));
+        }
+    }
+
+    @Test
+    void emptyFileHasNoRecords() throws IOException {
+        File file = writeParquet("empty.parquet", 0);
+        assertTrue(ParquetRecordReader.rowGroups(file).isEmpty());
+        try (ParquetRecordReader reader = new ParquetRecordReader(file)) {
+            assertFalse(reader.hasNext());
+        }
+    }
+
+    private File writeParquet(String name, int records) throws IOException {
+        Path path = tempDir.resolve(name);
+        // The writer checks the row group size every 100 records, so this cuts a row group about every 100 records
+        try (ParquetWriter<GenericRecord> writer = AvroParquetWriter.<GenericRecord>builder(new LocalOutputFile(path))
+                .withSchema(SCHEMA)
+                .withConf(new Configuration(false))
+                .withRowGroupSize(1024L)
+                .build()) {
+            for (int i = 0; i < records; i++) {
+                GenericRecord record = new GenericData.Record(SCHEMA);
+                record.put("id", name.startsWith("part-00001") ? 500 + i : i);
+                record.put("query", "q" + i);
+                record.put("payload", "x".repeat(64));
+                writer.write(record);
+            }
+        }
+        return path.toFile();
+    }
+}
@@ -159,6 +159,47 @@ class UnorderedFileMapperTest {
         }
     }
 
+    @Test
+    void memoryMappedHappyPath() throws Exception {
+        for (MapperCase testCase : mapperCases()) {
+            long expected = calculateExpected(testCase.testData());
+            List<File> source = toTestFiles(testCase.testData());
+            Path tempDir = Files.createTempDirectory("test-memory-mapped");
+            File dest = new File(tempDir.toFile(), "sharddir");
+
+            try {
+                UnorderedFileMapper<String> testSubject = UnorderedFileMapper.builder(source, dest, transformFun)
+                        .meterRegistry(mr)
+                        .nThreads(testCase.nThread())
+                        .batchSize(testCase.batchSize())
+                        .numberOfShards(1)
+                        .extension(".txt")
+                        .memoryMapped(true)
+                        .build();
+                Map<String, Object> metadata = testSubject.call();
+
+                List<File> partFiles = listPartFiles(dest);
+                long actual = partFiles.stream()
+                        .flatMap(part -> {
+                            try {
+                                return Files.readAllLines(part.toPath()).stream();
+                            } catch (IOException e) {
+                                throw new RuntimeException(e);
+                            }
+                        })
+                        .mapToLong(Long::parseLong)
+                        .sum();
+                assertEquals(expected, actual);
+                assertEquals(testCase.testData().stream().mapToLong(List::size).sum(), metadata.get("lines_read"));
+                partFiles.forEach(File::delete);
+            } finally {
+                dest.delete();
+                source.forEach(File::delete);
+                tempDir.toFile().delete();
+            }
+        }
+    }
+
     private long calculateExpected(List<List<Integer>> testData) {
         Stream<Integer> flattened = testData.stream().flatMap(Collection::stream).filter(Objects::nonNull);
         Stream<String> serialized = flattened.map(Object::toString);
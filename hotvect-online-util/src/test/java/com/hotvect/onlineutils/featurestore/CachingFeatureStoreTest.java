@@ -0,0 +1,196 @@
+package com.hotvect.onlineutils.featurestore;
+
+import com.google.common.base.Ticker;
+import com.hotvect.api.data.featurestore.FeatureStore;
+import com.hotvect.api.data.featurestore.FeatureStoreResponse;
+import com.hotvect.api.data.featurestore.SimpleFeatureStoreResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CachingFeatureStoreTest {
+    private static final Map<String, Object> P1 = Map.of("product_id", "p1");
+    private static final Map<String, Object> P2 = Map.of("product_id", "p2");
+    private static final Map<String, Object> P3 = Map.of("product_id", "p3");
+
+    private static class ManualTicker extends Ticker {
+        private final AtomicLong nanos = new AtomicLong();
+
+        @Override
+        public long read() {
+            return nanos.get();
+        }
+
+        void advance(Duration duration) {
+            nanos.addAndGet(duration.toNanos());
+        }
+    }
+
+    /**
+     * Records every lookup and leaves it pending until completed by the test.
+     */
+    private static class PendingFeatureStore implements FeatureStore {
+        private final List<List<Map<String, Object>>> requestedIds = new CopyOnWriteArrayList<>();
+        private final List<CompletableFuture<FeatureStoreResponse>> lookups = new CopyOnWriteArrayList<>();
+        private volatile boolean closed;
+
+        @Override
+        public CompletableFuture<FeatureStoreResponse> getFeatures(List<Map<String, Object>> ids, String viewName, int viewVersion, String... featureNames) {
+            CompletableFuture<FeatureStoreResponse> lookup = new CompletableFuture<>();
+            requestedIds.add(ids);
+            lookups.add(lookup);
+            return lookup;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    private static Map<String, Object> features(double price) {
+        return Map.of("price", price);
+    }
+
+    private static CachingFeatureStore.Builder builder(FeatureStore delegate, ManualTicker ticker, SimpleMeterRegistry meterRegistry) {
+        return CachingFeatureStore.builder(delegate, meterRegistry)
+                .withName("test")
+                .withDefaultTtl(Duration.ofSeconds(10))
+                .withTicker(ticker);
+    }
+
+    @Test
+    void servesHitsAndFetchesOnlyMisses() {
+        PendingFeatureStore delegate = new PendingFeatureStore();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CachingFeatureStore subject = builder(delegate, new ManualTicker(), meterRegistry).build();
+
+        CompletableFuture<FeatureStoreResponse> first = subject.getFeatures(List.of(P1, P2), "products", 1, "price");
+        // p2 does not exist
+        delegate.lookups.get(0).complete(SimpleFeatureStoreResponse.success(Map.of(P1, features(1.0))));
+        assertEquals(Map.of(P1, features(1.0)), first.join().getAllEntities());
+
+        CompletableFuture<FeatureStoreResponse> second = subject.getFeatures(List.of(P1, P2, P3), "products", 1, "price");
+        assertEquals(List.of(List.of(P3)), delegate.requestedIds.subList(1, 2));
+        delegate.lookups.get(1).complete(SimpleFeatureStoreResponse.success(Map.of(P3, features(3.0))));
+
+        FeatureStoreResponse response = second.join();
+        assertEquals(Map.of(P1, features(1.0), P3, features(3.0)), response.getAllEntities());
+        assertTrue(response.getRequestFailure().isEmpty());
+        assertEquals(2.0, meterRegistry.find("hotvect.feature.store.cache.hits").tag("cache", "test").gauge().value());
+        assertEquals(3.0, meterRegistry.find("hotvect.feature.store.cache.misses").tag("cache", "test").gauge().value());
+    }
+
+    @Test
+    void keysIncludeVersionAndFeatureNames() {
+        PendingFeatureStore delegate = new PendingFeatureStore();
+        CachingFeatureStore subject = builder(delegate, new ManualTicker(), new SimpleMeterRegistry()).build();
+
+        subject.getFeatures(List.of(P1), "products", 1, "price");
+        delegate.lookups.get(0).complete(SimpleFeatureStoreResponse.success(Map.of(P1, features(1.0))));
+
+        subject.getFeatures(List.of(P1), "products", 2, "price");
+        subject.getFeatures(List.of(P1), "products", 1, "price", "brand");
+        assertEquals(3, delegate.lookups.size());
+    }
+
+    @Test
+    void expiresEntitiesPerView() {
+        PendingFeatureStore delegate = new PendingFeatureStore();
+        ManualTicker ticker = new ManualTicker();
+        CachingFeatureStore subject = builder(delegate, ticker, new SimpleMeterRegistry())
+                .withViewTtl("prices", Duration.ofSeconds(1))
+                .build();
+
+        subject.getFeatures(List.of(P1), "products", 1, "price");
+        subject.getFeatures(List.of(P1), "prices", 1, "price");
+        delegate.lookups.forEach(lookup -> lookup.complete(SimpleFeatureStoreResponse.success(Map.of(P1, features(1.0)))));
+
+        ticker.advance(Duration.ofSeconds(2));
+        subject.getFeatures(List.of(P1), "products", 1, "price");
+        subject.getFeatures(List.of(P1), "prices", 1, "price");
+        assertEquals(3, delegate.lookups.size());
+    }
+
+    @Test
+    void coalescesConcurrentMisses() {
+        PendingFeatureStore delegate = new PendingFeatureStore();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CachingFeatureStore subject = builder(delegate, new ManualTicker(), meterRegistry).build();
+
+        CompletableFuture<FeatureStoreResponse> first = subject.getFeatures(List.of(P1), "products", 1, "price");
+        CompletableFuture<FeatureStoreResponse> second = subject.getFeatures(List.of(P1), "products", 1, "price");
+        assertEquals(1, delegate.lookups.size());
+        assertFalse(second.isDone());
+
+        delegate.lookups.get(0).complete(SimpleFeatureStoreResponse.success(Map.of(P1, features(1.0))));
+        assertEquals(Map.of(P1, features(1.0)), first.join().getAllEntities());
+        assertEquals(Map.of(P1, features(1.0)), second.join().getAllEntities());
+        assertEquals(1.0, meterRegistry.find("hotvect.feature.store.cache.coalesced").tag("cache", "test").gauge().value());
+    }
+
+    @Test
+    void preservesPartialFailuresAndDoesNotCacheFailedEntities() {
+        PendingFeatureStore delegate = new PendingFeatureStore();
+        CachingFeatureStore subject = builder(delegate, new ManualTicker(), new SimpleMeterRegistry()).build();
+
+        CompletableFuture<FeatureStoreResponse> first = subject.getFeatures(List.of(P1, P2), "products", 1, "price");
+        delegate.lookups.get(0).complete(SimpleFeatureStoreResponse.partial(Map.of(P1, features(1.0)), "p2 timed out"));
+        FeatureStoreResponse response = first.join();
+        assertEquals(Map.of(P1, features(1.0)), response.getAllEntities());
+        assertEquals(Optional.of("p2 timed out"), response.getRequestFailure());
+
+        // p1 is cached, p2 is fetched again
+        CompletableFuture<FeatureStoreResponse> second = subject.getFeatures(List.of(P1, P2), "products", 1, "price");
+        assertEquals(List.of(P2), delegate.requestedIds.get(1));
+        delegate.lookups.get(1).complete(SimpleFeatureStoreResponse.failure("unavailable"));
+        response = second.join();
+        assertEquals(Map.of(P1, features(1.0)), response.getAllEntities());
+        assertEquals(Optional.of("unavailable"), response.getRequestFailure());
+        assertNull(response.getEntity(P2));
+    }
+
+    @Test
+    void boundsCacheByWeight() {
+        PendingFeatureStore delegate = new PendingFeatureStore();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        // Each entity weighs 2
+        CachingFeatureStore subject = builder(delegate, new ManualTicker(), meterRegistry).withMaximumWeight(4).build();
+
+        subject.getFeatures(List.of(P1, P2, P3), "products", 1, "price");
+        delegate.lookups.get(0).complete(SimpleFeatureStoreResponse.success(Map.of(P1, features(1.0), P2, features(2.0), P3, features(3.0))));
+
+        assertTrue(meterRegistry.find("hotvect.feature.store.cache.size").tag("cache", "test").gauge().value() <= 2.0);
+        assertTrue(meterRegistry.find("hotvect.feature.store.cache.evictions").tag("cache", "test").gauge().value() >= 1.0);
+    }
+
+    @Test
+    void gaugesAreTaggedPerInstanceAndRemovedOnClose() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        PendingFeatureStore delegate = new PendingFeatureStore();
+        CachingFeatureStore first = builder(delegate, new ManualTicker(), meterRegistry).build();
+        CachingFeatureStore second = builder(new PendingFeatureStore(), new ManualTicker(), meterRegistry).build();
+        assertEquals(2, meterRegistry.find("hotvect.feature.store.cache.hits").tag("cache", "test").gauges().size());
+
+        first.getFeatures(List.of(P1), "products", 1, "price");
+        first.close();
+        assertTrue(delegate.closed);
+        assertEquals(1, meterRegistry.find("hotvect.feature.store.cache.hits").tag("cache", "test").gauges().size());
+        assertEquals(0.0, meterRegistry.find("hotvect.feature.store.cache.misses").tag("cache", "test").gauge().value());
+
+        second.close();
+        assertTrue(meterRegistry.getMeters().isEmpty());
+    }
+}
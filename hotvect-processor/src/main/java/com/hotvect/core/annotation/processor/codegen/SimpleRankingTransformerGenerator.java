@@ -2,15 +2,19 @@ package com.hotvect.core.annotation.processor.codegen;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.time.Duration;
 import java.util.*;
 
 import javax.annotation.processing.Filer;
+import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.Modifier;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
 import javax.tools.Diagnostic;
 import javax.tools.JavaFileObject;
 
+import com.hotvect.core.annotation.CrossRequestMemoized;
 import com.hotvect.core.annotation.backend.GeneratedTransformerBackend;
 import com.hotvect.core.annotation.backend.Resolution;
 import com.hotvect.core.annotation.processor.ProcessingContext;
@@ -22,6 +26,8 @@ import com.hotvect.core.annotation.processor.model.FeatureScanResult;
 import com.hotvect.core.annotation.processor.model.Param;
 import com.hotvect.core.annotation.processor.model.ParamKind;
 import com.hotvect.core.annotation.processor.model.TransformerSpec;
+import com.hotvect.core.annotation.processor.util.AnnotationUtils;
+import com.squareup.javapoet.ArrayTypeName;
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.FieldSpec;
@@ -33,6 +39,12 @@ import com.squareup.javapoet.TypeSpec;
 
 public final class SimpleRankingTransformerGenerator {
     private static final String DEFAULT_GENERATED_NAME = "GeneratedRankingTransformer";
+    private static final ClassName FEATURE_PROFILER = ClassName.get("com.hotvect.api.transformation", "FeatureProfiler");
+    private static final ClassName FEATURE_PROBE = FEATURE_PROFILER.nestedClass("Probe");
+    private static final ClassName FEATURE_SAMPLE = FEATURE_PROFILER.nestedClass("Sample");
+    private static final ClassName FEATURE_STAGE = FEATURE_PROFILER.nestedClass("Stage");
+    private static final ClassName CROSS_REQUEST_CACHE = ClassName.get("com.hotvect.core.transform", "CrossRequestCache");
+    private static final ClassName METRICS = ClassName.get("io.micrometer.core.instrument", "Metrics");
 
     private final ProcessingContext context;
 
@@ -132,20 +144,23 @@ public final class SimpleRankingTransformerGenerator {
         }
         Map<String, String> outputConstants = buildConstantNames(outputNodes);
 
-        ClassName streamingTransformer = ClassName.get("com.hotvect.core.transform.ranking", "StreamingRankingTransformer");
+        ClassName columnarTransformer = ClassName.get("com.hotvect.core.transform.ranking", "ColumnarRankingTransformer");
+        ClassName transformedBatch = ClassName.get("com.hotvect.core.transform.ranking", "TransformedBatch");
         ClassName sharedContext = ClassName.get("com.hotvect.core.transform.ranking", "SharedContext");
         ClassName namespace = ClassName.get("com.hotvect.api.data", "Namespace");
-        ClassName namespacedRecord = ClassName.get("com.hotvect.api.data.common", "NamespacedRecordImpl");
+        ClassName namespacedRecord = ClassName.get("com.hotvect.api.data.common", "NamespacedRecord");
         ClassName featureStoreResponse = ClassName.get("com.hotvect.api.data.featurestore", "FeatureStoreResponse");
         ClassName rankingRequest = ClassName.get("com.hotvect.api.data.ranking", "RankingRequest");
         ClassName transformedAction = ClassName.get("com.hotvect.api.data.ranking", "TransformedAction");
         ClassName namespaces = ClassName.get("com.hotvect.core.transform", "Namespaces");
         ClassName listBatchingSpliterator = ClassName.get("com.hotvect.core.transform.ranking", "ListBatchingSpliterator");
         ClassName featureStoreRetriever = ClassName.get("com.hotvect.core.featurestore", "FeatureStoreRetriever");
+        ClassName profilableTransformer = ClassName.get("com.hotvect.api.transformation", "ProfilableTransformer");
 
         TypeSpec.Builder typeBuilder = TypeSpec.classBuilder(className)
                 .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
-                .addSuperinterface(ParameterizedTypeName.get(streamingTransformer, sharedType, actionType));
+                .addSuperinterface(ParameterizedTypeName.get(columnarTransformer, sharedType, actionType))
+                .addSuperinterface(profilableTransformer);
 
         for (FeatureNode node : outputNodes) {
             String constant = outputConstants.get(node.name());
@@ -155,6 +170,7 @@ public final class SimpleRankingTransformerGenerator {
                     .build();
             typeBuilder.addField(field);
         }
+        typeBuilder.addField(buildLayoutField(transformedBatch, namespace, outputNodes, outputConstants));
 
         typeBuilder.addType(buildHolder("SharedValues", sharedOrder, sharedFields));
         typeBuilder.addType(buildHolder("ActionValues", actionOrder, actionFields));
@@ -179,19 +195,54 @@ public final class SimpleRankingTransformerGenerator {
                     Modifier.PRIVATE, Modifier.FINAL).build());
         }
 
+        // Written before the volatile profiler, so that they are visible to every thread that reads a profiler
+        typeBuilder.addField(FieldSpec.builder(ArrayTypeName.of(FEATURE_PROBE), "sharedProbes", Modifier.PRIVATE).build());
+        typeBuilder.addField(FieldSpec.builder(ArrayTypeName.of(FEATURE_PROBE), "actionProbes", Modifier.PRIVATE).build());
+        typeBuilder.addField(FieldSpec.builder(FEATURE_PROFILER, "featureProfiler", Modifier.PRIVATE, Modifier.VOLATILE).build());
+
+        List<FeatureNode> allOrdered = new ArrayList<>(sharedOrder);
+        allOrdered.addAll(actionOrder);
+        List<FeatureNode> crossRequestMemoized = new ArrayList<>();
+        for (FeatureNode node : allOrdered) {
+            AnnotationMirror memoization = crossRequestMemoization(node);
+            if (memoization != null) {
+                typeBuilder.addField(buildCrossRequestCacheField(node, memoization));
+                crossRequestMemoized.add(node);
+            }
+        }
+        if (!crossRequestMemoized.isEmpty()) {
+            // The transformer owns its caches, so whoever discards it closes them
+            typeBuilder.addSuperinterface(AutoCloseable.class);
+            typeBuilder.addMethod(buildClose(crossRequestMemoized));
+        }
+
         typeBuilder.addMethod(buildPrimaryConstructor(featureStoreRetrieverType, algorithmDependencies));
+        typeBuilder.addMethod(buildSetFeatureProfiler(sharedOrder, actionOrder));
+        typeBuilder.addMethod(buildSampleFeatureCosts());
 
         typeBuilder.addMethod(buildTransformStream(sharedType, actionType, sharedContext, rankingRequest,
                 featureStoreResponse));
         typeBuilder.addMethod(buildPrepareBatchStream(sharedType, actionType, sharedContext, rankingRequest,
                 featureStoreResponse, listBatchingSpliterator));
+        typeBuilder.addMethod(buildPrepareColumnarBatchStream(sharedType, actionType, sharedContext, rankingRequest,
+                featureStoreResponse, listBatchingSpliterator, transformedBatch));
+        typeBuilder.addMethod(buildPrepareFillableBatchStream(sharedType, actionType, sharedContext, rankingRequest,
+                featureStoreResponse, listBatchingSpliterator));
         typeBuilder.addMethod(buildGetUsedFeatures(namespace));
 
-        typeBuilder.addMethod(buildComputeShared(sharedOrder, sharedFields, nodesByName, sharedType, sharedContext, algorithmDependencies));
+        List<FeatureNode> contextDependentShared = contextDependentNodes(sharedOrder, nodesByName);
+        List<FeatureNode> independentShared = new ArrayList<>(sharedOrder);
+        independentShared.removeAll(contextDependentShared);
+        typeBuilder.addMethod(buildComputeIndependentShared(independentShared, sharedOrder, sharedFields, nodesByName, sharedType,
+                algorithmDependencies));
+        typeBuilder.addMethod(buildComputeShared(contextDependentShared, sharedOrder, sharedFields, nodesByName, sharedType, sharedContext, algorithmDependencies));
         typeBuilder.addMethod(buildComputeAction(actionOrder, sharedFields, actionFields, nodesByName,
                 sharedType, actionType, sharedContext, algorithmDependencies));
         typeBuilder.addMethod(buildTransformAction(actionType, sharedType, sharedContext, transformedAction,
                 namespacedRecord, namespace, outputNodes, outputConstants, actionFields));
+        typeBuilder.addMethod(buildTransformBatch(actionType, sharedType, sharedContext, transformedBatch,
+                outputNodes, actionFields));
+        typeBuilder.addMethod(buildFillBatch(actionType, sharedType, sharedContext, outputNodes, actionFields));
 
         JavaFile javaFile = JavaFile.builder(packageName, typeBuilder.build())
                 .indent("    ")
@@ -417,13 +468,13 @@ public final class SimpleRankingTransformerGenerator {
                 .addModifiers(Modifier.PUBLIC)
                 .returns(streamType)
                 .addParameter(requestType, "request");
-        method.addStatement("$T featureStoreResponses = featureStoreRetriever.fetch(request)", responseMap);
-        method.addStatement("$T context = new $T<>(request.shared(), featureStoreResponses)", contextType, sharedContext);
+        method.addStatement("$T pendingFeatureStoreResponses = featureStoreRetriever.fetchAsync(request)",
+                pendingResponsesType(responseMap));
         method.addStatement("$T actions = request.actions()", actionList);
         method.beginControlFlow("if (actions.isEmpty())");
         method.addStatement("return $T.empty()", ClassName.get("java.util.stream", "Stream"));
         method.endControlFlow();
-        method.addStatement("SharedValues sharedValues = computeSharedValues(context)");
+        addSharedValuesStatements(method, responseMap, contextType, sharedContext);
         method.addStatement("return actions.stream().map(action -> transformAction(context, sharedValues, action))");
         return method.build();
     }
@@ -453,14 +504,14 @@ public final class SimpleRankingTransformerGenerator {
                 .addModifiers(Modifier.PUBLIC)
                 .returns(returnType)
                 .addParameter(requestType, "request");
-        method.addStatement("$T featureStoreResponses = featureStoreRetriever.fetch(request)", responseMap);
-        method.addStatement("$T context = new $T<>(request.shared(), featureStoreResponses)", contextType, sharedContext);
+        method.addStatement("$T pendingFeatureStoreResponses = featureStoreRetriever.fetchAsync(request)",
+                pendingResponsesType(responseMap));
         method.addStatement("$T actions = request.actions()", actionList);
         method.beginControlFlow("if (actions.isEmpty())");
-        method.addStatement("return new $T<>($T.empty(), featureStoreResponses)",
+        method.addStatement("return new $T<>($T.empty(), pendingFeatureStoreResponses.join())",
                 preparedBatchStream, ClassName.get("java.util.stream", "Stream"));
         method.endControlFlow();
-        method.addStatement("SharedValues sharedValues = computeSharedValues(context)");
+        addSharedValuesStatements(method, responseMap, contextType, sharedContext);
         CodeBlock.Builder chain = CodeBlock.builder();
         chain.add("$T batchStream = $T.stream(new $T<>(actions), false)\n",
                 ParameterizedTypeName.get(ClassName.get("java.util.stream", "Stream"),
@@ -479,6 +530,89 @@ public final class SimpleRankingTransformerGenerator {
         return method.build();
     }
 
+    private MethodSpec buildPrepareColumnarBatchStream(TypeName sharedType,
+                                                       TypeName actionType,
+                                                       ClassName sharedContext,
+                                                       ClassName rankingRequest,
+                                                       ClassName featureStoreResponse,
+                                                       ClassName listBatchingSpliterator,
+                                                       ClassName transformedBatch) {
+        ClassName preparedColumnarBatchStream = ClassName.get("com.hotvect.core.transform.ranking", "PreparedColumnarBatchStream");
+        ParameterizedTypeName requestType = ParameterizedTypeName.get(rankingRequest, sharedType, actionType);
+        ParameterizedTypeName responseMap = ParameterizedTypeName.get(
+                ClassName.get(Map.class),
+                ClassName.get(String.class),
+                featureStoreResponse);
+        ParameterizedTypeName contextType = ParameterizedTypeName.get(sharedContext, sharedType);
+        ClassName availableAction = ClassName.get("com.hotvect.api.data", "AvailableAction");
+        ParameterizedTypeName actionList = ParameterizedTypeName.get(ClassName.get(List.class),
+                ParameterizedTypeName.get(availableAction, actionType));
+        ParameterizedTypeName batchType = ParameterizedTypeName.get(transformedBatch, actionType);
+        ParameterizedTypeName returnType = ParameterizedTypeName.get(preparedColumnarBatchStream, actionType);
+
+        MethodSpec.Builder method = MethodSpec.methodBuilder("prepareColumnarBatchStream")
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .returns(returnType)
+                .addParameter(requestType, "request");
+        method.addStatement("$T pendingFeatureStoreResponses = featureStoreRetriever.fetchAsync(request)",
+                pendingResponsesType(responseMap));
+        method.addStatement("$T actions = request.actions()", actionList);
+        method.beginControlFlow("if (actions.isEmpty())");
+        method.addStatement("return new $T<>($T.empty(), pendingFeatureStoreResponses.join())",
+                preparedColumnarBatchStream, ClassName.get("java.util.stream", "Stream"));
+        method.endControlFlow();
+        addSharedValuesStatements(method, responseMap, contextType, sharedContext);
+        method.addStatement("$T batchStream = $T.stream(new $T<>(actions), false)\n"
+                        + "        .map(batch -> transformBatch(context, sharedValues, batch))",
+                ParameterizedTypeName.get(ClassName.get("java.util.stream", "Stream"), batchType),
+                ClassName.get("java.util.stream", "StreamSupport"), listBatchingSpliterator);
+        method.addStatement("return new $T<>(batchStream, featureStoreResponses)", preparedColumnarBatchStream);
+        return method.build();
+    }
+
+    private MethodSpec buildPrepareFillableBatchStream(TypeName sharedType,
+                                                      TypeName actionType,
+                                                      ClassName sharedContext,
+                                                      ClassName rankingRequest,
+                                                      ClassName featureStoreResponse,
+                                                      ClassName listBatchingSpliterator) {
+        ClassName preparedFillableBatchStream = ClassName.get("com.hotvect.core.transform.ranking", "PreparedFillableBatchStream");
+        ClassName fillableBatch = ClassName.get("com.hotvect.core.transform.ranking", "FillableBatch");
+        ParameterizedTypeName requestType = ParameterizedTypeName.get(rankingRequest, sharedType, actionType);
+        ParameterizedTypeName responseMap = ParameterizedTypeName.get(
+                ClassName.get(Map.class),
+                ClassName.get(String.class),
+                featureStoreResponse);
+        ParameterizedTypeName contextType = ParameterizedTypeName.get(sharedContext, sharedType);
+        ClassName availableAction = ClassName.get("com.hotvect.api.data", "AvailableAction");
+        ParameterizedTypeName actionList = ParameterizedTypeName.get(ClassName.get(List.class),
+                ParameterizedTypeName.get(availableAction, actionType));
+        ParameterizedTypeName batchType = ParameterizedTypeName.get(fillableBatch, actionType);
+        ParameterizedTypeName returnType = ParameterizedTypeName.get(preparedFillableBatchStream, actionType);
+
+        MethodSpec.Builder method = MethodSpec.methodBuilder("prepareFillableBatchStream")
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .returns(returnType)
+                .addParameter(requestType, "request");
+        method.addStatement("$T pendingFeatureStoreResponses = featureStoreRetriever.fetchAsync(request)",
+                pendingResponsesType(responseMap));
+        method.addStatement("$T actions = request.actions()", actionList);
+        method.beginControlFlow("if (actions.isEmpty())");
+        method.addStatement("return new $T<>($T.empty(), pendingFeatureStoreResponses.join())",
+                preparedFillableBatchStream, ClassName.get("java.util.stream", "Stream"));
+        method.endControlFlow();
+        addSharedValuesStatements(method, responseMap, contextType, sharedContext);
+        // Features are computed when the consumer fills the batch, directly into its sink
+        method.addStatement("$T batchStream = $T.stream(new $T<>(actions), false)\n"
+                        + "        .map(batch -> new $T<>(batch, LAYOUT, sink -> fillBatch(context, sharedValues, batch, sink)))",
+                ParameterizedTypeName.get(ClassName.get("java.util.stream", "Stream"), batchType),
+                ClassName.get("java.util.stream", "StreamSupport"), listBatchingSpliterator, fillableBatch);
+        method.addStatement("return new $T<>(batchStream, featureStoreResponses)", preparedFillableBatchStream);
+        return method.build();
+    }
+
     private MethodSpec buildGetUsedFeatures(ClassName namespace) {
         MethodSpec.Builder method = MethodSpec.methodBuilder("getUsedFeatures")
                 .addAnnotation(Override.class)
@@ -488,7 +622,76 @@ public final class SimpleRankingTransformerGenerator {
         return method.build();
     }
 
-    private MethodSpec buildComputeShared(List<FeatureNode> sharedOrder,
+    private static ParameterizedTypeName pendingResponsesType(ParameterizedTypeName responseMap) {
+        return ParameterizedTypeName.get(ClassName.get("java.util.concurrent", "CompletableFuture"), responseMap);
+    }
+
+    /**
+     * Emits the statements that compute the shared values while the feature store lookups started by
+     * {@code pendingFeatureStoreResponses} are in flight, then wait for the lookups and compute the shared values that
+     * depend on them. Declares {@code featureStoreResponses}, {@code context} and {@code sharedValues}.
+     */
+    private void addSharedValuesStatements(MethodSpec.Builder method,
+                                           ParameterizedTypeName responseMap,
+                                           ParameterizedTypeName contextType,
+                                           ClassName sharedContext) {
+        method.addStatement("SharedValues sharedValues = computeIndependentSharedValues(request.shared())");
+        method.addStatement("$T featureStoreResponses = pendingFeatureStoreResponses.join()", responseMap);
+        method.addStatement("$T context = new $T<>(request.shared(), featureStoreResponses)", contextType, sharedContext);
+        method.addStatement("computeSharedValues(context, sharedValues)");
+    }
+
+    /**
+     * Returns the shared features (in {@code sharedOrder}) that take the {@code SharedContext}, and therefore the
+     * feature store responses, as a parameter or depend on a shared feature that does.
+     */
+    private List<FeatureNode> contextDependentNodes(List<FeatureNode> sharedOrder, Map<String, FeatureNode> nodesByName) {
+        Set<String> dependent = new HashSet<>();
+        List<FeatureNode> ret = new ArrayList<>();
+        for (FeatureNode node : sharedOrder) {
+            for (Param param : node.params()) {
+                boolean usesContext = param.kind() == ParamKind.CONTEXT;
+                if (param.kind() == ParamKind.INJECTED) {
+                    FeatureNode provider = nodesByName.get(param.injectName());
+                    usesContext = dependent.contains(provider == null ? param.injectName() : provider.name());
+                }
+                if (usesContext) {
+                    dependent.add(node.name());
+                    ret.add(node);
+                    break;
+                }
+            }
+        }
+        return ret;
+    }
+
+    private MethodSpec buildComputeIndependentShared(List<FeatureNode> independentOrder,
+                                                     List<FeatureNode> sharedOrder,
+                                                     Map<String, String> sharedFields,
+                                                     Map<String, FeatureNode> nodesByName,
+                                                     TypeName sharedType,
+                                                     Map<String, AlgorithmDependency> algorithmDependencies) {
+        MethodSpec.Builder method = MethodSpec.methodBuilder("computeIndependentSharedValues")
+                .addModifiers(Modifier.PRIVATE)
+                .returns(ClassName.bestGuess("SharedValues"))
+                .addParameter(sharedType, "shared");
+        method.addStatement("SharedValues sharedValues = new SharedValues()");
+        if (!independentOrder.isEmpty()) {
+            method.addStatement("$T featureSample = sampleFeatureCosts()", FEATURE_SAMPLE);
+        }
+        for (FeatureNode node : independentOrder) {
+            CodeBlock expr = buildCallExpression(node, "context", "shared", "action", "sharedValues", "actionValues",
+                    sharedFields, Map.of(), nodesByName, algorithmDependencies);
+            String field = sharedFields.get(node.name());
+            addProfiledStatement(method, "sharedProbes", sharedOrder.indexOf(node),
+                    CodeBlock.of("sharedValues.$L = $L", field, expr));
+        }
+        method.addStatement("return sharedValues");
+        return method.build();
+    }
+
+    private MethodSpec buildComputeShared(List<FeatureNode> contextDependentOrder,
+                                          List<FeatureNode> sharedOrder,
                                           Map<String, String> sharedFields,
                                           Map<String, FeatureNode> nodesByName,
                                           TypeName sharedType,
@@ -497,17 +700,19 @@ public final class SimpleRankingTransformerGenerator {
         ParameterizedTypeName contextType = ParameterizedTypeName.get(sharedContext, sharedType);
         MethodSpec.Builder method = MethodSpec.methodBuilder("computeSharedValues")
                 .addModifiers(Modifier.PRIVATE)
-                .returns(ClassName.bestGuess("SharedValues"))
-                .addParameter(contextType, "context");
+                .addParameter(contextType, "context")
+                .addParameter(ClassName.bestGuess("SharedValues"), "sharedValues");
         method.addStatement("$T shared = context.shared()", sharedType);
-        method.addStatement("SharedValues sharedValues = new SharedValues()");
-        for (FeatureNode node : sharedOrder) {
+        if (!contextDependentOrder.isEmpty()) {
+            method.addStatement("$T featureSample = sampleFeatureCosts()", FEATURE_SAMPLE);
+        }
+        for (FeatureNode node : contextDependentOrder) {
             CodeBlock expr = buildCallExpression(node, "context", "shared", "action", "sharedValues", "actionValues",
                     sharedFields, Map.of(), nodesByName, algorithmDependencies);
             String field = sharedFields.get(node.name());
-            method.addStatement("sharedValues.$L = $L", field, expr);
+            addProfiledStatement(method, "sharedProbes", sharedOrder.indexOf(node),
+                    CodeBlock.of("sharedValues.$L = $L", field, expr));
         }
-        method.addStatement("return sharedValues");
         return method.build();
     }
 
@@ -528,16 +733,72 @@ public final class SimpleRankingTransformerGenerator {
                 .addParameter(actionType, "action")
                 .addParameter(ClassName.bestGuess("SharedValues"), "sharedValues");
         method.addStatement("ActionValues actionValues = new ActionValues()");
-        for (FeatureNode node : actionOrder) {
+        if (!actionOrder.isEmpty()) {
+            method.addStatement("$T featureSample = sampleFeatureCosts()", FEATURE_SAMPLE);
+        }
+        for (int i = 0; i < actionOrder.size(); i++) {
+            FeatureNode node = actionOrder.get(i);
             CodeBlock expr = buildCallExpression(node, "context", "shared", "action", "sharedValues", "actionValues",
                     sharedFields, actionFields, nodesByName, algorithmDependencies);
             String field = actionFields.get(node.name());
-            method.addStatement("actionValues.$L = $L", field, expr);
+            addProfiledStatement(method, "actionProbes", i, CodeBlock.of("actionValues.$L = $L", field, expr));
         }
         method.addStatement("return actionValues");
         return method.build();
     }
 
+    /**
+     * Emits {@code statement}, measured with the {@code featureSample} local if it is non-null.
+     */
+    private void addProfiledStatement(MethodSpec.Builder method, String probesField, int probeIndex, CodeBlock statement) {
+        method.beginControlFlow("if (featureSample != null)")
+                .addStatement("featureSample.begin()")
+                .endControlFlow();
+        method.addStatement(statement);
+        method.beginControlFlow("if (featureSample != null)")
+                .addStatement("featureSample.end($L[$L])", probesField, probeIndex)
+                .endControlFlow();
+    }
+
+    /**
+     * Profiling resolves one probe per shared and action feature, indexed like {@code sharedOrder} and
+     * {@code actionOrder}. Features the profiler is set for are sampled per call of the compute methods, that is per
+     * request for shared features and per action for action features.
+     */
+    private MethodSpec buildSetFeatureProfiler(List<FeatureNode> sharedOrder, List<FeatureNode> actionOrder) {
+        MethodSpec.Builder method = MethodSpec.methodBuilder("setFeatureProfiler")
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(FEATURE_PROFILER, "featureProfiler")
+                .addParameter(String.class, "algorithmName");
+        method.beginControlFlow("if (featureProfiler != null)");
+        method.addStatement("this.sharedProbes = $L", probeArray(sharedOrder, "SHARED"));
+        method.addStatement("this.actionProbes = $L", probeArray(actionOrder, "ACTION"));
+        method.endControlFlow();
+        method.addStatement("this.featureProfiler = featureProfiler");
+        return method.build();
+    }
+
+    private CodeBlock probeArray(List<FeatureNode> order, String stage) {
+        CodeBlock.Builder probes = CodeBlock.builder().add("new $T[]{", FEATURE_PROBE);
+        for (int i = 0; i < order.size(); i++) {
+            if (i > 0) {
+                probes.add(", ");
+            }
+            probes.add("featureProfiler.probe(algorithmName, $T.$L, $S)", FEATURE_STAGE, stage, order.get(i).name());
+        }
+        return probes.add("}").build();
+    }
+
+    private MethodSpec buildSampleFeatureCosts() {
+        MethodSpec.Builder method = MethodSpec.methodBuilder("sampleFeatureCosts")
+                .addModifiers(Modifier.PRIVATE)
+                .returns(FEATURE_SAMPLE);
+        method.addStatement("$T featureProfiler = this.featureProfiler", FEATURE_PROFILER);
+        method.addStatement("return featureProfiler == null ? null : featureProfiler.sample()");
+        return method.build();
+    }
+
     private MethodSpec buildTransformAction(TypeName actionType,
                                             TypeName sharedType,
                                             ClassName sharedContext,
@@ -549,7 +810,7 @@ public final class SimpleRankingTransformerGenerator {
                                             Map<String, String> actionFields) {
         ParameterizedTypeName contextType = ParameterizedTypeName.get(sharedContext, sharedType);
         ParameterizedTypeName transformedType = ParameterizedTypeName.get(transformedAction, actionType);
-        ParameterizedTypeName namespaceMap = ParameterizedTypeName.get(ClassName.get(IdentityHashMap.class), namespace, TypeName.get(Object.class));
+        ParameterizedTypeName namespaceRecordType = ParameterizedTypeName.get(namespacedRecord, namespace, TypeName.get(Object.class));
         ParameterizedTypeName availableActionType = ParameterizedTypeName.get(
                 ClassName.get("com.hotvect.api.data", "AvailableAction"),
                 actionType);
@@ -561,17 +822,138 @@ public final class SimpleRankingTransformerGenerator {
                 .addParameter(availableActionType, "availableAction");
         method.addStatement("$T action = availableAction.action()", actionType);
         method.addStatement("ActionValues actionValues = computeActionValues(context, context.shared(), action, sharedValues)");
-        method.addStatement("$T transformations = new $T<>($L)",
-                namespaceMap, ClassName.get(IdentityHashMap.class), outputNodes.size() * 2);
+        method.addStatement("$T transformations = $T.newRecord($T.slots())",
+                namespaceRecordType, ClassName.get("com.hotvect.api.data.common", "NamespacedRecords"),
+                ClassName.get("com.hotvect.core.transform", "Namespaces"));
         for (FeatureNode node : outputNodes) {
             String constant = outputConstants.get(node.name());
             String field = actionFields.get(node.name());
             method.addStatement("transformations.put($L, actionValues.$L)", constant, field);
         }
-        method.addStatement("return $T.of(availableAction.actionId(), action, new $T<>(transformations))", transformedAction, namespacedRecord);
+        method.addStatement("return $T.of(availableAction.actionId(), action, transformations)", transformedAction);
+        return method.build();
+    }
+
+    private FieldSpec buildLayoutField(ClassName transformedBatch,
+                                       ClassName namespace,
+                                       List<FeatureNode> outputNodes,
+                                       Map<String, String> outputConstants) {
+        ClassName layout = transformedBatch.nestedClass("Layout");
+        ClassName columnType = transformedBatch.nestedClass("ColumnType");
+        CodeBlock.Builder features = CodeBlock.builder();
+        CodeBlock.Builder columnTypes = CodeBlock.builder();
+        for (int i = 0; i < outputNodes.size(); i++) {
+            FeatureNode node = outputNodes.get(i);
+            if (i > 0) {
+                features.add(", ");
+                columnTypes.add(", ");
+            }
+            features.add("$L", outputConstants.get(node.name()));
+            columnTypes.add("$T.$L", columnType, columnType(node.returnType()).name());
+        }
+        // Must be declared after the namespace constants, since static initializers run in textual order
+        return FieldSpec.builder(layout, "LAYOUT", Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                .initializer("new $T(new $T[]{$L}, new $T[]{$L})",
+                        layout, namespace, features.build(), columnType, columnTypes.build())
+                .build();
+    }
+
+    private MethodSpec buildTransformBatch(TypeName actionType,
+                                           TypeName sharedType,
+                                           ClassName sharedContext,
+                                           ClassName transformedBatch,
+                                           List<FeatureNode> outputNodes,
+                                           Map<String, String> actionFields) {
+        ParameterizedTypeName contextType = ParameterizedTypeName.get(sharedContext, sharedType);
+        ClassName availableAction = ClassName.get("com.hotvect.api.data", "AvailableAction");
+        ParameterizedTypeName actionList = ParameterizedTypeName.get(ClassName.get(List.class),
+                ParameterizedTypeName.get(availableAction, actionType));
+        MethodSpec.Builder method = MethodSpec.methodBuilder("transformBatch")
+                .addModifiers(Modifier.PRIVATE)
+                .returns(ParameterizedTypeName.get(transformedBatch, actionType))
+                .addParameter(contextType, "context")
+                .addParameter(ClassName.bestGuess("SharedValues"), "sharedValues")
+                .addParameter(actionList, "batch");
+        method.addStatement("int size = batch.size()");
+        List<String> columnVars = new ArrayList<>(outputNodes.size());
+        for (int i = 0; i < outputNodes.size(); i++) {
+            FeatureNode node = outputNodes.get(i);
+            String columnVar = "column" + i;
+            columnVars.add(columnVar);
+            TypeName elementType = switch (columnType(node.returnType())) {
+                case FLOAT -> TypeName.FLOAT;
+                case DOUBLE -> TypeName.DOUBLE;
+                case INT -> TypeName.INT;
+                case LONG -> TypeName.LONG;
+                case STRING -> ClassName.get(String.class);
+                case OBJECT -> TypeName.OBJECT;
+            };
+            method.addStatement("$T[] $L = new $T[size]", elementType, columnVar, elementType);
+        }
+        method.beginControlFlow("for (int i = 0; i < size; i++)");
+        method.addStatement("ActionValues actionValues = computeActionValues(context, context.shared(), batch.get(i).action(), sharedValues)");
+        for (int i = 0; i < outputNodes.size(); i++) {
+            FeatureNode node = outputNodes.get(i);
+            method.addStatement("$L[i] = actionValues.$L", columnVars.get(i), actionFields.get(node.name()));
+        }
+        method.endControlFlow();
+        method.addStatement("return new $T<>(batch, LAYOUT, new Object[]{$L})", transformedBatch, String.join(", ", columnVars));
         return method.build();
     }
 
+    private MethodSpec buildFillBatch(TypeName actionType,
+                                      TypeName sharedType,
+                                      ClassName sharedContext,
+                                      List<FeatureNode> outputNodes,
+                                      Map<String, String> actionFields) {
+        ParameterizedTypeName contextType = ParameterizedTypeName.get(sharedContext, sharedType);
+        ClassName availableAction = ClassName.get("com.hotvect.api.data", "AvailableAction");
+        ParameterizedTypeName actionList = ParameterizedTypeName.get(ClassName.get(List.class),
+                ParameterizedTypeName.get(availableAction, actionType));
+        MethodSpec.Builder method = MethodSpec.methodBuilder("fillBatch")
+                .addModifiers(Modifier.PRIVATE)
+                .addParameter(contextType, "context")
+                .addParameter(ClassName.bestGuess("SharedValues"), "sharedValues")
+                .addParameter(actionList, "batch")
+                .addParameter(ClassName.get("com.hotvect.core.transform.ranking", "FeatureRowSink"), "sink");
+        method.beginControlFlow("for (int i = 0; i < batch.size(); i++)");
+        method.addStatement("ActionValues actionValues = computeActionValues(context, context.shared(), batch.get(i).action(), sharedValues)");
+        for (int i = 0; i < outputNodes.size(); i++) {
+            FeatureNode node = outputNodes.get(i);
+            String field = actionFields.get(node.name());
+            switch (columnType(node.returnType())) {
+                case FLOAT -> method.addStatement("sink.putFloat(i, $L, actionValues.$L)", i, field);
+                case DOUBLE -> method.addStatement("sink.putDouble(i, $L, actionValues.$L)", i, field);
+                case INT -> method.addStatement("sink.putInt(i, $L, actionValues.$L)", i, field);
+                case LONG -> method.addStatement("sink.putLong(i, $L, actionValues.$L)", i, field);
+                // Narrower primitives are boxed to their declared type here
+                case STRING, OBJECT -> method.addStatement("sink.putObject(i, $L, actionValues.$L)", i, field);
+            }
+        }
+        method.endControlFlow();
+        return method.build();
+    }
+
+    /**
+     * Mirrors {@code TransformedBatch.ColumnType}; like the other runtime types, it is only referenced by name in
+     * generated code.
+     */
+    private enum ColumnType { FLOAT, DOUBLE, INT, LONG, STRING, OBJECT }
+
+    private ColumnType columnType(TypeMirror returnType) {
+        TypeKind kind = returnType.getKind();
+        return switch (kind) {
+            case FLOAT -> ColumnType.FLOAT;
+            case DOUBLE -> ColumnType.DOUBLE;
+            case INT -> ColumnType.INT;
+            case LONG -> ColumnType.LONG;
+            // Boxed, so that rows keep the declared Byte/Short/Character/Boolean type
+            case BYTE, SHORT, CHAR, BOOLEAN -> ColumnType.OBJECT;
+            case DECLARED -> "java.lang.String".equals(returnTypeName(returnType)) ? ColumnType.STRING : ColumnType.OBJECT;
+            default -> ColumnType.OBJECT;
+        };
+    }
+
     private CodeBlock buildCallExpression(FeatureNode node,
                                           String contextVar,
                                           String sharedVar,
@@ -599,9 +981,44 @@ public final class SimpleRankingTransformerGenerator {
             expr.add("$L", args.get(i));
         }
         expr.add(")");
+        if (crossRequestMemoization(node) != null) {
+            // The scanner only accepts @Inject parameters for these features, so their values make up the cache key
+            CodeBlock key = args.size() == 1
+                    ? CodeBlock.of("$L", args.get(0))
+                    : CodeBlock.of("$T.asList($L)", Arrays.class, String.join(", ", args));
+            return CodeBlock.of("$L.get($L, () -> $L)", crossRequestCacheField(node), key, expr.build());
+        }
         return expr.build();
     }
 
+    private AnnotationMirror crossRequestMemoization(FeatureNode node) {
+        TypeElement annotation = context.elements().getTypeElement(CrossRequestMemoized.class.getCanonicalName());
+        return annotation == null ? null : AnnotationUtils.getAnnotationMirror(node.method(), annotation, context.types());
+    }
+
+    private String crossRequestCacheField(FeatureNode node) {
+        return toFieldName(node.name()) + "CrossRequestCache";
+    }
+
+    private FieldSpec buildCrossRequestCacheField(FeatureNode node, AnnotationMirror memoization) {
+        long maximumSize = AnnotationUtils.getAnnotationValue(memoization, "maximumSize", Long.class, CrossRequestMemoized.DEFAULT_MAXIMUM_SIZE);
+        long ttlSeconds = AnnotationUtils.getAnnotationValue(memoization, "ttlSeconds", Long.class, CrossRequestMemoized.DEFAULT_TTL_SECONDS);
+        return FieldSpec.builder(CROSS_REQUEST_CACHE, crossRequestCacheField(node), Modifier.PRIVATE, Modifier.FINAL)
+                .initializer("$T.builder($S, $T.globalRegistry).withMaximumSize($LL).withTtl($T.ofSeconds($LL)).build()",
+                        CROSS_REQUEST_CACHE, node.name(), METRICS, maximumSize, Duration.class, ttlSeconds)
+                .build();
+    }
+
+    private MethodSpec buildClose(List<FeatureNode> crossRequestMemoized) {
+        MethodSpec.Builder method = MethodSpec.methodBuilder("close")
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC);
+        for (FeatureNode node : crossRequestMemoized) {
+            method.addStatement("$L.close()", crossRequestCacheField(node));
+        }
+        return method.build();
+    }
+
     private String paramExpression(Param param,
                                    String contextVar,
                                    String sharedVar,
@@ -7,6 +7,7 @@ import java.util.Locale;
 import java.util.Map;
 
 import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.ExecutableElement;
@@ -17,6 +18,7 @@ import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.Types;
 import javax.tools.Diagnostic;
 
+import com.hotvect.core.annotation.CrossRequestMemoized;
 import com.hotvect.core.annotation.processor.ProcessingContext;
 import com.hotvect.core.annotation.processor.model.FeatureKind;
 import com.hotvect.core.annotation.processor.model.FeatureNode;
@@ -93,6 +95,9 @@ public final class FeatureScanner {
             if (params == null) {
                 continue;
             }
+            if (!validateCrossRequestMemoization(method, name, params)) {
+                continue;
+            }
 
             FeatureNode node = new FeatureNode(name, kind, method, method.getReturnType(), params);
             allNodes.put(name, node);
@@ -144,6 +149,27 @@ public final class FeatureScanner {
         return params;
     }
 
+    private boolean validateCrossRequestMemoization(ExecutableElement method, String name, List<Param> params) {
+        TypeElement annotation = context.elements().getTypeElement(CrossRequestMemoized.class.getCanonicalName());
+        AnnotationMirror mirror = annotation == null ? null : AnnotationUtils.getAnnotationMirror(method, annotation, context.types());
+        if (mirror == null) {
+            return true;
+        }
+        if (params.isEmpty() || params.stream().anyMatch(p -> p.kind() != ParamKind.INJECTED)) {
+            error(context, method,
+                    "Cross-request memoized feature '%s' must only take @Inject parameters, whose values are its cache key.",
+                    name);
+            return false;
+        }
+        long maximumSize = AnnotationUtils.getAnnotationValue(mirror, "maximumSize", Long.class, CrossRequestMemoized.DEFAULT_MAXIMUM_SIZE);
+        long ttlSeconds = AnnotationUtils.getAnnotationValue(mirror, "ttlSeconds", Long.class, CrossRequestMemoized.DEFAULT_TTL_SECONDS);
+        if (maximumSize <= 0 || ttlSeconds <= 0) {
+            error(context, method, "Cross-request memoized feature '%s' must have a positive maximumSize and ttlSeconds.", name);
+            return false;
+        }
+        return true;
+    }
+
     private ParamKind classifyParameter(VariableElement param, FeatureKind kind, TransformerSpec spec) {
         if (AnnotationUtils.getAnnotationMirror(param, context.injectAnnotation(), context.types()) != null) {
             return ParamKind.INJECTED;
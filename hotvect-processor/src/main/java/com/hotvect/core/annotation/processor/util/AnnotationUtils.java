@@ -38,6 +38,11 @@ public final class AnnotationUtils {
                     return type.isInstance(s) ? type.cast(s) : defaultValue;
                 }
 
+                @Override
+                public T visitLong(long l, Void unused) {
+                    return type.isInstance(l) ? type.cast(l) : defaultValue;
+                }
+
                 @Override
                 public T visitType(TypeMirror t, Void unused) {
                     return type.isInstance(t) ? type.cast(t) : defaultValue;
@@ -1,12 +1,19 @@
 package com.hotvect.core.annotation.processor;
 
 import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import javax.tools.Diagnostic;
 import javax.tools.DiagnosticCollector;
@@ -15,10 +22,25 @@ import javax.tools.JavaFileObject;
 import javax.tools.StandardJavaFileManager;
 import javax.tools.ToolProvider;
 
+import com.hotvect.api.data.AvailableAction;
+import com.hotvect.api.data.Namespace;
+import com.hotvect.api.data.featurestore.FeatureStore;
+import com.hotvect.api.data.featurestore.SimpleFeatureStoreResponse;
+import com.hotvect.api.data.ranking.RankingRequest;
+import com.hotvect.api.data.ranking.TransformedAction;
+import com.hotvect.core.featurestore.ConcurrentFeatureStoreRetriever;
+import com.hotvect.core.featurestore.FeatureStoreRetriever;
+import com.hotvect.core.transform.ranking.ColumnarRankingTransformer;
+import com.hotvect.core.transform.ranking.FeatureRowSink;
+import com.hotvect.core.transform.ranking.FillableBatch;
+import com.hotvect.core.transform.ranking.PreparedFillableBatchStream;
+import io.micrometer.core.instrument.Metrics;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -82,6 +104,269 @@ class SimpleRankingTransformerBackendGenerationTest {
         assertTrue(generated.contains("CatBoostFeatureType.EMBEDDING"));
     }
 
+    @Test
+    void generatesPrimitiveColumnsForColumnarBatches() throws IOException {
+        String generated = compileFixture("""
+                {
+                  "transformer_parameters": {
+                    "features": ["brand", "price", "embedding"]
+                  }
+                }
+                """);
+
+        assertTrue(generated.contains("implements ColumnarRankingTransformer<String, String>"), generated);
+        assertTrue(generated.contains("prepareColumnarBatchStream"), generated);
+        assertTrue(generated.contains("String[] column0 = new String[size]"), generated);
+        assertTrue(generated.contains("double[] column1 = new double[size]"), generated);
+        assertTrue(generated.contains("Object[] column2 = new Object[size]"), generated);
+        assertTrue(generated.contains("TransformedBatch.ColumnType.STRING, TransformedBatch.ColumnType.DOUBLE, TransformedBatch.ColumnType.OBJECT"), generated);
+    }
+
+    @Test
+    void columnarBatchesKeepTheDeclaredTypesOfTheRowPath() throws Exception {
+        CompileResult result = compile("""
+                {
+                  "transformer_parameters": {
+                    "features": ["brand", "price", "count"]
+                  }
+                }
+                """);
+        assertTrue(result.success(), result.diagnostics());
+        assertTrue(generatedSource(result).contains("int[] column2 = new int[size]"), generatedSource(result));
+
+        try (URLClassLoader loader = result.classLoader()) {
+            ColumnarRankingTransformer<String, String> transformer = newTransformer(loader, request -> Map.of());
+            RankingRequest<String, String> request = RankingRequest.ofAvailableActions("example", "shared", List.of(
+                    AvailableAction.of("a0", "ab"),
+                    AvailableAction.of("a1", "abc")
+            ));
+
+            List<TransformedAction<String>> rows = transformer.transform(request);
+            List<TransformedAction<String>> columnar = transformer.prepareColumnarBatchStream(request).batchStream()
+                    .flatMap(batch -> batch.toTransformedActions().stream())
+                    .toList();
+
+            assertEquals(rows.size(), columnar.size());
+            for (int i = 0; i < rows.size(); i++) {
+                assertEquals(rows.get(i).actionId(), columnar.get(i).actionId());
+                for (Namespace feature : transformer.getUsedFeatures()) {
+                    assertEquals(rows.get(i).transformed().get(feature), columnar.get(i).transformed().get(feature), feature.toString());
+                }
+            }
+            Namespace count = transformer.getUsedFeatures().stream()
+                    .filter(feature -> feature.toString().equals("count"))
+                    .findFirst()
+                    .orElseThrow();
+            assertEquals(3, assertInstanceOf(Integer.class, columnar.get(1).transformed().get(count)));
+        }
+    }
+
+    @Test
+    void fillableBatchesWriteTheValuesOfTheRowPathWithTypedPuts() throws Exception {
+        CompileResult result = compile("""
+                {
+                  "transformer_parameters": {
+                    "features": ["brand", "price", "count"]
+                  }
+                }
+                """);
+        assertTrue(result.success(), result.diagnostics());
+        assertTrue(generatedSource(result).contains("sink.putInt(i, 2, actionValues."), generatedSource(result));
+
+        try (URLClassLoader loader = result.classLoader()) {
+            ColumnarRankingTransformer<String, String> transformer = newTransformer(loader, request -> Map.of());
+            RankingRequest<String, String> request = RankingRequest.ofAvailableActions("example", "shared", List.of(
+                    AvailableAction.of("a0", "ab"),
+                    AvailableAction.of("a1", "abc")
+            ));
+
+            List<TransformedAction<String>> rows = transformer.transform(request);
+            List<FillableBatch<String>> batches = transformer.prepareFillableBatchStream(request).batchStream().toList();
+            assertEquals(1, batches.size());
+            FillableBatch<String> batch = batches.get(0);
+            Map<String, Object> filled = new HashMap<>();
+            batch.fillInto(new FeatureRowSink() {
+                @Override
+                public void putFloat(int row, int column, float value) {
+                    filled.put(row + ":" + batch.layout().feature(column), value);
+                }
+
+                @Override
+                public void putDouble(int row, int column, double value) {
+                    filled.put(row + ":" + batch.layout().feature(column), value);
+                }
+
+                @Override
+                public void putInt(int row, int column, int value) {
+                    filled.put(row + ":" + batch.layout().feature(column), value);
+                }
+
+                @Override
+                public void putLong(int row, int column, long value) {
+                    filled.put(row + ":" + batch.layout().feature(column), value);
+                }
+
+                @Override
+                public void putObject(int row, int column, Object value) {
+                    filled.put(row + ":" + batch.layout().feature(column), value);
+                }
+            });
+
+            assertEquals(rows.size() * transformer.getUsedFeatures().size(), filled.size());
+            for (int i = 0; i < rows.size(); i++) {
+                for (Namespace feature : transformer.getUsedFeatures()) {
+                    assertEquals(rows.get(i).transformed().get(feature), filled.get(i + ":" + feature), feature.toString());
+                }
+            }
+        }
+    }
+
+    @Test
+    void startsFeatureStoreLookupsBeforeComputingSharedFeatures() throws IOException {
+        String generated = compileFixture("""
+                {
+                  "transformer_parameters": {
+                    "features": ["brand", "price"]
+                  }
+                }
+                """);
+
+        int fetch = generated.indexOf("featureStoreRetriever.fetchAsync(request)");
+        int independentShared = generated.indexOf("computeIndependentSharedValues(request.shared())");
+        int join = generated.indexOf("pendingFeatureStoreResponses.join()");
+        assertTrue(fetch >= 0 && fetch < independentShared && independentShared < join, generated);
+    }
+
+    @Test
+    void computesIndependentSharedFeaturesWhileTheLookupsAreInFlight() throws Exception {
+        CompileResult result = compile("""
+                {
+                  "transformer_parameters": {
+                    "features": ["relative_length", "action_feature_store_status"]
+                  }
+                }
+                """);
+        assertTrue(result.success(), result.diagnostics());
+
+        try (URLClassLoader loader = result.classLoader()) {
+            List<String> events = fixtureEvents(loader);
+            // The lookup only completes once the independent shared feature has been computed, so the request would
+            // run into the deadline if the lookup were not in flight during that computation
+            FeatureStore slowView = (ids, viewName, viewVersion, featureNames) -> {
+                events.add("fetch " + viewName);
+                return CompletableFuture.supplyAsync(() -> {
+                    while (!events.contains("independent")) {
+                        Thread.onSpinWait();
+                    }
+                    events.add("response " + viewName);
+                    return SimpleFeatureStoreResponse.success(Map.of(Map.of("id", "shared"), Map.of("score", 1.0)));
+                });
+            };
+            ColumnarRankingTransformer<String, String> transformer = newTransformer(loader,
+                    ConcurrentFeatureStoreRetriever.<String, String>builder(slowView)
+                            .withView("user", 1, request -> List.of(Map.of("id", request.shared())), "score")
+                            .withDeadline(Duration.ofSeconds(5))
+                            .build());
+
+            PreparedFillableBatchStream<String> prepared = transformer.prepareFillableBatchStream(
+                    RankingRequest.ofAvailableActions("example", "shared", List.of(AvailableAction.of("a0", "ab"))));
+
+            assertEquals(List.of("fetch user", "independent", "response user", "context user=ok;"), events);
+            assertTrue(prepared.featureStoreResponses().get("user").getRequestFailure().isEmpty());
+        }
+    }
+
+    @Test
+    void sharedFeaturesSeeHedgedAndTimedOutLookupsOfConcurrentRetriever() throws Exception {
+        CompileResult result = compile("""
+                {
+                  "transformer_parameters": {
+                    "features": ["relative_length", "action_feature_store_status"]
+                  }
+                }
+                """);
+        assertTrue(result.success(), result.diagnostics());
+
+        try (URLClassLoader loader = result.classLoader()) {
+            List<String> events = fixtureEvents(loader);
+            // The first lookup of "hedged" and every lookup of "stuck" never complete
+            List<String> lookups = new CopyOnWriteArrayList<>();
+            FeatureStore slowViews = (ids, viewName, viewVersion, featureNames) -> {
+                lookups.add(viewName);
+                boolean hedge = viewName.equals("hedged") && lookups.stream().filter(viewName::equals).count() > 1;
+                return hedge
+                        ? CompletableFuture.completedFuture(SimpleFeatureStoreResponse.success(Map.of()))
+                        : new CompletableFuture<>();
+            };
+            Duration deadline = Duration.ofMillis(300);
+            ColumnarRankingTransformer<String, String> transformer = newTransformer(loader,
+                    ConcurrentFeatureStoreRetriever.<String, String>builder(slowViews)
+                            .withView("hedged", 1, request -> List.of(Map.of("id", request.shared())), "score")
+                            .withView("stuck", 1, request -> List.of(Map.of("id", request.shared())), "score")
+                            .withDeadline(deadline)
+                            .withHedgeDelay(Duration.ofMillis(20))
+                            .build());
+
+            long start = System.nanoTime();
+            List<TransformedAction<String>> transformed = transformer.transform(
+                    RankingRequest.ofAvailableActions("example", "shared", List.of(AvailableAction.of("a0", "ab"))));
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+            assertEquals(1, transformed.size());
+            assertEquals(List.of("independent", "context hedged=ok;stuck=failed;"), events);
+            assertEquals(2, lookups.stream().filter("hedged"::equals).count());
+            // The stuck view is hedged as well, and then given up on at the deadline
+            assertEquals(2, lookups.stream().filter("stuck"::equals).count());
+            assertTrue(elapsed.compareTo(deadline) >= 0, elapsed.toString());
+            assertTrue(elapsed.compareTo(deadline.multipliedBy(10)) < 0, elapsed.toString());
+        }
+    }
+
+    @Test
+    void cachesCrossRequestMemoizedFeaturesByTheirInjectedValues() throws Exception {
+        CompileResult result = compile("""
+                {
+                  "transformer_parameters": {
+                    "features": ["brand", "brand_length"]
+                  }
+                }
+                """);
+        assertTrue(result.success(), result.diagnostics());
+        String generated = generatedSource(result);
+
+        assertTrue(generated.contains("CrossRequestCache.builder(\"brand_length\", Metrics.globalRegistry).withMaximumSize(1000L).withTtl(Duration.ofSeconds(60L)).build()"), generated);
+        assertTrue(generated.contains("brandLengthCrossRequestCache.get(actionValues.brand, () -> TestFeatures.brandLength(actionValues.brand))"), generated);
+        assertTrue(generated.contains("implements ColumnarRankingTransformer<String, String>, ProfilableTransformer, AutoCloseable"), generated);
+
+        // Closing the transformer removes the gauges of its caches
+        try (URLClassLoader loader = result.classLoader()) {
+            ColumnarRankingTransformer<String, String> transformer = newTransformer(loader, request -> Map.of());
+            transformer.transform(RankingRequest.ofAvailableActions("example", "shared", List.of(AvailableAction.of("a0", "ab"))));
+            int gauges = Metrics.globalRegistry.find("hotvect.transformer.cross.request.cache.size").tag("feature", "brand_length").gauges().size();
+            assertTrue(gauges > 0);
+
+            ((AutoCloseable) transformer).close();
+            assertEquals(gauges - 1, Metrics.globalRegistry.find("hotvect.transformer.cross.request.cache.size").tag("feature", "brand_length").gauges().size());
+        }
+    }
+
+    @Test
+    void profilesFeaturesOnlyWhenAProfilerIsSet() throws IOException {
+        String generated = compileFixture("""
+                {
+                  "transformer_parameters": {
+                    "features": ["brand", "price"]
+                  }
+                }
+                """);
+
+        assertTrue(generated.contains("implements ColumnarRankingTransformer<String, String>, ProfilableTransformer"), generated);
+        assertTrue(generated.contains("public void setFeatureProfiler(FeatureProfiler featureProfiler, String algorithmName)"), generated);
+        assertTrue(generated.contains("featureProfiler.probe(algorithmName, FeatureProfiler.Stage."), generated);
+        assertTrue(generated.contains("return featureProfiler == null ? null : featureProfiler.sample()"), generated);
+        assertTrue(generated.contains("featureSample.end("), generated);
+    }
+
     @Test
     void algorithmDefinitionTypeOverridesInference() throws IOException {
         // brand returns String (would infer CATEGORICAL); GROUP_ID override wins.
@@ -213,11 +498,48 @@ class SimpleRankingTransformerBackendGenerationTest {
         Files.writeString(features, """
                 package example;
 
+                import com.hotvect.core.annotation.CrossRequestMemoized;
                 import com.hotvect.core.annotation.Feature;
+                import com.hotvect.core.annotation.Inject;
+                import com.hotvect.core.annotation.SharedFeature;
+                import com.hotvect.core.transform.ranking.SharedContext;
+
+                import java.util.List;
+                import java.util.TreeMap;
+                import java.util.concurrent.CopyOnWriteArrayList;
 
                 public final class TestFeatures {
+                    /** Computations of the shared features below, in order; read by the test. */
+                    public static final List<String> EVENTS = new CopyOnWriteArrayList<>();
+
                     private TestFeatures() {}
 
+                    @SharedFeature("shared_length")
+                    public static double sharedLength(String shared) {
+                        EVENTS.add("independent");
+                        return shared.length();
+                    }
+
+                    @SharedFeature("feature_store_status")
+                    public static String featureStoreStatus(SharedContext<String> context) {
+                        StringBuilder status = new StringBuilder();
+                        new TreeMap<>(context.featureStoreResponses()).forEach((view, response) -> status
+                                .append(view)
+                                .append(response.getRequestFailure().isPresent() ? "=failed;" : "=ok;"));
+                        EVENTS.add("context " + status);
+                        return status.toString();
+                    }
+
+                    @Feature("relative_length")
+                    public static double relativeLength(String action, @Inject("shared_length") double sharedLength) {
+                        return action.length() / sharedLength;
+                    }
+
+                    @Feature("action_feature_store_status")
+                    public static String actionFeatureStoreStatus(String action, @Inject("feature_store_status") String status) {
+                        return action + ":" + status;
+                    }
+
                     @Feature("brand")
                     public static String brand(String action) {
                         return action;
@@ -228,10 +550,21 @@ class SimpleRankingTransformerBackendGenerationTest {
                         return 1.0;
                     }
 
+                    @Feature("count")
+                    public static int count(String action) {
+                        return action.length();
+                    }
+
                     @Feature("embedding")
                     public static float[] embedding(String action) {
                         return new float[] {1.0f, 2.0f};
                     }
+
+                    @Feature("brand_length")
+                    @CrossRequestMemoized(maximumSize = 1000, ttlSeconds = 60)
+                    public static double brandLength(@Inject("brand") String brand) {
+                        return brand.length();
+                    }
                 }
                 """, StandardCharsets.UTF_8);
 
@@ -291,11 +624,37 @@ class SimpleRankingTransformerBackendGenerationTest {
                     "-d", classesDir.toString()
             );
             Boolean success = compiler.getTask(null, fileManager, diagnostics, options, null, units).call();
-            return new CompileResult(Boolean.TRUE.equals(success), formatDiagnostics(diagnostics), generatedDir);
+            return new CompileResult(Boolean.TRUE.equals(success), formatDiagnostics(diagnostics), generatedDir, classesDir);
+        }
+    }
+
+    private record CompileResult(boolean success, String diagnostics, Path generatedDir, Path classesDir) {
+        /**
+         * Loads the compiled fixture and generated transformer; hotvect classes come from the test's class loader.
+         */
+        URLClassLoader classLoader() throws IOException {
+            return new URLClassLoader(new URL[]{classesDir.toUri().toURL()}, getClass().getClassLoader());
         }
     }
 
-    private record CompileResult(boolean success, String diagnostics, Path generatedDir) {}
+    @SuppressWarnings("unchecked")
+    private static ColumnarRankingTransformer<String, String> newTransformer(
+            ClassLoader loader,
+            FeatureStoreRetriever<String, String> featureStoreRetriever
+    ) throws ReflectiveOperationException {
+        return (ColumnarRankingTransformer<String, String>) loader.loadClass("example.GeneratedTransformer")
+                .getConstructor(FeatureStoreRetriever.class)
+                .newInstance(featureStoreRetriever);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> fixtureEvents(ClassLoader loader) throws ReflectiveOperationException {
+        return (List<String>) loader.loadClass("example.TestFeatures").getField("EVENTS").get(null);
+    }
+
+    private static String generatedSource(CompileResult result) throws IOException {
+        return Files.readString(result.generatedDir().resolve("example").resolve("GeneratedTransformer.java"));
+    }
 
     private String compileFixture(String algorithmDefinition) throws IOException {
         return compileFixture(algorithmDefinition, CATBOOST_BACKEND);
@@ -304,7 +663,7 @@ class SimpleRankingTransformerBackendGenerationTest {
     private String compileFixture(String algorithmDefinition, String backendClass) throws IOException {
         CompileResult result = compile(algorithmDefinition, backendClass);
         assertTrue(result.success(), result.diagnostics());
-        return Files.readString(result.generatedDir().resolve("example").resolve("GeneratedTransformer.java"));
+        return generatedSource(result);
     }
 
     private String formatDiagnostics(DiagnosticCollector<JavaFileObject> diagnostics) {
@@ -4,9 +4,11 @@ import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
 import java.io.EOFException;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 
@@ -19,10 +21,16 @@ final class DirectIpcProtocol {
     static final byte OP_SHUTDOWN = 6;
     static final byte OP_REQUEST_ERROR = 7;
     static final byte OP_WORKER_ERROR = 8;
+    // WORK and RESULT whose payload is in the shared memory file; only sent after it was negotiated at STARTUP
+    static final byte OP_WORK_SHM = 9;
+    static final byte OP_RESULT_SHM = 10;
 
     static final byte STARTUP_READY = 0;
     static final byte STARTUP_CANNOT_START = 1;
 
+    // Bits of the optional capabilities byte that trails STARTUP
+    static final int CAPABILITY_SHARED_MEMORY = 1;
+
     private DirectIpcProtocol() {
     }
 
@@ -30,41 +38,87 @@ final class DirectIpcProtocol {
         return new byte[]{OP_STARTUP_ACK};
     }
 
+    /**
+     * STARTUP_ACK that offers the shared memory file: its path and the sizes of the WORK region at offset 0 and the
+     * RESULT region that follows it.
+     */
+    static byte[] encodeStartupAck(DirectSharedMemory sharedMemory) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(baos);
+        out.writeByte(OP_STARTUP_ACK);
+        writeUtf8U16(out, sharedMemory.path().toString());
+        out.writeInt(sharedMemory.workRegionBytes());
+        out.writeInt(sharedMemory.resultRegionBytes());
+        out.flush();
+        return baos.toByteArray();
+    }
+
+    static byte[] encodeSharedMemoryWork(int offset, int length) {
+        return ByteBuffer.allocate(1 + 4 + 4)
+                .put(OP_WORK_SHM)
+                .putInt(offset)
+                .putInt(length)
+                .array();
+    }
+
     static byte[] encodeShutdown() {
         return new byte[]{OP_SHUTDOWN};
     }
 
-    static byte[] encodeWork(
+    /**
+     * Encodes a WORK frame around the payload arrays, which are referenced rather than copied; see {@link EncodedWork}.
+     */
+    static EncodedWork encodeWork(
             String requestId,
             int batchSize,
             List<byte[]> payloads,
             String traceparent
     ) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream(1024);
-        DataOutputStream out = new DataOutputStream(baos);
-        out.writeByte(OP_WORK);
-        writeUtf8U16(out, requestId);
+        byte[] requestIdBytes = utf8U16Bytes(requestId);
+        byte[] traceparentBytes = traceparent != null && !traceparent.isBlank() ? utf8U16Bytes(traceparent) : null;
+        int headerBytes = 1 + 2 + requestIdBytes.length + 4 + 4;
+        int traceparentLength = traceparentBytes == null ? 0 : 2 + traceparentBytes.length;
 
-        out.writeInt(batchSize);
-        out.writeInt(payloads.size());
-        for (byte[] bytes : payloads) {
-            out.writeInt(bytes.length);
-            out.write(bytes);
-        }
+        // All fields share one buffer, sliced into the segments between the payloads
+        ByteBuffer fields = ByteBuffer.allocate(headerBytes + Integer.BYTES * payloads.size() + traceparentLength);
+        ByteBuffer[] segments = new ByteBuffer[1 + 2 * payloads.size() + (traceparentBytes == null ? 0 : 1)];
+        int segment = 0;
+        fields.put(OP_WORK)
+                .putShort((short) requestIdBytes.length)
+                .put(requestIdBytes)
+                .putInt(batchSize)
+                .putInt(payloads.size());
+        segments[segment++] = fields.slice(0, headerBytes);
 
-        if (traceparent != null && !traceparent.isBlank()) {
-            writeUtf8U16(out, traceparent);
+        long length = headerBytes + traceparentLength;
+        for (byte[] payload : payloads) {
+            segments[segment++] = fields.slice(fields.position(), Integer.BYTES);
+            fields.putInt(payload.length);
+            segments[segment++] = ByteBuffer.wrap(payload);
+            length += Integer.BYTES + payload.length;
         }
-
-        out.flush();
-        return baos.toByteArray();
+        if (traceparentBytes != null) {
+            segments[segment] = fields.slice(fields.position(), traceparentLength);
+            fields.putShort((short) traceparentBytes.length).put(traceparentBytes);
+        }
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("WORK frame too large: " + length + " bytes");
+        }
+        return new EncodedWork(segments, (int) length);
     }
 
     static DecodedMessage decode(byte[] payload) throws IOException {
-        if (payload.length < 1) {
-            throw new IOException("IPC frame too small: " + payload.length);
+        return decode(ByteBuffer.wrap(payload));
+    }
+
+    /**
+     * Decodes the frame between the position and the limit of {@code buf}, consuming it. Nothing of the decoded
+     * message refers to {@code buf}, so the buffer can be reused for the next frame.
+     */
+    static DecodedMessage decode(ByteBuffer buf) throws IOException {
+        if (buf.remaining() < 1) {
+            throw new IOException("IPC frame too small: " + buf.remaining());
         }
-        ByteBuffer buf = ByteBuffer.wrap(payload);
         byte op = buf.get();
 
         return switch (op) {
@@ -72,7 +126,8 @@ final class DirectIpcProtocol {
                 long pid = readLong(buf);
                 byte status = readByte(buf);
                 String message = readUtf8U16(buf);
-                yield new DecodedStartup(pid, status, message);
+                int capabilities = buf.remaining() > 0 ? Byte.toUnsignedInt(readByte(buf)) : 0;
+                yield new DecodedStartup(pid, status, message, capabilities);
             }
             case OP_RESULT -> {
                 String requestId = readUtf8U16(buf);
@@ -80,27 +135,16 @@ final class DirectIpcProtocol {
                 if (floatCount < 0) {
                     throw new IOException("Invalid float_count: " + floatCount);
                 }
-                float[] output = new float[floatCount];
-                for (int i = 0; i < floatCount; i++) {
-                    output[i] = readFloat(buf);
-                }
-
-                String debugJson = null;
-                if (buf.remaining() > 0) {
-                    int debugLen = readInt(buf);
-                    if (debugLen < 0) {
-                        throw new IOException("Invalid debug_len: " + debugLen);
-                    }
-                    if (debugLen > buf.remaining()) {
-                        throw new EOFException("Truncated debug payload");
-                    }
-                    if (debugLen > 0) {
-                        byte[] bytes = new byte[debugLen];
-                        buf.get(bytes);
-                        debugJson = new String(bytes, StandardCharsets.UTF_8);
-                    }
+                yield new DecodedResult(requestId, readFloats(buf, floatCount), readOptionalDebugJson(buf));
+            }
+            case OP_RESULT_SHM -> {
+                String requestId = readUtf8U16(buf);
+                int offset = readInt(buf);
+                int floatCount = readInt(buf);
+                if (floatCount < 0) {
+                    throw new IOException("Invalid float_count: " + floatCount);
                 }
-                yield new DecodedResult(requestId, output, debugJson);
+                yield new DecodedSharedMemoryResult(requestId, offset, floatCount, readOptionalDebugJson(buf));
             }
             case OP_GET_WORK -> {
                 if (buf.remaining() != 0) {
@@ -121,36 +165,51 @@ final class DirectIpcProtocol {
         };
     }
 
-    static void writeFrame(OutputStream out, byte[] payload, int maxFrameBytes) throws IOException {
-        if (payload.length > maxFrameBytes) {
-            throw new IOException("IPC payload exceeds maxFrameBytes: " + payload.length + " > " + maxFrameBytes);
+    /**
+     * Reads one frame's floats at once. The socket carries them big-endian, as {@link java.io.DataOutputStream} and
+     * Python's {@code struct} write them; results in the shared memory file are little-endian instead.
+     */
+    private static float[] readFloats(ByteBuffer buf, int floatCount) throws IOException {
+        if ((long) floatCount * Float.BYTES > buf.remaining()) {
+            throw new EOFException("Truncated float32 array: " + floatCount + " floats in " + buf.remaining() + " bytes");
         }
-        ByteBuffer hdr = ByteBuffer.allocate(4);
-        hdr.putInt(payload.length);
-        out.write(hdr.array());
-        out.write(payload);
-        out.flush();
+        float[] output = new float[floatCount];
+        buf.slice().order(ByteOrder.BIG_ENDIAN).asFloatBuffer().get(output);
+        buf.position(buf.position() + floatCount * Float.BYTES);
+        return output;
     }
 
-    static byte[] readFrame(InputStream in, int maxFrameBytes) throws IOException {
-        byte[] hdr = readFully(in, 4);
-        int len = ByteBuffer.wrap(hdr).getInt();
-        if (len < 0 || len > maxFrameBytes) {
-            throw new IOException("Invalid IPC frame length: " + len + " (maxFrameBytes=" + maxFrameBytes + ")");
+    private static String readOptionalDebugJson(ByteBuffer buf) throws IOException {
+        if (buf.remaining() == 0) {
+            return null;
+        }
+        int debugLen = readInt(buf);
+        if (debugLen < 0) {
+            throw new IOException("Invalid debug_len: " + debugLen);
+        }
+        if (debugLen > buf.remaining()) {
+            throw new EOFException("Truncated debug payload");
         }
-        return readFully(in, len);
+        if (debugLen == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[debugLen];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
     }
 
     private static void writeUtf8U16(DataOutputStream out, String s) throws IOException {
-        if (s == null) {
-            s = "";
-        }
-        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        byte[] bytes = utf8U16Bytes(s);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] utf8U16Bytes(String s) throws IOException {
+        byte[] bytes = (s == null ? "" : s).getBytes(StandardCharsets.UTF_8);
         if (bytes.length > 65535) {
             throw new IOException("String too long: " + bytes.length);
         }
-        out.writeShort(bytes.length);
-        out.write(bytes);
+        return bytes;
     }
 
     private static String readUtf8U16(ByteBuffer buf) throws IOException {
@@ -187,13 +246,6 @@ final class DirectIpcProtocol {
         return buf.getInt();
     }
 
-    private static float readFloat(ByteBuffer buf) throws IOException {
-        if (buf.remaining() < 4) {
-            throw new EOFException("Truncated float32");
-        }
-        return buf.getFloat();
-    }
-
     private static byte readByte(ByteBuffer buf) throws IOException {
         if (buf.remaining() < 1) {
             throw new EOFException("Truncated byte");
@@ -201,23 +253,150 @@ final class DirectIpcProtocol {
         return buf.get();
     }
 
-    private static byte[] readFully(InputStream in, int len) throws IOException {
-        byte[] out = new byte[len];
-        int off = 0;
-        while (off < len) {
-            int r = in.read(out, off, len - off);
-            if (r < 0) {
-                throw new EOFException("Unexpected EOF while reading " + len + " bytes");
+    /**
+     * An encoded WORK frame, kept as segments: the frame fields, and the caller's payload arrays in between. Writing
+     * it gathers the segments, so the payloads are not copied into one frame array first. The payload arrays must
+     * not be modified until the request completes.
+     */
+    static final class EncodedWork {
+        private final ByteBuffer[] segments;
+        private final int length;
+
+        private EncodedWork(ByteBuffer[] segments, int length) {
+            this.segments = segments;
+            this.length = length;
+        }
+
+        int length() {
+            return length;
+        }
+
+        /**
+         * Fresh views of the segments, so the frame can be written more than once.
+         */
+        ByteBuffer[] segments() {
+            ByteBuffer[] ret = new ByteBuffer[segments.length];
+            for (int i = 0; i < segments.length; i++) {
+                ret[i] = segments[i].duplicate();
+            }
+            return ret;
+        }
+
+        byte[] toByteArray() {
+            ByteBuffer ret = ByteBuffer.allocate(length);
+            for (ByteBuffer segment : segments()) {
+                ret.put(segment);
+            }
+            return ret.array();
+        }
+    }
+
+    /**
+     * Reads the frames of one connection into a buffer that is reused from frame to frame and only grows when a
+     * frame does not fit. Only one thread may read at a time.
+     */
+    static final class FrameReader {
+        private static final int INITIAL_CAPACITY = 64 * 1024;
+
+        private final ReadableByteChannel channel;
+        private final int maxFrameBytes;
+        private final ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+        private ByteBuffer frame;
+
+        FrameReader(ReadableByteChannel channel, int maxFrameBytes) {
+            this.channel = channel;
+            this.maxFrameBytes = maxFrameBytes;
+            // Direct, so that the channel reads into it without staging through a temporary direct buffer
+            this.frame = ByteBuffer.allocateDirect(Math.min(INITIAL_CAPACITY, maxFrameBytes));
+        }
+
+        /**
+         * Reads the next frame. The returned buffer holds the frame between its position and limit, and is only
+         * valid until the next call.
+         */
+        ByteBuffer readFrame() throws IOException {
+            header.clear();
+            readFully(header);
+            int len = header.getInt(0);
+            if (len < 0 || len > maxFrameBytes) {
+                throw new IOException("Invalid IPC frame length: " + len + " (maxFrameBytes=" + maxFrameBytes + ")");
+            }
+            if (len > frame.capacity()) {
+                int capacity = (int) Math.min(maxFrameBytes, Math.max(len, 2L * frame.capacity()));
+                frame = ByteBuffer.allocateDirect(capacity);
+            }
+            frame.clear().limit(len);
+            readFully(frame);
+            return frame.flip();
+        }
+
+        private void readFully(ByteBuffer target) throws IOException {
+            while (target.hasRemaining()) {
+                if (channel.read(target) < 0) {
+                    throw new EOFException("Unexpected EOF while reading " + target.limit() + " bytes");
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the frames of one connection, with the length prefix and all segments of a frame in one gathering
+     * write where the channel supports it. Only one thread may write at a time.
+     */
+    static final class FrameWriter {
+        private final WritableByteChannel channel;
+        private final int maxFrameBytes;
+        private final ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+
+        FrameWriter(WritableByteChannel channel, int maxFrameBytes) {
+            this.channel = channel;
+            this.maxFrameBytes = maxFrameBytes;
+        }
+
+        void writeFrame(byte[] payload) throws IOException {
+            writeFrame(payload.length, ByteBuffer.wrap(payload));
+        }
+
+        void writeFrame(EncodedWork work) throws IOException {
+            writeFrame(work.length(), work.segments());
+        }
+
+        private void writeFrame(int length, ByteBuffer... segments) throws IOException {
+            if (length > maxFrameBytes) {
+                throw new IOException("IPC payload exceeds maxFrameBytes: " + length + " > " + maxFrameBytes);
+            }
+            header.clear();
+            header.putInt(0, length);
+            ByteBuffer[] buffers = new ByteBuffer[segments.length + 1];
+            buffers[0] = header;
+            System.arraycopy(segments, 0, buffers, 1, segments.length);
+
+            if (channel instanceof GatheringByteChannel gathering) {
+                long remaining = Integer.BYTES + (long) length;
+                while (remaining > 0) {
+                    remaining -= gathering.write(buffers);
+                }
+            } else {
+                for (ByteBuffer buffer : buffers) {
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                }
             }
-            off += r;
         }
-        return out;
     }
 
-    sealed interface DecodedMessage permits DecodedStartup, DecodedGetWork, DecodedResult, DecodedRequestError, DecodedWorkerError {
+    sealed interface DecodedMessage permits DecodedStartup, DecodedGetWork, DecodedResult, DecodedSharedMemoryResult,
+            DecodedRequestError, DecodedWorkerError {
     }
 
-    record DecodedStartup(long pid, byte status, String message) implements DecodedMessage {
+    /**
+     * @param capabilities {@code CAPABILITY_*} bits; 0 for workers that predate the capabilities byte
+     */
+    record DecodedStartup(long pid, byte status, String message, int capabilities) implements DecodedMessage {
+        boolean supportsSharedMemory() {
+            return (capabilities & CAPABILITY_SHARED_MEMORY) != 0;
+        }
     }
 
     record DecodedGetWork() implements DecodedMessage {
@@ -226,6 +405,12 @@ final class DirectIpcProtocol {
     record DecodedResult(String requestId, float[] output, String debugJson) implements DecodedMessage {
     }
 
+    /**
+     * RESULT whose {@code floatCount} little-endian floats are at {@code offset} of the shared memory file.
+     */
+    record DecodedSharedMemoryResult(String requestId, int offset, int floatCount, String debugJson) implements DecodedMessage {
+    }
+
     record DecodedRequestError(String requestId, String message) implements DecodedMessage {
     }
 
@@ -0,0 +1,114 @@
+package com.hotvect.python.direct;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Memory-mapped file shared with the worker of one connection, negotiated at STARTUP.
+ * <p>
+ * The file holds a WORK region at offset 0 followed by a RESULT region. The worker has at most one request in
+ * flight (GET_WORK, WORK and RESULT strictly alternate), so each region holds a single message and is overwritten by
+ * the next one; the control frames on the socket carry absolute offsets, and the socket round trip orders the writes
+ * of one side before the reads of the other. Result floats are little-endian, as numpy writes them.
+ * <p>
+ * The mapping itself is released when the buffer is garbage collected; {@link #close()} deletes the file.
+ */
+final class DirectSharedMemory implements AutoCloseable {
+    private final Path path;
+    private final int workRegionBytes;
+    private final int resultRegionBytes;
+    private final MappedByteBuffer buffer;
+
+    private DirectSharedMemory(Path path, int workRegionBytes, int resultRegionBytes, MappedByteBuffer buffer) {
+        this.path = path;
+        this.workRegionBytes = workRegionBytes;
+        this.resultRegionBytes = resultRegionBytes;
+        this.buffer = buffer;
+    }
+
+    static DirectSharedMemory create(Path path, int sizeBytes) throws IOException {
+        int workRegionBytes = sizeBytes / 2;
+        int resultRegionBytes = sizeBytes - workRegionBytes;
+        try (FileChannel channel = FileChannel.open(
+                path,
+                StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE
+        )) {
+            try {
+                // Mapping beyond the end of the file grows it to sizeBytes
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, sizeBytes);
+                return new DirectSharedMemory(path, workRegionBytes, resultRegionBytes, buffer);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(path);
+                throw e;
+            }
+        }
+    }
+
+    Path path() {
+        return path;
+    }
+
+    int workRegionBytes() {
+        return workRegionBytes;
+    }
+
+    int resultRegionBytes() {
+        return resultRegionBytes;
+    }
+
+    boolean fitsWork(int workFrameBytes) {
+        return workFrameBytes <= workRegionBytes;
+    }
+
+    /**
+     * Copies an encoded WORK frame into the WORK region.
+     *
+     * @return the offset of the frame in the file
+     */
+    int putWork(DirectIpcProtocol.EncodedWork work) {
+        if (!fitsWork(work.length())) {
+            throw new IllegalArgumentException(
+                    "WORK frame of " + work.length() + " bytes exceeds the shared memory WORK region of " + workRegionBytes + " bytes"
+            );
+        }
+        int position = 0;
+        for (ByteBuffer segment : work.segments()) {
+            int length = segment.remaining();
+            buffer.put(position, segment, segment.position(), length);
+            position += length;
+        }
+        return 0;
+    }
+
+    /**
+     * Reads {@code floatCount} little-endian floats that the worker wrote at {@code offset} of the RESULT region.
+     */
+    float[] getResult(int offset, int floatCount) throws IOException {
+        long end = (long) offset + (long) floatCount * Float.BYTES;
+        if (offset < workRegionBytes || floatCount < 0 || end > (long) workRegionBytes + resultRegionBytes) {
+            throw new IOException(
+                    "Shared memory RESULT out of bounds: offset=" + offset + " float_count=" + floatCount
+                            + " (result region " + workRegionBytes + ".." + (workRegionBytes + resultRegionBytes) + ")"
+            );
+        }
+        float[] output = new float[floatCount];
+        buffer.slice(offset, floatCount * Float.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .asFloatBuffer()
+                .get(output);
+        return output;
+    }
+
+    @Override
+    public void close() throws IOException {
+        Files.deleteIfExists(path);
+    }
+}
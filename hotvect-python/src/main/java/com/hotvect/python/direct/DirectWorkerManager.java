@@ -260,7 +260,7 @@ public final class DirectWorkerManager implements AutoCloseable {
                 ? parentContext
                 : null;
         String wireRequestId = formatWireRequestId(requestId, requestSeq.getAndIncrement());
-        byte[] workPayload;
+        DirectIpcProtocol.EncodedWork workPayload;
         try {
             workPayload = DirectIpcProtocol.encodeWork(
                     wireRequestId,
@@ -553,7 +553,7 @@ public final class DirectWorkerManager implements AutoCloseable {
 
     static final class QueuedRequest {
         final String wireRequestId;
-        final byte[] workPayload;
+        final DirectIpcProtocol.EncodedWork workPayload;
         final int batchSize;
         final long deadlineNs;
         final Context otelContext;
@@ -564,7 +564,7 @@ public final class DirectWorkerManager implements AutoCloseable {
 
         private QueuedRequest(
                 String wireRequestId,
-                byte[] workPayload,
+                DirectIpcProtocol.EncodedWork workPayload,
                 int batchSize,
                 long deadlineNs,
                 Context otelContext,
@@ -7,10 +7,8 @@ import org.slf4j.LoggerFactory;
 import java.io.BufferedReader;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.OutputStream;
 import java.net.StandardProtocolFamily;
 import java.net.UnixDomainSocketAddress;
-import java.nio.channels.Channels;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
 import java.nio.charset.StandardCharsets;
@@ -51,6 +49,7 @@ final class DirectWorkerProcess implements AutoCloseable {
     private final int workerIndex;
     private final String cudaVisibleDevices;
     private final int maxFrameBytes;
+    private final int sharedMemoryBytes;
     private final Duration startupTimeout;
     private final Duration hungWorkerTimeout;
     private final Duration sigtermTimeout;
@@ -124,6 +123,7 @@ final class DirectWorkerProcess implements AutoCloseable {
 
         this.cudaVisibleDevices = config.cudaVisibleDevicesPerWorker().get(workerIndex).trim();
         this.maxFrameBytes = config.maxFrameBytes();
+        this.sharedMemoryBytes = config.sharedMemoryBytes();
         this.startupTimeout = config.startupTimeout();
         this.hungWorkerTimeout = manager.hungWorkerTimeout();
         this.sigtermTimeout = config.shutdownSigtermTimeout();
@@ -155,9 +155,10 @@ final class DirectWorkerProcess implements AutoCloseable {
         Path udsPath = null;
         ServerSocketChannel server = null;
         SocketChannel channel = null;
-        InputStream in = null;
-        OutputStream out = null;
+        DirectIpcProtocol.FrameReader reader = null;
+        DirectIpcProtocol.FrameWriter writer = null;
         Process process = null;
+        DirectSharedMemory sharedMemory = null;
         try {
             Files.createDirectories(udsBaseDir);
             udsPath = allocateUdsPath(udsBaseDir, workerIndex);
@@ -189,11 +190,10 @@ final class DirectWorkerProcess implements AutoCloseable {
                 te.initCause(e);
                 throw te;
             }
-            InputStream inToUse = Channels.newInputStream(accepted);
-            OutputStream outToUse = Channels.newOutputStream(accepted);
+            DirectIpcProtocol.FrameReader readerToUse = new DirectIpcProtocol.FrameReader(accepted, maxFrameBytes);
+            DirectIpcProtocol.FrameWriter writerToUse = new DirectIpcProtocol.FrameWriter(accepted, maxFrameBytes);
 
-            byte[] startupFrame = DirectIpcProtocol.readFrame(inToUse, maxFrameBytes);
-            DirectIpcProtocol.DecodedMessage decoded = DirectIpcProtocol.decode(startupFrame);
+            DirectIpcProtocol.DecodedMessage decoded = DirectIpcProtocol.decode(readerToUse.readFrame());
             if (!(decoded instanceof DirectIpcProtocol.DecodedStartup startup)) {
                 throw new IllegalStateException("Expected STARTUP from worker, got: " + decoded.getClass().getSimpleName());
             }
@@ -210,14 +210,33 @@ final class DirectWorkerProcess implements AutoCloseable {
                                 + " message=" + message
                 );
             }
-            log.info("Direct worker {} connected (pid={})", workerIndex, pid);
-            DirectIpcProtocol.writeFrame(outToUse, DirectIpcProtocol.encodeStartupAck(), maxFrameBytes);
-
             channel = accepted;
-            in = inToUse;
-            out = outToUse;
+            reader = readerToUse;
+            writer = writerToUse;
+
+            if (sharedMemoryBytes > 0 && startup.supportsSharedMemory()) {
+                sharedMemory = DirectSharedMemory.create(sharedMemoryPath(udsPath), sharedMemoryBytes);
+                writerToUse.writeFrame(DirectIpcProtocol.encodeStartupAck(sharedMemory));
+            } else {
+                writerToUse.writeFrame(DirectIpcProtocol.encodeStartupAck());
+            }
+            log.info(
+                    "Direct worker {} connected (pid={}, transport={})",
+                    workerIndex,
+                    pid,
+                    sharedMemory == null ? "socket" : "shared memory " + sharedMemory.path()
+            );
 
-            ConnectionHandle newHandle = new ConnectionHandle(udsPath, server, accepted, inToUse, outToUse, process, pid);
+            ConnectionHandle newHandle = new ConnectionHandle(
+                    udsPath,
+                    server,
+                    accepted,
+                    readerToUse,
+                    writerToUse,
+                    process,
+                    pid,
+                    sharedMemory
+            );
             ConnectionHandle oldHandle = this.connectionHandle.getAndSet(newHandle);
             if (!this.started) {
                 this.started = true;
@@ -236,7 +255,7 @@ final class DirectWorkerProcess implements AutoCloseable {
         } catch (Exception e) {
             log.warn("Direct worker {} failed to start; cleaning up", workerIndex, e);
             try {
-                new ConnectionHandle(udsPath, server, channel, in, out, process, -1).close();
+                new ConnectionHandle(udsPath, server, channel, reader, writer, process, -1, sharedMemory).close();
             } catch (Exception ex) {
                 log.warn("Failed to close connection handle during failed start for worker {}", workerIndex, ex);
             }
@@ -305,10 +324,13 @@ final class DirectWorkerProcess implements AutoCloseable {
         private final Path udsPath;
         private final ServerSocketChannel server;
         private final SocketChannel channel;
-        private final InputStream in;
-        private final OutputStream out;
+        // Reused across the frames of this connection
+        private final DirectIpcProtocol.FrameReader reader;
+        private final DirectIpcProtocol.FrameWriter writer;
         private final Process process;
         private final long pid;
+        // Null unless the worker negotiated the shared-memory transport
+        private final DirectSharedMemory sharedMemory;
 
         private volatile String inFlightRequestId;
         private volatile ScheduledFuture<?> hungTimeout;
@@ -317,26 +339,45 @@ final class DirectWorkerProcess implements AutoCloseable {
                 Path udsPath,
                 ServerSocketChannel server,
                 SocketChannel channel,
-                InputStream in,
-                OutputStream out,
+                DirectIpcProtocol.FrameReader reader,
+                DirectIpcProtocol.FrameWriter writer,
                 Process process,
-                long pid
+                long pid,
+                DirectSharedMemory sharedMemory
         ) {
             this.closed = new AtomicBoolean(false);
             this.writeLock = new ReentrantLock();
             this.udsPath = udsPath;
             this.server = server;
             this.channel = channel;
-            this.in = in;
-            this.out = out;
+            this.reader = reader;
+            this.writer = writer;
             this.process = process;
             this.pid = pid;
+            this.sharedMemory = sharedMemory;
         }
 
         void sendFrame(byte[] payload) throws Exception {
             writeLock.lock();
             try {
-                DirectIpcProtocol.writeFrame(out, payload, maxFrameBytes);
+                writer.writeFrame(payload);
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        /**
+         * Sends an encoded WORK frame, through the shared memory file if it was negotiated and the frame fits.
+         */
+        void sendWork(DirectIpcProtocol.EncodedWork work) throws Exception {
+            if (sharedMemory != null && sharedMemory.fitsWork(work.length())) {
+                int offset = sharedMemory.putWork(work);
+                sendFrame(DirectIpcProtocol.encodeSharedMemoryWork(offset, work.length()));
+                return;
+            }
+            writeLock.lock();
+            try {
+                writer.writeFrame(work);
             } finally {
                 writeLock.unlock();
             }
@@ -393,9 +434,9 @@ final class DirectWorkerProcess implements AutoCloseable {
             stateLock.lock();
             boolean writeLocked = writeLock.tryLock(100, TimeUnit.MILLISECONDS);
             try {
-                if (writeLocked && out != null) {
+                if (writeLocked && writer != null) {
                     try {
-                        DirectIpcProtocol.writeFrame(out, DirectIpcProtocol.encodeShutdown(), maxFrameBytes);
+                        writer.writeFrame(DirectIpcProtocol.encodeShutdown());
                     } catch (Exception ignored) {
                     }
                 }
@@ -424,6 +465,12 @@ final class DirectWorkerProcess implements AutoCloseable {
                     }
                 } catch (Exception ignored) {
                 }
+                try {
+                    if (sharedMemory != null) {
+                        sharedMemory.close();
+                    }
+                } catch (Exception ignored) {
+                }
             } finally {
                 if (writeLocked) {
                     writeLock.unlock();
@@ -462,8 +509,7 @@ final class DirectWorkerProcess implements AutoCloseable {
 
             try {
                 while (!DirectWorkerProcess.this.closed && !handle.closed.get()) {
-                    byte[] frame = DirectIpcProtocol.readFrame(handle.in, maxFrameBytes);
-                    DirectIpcProtocol.DecodedMessage decoded = DirectIpcProtocol.decode(frame);
+                    DirectIpcProtocol.DecodedMessage decoded = DirectIpcProtocol.decode(handle.reader.readFrame());
 
                     switch (decoded) {
                         case DirectIpcProtocol.DecodedGetWork ignored -> {
@@ -497,7 +543,7 @@ final class DirectWorkerProcess implements AutoCloseable {
                             expectingGetWork = false;
                             handle.inFlightRequestId = req.wireRequestId;
                             handle.scheduleHungTimeout(req.wireRequestId);
-                            handle.sendFrame(req.workPayload);
+                            handle.sendWork(req.workPayload);
                         }
                         case DirectIpcProtocol.DecodedResult result -> {
                             if (expectingGetWork) {
@@ -508,6 +554,19 @@ final class DirectWorkerProcess implements AutoCloseable {
                             clearInFlightAndCancelHungTimeout(result.requestId(), "RESULT");
                             manager.completeResult(result.requestId(), result.output(), result.debugJson());
                         }
+                        case DirectIpcProtocol.DecodedSharedMemoryResult result -> {
+                            if (expectingGetWork) {
+                                throw new IllegalStateException("Unexpected RESULT_SHM while awaiting GET_WORK");
+                            }
+                            if (handle.sharedMemory == null) {
+                                throw new IllegalStateException("Unexpected RESULT_SHM without negotiated shared memory");
+                            }
+                            expectingGetWork = true;
+
+                            float[] output = handle.sharedMemory.getResult(result.offset(), result.floatCount());
+                            clearInFlightAndCancelHungTimeout(result.requestId(), "RESULT_SHM");
+                            manager.completeResult(result.requestId(), output, result.debugJson());
+                        }
                         case DirectIpcProtocol.DecodedRequestError requestError -> {
                             if (expectingGetWork) {
                                 throw new IllegalStateException("Unexpected REQUEST_ERROR while awaiting GET_WORK");
@@ -571,6 +630,11 @@ final class DirectWorkerProcess implements AutoCloseable {
         }
     }
 
+    private static Path sharedMemoryPath(Path udsPath) {
+        String socketName = udsPath.getFileName().toString();
+        return udsPath.resolveSibling(socketName.substring(0, socketName.length() - ".sock".length()) + ".shm");
+    }
+
     private static Path allocateUdsPath(Path baseDir, int workerIndex) {
         String suffix = UUID.randomUUID().toString().replace("-", "").substring(0, 8);
         String name = "hv-direct-worker-" + ProcessHandle.current().pid() + "-" + workerIndex + "-" + suffix + ".sock";
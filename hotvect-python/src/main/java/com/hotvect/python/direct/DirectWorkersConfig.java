@@ -21,7 +21,8 @@ public record DirectWorkersConfig(
         int retryMaxAttempts,
         Duration retryBackoff,
         int maxFrameBytes,
-        Path udsBaseDir
+        Path udsBaseDir,
+        int sharedMemoryBytes
 ) {
     // Default values
     private static final int DEFAULT_STARTUP_TIMEOUT_MS = 60_000;
@@ -35,6 +36,8 @@ public record DirectWorkersConfig(
     private static final int DEFAULT_RETRY_BACKOFF_MS = 0;
     private static final int DEFAULT_MAX_FRAME_BYTES = 16 * 1024 * 1024;
     private static final String DEFAULT_UDS_BASE_DIR = "/tmp";
+    private static final int DEFAULT_SHARED_MEMORY_BYTES = 0;
+    private static final int MIN_SHARED_MEMORY_BYTES = 2 * 1024;
 
     public DirectWorkersConfig {
         Objects.requireNonNull(startupTimeout, "startupTimeout");
@@ -83,6 +86,45 @@ public record DirectWorkersConfig(
         if (maxFrameBytes < 1024) {
             throw new IllegalArgumentException("maxFrameBytes must be >= 1024, got: " + maxFrameBytes);
         }
+        if (sharedMemoryBytes != 0 && sharedMemoryBytes < MIN_SHARED_MEMORY_BYTES) {
+            throw new IllegalArgumentException(
+                    "sharedMemoryBytes must be 0 (disabled) or >= " + MIN_SHARED_MEMORY_BYTES + ", got: " + sharedMemoryBytes
+            );
+        }
+    }
+
+    /**
+     * Creates a config without the shared-memory transport; payloads and results travel over the socket.
+     */
+    public DirectWorkersConfig(
+            List<String> cudaVisibleDevicesPerWorker,
+            Duration startupTimeout,
+            Duration requestTimeout,
+            Duration shutdownSigtermTimeout,
+            Duration shutdownSigkillTimeout,
+            Duration shutdownDescendantsTimeout,
+            int workQueueSizePerWorker,
+            QueueFullPolicy queueFullPolicy,
+            int retryMaxAttempts,
+            Duration retryBackoff,
+            int maxFrameBytes,
+            Path udsBaseDir
+    ) {
+        this(
+                cudaVisibleDevicesPerWorker,
+                startupTimeout,
+                requestTimeout,
+                shutdownSigtermTimeout,
+                shutdownSigkillTimeout,
+                shutdownDescendantsTimeout,
+                workQueueSizePerWorker,
+                queueFullPolicy,
+                retryMaxAttempts,
+                retryBackoff,
+                maxFrameBytes,
+                udsBaseDir,
+                DEFAULT_SHARED_MEMORY_BYTES
+        );
     }
 
     public int workerCount() {
@@ -117,11 +159,18 @@ public record DirectWorkersConfig(
      *       "backoff_ms": 0
      *     },
      *     "max_frame_bytes": 16777216,
-     *     "uds_base_dir": "/tmp"
+     *     "uds_base_dir": "/tmp",
+     *     "shared_memory_bytes": 0       // 0 disables the shared-memory transport
      *   }
      * }
      * </pre>
      * <p>
+     * With {@code shared_memory_bytes > 0}, each worker connection gets a memory-mapped file of that size next to its
+     * socket in {@code uds_base_dir}, split evenly between WORK payloads and RESULT arrays. Workers that support it
+     * exchange payloads through the file and only send offsets over the socket; payloads or results that do not fit
+     * fall back to socket frames. Older workers keep using the socket. A tmpfs {@code uds_base_dir} such as
+     * {@code /dev/shm} keeps the file from being written back to disk.
+     * <p>
      * If the parent process has CUDA_VISIBLE_DEVICES set, it is treated as a hard allowlist.
      * <p>
      * For CUDA, the set of "available devices" is:
@@ -237,6 +286,7 @@ public record DirectWorkersConfig(
         int retryBackoffMs = parseRetryBackoffMs(ipcNode);
         int maxFrameBytes = getIntOrDefault(ipcNode, "max_frame_bytes", DEFAULT_MAX_FRAME_BYTES);
         String udsBaseDir = getStringOrDefault(ipcNode, "uds_base_dir", DEFAULT_UDS_BASE_DIR);
+        int sharedMemoryBytes = getIntOrDefault(ipcNode, "shared_memory_bytes", DEFAULT_SHARED_MEMORY_BYTES);
 
         if (startupTimeoutMs < 1) {
             throw new IllegalArgumentException("startup_timeout_ms must be >= 1, got: " + startupTimeoutMs);
@@ -268,6 +318,11 @@ public record DirectWorkersConfig(
         if (udsBaseDir == null || udsBaseDir.isBlank()) {
             throw new IllegalArgumentException("ipc.uds_base_dir must be non-empty");
         }
+        if (sharedMemoryBytes != 0 && sharedMemoryBytes < MIN_SHARED_MEMORY_BYTES) {
+            throw new IllegalArgumentException(
+                    "ipc.shared_memory_bytes must be 0 (disabled) or >= " + MIN_SHARED_MEMORY_BYTES + ", got: " + sharedMemoryBytes
+            );
+        }
 
         return new DirectWorkersConfig(
                 cudaVisibleDevicesPerWorker,
@@ -281,7 +336,8 @@ public record DirectWorkersConfig(
                 retryMaxAttempts,
                 Duration.ofMillis(retryBackoffMs),
                 maxFrameBytes,
-                Path.of(udsBaseDir)
+                Path.of(udsBaseDir),
+                sharedMemoryBytes
         );
     }
 
@@ -1,23 +1,38 @@
 package com.hotvect.python.direct;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.Pipe;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class DirectIpcProtocolTest {
     @Test
     void encodeWork_omitsTraceparentWhenNull() throws Exception {
         byte[] p0 = new byte[]{1, 2, 3};
         byte[] p1 = new byte[]{4, 5};
-        byte[] payload = DirectIpcProtocol.encodeWork("req#1", 7, List.of(p0, p1), null);
+        DirectIpcProtocol.EncodedWork work = DirectIpcProtocol.encodeWork("req#1", 7, List.of(p0, p1), null);
+        byte[] payload = work.toByteArray();
+        assertEquals(payload.length, work.length());
 
         ByteBuffer buf = ByteBuffer.wrap(payload);
         assertEquals(DirectIpcProtocol.OP_WORK, buf.get());
@@ -32,7 +47,7 @@ class DirectIpcProtocolTest {
     @Test
     void encodeWork_appendsTraceparentWhenNonBlank() throws Exception {
         String traceparent = "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01";
-        byte[] payload = DirectIpcProtocol.encodeWork("req#2", 1, List.of(), traceparent);
+        byte[] payload = DirectIpcProtocol.encodeWork("req#2", 1, List.of(), traceparent).toByteArray();
 
         ByteBuffer buf = ByteBuffer.wrap(payload);
         assertEquals(DirectIpcProtocol.OP_WORK, buf.get());
@@ -60,6 +75,128 @@ class DirectIpcProtocolTest {
         assertEquals(debug, r2.debugJson());
     }
 
+    @Test
+    void decodeResult_readsLargeResultsAndRejectsTruncatedFloats() throws Exception {
+        float[] output = new float[100_000];
+        for (int i = 0; i < output.length; i++) {
+            output[i] = i * 0.5f - 7f;
+        }
+        DirectIpcProtocol.DecodedResult r = (DirectIpcProtocol.DecodedResult) DirectIpcProtocol.decode(encodeResultPayload("r", output, null));
+        assertArrayEquals(output, r.output());
+
+        byte[] truncated = encodeResultPayload("r", new float[]{1f, 2f}, null);
+        assertThrows(EOFException.class, () -> DirectIpcProtocol.decode(Arrays.copyOf(truncated, truncated.length - 1)));
+    }
+
+    @Test
+    void frames_roundTripThroughReusedBuffers() throws Exception {
+        Pipe pipe = Pipe.open();
+        try {
+            DirectIpcProtocol.FrameWriter writer = new DirectIpcProtocol.FrameWriter(pipe.sink(), 1 << 20);
+            DirectIpcProtocol.FrameReader reader = new DirectIpcProtocol.FrameReader(pipe.source(), 1 << 20);
+            byte[] large = new byte[200_000];
+            new Random(42).nextBytes(large);
+            DirectIpcProtocol.EncodedWork work = DirectIpcProtocol.encodeWork("req#3", 2, List.of(new byte[]{9}, large), null);
+
+            // The pipe holds less than the large frame, so write from another thread
+            Thread writerThread = Thread.ofVirtual().start(() -> {
+                try {
+                    writer.writeFrame(DirectIpcProtocol.encodeShutdown());
+                    writer.writeFrame(work);
+                    writer.writeFrame(work);
+                    writer.writeFrame(DirectIpcProtocol.encodeShutdown());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+
+            assertArrayEquals(DirectIpcProtocol.encodeShutdown(), toBytes(reader.readFrame()));
+            assertArrayEquals(work.toByteArray(), toBytes(reader.readFrame()));
+            // Segments are not consumed by writing them
+            assertArrayEquals(work.toByteArray(), toBytes(reader.readFrame()));
+            assertArrayEquals(DirectIpcProtocol.encodeShutdown(), toBytes(reader.readFrame()));
+            writerThread.join();
+        } finally {
+            pipe.sink().close();
+            pipe.source().close();
+        }
+    }
+
+    @Test
+    void frames_enforceMaxFrameBytes() throws Exception {
+        DirectIpcProtocol.FrameWriter writer = new DirectIpcProtocol.FrameWriter(Channels.newChannel(new ByteArrayOutputStream()), 4);
+        IOException e = assertThrows(IOException.class, () -> writer.writeFrame(new byte[5]));
+        assertEquals("IPC payload exceeds maxFrameBytes: 5 > 4", e.getMessage());
+
+        byte[] frame = ByteBuffer.allocate(4 + 5).putInt(5).array();
+        DirectIpcProtocol.FrameReader reader = new DirectIpcProtocol.FrameReader(Channels.newChannel(new ByteArrayInputStream(frame)), 4);
+        assertThrows(IOException.class, reader::readFrame);
+    }
+
+    @Test
+    void decodeStartup_readsOptionalCapabilities() throws Exception {
+        DirectIpcProtocol.DecodedStartup legacy = (DirectIpcProtocol.DecodedStartup) DirectIpcProtocol.decode(
+                encodeStartupPayload(42L, "", null));
+        assertEquals(42L, legacy.pid());
+        assertEquals(0, legacy.capabilities());
+        assertFalse(legacy.supportsSharedMemory());
+
+        DirectIpcProtocol.DecodedStartup capable = (DirectIpcProtocol.DecodedStartup) DirectIpcProtocol.decode(
+                encodeStartupPayload(42L, "", (byte) DirectIpcProtocol.CAPABILITY_SHARED_MEMORY));
+        assertEquals(DirectIpcProtocol.STARTUP_READY, capable.status());
+        assertTrue(capable.supportsSharedMemory());
+    }
+
+    @Test
+    void encodeStartupAck_offersSharedMemoryRegions(@TempDir Path tempDir) throws Exception {
+        try (DirectSharedMemory sharedMemory = DirectSharedMemory.create(tempDir.resolve("worker.shm"), 4096)) {
+            ByteBuffer buf = ByteBuffer.wrap(DirectIpcProtocol.encodeStartupAck(sharedMemory));
+            assertEquals(DirectIpcProtocol.OP_STARTUP_ACK, buf.get());
+            assertEquals(tempDir.resolve("worker.shm").toString(), readUtf8U16(buf));
+            assertEquals(2048, buf.getInt());
+            assertEquals(2048, buf.getInt());
+            assertEquals(0, buf.remaining());
+        }
+        assertArrayEquals(new byte[]{DirectIpcProtocol.OP_STARTUP_ACK}, DirectIpcProtocol.encodeStartupAck());
+    }
+
+    @Test
+    void sharedMemoryFrames_carryOffsets() throws Exception {
+        ByteBuffer work = ByteBuffer.wrap(DirectIpcProtocol.encodeSharedMemoryWork(0, 123));
+        assertEquals(DirectIpcProtocol.OP_WORK_SHM, work.get());
+        assertEquals(0, work.getInt());
+        assertEquals(123, work.getInt());
+        assertEquals(0, work.remaining());
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(baos);
+        out.writeByte(DirectIpcProtocol.OP_RESULT_SHM);
+        writeUtf8U16(out, "r3");
+        out.writeInt(2048);
+        out.writeInt(5);
+        byte[] debug = "{\"k\":1}".getBytes(StandardCharsets.UTF_8);
+        out.writeInt(debug.length);
+        out.write(debug);
+        out.flush();
+
+        DirectIpcProtocol.DecodedSharedMemoryResult r = (DirectIpcProtocol.DecodedSharedMemoryResult) DirectIpcProtocol.decode(baos.toByteArray());
+        assertEquals(new DirectIpcProtocol.DecodedSharedMemoryResult("r3", 2048, 5, "{\"k\":1}"), r);
+    }
+
+    private static byte[] encodeStartupPayload(long pid, String message, Byte capabilitiesOrNull) throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(baos);
+        out.writeByte(DirectIpcProtocol.OP_STARTUP);
+        out.writeLong(pid);
+        out.writeByte(DirectIpcProtocol.STARTUP_READY);
+        writeUtf8U16(out, message);
+        if (capabilitiesOrNull != null) {
+            out.writeByte(capabilitiesOrNull);
+        }
+        out.flush();
+        return baos.toByteArray();
+    }
+
     private static byte[] encodeResultPayload(String requestId, float[] output, String debugJsonOrNull) throws Exception {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         DataOutputStream out = new DataOutputStream(baos);
@@ -84,6 +221,12 @@ class DirectIpcProtocolTest {
         out.write(bytes);
     }
 
+    private static byte[] toBytes(ByteBuffer buf) {
+        byte[] bytes = new byte[buf.remaining()];
+        buf.get(bytes);
+        return bytes;
+    }
+
     private static String readUtf8U16(ByteBuffer buf) {
         int len = buf.getShort() & 0xFFFF;
         if (len == 0) {
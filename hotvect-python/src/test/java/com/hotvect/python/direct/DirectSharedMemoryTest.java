@@ -0,0 +1,71 @@
+package com.hotvect.python.direct;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DirectSharedMemoryTest {
+    @Test
+    void exchangesWorkAndResultsWithASecondMapping(@TempDir Path tempDir) throws Exception {
+        Path path = tempDir.resolve("worker.shm");
+        try (DirectSharedMemory sharedMemory = DirectSharedMemory.create(path, 4096);
+             FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            assertEquals(4096, Files.size(path));
+            // The worker's view of the file
+            MappedByteBuffer worker = channel.map(FileChannel.MapMode.READ_WRITE, 0, 4096);
+
+            DirectIpcProtocol.EncodedWork work = DirectIpcProtocol.encodeWork("req#1", 2, List.of(new byte[]{1, 2}, new byte[]{3}), null);
+            int workOffset = sharedMemory.putWork(work);
+            byte[] received = new byte[work.length()];
+            worker.get(workOffset, received);
+            assertArrayEquals(work.toByteArray(), received);
+
+            int resultOffset = sharedMemory.workRegionBytes() + 16;
+            worker.slice(resultOffset, 3 * Float.BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN)
+                    .asFloatBuffer()
+                    .put(new float[]{1.5f, -2f, 3.25f});
+            assertArrayEquals(new float[]{1.5f, -2f, 3.25f}, sharedMemory.getResult(resultOffset, 3));
+            assertArrayEquals(new float[0], sharedMemory.getResult(resultOffset, 0));
+        }
+        assertFalse(Files.exists(path));
+    }
+
+    @Test
+    void rejectsOversizedWorkAndOutOfBoundsResults(@TempDir Path tempDir) throws Exception {
+        try (DirectSharedMemory sharedMemory = DirectSharedMemory.create(tempDir.resolve("worker.shm"), 4096)) {
+            assertTrue(sharedMemory.fitsWork(2048));
+            assertFalse(sharedMemory.fitsWork(2049));
+            DirectIpcProtocol.EncodedWork oversized = DirectIpcProtocol.encodeWork("r", 1, List.of(new byte[2048]), null);
+            assertThrows(IllegalArgumentException.class, () -> sharedMemory.putWork(oversized));
+
+            // Inside the WORK region
+            assertThrows(IOException.class, () -> sharedMemory.getResult(0, 1));
+            // Past the end of the file
+            assertThrows(IOException.class, () -> sharedMemory.getResult(2048, 513));
+            assertThrows(IOException.class, () -> sharedMemory.getResult(2048, -1));
+            assertEquals(512, sharedMemory.getResult(2048, 512).length);
+        }
+    }
+
+    @Test
+    void refusesToReuseAnExistingFile(@TempDir Path tempDir) throws Exception {
+        Path path = Files.writeString(tempDir.resolve("worker.shm"), "taken");
+        assertThrows(IOException.class, () -> DirectSharedMemory.create(path, 4096));
+        assertEquals("taken", Files.readString(path));
+    }
+}
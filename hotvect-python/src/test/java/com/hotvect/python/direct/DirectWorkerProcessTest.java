@@ -4,11 +4,11 @@ import java.io.ByteArrayOutputStream;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
-import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.reflect.Method;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
+import java.nio.channels.Channels;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
 import java.nio.file.Path;
@@ -269,13 +269,15 @@ class DirectWorkerProcessTest {
                     Path.class,
                     ServerSocketChannel.class,
                     SocketChannel.class,
-                    InputStream.class,
-                    OutputStream.class,
+                    DirectIpcProtocol.FrameReader.class,
+                    DirectIpcProtocol.FrameWriter.class,
                     Process.class,
-                    long.class
+                    long.class,
+                    DirectSharedMemory.class
             );
             constructor.setAccessible(true);
-            return constructor.newInstance(process, null, null, null, null, out, null, -1L);
+            DirectIpcProtocol.FrameWriter writer = out == null ? null : new DirectIpcProtocol.FrameWriter(Channels.newChannel(out), 1024);
+            return constructor.newInstance(process, null, null, null, null, writer, null, -1L, null);
         }
         throw new IllegalStateException("ConnectionHandle class not found");
     }
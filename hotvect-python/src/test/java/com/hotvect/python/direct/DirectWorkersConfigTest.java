@@ -193,4 +193,42 @@ class DirectWorkersConfigTest {
         assertEquals(3, cfg.retryMaxAttempts());
         assertEquals(25L, cfg.retryBackoff().toMillis());
     }
+
+    @Test
+    void fromJson_sharedMemory_defaultsToDisabled() throws Exception {
+        JsonNode node = MAPPER.readTree("""
+                {
+                  "accelerator": "cpu",
+                  "workers_per_device": 1
+                }
+                """);
+
+        assertEquals(0, DirectWorkersConfig.fromJson(node, null).sharedMemoryBytes());
+    }
+
+    @Test
+    void fromJson_sharedMemory_parsesAndValidatesSize() throws Exception {
+        JsonNode node = MAPPER.readTree("""
+                {
+                  "accelerator": "cpu",
+                  "workers_per_device": 1,
+                  "ipc": {
+                    "shared_memory_bytes": 67108864
+                  }
+                }
+                """);
+        assertEquals(64 * 1024 * 1024, DirectWorkersConfig.fromJson(node, null).sharedMemoryBytes());
+
+        JsonNode tooSmall = MAPPER.readTree("""
+                {
+                  "accelerator": "cpu",
+                  "workers_per_device": 1,
+                  "ipc": {
+                    "shared_memory_bytes": 100
+                  }
+                }
+                """);
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> DirectWorkersConfig.fromJson(tooSmall, null));
+        assertTrue(e.getMessage().contains("ipc.shared_memory_bytes"));
+    }
 }
@@ -0,0 +1,45 @@
+package com.hotvect.tensorflow;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.CRC32C;
+
+/**
+ * Masked CRC32C checksums as used in TFRecord framing. Uses {@link CRC32C}, which the JVM intrinsifies, and reads
+ * {@link ByteBuffer}s in place, so direct buffers are checksummed without copying them to the heap.
+ */
+final class MaskedCrc32c {
+    private MaskedCrc32c() {
+    }
+
+    /**
+     * Applies the TFRecord CRC32C masking formula.
+     */
+    static int mask(int crc) {
+        return ((crc >>> 15) | (crc << 17)) + 0xa282ead8;
+    }
+
+    /**
+     * Returns the masked CRC32C of the 8 little endian bytes of {@code length}, as stored in a TFRecord header.
+     */
+    static int ofLength(long length) {
+        CRC32C crc = new CRC32C();
+        crc.update(ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN).putLong(0, length));
+        return mask((int) crc.getValue());
+    }
+
+    /**
+     * Returns the masked CRC32C of the remaining bytes of {@code data}, without changing its position.
+     */
+    static int of(ByteBuffer data) {
+        CRC32C crc = new CRC32C();
+        crc.update(data.duplicate());
+        return mask((int) crc.getValue());
+    }
+
+    static int of(byte[] data, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(data, offset, length);
+        return mask((int) crc.getValue());
+    }
+}
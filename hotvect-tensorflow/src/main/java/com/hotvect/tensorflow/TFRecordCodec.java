@@ -1,12 +1,11 @@
 package com.hotvect.tensorflow;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.hash.HashFunction;
-import com.google.common.hash.Hashing;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.GatheringByteChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
 
@@ -17,14 +16,15 @@ import static com.google.common.base.Preconditions.checkState;
  *
  * This implementation creates new ByteBuffer objects instead of reusing them,
  * making it safe for concurrent use unlike the original Apache Beam version.
+ * Checksums use the JDK's intrinsified CRC32C (see {@link MaskedCrc32c}) rather than Beam's Guava one.
+ * To read and verify whole files, {@link TFRecordReader} avoids the per-record allocations of {@link #read}.
  *
  * Based on Apache Beam's TFRecordCodec from:
  * org.apache.beam.sdk.io.TFRecordIO.TFRecordCodec
  */
 public class TFRecordCodec {
-    private static final int HEADER_LEN = (Long.SIZE + Integer.SIZE) / Byte.SIZE; // 12 bytes
-    private static final int FOOTER_LEN = Integer.SIZE / Byte.SIZE; // 4 bytes
-    private static final HashFunction crc32c = Hashing.crc32c();
+    static final int HEADER_LEN = (Long.SIZE + Integer.SIZE) / Byte.SIZE; // 12 bytes
+    static final int FOOTER_LEN = Integer.SIZE / Byte.SIZE; // 4 bytes
 
     /**
      * Applies the TFRecord CRC32C masking formula.
@@ -32,7 +32,7 @@ public class TFRecordCodec {
      */
     @VisibleForTesting
     int mask(int crc) {
-        return ((crc >>> 15) | (crc << 17)) + 0xa282ead8;
+        return MaskedCrc32c.mask(crc);
     }
 
     /**
@@ -40,7 +40,7 @@ public class TFRecordCodec {
      */
     @VisibleForTesting
     int hashLong(long x) {
-        return mask(crc32c.hashLong(x).asInt());
+        return MaskedCrc32c.ofLength(x);
     }
 
     /**
@@ -48,7 +48,7 @@ public class TFRecordCodec {
      */
     @VisibleForTesting
     int hashBytes(byte[] x) {
-        return mask(crc32c.hashBytes(x).asInt());
+        return MaskedCrc32c.of(x, 0, x.length);
     }
 
     /**
@@ -116,15 +116,24 @@ public class TFRecordCodec {
         ByteBuffer header = ByteBuffer.allocate(HEADER_LEN).order(ByteOrder.LITTLE_ENDIAN);
         header.putLong(data.length).putInt(maskedCrc32OfLength);
         header.rewind();
-        writeFully(outChannel, header);
-
-        writeFully(outChannel, ByteBuffer.wrap(data));
 
         // Thread-safe: create new ByteBuffer instead of reusing
         ByteBuffer footer = ByteBuffer.allocate(FOOTER_LEN).order(ByteOrder.LITTLE_ENDIAN);
         footer.putInt(maskedCrc32OfData);
         footer.rewind();
-        writeFully(outChannel, footer);
+
+        ByteBuffer body = ByteBuffer.wrap(data);
+        if (outChannel instanceof GatheringByteChannel gathering) {
+            ByteBuffer[] record = {header, body, footer};
+            long remaining = HEADER_LEN + data.length + FOOTER_LEN;
+            while (remaining > 0) {
+                remaining -= gathering.write(record);
+            }
+        } else {
+            writeFully(outChannel, header);
+            writeFully(outChannel, body);
+            writeFully(outChannel, footer);
+        }
     }
 
     /**
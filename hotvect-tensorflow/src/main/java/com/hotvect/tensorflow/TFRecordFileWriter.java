@@ -0,0 +1,97 @@
+package com.hotvect.tensorflow;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.MessageLite;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes TFRecord files without copying records through the heap.
+ *
+ * Protobuf messages are serialized with {@link CodedOutputStream} straight into a direct buffer that the writer
+ * reuses for every record, and their checksums are computed on that buffer in place. The header, payload and footer
+ * of each record are then written with one gathering {@link FileChannel#write(ByteBuffer[])}. The output is byte for
+ * byte what {@link TFRecordCodec#write} produces.
+ *
+ * Instances are not thread-safe.
+ */
+public class TFRecordFileWriter implements Closeable {
+    private static final int INITIAL_PAYLOAD_CAPACITY = 64 << 10;
+
+    private final FileChannel channel;
+    private final ByteBuffer header = ByteBuffer.allocateDirect(TFRecordCodec.HEADER_LEN).order(ByteOrder.LITTLE_ENDIAN);
+    private final ByteBuffer footer = ByteBuffer.allocateDirect(TFRecordCodec.FOOTER_LEN).order(ByteOrder.LITTLE_ENDIAN);
+    private final ByteBuffer[] record = new ByteBuffer[3];
+    private ByteBuffer payload = ByteBuffer.allocateDirect(INITIAL_PAYLOAD_CAPACITY);
+    private long recordsWritten;
+
+    public TFRecordFileWriter(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Creates or truncates {@code path} and returns a writer for it.
+     */
+    public static TFRecordFileWriter create(Path path) throws IOException {
+        return new TFRecordFileWriter(FileChannel.open(
+                path,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING
+        ));
+    }
+
+    /**
+     * Serializes {@code message} into the writer's buffer and writes it as one record.
+     */
+    public void write(MessageLite message) throws IOException {
+        int size = message.getSerializedSize();
+        if (payload.capacity() < size) {
+            payload = ByteBuffer.allocateDirect(Math.max(size, 2 * payload.capacity()));
+        }
+        payload.clear().limit(size);
+        CodedOutputStream out = CodedOutputStream.newInstance(payload);
+        message.writeTo(out);
+        out.flush();
+        out.checkNoSpaceLeft();
+        payload.flip();
+        write(payload);
+    }
+
+    /**
+     * Writes the remaining bytes of {@code data} as one record, without copying them and without changing the
+     * position of {@code data}.
+     */
+    public void write(ByteBuffer data) throws IOException {
+        ByteBuffer body = data.duplicate();
+        int length = body.remaining();
+        header.clear();
+        header.putLong(length).putInt(MaskedCrc32c.ofLength(length)).flip();
+        footer.clear();
+        footer.putInt(MaskedCrc32c.of(body)).flip();
+
+        record[0] = header;
+        record[1] = body;
+        record[2] = footer;
+        long remaining = TFRecordCodec.HEADER_LEN + length + TFRecordCodec.FOOTER_LEN;
+        while (remaining > 0) {
+            remaining -= channel.write(record);
+        }
+        recordsWritten++;
+    }
+
+    public long recordsWritten() {
+        return recordsWritten;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
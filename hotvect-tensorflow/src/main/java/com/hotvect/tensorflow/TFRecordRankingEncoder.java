@@ -11,6 +11,8 @@ import com.hotvect.api.data.common.NamespacedRecord;
 import com.hotvect.api.data.ranking.RankingExample;
 import com.hotvect.api.data.ranking.RankingOutcome;
 import com.hotvect.api.data.ranking.TransformedAction;
+import com.hotvect.core.transform.ranking.BroadcastRankingTransformer;
+import com.hotvect.core.transform.ranking.BroadcastTransformedActions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.tensorflow.proto.Example;
@@ -20,7 +22,9 @@ import org.tensorflow.proto.Int64List;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -81,7 +85,23 @@ public class TFRecordRankingEncoder<SHARED, ACTION, OUTCOME> implements RankingE
     @Override
     public ByteBuffer apply(RankingExample<SHARED, ACTION, OUTCOME> toEncode) {
         try {
-            List<TransformedAction<ACTION>> transformedActions = transformer.transform(toEncode.request());
+            List<TransformedAction<ACTION>> transformedActions;
+            // Shared features are encoded once and the (immutable) Feature protos reused for every action
+            Map<String, Feature> sharedFeatures;
+            Collection<? extends Namespace> rowFeatures;
+            if (transformer instanceof BroadcastRankingTransformer<SHARED, ACTION> broadcastTransformer) {
+                BroadcastTransformedActions<ACTION> broadcast = broadcastTransformer.transformBroadcast(toEncode.request());
+                transformedActions = broadcast.actions();
+                Map<String, Feature> encodedShared = encodeSharedFeatures(broadcast.shared(), toEncode.exampleId());
+                sharedFeatures = encodedShared;
+                rowFeatures = transformer.getUsedFeatures().stream()
+                        .filter(feature -> !encodedShared.containsKey(feature.getName()))
+                        .toList();
+            } else {
+                transformedActions = transformer.transform(toEncode.request());
+                sharedFeatures = Map.of();
+                rowFeatures = transformer.getUsedFeatures();
+            }
             List<AvailableAction<ACTION>> actions = toEncode.request().actions();
             checkArgument(
                     transformedActions.size() == actions.size(),
@@ -96,7 +116,7 @@ public class TFRecordRankingEncoder<SHARED, ACTION, OUTCOME> implements RankingE
                     actions.size()
             );
 
-            List<ByteBuffer> buffers = new ArrayList<>();
+            List<Example> examples = new ArrayList<>(actions.size());
 
             for (int i = 0; i < actions.size(); i++) {
                 String actionId = actions.get(i).actionId();
@@ -119,11 +139,11 @@ public class TFRecordRankingEncoder<SHARED, ACTION, OUTCOME> implements RankingE
                 double reward = rewardFunction.applyAsDouble(outcome.outcome());
                 NamespacedRecord<Namespace, Object> record = transformedAction.transformed();
 
-                Example example = convertToTensorFlowExample(record, reward, toEncode.exampleId());
-                buffers.add(ByteBuffer.wrap(example.toByteArray()));
+                Example example = convertToTensorFlowExample(sharedFeatures, rowFeatures, record, reward, toEncode.exampleId());
+                examples.add(example);
             }
 
-            return tfRecordWriter.createTfRecordByteBuffer(buffers);
+            return tfRecordWriter.encodeMessages(examples);
 
         } catch (Exception e) {
             logger.error("Failed to encode ranking example: {}", toEncode.exampleId(), e);
@@ -135,7 +155,9 @@ public class TFRecordRankingEncoder<SHARED, ACTION, OUTCOME> implements RankingE
      * Converts a single record to a TensorFlow Example proto.
      * Feature names are important because they map to TensorFlow model inputs.
      */
-    private Example convertToTensorFlowExample(NamespacedRecord<Namespace, Object> record,
+    private Example convertToTensorFlowExample(Map<String, Feature> sharedFeatures,
+                                              Collection<? extends Namespace> rowFeatures,
+                                              NamespacedRecord<Namespace, Object> record,
                                               double reward,
                                               String exampleId) {
         Features.Builder featuresBuilder = Features.newBuilder();
@@ -148,8 +170,9 @@ public class TFRecordRankingEncoder<SHARED, ACTION, OUTCOME> implements RankingE
                 .build());
 
         // Add transformer features - names are crucial for TensorFlow model input mapping
+        featuresBuilder.putAllFeature(sharedFeatures);
         try {
-            TensorFlowExampleEncoder.putTransformerFeatures(featuresBuilder, transformer.getUsedFeatures(), record);
+            TensorFlowExampleEncoder.putTransformerFeatures(featuresBuilder, rowFeatures, record);
         } catch (Exception e) {
             Throwable cause = Throwables.getRootCause(e);
             throw new RuntimeException(Strings.lenientFormat("Error encoding transformer features (exampleId=%s)", exampleId), cause);
@@ -159,4 +182,23 @@ public class TFRecordRankingEncoder<SHARED, ACTION, OUTCOME> implements RankingE
             .setFeatures(featuresBuilder.build())
             .build();
     }
+
+    /**
+     * Encodes the used features present in the broadcast row, keyed by feature name.
+     */
+    private Map<String, Feature> encodeSharedFeatures(NamespacedRecord<Namespace, Object> shared, String exampleId) {
+        Features.Builder sharedBuilder = Features.newBuilder();
+        try {
+            for (Namespace feature : transformer.getUsedFeatures()) {
+                Object value = shared.get(feature);
+                if (value != null) {
+                    TensorFlowExampleEncoder.putTransformerFeature(sharedBuilder, feature, value);
+                }
+            }
+        } catch (Exception e) {
+            Throwable cause = Throwables.getRootCause(e);
+            throw new RuntimeException(Strings.lenientFormat("Error encoding shared transformer features (exampleId=%s)", exampleId), cause);
+        }
+        return sharedBuilder.getFeatureMap();
+    }
 }
@@ -0,0 +1,162 @@
+package com.hotvect.tensorflow;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Reads TFRecord files record by record, verifying the length and data checksums of every record.
+ *
+ * Records are read in large chunks into a direct buffer that the reader reuses, and are checksummed and returned in
+ * place, so reading does not allocate per record. Records larger than the buffer grow it. Corrupt or truncated records
+ * fail with an {@link IOException} that names their offset.
+ *
+ * Instances are not thread-safe.
+ */
+public class TFRecordReader implements Closeable {
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+    private final ReadableByteChannel channel;
+    private ByteBuffer buffer;
+    private boolean endOfChannel;
+    private long offset;
+    private long recordsRead;
+
+    public TFRecordReader(ReadableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param bufferSize initial size of the read buffer, in bytes
+     */
+    public TFRecordReader(ReadableByteChannel channel, int bufferSize) {
+        checkArgument(bufferSize >= TFRecordCodec.HEADER_LEN, "bufferSize must be at least %s: %s", TFRecordCodec.HEADER_LEN, bufferSize);
+        this.channel = channel;
+        // Starts empty, in read mode
+        this.buffer = ByteBuffer.allocateDirect(bufferSize).order(ByteOrder.LITTLE_ENDIAN).limit(0);
+    }
+
+    public static TFRecordReader open(Path path) throws IOException {
+        return new TFRecordReader(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    /**
+     * Reads and verifies every record of {@code path}.
+     *
+     * @return the number of records
+     * @throws IOException if a record is corrupt or truncated
+     */
+    public static long verify(Path path) throws IOException {
+        try (TFRecordReader reader = open(path)) {
+            while (reader.next() != null) {
+                // Verified by next()
+            }
+            return reader.recordsRead();
+        }
+    }
+
+    /**
+     * Returns the data of the next record as a read-only view of the reader's buffer, which is only valid until the
+     * next call, or null at the end of the channel.
+     *
+     * @throws IOException if the record is corrupt or truncated
+     */
+    public ByteBuffer next() throws IOException {
+        if (!fill(TFRecordCodec.HEADER_LEN)) {
+            if (buffer.hasRemaining()) {
+                throw new IOException(String.format("Truncated TFRecord header at offset %d: %d bytes", offset, buffer.remaining()));
+            }
+            return null;
+        }
+        int start = buffer.position();
+        long length64 = buffer.getLong(start);
+        int maskedCrc32OfLength = buffer.getInt(start + Long.BYTES);
+        int lengthHash = MaskedCrc32c.ofLength(length64);
+        if (lengthHash != maskedCrc32OfLength) {
+            throw new IOException(String.format(
+                    "Mismatch of length mask when reading the record at offset %d. Expected %d but received %d.",
+                    offset, maskedCrc32OfLength, lengthHash));
+        }
+        if (length64 < 0 || length64 > Integer.MAX_VALUE - TFRecordCodec.HEADER_LEN - TFRecordCodec.FOOTER_LEN) {
+            throw new IOException(String.format("length overflow %d at offset %d", length64, offset));
+        }
+        int length = (int) length64;
+        int recordLength = TFRecordCodec.HEADER_LEN + length + TFRecordCodec.FOOTER_LEN;
+        if (!fill(recordLength)) {
+            throw new IOException(String.format(
+                    "Truncated TFRecord at offset %d: expected %d bytes but only %d remain", offset, recordLength, buffer.remaining()));
+        }
+        // fill() may have moved the record to the start of the buffer
+        start = buffer.position();
+        ByteBuffer data = buffer.slice(start + TFRecordCodec.HEADER_LEN, length);
+        int maskedCrc32OfData = buffer.getInt(start + TFRecordCodec.HEADER_LEN + length);
+        int dataHash = MaskedCrc32c.of(data);
+        if (dataHash != maskedCrc32OfData) {
+            throw new IOException(String.format(
+                    "Mismatch of data mask when reading the record at offset %d. Expected %d but received %d.",
+                    offset, maskedCrc32OfData, dataHash));
+        }
+        buffer.position(start + recordLength);
+        offset += recordLength;
+        recordsRead++;
+        return data.asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns a copy of the data of the next record, or null at the end of the channel.
+     */
+    public byte[] nextBytes() throws IOException {
+        ByteBuffer data = next();
+        if (data == null) {
+            return null;
+        }
+        byte[] ret = new byte[data.remaining()];
+        data.get(ret);
+        return ret;
+    }
+
+    public long recordsRead() {
+        return recordsRead;
+    }
+
+    /**
+     * Makes at least {@code n} bytes available in the buffer, unless the channel ends first.
+     *
+     * @return whether {@code n} bytes are available
+     */
+    private boolean fill(int n) throws IOException {
+        if (buffer.remaining() >= n) {
+            return true;
+        }
+        if (endOfChannel) {
+            return false;
+        }
+        if (buffer.capacity() < n) {
+            ByteBuffer larger = ByteBuffer.allocateDirect(Math.max(n, 2 * buffer.capacity())).order(ByteOrder.LITTLE_ENDIAN);
+            larger.put(buffer);
+            buffer = larger;
+        } else {
+            buffer.compact();
+        }
+        while (buffer.position() < n) {
+            if (channel.read(buffer) < 0) {
+                endOfChannel = true;
+                break;
+            }
+        }
+        buffer.flip();
+        return buffer.remaining() >= n;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
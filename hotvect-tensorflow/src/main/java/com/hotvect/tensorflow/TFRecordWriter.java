@@ -1,8 +1,12 @@
 package com.hotvect.tensorflow;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.MessageLite;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.List;
 
 /**
@@ -71,6 +75,44 @@ public class TFRecordWriter {
         return result.rewind();
     }
 
+    /**
+     * Creates a single ByteBuffer containing all messages in TFRecord format.
+     *
+     * <p>Unlike {@link #createTfRecordByteBuffer(List)} with {@code ByteBuffer.wrap(message.toByteArray())} records,
+     * each message is serialized directly into its place in the result, and its checksum is computed there. The
+     * output is identical.
+     *
+     * @param messages messages to serialize, one record each
+     * @return single ByteBuffer containing all messages in TFRecord format
+     */
+    public ByteBuffer encodeMessages(List<? extends MessageLite> messages) {
+        int totalSize = 0;
+        for (MessageLite message : messages) {
+            // Generated messages memoize their size, so serializing below does not compute it again
+            totalSize += TFRecordCodec.HEADER_LEN + message.getSerializedSize() + TFRecordCodec.FOOTER_LEN;
+        }
+
+        ByteBuffer result = ByteBuffer.allocate(totalSize).order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            for (MessageLite message : messages) {
+                int size = message.getSerializedSize();
+                result.putLong(size).putInt(MaskedCrc32c.ofLength(size));
+                int start = result.position();
+                CodedOutputStream out = CodedOutputStream.newInstance(result);
+                message.writeTo(out);
+                out.flush();
+                if (result.position() - start != size) {
+                    throw new IllegalStateException("Serialized " + (result.position() - start) + " bytes, expected " + size);
+                }
+                result.putInt(MaskedCrc32c.of(result.array(), result.arrayOffset() + start, size));
+            }
+        } catch (IOException e) {
+            // Writing to a heap buffer only fails if the message changes while it is serialized
+            throw new IllegalStateException("Failed to serialize message", e);
+        }
+        return result.order(ByteOrder.BIG_ENDIAN).rewind();
+    }
+
     /**
      * Converts a ByteBuffer to byte array, preserving the buffer's position and limit.
      */
@@ -0,0 +1,193 @@
+package com.hotvect.tensorflow;
+
+import com.hotvect.api.data.FeatureStoreResponseContainer;
+import com.hotvect.api.data.ranking.RankingRequest;
+import com.hotvect.api.data.scoring.BulkScoreResponse;
+import com.hotvect.api.data.scoring.ScoringDecision;
+import com.hotvect.core.transform.ranking.BroadcastRankingTransformer;
+import com.hotvect.core.transform.ranking.ComputingBulkScorer;
+import com.hotvect.core.transform.ranking.ComputingCandidate;
+import com.hotvect.core.transform.ranking.ComputingRankingRequest;
+import com.hotvect.core.transform.ranking.ComputingRankingTransformer;
+import com.hotvect.onlineutils.concurrency.AdaptiveForkThreshold;
+import com.hotvect.onlineutils.concurrency.RankingExecutor;
+import org.tensorflow.SavedModelBundle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.hotvect.utils.AdditionalProperties.mergeAdditionalProperties;
+
+/**
+ * Scores ranking requests with a TensorFlow SavedModel loaded into the JVM, without a round trip to a Python worker.
+ *
+ * <p>The transformed actions of a request are encoded column by column into one input tensor per feature (see
+ * {@link TensorFlowFeatureType} for the dtypes and shapes), and scored with a single call of the
+ * {@code serving_default} signature. Requests with more candidates than the fork threshold are split into chunks
+ * that are scored in parallel on the {@link RankingExecutor}, each chunk as one batch.</p>
+ *
+ * <p>The TensorFlow native libraries must be on the classpath at runtime, e.g. via
+ * {@code org.tensorflow:tensorflow-core-native} with the classifier of the target platform.</p>
+ */
+public class TensorFlowBulkScorer<SHARED, ACTION> implements ComputingBulkScorer<SHARED, ACTION> {
+    private final ComputingRankingTransformer<SHARED, ACTION> transformer;
+    // Non-null if the transformer can emit shared features as a separate broadcast row
+    private final BroadcastRankingTransformer<SHARED, ACTION> broadcastTransformer;
+    private final TensorFlowTransformedActionScorer<ACTION> transformedActionScorer;
+    private final int noForkThreshold;
+    private final RankingExecutor rankingExecutor;
+    // Null unless the fork threshold adapts to the measured per-candidate cost
+    private final AdaptiveForkThreshold adaptiveForkThreshold;
+    private final Function<ComputingRankingRequest<SHARED, ACTION>, FeatureStoreResponseContainer> featureStoreResponseContainerProvider;
+
+    /**
+     * @param savedModelBundle model with a {@code serving_default} signature whose inputs are the used features of
+     *                         {@code transformer}. It is closed together with this scorer.
+     */
+    public TensorFlowBulkScorer(
+            ComputingRankingTransformer<SHARED, ACTION> transformer,
+            SavedModelBundle savedModelBundle,
+            int noForkThreshold
+    ) {
+        this(
+                transformer,
+                savedModelBundle,
+                noForkThreshold,
+                RankingExecutor.common(),
+                null,
+                _request -> FeatureStoreResponseContainer.empty()
+        );
+    }
+
+    /**
+     * @param savedModelBundle      model with a {@code serving_default} signature whose inputs are the used features
+     *                              of {@code transformer}. It is closed together with this scorer.
+     * @param rankingExecutor       executor used to score chunks of large requests in parallel. It is closed together
+     *                              with this scorer.
+     * @param adaptiveForkThreshold if non-null, the fork threshold is taken from it for every request instead of
+     *                              {@code noForkThreshold}, and the scoring time of every chunk is recorded to it
+     */
+    public TensorFlowBulkScorer(
+            ComputingRankingTransformer<SHARED, ACTION> transformer,
+            SavedModelBundle savedModelBundle,
+            int noForkThreshold,
+            RankingExecutor rankingExecutor,
+            AdaptiveForkThreshold adaptiveForkThreshold,
+            Function<ComputingRankingRequest<SHARED, ACTION>, FeatureStoreResponseContainer> featureStoreResponseContainerProvider
+    ) {
+        this.noForkThreshold = noForkThreshold;
+        this.rankingExecutor = Objects.requireNonNull(rankingExecutor, "rankingExecutor");
+        this.adaptiveForkThreshold = adaptiveForkThreshold;
+        this.transformer = Objects.requireNonNull(transformer, "transformer");
+        this.broadcastTransformer = transformer instanceof BroadcastRankingTransformer<SHARED, ACTION> broadcast ? broadcast : null;
+        this.transformedActionScorer = new TensorFlowTransformedActionScorer<>(
+                transformer.getUsedFeatures(),
+                Objects.requireNonNull(savedModelBundle, "savedModelBundle")
+        );
+        this.featureStoreResponseContainerProvider = Objects.requireNonNull(
+                featureStoreResponseContainerProvider,
+                "featureStoreResponseContainerProvider"
+        );
+    }
+
+    @Override
+    public BulkScoreResponse<ACTION> score(RankingRequest<SHARED, ACTION> rankingRequest) {
+        ComputingRankingRequest<SHARED, ACTION> preparedRankingRequest = transformer.prepare(rankingRequest);
+        return BulkScoreResponse.of(
+                doApply(preparedRankingRequest),
+                featureStoreResponseContainerProvider.apply(preparedRankingRequest)
+        );
+    }
+
+    @Override
+    @Deprecated(forRemoval = true)
+    public List<ScoringDecision<ACTION>> bulkScore(RankingRequest<SHARED, ACTION> rankingRequest) {
+        return score(rankingRequest).decisions();
+    }
+
+    @Override
+    public BulkScoreResponse<ACTION> score(ComputingRankingRequest<SHARED, ACTION> rankingRequest) {
+        return BulkScoreResponse.of(
+                doApply(rankingRequest),
+                featureStoreResponseContainerProvider.apply(rankingRequest)
+        );
+    }
+
+    @Override
+    @Deprecated(forRemoval = true)
+    public List<ScoringDecision<ACTION>> bulkScore(ComputingRankingRequest<SHARED, ACTION> rankingRequest) {
+        return score(rankingRequest).decisions();
+    }
+
+    public List<ScoringDecision<ACTION>> doApply(ComputingRankingRequest<SHARED, ACTION> rankingRequest) {
+        int forkThreshold = adaptiveForkThreshold == null ? noForkThreshold : adaptiveForkThreshold.threshold();
+        if (rankingRequest.candidates().size() <= forkThreshold || forkThreshold <= 0) {
+            return process(rankingRequest);
+        } else {
+            return rankingExecutor.mapChunks(
+                    rankingRequest.candidates(),
+                    forkThreshold,
+                    chunk -> process(new ComputingRankingRequest<>(
+                            rankingRequest.rankingRequest(),
+                            rankingRequest.shared(),
+                            chunk
+                    ))
+            );
+        }
+    }
+
+    private List<ScoringDecision<ACTION>> process(ComputingRankingRequest<SHARED, ACTION> rankingRequest) {
+        long start = adaptiveForkThreshold == null ? 0 : System.nanoTime();
+        List<ScoringDecision<ACTION>> decisions = broadcastTransformer != null
+                ? transformedActionScorer.scoreBroadcast(broadcastTransformer.transformBroadcast(rankingRequest))
+                : transformedActionScorer.scoreTransformed(transformer.transform(rankingRequest));
+        if (adaptiveForkThreshold != null) {
+            adaptiveForkThreshold.record(rankingRequest.candidates().size(), System.nanoTime() - start);
+        }
+        return mergeCandidateAdditionalProperties(decisions, rankingRequest.candidates());
+    }
+
+    private List<ScoringDecision<ACTION>> mergeCandidateAdditionalProperties(
+            List<ScoringDecision<ACTION>> decisions,
+            List<ComputingCandidate<SHARED, ACTION>> candidates
+    ) {
+        checkArgument(
+                decisions.size() == candidates.size(),
+                "TensorFlow scorer returned %s decisions for %s actions",
+                decisions.size(),
+                candidates.size()
+        );
+
+        List<ScoringDecision<ACTION>> ret = new ArrayList<>(decisions.size());
+        for (int i = 0; i < decisions.size(); i++) {
+            ScoringDecision<ACTION> decision = decisions.get(i);
+            ComputingCandidate<SHARED, ACTION> candidate = candidates.get(i);
+            checkArgument(
+                    decision.actionId().equals(candidate.actionId()),
+                    "TensorFlow scorer returned action id %s at position %s, expected %s",
+                    decision.actionId(),
+                    i,
+                    candidate.actionId()
+            );
+            ret.add(ScoringDecision.of(
+                    decision.actionId(),
+                    decision.action(),
+                    decision.score(),
+                    mergeAdditionalProperties(candidate.additionalProperties(), decision.additionalProperties())
+            ));
+        }
+        return ret;
+    }
+
+    @Override
+    public void close() throws Exception {
+        this.transformedActionScorer.close();
+        this.rankingExecutor.close();
+        if (this.adaptiveForkThreshold != null) {
+            this.adaptiveForkThreshold.close();
+        }
+    }
+}
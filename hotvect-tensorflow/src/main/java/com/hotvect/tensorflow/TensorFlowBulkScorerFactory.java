@@ -0,0 +1,149 @@
+package com.hotvect.tensorflow;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import com.hotvect.api.algodefinition.ranking.BulkScorerFactory;
+import com.hotvect.api.algorithms.BulkScorer;
+import com.hotvect.api.data.FeatureStoreResponseContainer;
+import com.hotvect.core.transform.ranking.ComputingRankingTransformer;
+import com.hotvect.onlineutils.concurrency.AdaptiveForkThreshold;
+import com.hotvect.onlineutils.concurrency.RankingExecutor;
+import com.hotvect.utils.HyperparamUtils;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tensorflow.SavedModelBundle;
+import org.tensorflow.proto.ConfigProto;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Creates a {@link TensorFlowBulkScorer} from a SavedModel stored in the algorithm parameters under
+ * {@value #SAVED_MODEL_PARAMETER_PREFIX}, e.g. {@code model_parameter/saved_model/saved_model.pb} and
+ * {@code model_parameter/saved_model/variables/...}.
+ *
+ * <p>Recognized hyperparameters, all optional:
+ * <pre>{@code
+ * "tensorflow_scorer": {"nofork_threshold": 100, "intra_op_parallelism_threads": 1, "inter_op_parallelism_threads": 1}
+ * }</pre>
+ * plus {@code ranking_executor} (see {@link RankingExecutor#fromHyperparameter}) and the adaptive fork threshold
+ * settings under {@code tensorflow_scorer} (see {@link AdaptiveForkThreshold#fromHyperparameter}). A thread count of
+ * 0 lets TensorFlow choose.</p>
+ */
+public class TensorFlowBulkScorerFactory<SHARED, ACTION> implements BulkScorerFactory<ComputingRankingTransformer<SHARED, ACTION>, SHARED, ACTION> {
+    private static final Logger log = LoggerFactory.getLogger(TensorFlowBulkScorerFactory.class);
+    static final String SAVED_MODEL_PARAMETER_PREFIX = "model_parameter/saved_model/";
+    static final String SERVE_TAG = "serve";
+
+    @Override
+    public BulkScorer<SHARED, ACTION> apply(
+            ComputingRankingTransformer<SHARED, ACTION> rankingTransformer,
+            Map<String, InputStream> parameters,
+            Optional<JsonNode> hyperparameter
+    ) {
+        int noforkThreshold = HyperparamUtils.getOrDefault(
+                hyperparameter,
+                JsonNode::asInt,
+                100,
+                "tensorflow_scorer",
+                "nofork_threshold"
+        );
+        ConfigProto configProto = ConfigProto.newBuilder()
+                .setIntraOpParallelismThreads(HyperparamUtils.getOrDefault(
+                        hyperparameter, JsonNode::asInt, 0, "tensorflow_scorer", "intra_op_parallelism_threads"))
+                .setInterOpParallelismThreads(HyperparamUtils.getOrDefault(
+                        hyperparameter, JsonNode::asInt, 0, "tensorflow_scorer", "inter_op_parallelism_threads"))
+                .build();
+        Optional<AdaptiveForkThreshold> adaptiveForkThreshold = AdaptiveForkThreshold.fromHyperparameter(
+                "tensorflow",
+                noforkThreshold,
+                hyperparameter,
+                Metrics.globalRegistry,
+                "tensorflow_scorer"
+        );
+        log.info(
+                "Using nofork threshold of {} (adaptive: {}), intra op threads: {}, inter op threads: {}",
+                noforkThreshold,
+                adaptiveForkThreshold.isPresent(),
+                configProto.getIntraOpParallelismThreads(),
+                configProto.getInterOpParallelismThreads()
+        );
+
+        return new TensorFlowBulkScorer<>(
+                rankingTransformer,
+                loadSavedModel(parameters, configProto),
+                noforkThreshold,
+                RankingExecutor.fromHyperparameter("tensorflow", hyperparameter, Metrics.globalRegistry),
+                adaptiveForkThreshold.orElse(null),
+                _request -> FeatureStoreResponseContainer.empty()
+        );
+    }
+
+    /**
+     * Loads the SavedModel from {@code parameters}. TensorFlow reads a SavedModel from a directory, so the files are
+     * written to a temporary directory, which is deleted again once the model is loaded.
+     */
+    static SavedModelBundle loadSavedModel(Map<String, InputStream> parameters, ConfigProto configProto) {
+        Path directory = null;
+        try {
+            directory = Files.createTempDirectory("hotvect-saved-model");
+            int extracted = extractSavedModel(parameters, directory);
+            checkState(
+                    extracted > 0,
+                    "Missing TensorFlow SavedModel parameters. Expected keys starting with '%s'. Available keys: %s",
+                    SAVED_MODEL_PARAMETER_PREFIX,
+                    parameters.keySet()
+            );
+            log.info("Loading SavedModel of {} files", extracted);
+            return SavedModelBundle.loader(directory.toString())
+                    .withTags(SERVE_TAG)
+                    .withConfigProto(configProto)
+                    .load();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (directory != null) {
+                try {
+                    MoreFiles.deleteRecursively(directory, RecursiveDeleteOption.ALLOW_INSECURE);
+                } catch (IOException e) {
+                    log.warn("Could not delete the temporary SavedModel directory {}", directory, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes every parameter under {@value #SAVED_MODEL_PARAMETER_PREFIX} to {@code directory}, keeping its path
+     * relative to the prefix.
+     *
+     * @return the number of files written
+     */
+    static int extractSavedModel(Map<String, InputStream> parameters, Path directory) throws IOException {
+        Path root = directory.toAbsolutePath().normalize();
+        int extracted = 0;
+        for (Map.Entry<String, InputStream> entry : parameters.entrySet()) {
+            String key = entry.getKey();
+            if (!key.startsWith(SAVED_MODEL_PARAMETER_PREFIX) || key.endsWith("/")) {
+                continue;
+            }
+            Path target = root.resolve(key.substring(SAVED_MODEL_PARAMETER_PREFIX.length())).normalize();
+            checkArgument(target.startsWith(root), "SavedModel parameter %s points outside of the model directory", key);
+            Files.createDirectories(target.getParent());
+            try (InputStream in = entry.getValue()) {
+                Files.copy(in, target);
+            }
+            extracted++;
+        }
+        return extracted;
+    }
+}
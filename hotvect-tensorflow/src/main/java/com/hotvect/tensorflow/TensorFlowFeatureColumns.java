@@ -0,0 +1,121 @@
+package com.hotvect.tensorflow;
+
+import com.hotvect.api.data.Namespace;
+import org.tensorflow.Tensor;
+import org.tensorflow.ndarray.Shape;
+import org.tensorflow.ndarray.buffer.DataBuffers;
+import org.tensorflow.types.TFloat32;
+import org.tensorflow.types.TInt64;
+import org.tensorflow.types.TString;
+
+import java.util.function.IntFunction;
+
+/**
+ * Encodes one feature of a batch of rows into a single column, following the {@link TensorFlowFeatureType} dtype +
+ * shape contract: scalars become a {@code [rows]} column and sequences of length {@code L} a row-major
+ * {@code [rows, L]} column. Values are converted by {@link TensorFlowFeatureValues}, as in
+ * {@link TensorFlowExampleEncoder}.
+ */
+final class TensorFlowFeatureColumns {
+    private TensorFlowFeatureColumns() {
+    }
+
+    static TensorFlowFeatureType featureType(Namespace feature) {
+        Object featureValueType = feature.getFeatureValueType();
+        if (!(featureValueType instanceof TensorFlowFeatureType featureType)) {
+            String actual = featureValueType == null ? "null" : featureValueType.getClass().getName();
+            throw new IllegalArgumentException(
+                    "Feature '" + feature.getName() + "' must have TensorFlowFeatureType FeatureValueType (was " + actual + ")"
+            );
+        }
+        return featureType;
+    }
+
+    /**
+     * Returns the shape of the column of {@code rows} values of {@code featureType}.
+     */
+    static Shape shape(TensorFlowFeatureType featureType, int rows) {
+        return switch (featureType) {
+            case TensorFlowFeatureType.NumericalSequence seq -> Shape.of(rows, seq.length());
+            case TensorFlowFeatureType.CategoricalSequence seq -> Shape.of(rows, seq.length());
+            default -> Shape.of(rows);
+        };
+    }
+
+    /**
+     * Encodes the values of {@code feature} for rows {@code 0} to {@code rows - 1} into a tensor. The caller owns
+     * the returned tensor and must close it.
+     */
+    static Tensor tensor(Namespace feature, int rows, IntFunction<Object> values) {
+        TensorFlowFeatureType featureType = featureType(feature);
+        Shape shape = shape(featureType, rows);
+        return switch (featureType) {
+            case TensorFlowFeatureType.Numerical ignored ->
+                    TFloat32.tensorOf(shape, DataBuffers.of(floats(feature.getName(), featureType, rows, values), true, false));
+            case TensorFlowFeatureType.NumericalSequence ignored ->
+                    TFloat32.tensorOf(shape, DataBuffers.of(floats(feature.getName(), featureType, rows, values), true, false));
+            case TensorFlowFeatureType.Categorical ignored ->
+                    TInt64.tensorOf(shape, DataBuffers.of(longs(feature.getName(), featureType, rows, values), true, false));
+            case TensorFlowFeatureType.CategoricalSequence ignored ->
+                    TInt64.tensorOf(shape, DataBuffers.of(longs(feature.getName(), featureType, rows, values), true, false));
+            case TensorFlowFeatureType.StringType ignored ->
+                    TString.tensorOf(shape, DataBuffers.ofObjects(strings(rows, values)));
+        };
+    }
+
+    /**
+     * Encodes a float32 feature into a row-major array of {@code rows * L} values, where {@code L} is 1 for scalars.
+     */
+    static float[] floats(String featureName, TensorFlowFeatureType featureType, int rows, IntFunction<Object> values) {
+        return switch (featureType) {
+            case TensorFlowFeatureType.Numerical ignored -> {
+                float[] ret = new float[rows];
+                for (int i = 0; i < rows; i++) {
+                    ret[i] = TensorFlowFeatureValues.floatScalar(featureName, values.apply(i));
+                }
+                yield ret;
+            }
+            case TensorFlowFeatureType.NumericalSequence seq -> {
+                float[] ret = new float[rows * seq.length()];
+                for (int i = 0; i < rows; i++) {
+                    TensorFlowFeatureValues.putFloatVector(featureName, values.apply(i), ret, i * seq.length(), seq.length());
+                }
+                yield ret;
+            }
+            default -> throw new IllegalArgumentException(
+                    "Feature '" + featureName + "' is " + featureType.tensorflowDTypeName() + ", not float32");
+        };
+    }
+
+    /**
+     * Encodes an int64 feature into a row-major array of {@code rows * L} values, where {@code L} is 1 for scalars.
+     */
+    static long[] longs(String featureName, TensorFlowFeatureType featureType, int rows, IntFunction<Object> values) {
+        return switch (featureType) {
+            case TensorFlowFeatureType.Categorical ignored -> {
+                long[] ret = new long[rows];
+                for (int i = 0; i < rows; i++) {
+                    ret[i] = TensorFlowFeatureValues.int64Scalar(featureName, values.apply(i));
+                }
+                yield ret;
+            }
+            case TensorFlowFeatureType.CategoricalSequence seq -> {
+                long[] ret = new long[rows * seq.length()];
+                for (int i = 0; i < rows; i++) {
+                    TensorFlowFeatureValues.putInt64Vector(featureName, values.apply(i), ret, i * seq.length(), seq.length());
+                }
+                yield ret;
+            }
+            default -> throw new IllegalArgumentException(
+                    "Feature '" + featureName + "' is " + featureType.tensorflowDTypeName() + ", not int64");
+        };
+    }
+
+    static String[] strings(int rows, IntFunction<Object> values) {
+        String[] ret = new String[rows];
+        for (int i = 0; i < rows; i++) {
+            ret[i] = TensorFlowFeatureValues.string(values.apply(i));
+        }
+        return ret;
+    }
+}
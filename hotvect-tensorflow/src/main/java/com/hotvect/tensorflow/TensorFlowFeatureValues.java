@@ -0,0 +1,149 @@
+package com.hotvect.tensorflow;
+
+import java.util.List;
+
+/**
+ * Converts transformer outputs into TensorFlow feature values following the {@link TensorFlowFeatureType} dtype +
+ * shape contract, including the defaults used for missing values. Shared by {@link TensorFlowExampleEncoder} and
+ * {@link TensorFlowFeatureColumns}, so a model sees the same inputs whether it is fed from TFRecords or from tensors.
+ */
+final class TensorFlowFeatureValues {
+    static final float DEFAULT_FLOAT = 0.0f;
+    static final long DEFAULT_INT64 = 0L;
+    static final String DEFAULT_STRING = "";
+
+    private TensorFlowFeatureValues() {
+    }
+
+    static float floatScalar(String featureName, Object value) {
+        if (value == null) {
+            return DEFAULT_FLOAT;
+        } else if (value instanceof Number n) {
+            return n.floatValue();
+        }
+        throw new IllegalArgumentException("Feature '" + featureName + "' expected Number for float32 scalar, got: " + value.getClass().getName());
+    }
+
+    static long int64Scalar(String featureName, Object value) {
+        if (value == null) {
+            return DEFAULT_INT64;
+        } else if (value instanceof Number n) {
+            return n.longValue();
+        }
+        throw new IllegalArgumentException("Feature '" + featureName + "' expected Number for int64 scalar, got: " + value.getClass().getName());
+    }
+
+    static String string(Object value) {
+        return value == null ? DEFAULT_STRING : value.toString();
+    }
+
+    /**
+     * Writes the {@code length} elements of a float32 vector to {@code dst[offset]} to {@code dst[offset + length - 1]}.
+     * A missing vector leaves the range untouched, so {@code dst} must be zero-initialized there.
+     */
+    static void putFloatVector(String featureName, Object value, float[] dst, int offset, int length) {
+        switch (value) {
+            case null -> {
+            }
+            case float[] arr -> {
+                validateVectorLength(featureName, "float32", length, arr.length);
+                System.arraycopy(arr, 0, dst, offset, length);
+            }
+            case double[] arr -> {
+                validateVectorLength(featureName, "float32", length, arr.length);
+                for (int i = 0; i < length; i++) {
+                    dst[offset + i] = (float) arr[i];
+                }
+            }
+            case Float[] arr -> {
+                validateVectorLength(featureName, "float32", length, arr.length);
+                for (int i = 0; i < length; i++) {
+                    dst[offset + i] = arr[i] != null ? arr[i] : DEFAULT_FLOAT;
+                }
+            }
+            case Double[] arr -> {
+                validateVectorLength(featureName, "float32", length, arr.length);
+                for (int i = 0; i < length; i++) {
+                    dst[offset + i] = arr[i] != null ? arr[i].floatValue() : DEFAULT_FLOAT;
+                }
+            }
+            case List<?> list -> {
+                validateVectorLength(featureName, "float32", length, list.size());
+                for (int i = 0; i < length; i++) {
+                    Object element = list.get(i);
+                    if (element == null) {
+                        dst[offset + i] = DEFAULT_FLOAT;
+                    } else if (element instanceof Number number) {
+                        dst[offset + i] = number.floatValue();
+                    } else {
+                        throw new IllegalArgumentException(
+                                "Feature '" + featureName + "' expected numeric elements for float32 vector, got: " + element.getClass().getName()
+                        );
+                    }
+                }
+            }
+            default -> throw new IllegalArgumentException(
+                    "Feature '" + featureName + "' expected float32 vector value, got: " + value.getClass().getName()
+            );
+        }
+    }
+
+    /**
+     * Writes the {@code length} elements of an int64 vector to {@code dst[offset]} to {@code dst[offset + length - 1]}.
+     * A missing vector leaves the range untouched, so {@code dst} must be zero-initialized there.
+     */
+    static void putInt64Vector(String featureName, Object value, long[] dst, int offset, int length) {
+        switch (value) {
+            case null -> {
+            }
+            case int[] arr -> {
+                validateVectorLength(featureName, "int64", length, arr.length);
+                for (int i = 0; i < length; i++) {
+                    dst[offset + i] = arr[i];
+                }
+            }
+            case long[] arr -> {
+                validateVectorLength(featureName, "int64", length, arr.length);
+                System.arraycopy(arr, 0, dst, offset, length);
+            }
+            case Integer[] arr -> {
+                validateVectorLength(featureName, "int64", length, arr.length);
+                for (int i = 0; i < length; i++) {
+                    dst[offset + i] = arr[i] != null ? arr[i].longValue() : DEFAULT_INT64;
+                }
+            }
+            case Long[] arr -> {
+                validateVectorLength(featureName, "int64", length, arr.length);
+                for (int i = 0; i < length; i++) {
+                    dst[offset + i] = arr[i] != null ? arr[i] : DEFAULT_INT64;
+                }
+            }
+            case List<?> list -> {
+                validateVectorLength(featureName, "int64", length, list.size());
+                for (int i = 0; i < length; i++) {
+                    Object element = list.get(i);
+                    if (element == null) {
+                        dst[offset + i] = DEFAULT_INT64;
+                    } else if (element instanceof Number number) {
+                        dst[offset + i] = number.longValue();
+                    } else {
+                        throw new IllegalArgumentException(
+                                "Feature '" + featureName + "' expected numeric elements for int64 vector, got: " + element.getClass().getName()
+                        );
+                    }
+                }
+            }
+            default -> throw new IllegalArgumentException(
+                    "Feature '" + featureName + "' expected int64 vector value, got: " + value.getClass().getName()
+            );
+        }
+    }
+
+    private static void validateVectorLength(String featureName, String expectedType, int expectedLength, int actualLength) {
+        if (actualLength != expectedLength) {
+            throw new IllegalArgumentException(
+                    "Feature '" + featureName + "' expected " + expectedType + " vector length " + expectedLength + ", got " + actualLength
+            );
+        }
+    }
+}
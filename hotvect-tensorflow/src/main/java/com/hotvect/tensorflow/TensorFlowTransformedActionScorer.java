@@ -0,0 +1,159 @@
+package com.hotvect.tensorflow;
+
+import com.hotvect.api.data.Namespace;
+import com.hotvect.api.data.common.NamespacedRecord;
+import com.hotvect.api.data.ranking.TransformedAction;
+import com.hotvect.api.data.scoring.ScoringDecision;
+import com.hotvect.core.transform.ranking.BroadcastTransformedActions;
+import org.tensorflow.Result;
+import org.tensorflow.SavedModelBundle;
+import org.tensorflow.SessionFunction;
+import org.tensorflow.Tensor;
+import org.tensorflow.ndarray.buffer.DataBuffers;
+import org.tensorflow.types.TFloat32;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.IntFunction;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Scores transformed actions with a SavedModel signature, one batched call per list of actions.
+ *
+ * <p>Every feature becomes one input tensor of the signature, keyed by the feature name, as the Python TensorFlow
+ * worker feeds them. The score of each action is read from the {@code output_0} output, or the only output if the
+ * signature has no {@code output_0}. Calls are thread-safe, so chunks of one request can be scored in parallel.</p>
+ */
+class TensorFlowTransformedActionScorer<ACTION> implements AutoCloseable {
+    static final String SIGNATURE_KEY = "serving_default";
+    static final String DEFAULT_OUTPUT_NAME = "output_0";
+
+    private final SavedModelBundle savedModelBundle;
+    private final SessionFunction function;
+    private final List<Namespace> features;
+    private final String outputName;
+
+    TensorFlowTransformedActionScorer(Collection<? extends Namespace> usedFeatures, SavedModelBundle savedModelBundle) {
+        this.savedModelBundle = savedModelBundle;
+        this.function = savedModelBundle.function(SIGNATURE_KEY);
+        // Sorted by name, the order in which the Python worker expects its columns
+        this.features = usedFeatures.stream()
+                .sorted(Comparator.comparing(Namespace::getName))
+                .map(Namespace.class::cast)
+                .toList();
+
+        Set<String> featureNames = new TreeSet<>();
+        for (Namespace feature : features) {
+            // Fails fast on features without a TensorFlow type
+            TensorFlowFeatureColumns.featureType(feature);
+            featureNames.add(feature.getName());
+        }
+        Set<String> inputNames = new TreeSet<>(function.signature().inputNames());
+        checkArgument(
+                featureNames.equals(inputNames),
+                "The inputs of signature %s must match the used features. Inputs: %s, features: %s",
+                SIGNATURE_KEY,
+                inputNames,
+                featureNames
+        );
+
+        Set<String> outputNames = function.signature().outputNames();
+        if (outputNames.contains(DEFAULT_OUTPUT_NAME)) {
+            this.outputName = DEFAULT_OUTPUT_NAME;
+        } else {
+            checkArgument(
+                    outputNames.size() == 1,
+                    "Signature %s must have an output named %s or exactly one output. Outputs: %s",
+                    SIGNATURE_KEY,
+                    DEFAULT_OUTPUT_NAME,
+                    outputNames
+            );
+            this.outputName = outputNames.iterator().next();
+        }
+    }
+
+    List<ScoringDecision<ACTION>> scoreTransformed(List<TransformedAction<ACTION>> transformed) {
+        return scoreRows(null, transformed);
+    }
+
+    /**
+     * Scores actions whose shared features are held once in {@link BroadcastTransformedActions#shared()}. Produces the
+     * same decisions as {@link #scoreTransformed(List)} on {@link BroadcastTransformedActions#toTransformedActions()}.
+     */
+    List<ScoringDecision<ACTION>> scoreBroadcast(BroadcastTransformedActions<ACTION> broadcast) {
+        return scoreRows(broadcast.shared(), broadcast.actions());
+    }
+
+    private List<ScoringDecision<ACTION>> scoreRows(
+            NamespacedRecord<Namespace, Object> shared,
+            List<TransformedAction<ACTION>> transformed
+    ) {
+        int rows = transformed.size();
+        if (rows == 0) {
+            return List.of();
+        }
+
+        float[] scores = new float[rows];
+        Map<String, Tensor> inputs = new HashMap<>();
+        try {
+            for (Namespace feature : features) {
+                inputs.put(feature.getName(), TensorFlowFeatureColumns.tensor(feature, rows, values(shared, transformed, feature)));
+            }
+            try (Result result = function.call(inputs)) {
+                Tensor output = result.get(outputName).orElseThrow(
+                        () -> new IllegalStateException("Signature " + SIGNATURE_KEY + " did not return " + outputName));
+                if (!(output instanceof TFloat32 floats)) {
+                    throw new IllegalStateException(
+                            "Output " + outputName + " must be float32, got " + output.dataType());
+                }
+                checkArgument(
+                        output.shape().size() == rows,
+                        "Output %s has shape %s, expected one score for each of %s actions",
+                        outputName,
+                        output.shape(),
+                        rows
+                );
+                floats.copyTo(DataBuffers.of(scores, false, false));
+            }
+        } finally {
+            inputs.values().forEach(Tensor::close);
+        }
+
+        List<ScoringDecision<ACTION>> ret = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            TransformedAction<ACTION> transformedAction = transformed.get(i);
+            ret.add(ScoringDecision.of(
+                    transformedAction.actionId(),
+                    transformedAction.action(),
+                    scores[i],
+                    transformedAction.additionalProperties()
+            ));
+        }
+        return ret;
+    }
+
+    private static <ACTION> IntFunction<Object> values(
+            NamespacedRecord<Namespace, Object> shared,
+            List<TransformedAction<ACTION>> transformed,
+            Namespace feature
+    ) {
+        // Shared values take precedence, as they do when broadcast rows are merged into the action records
+        Object sharedValue = shared == null ? null : shared.get(feature);
+        if (sharedValue != null) {
+            return _row -> sharedValue;
+        }
+        return row -> transformed.get(row).transformed().get(feature);
+    }
+
+    @Override
+    public void close() {
+        savedModelBundle.close();
+    }
+}
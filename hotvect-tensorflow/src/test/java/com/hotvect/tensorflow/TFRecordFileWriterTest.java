@@ -0,0 +1,115 @@
+package com.hotvect.tensorflow;
+
+import com.google.protobuf.ByteString;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.tensorflow.proto.BytesList;
+import org.tensorflow.proto.Example;
+import org.tensorflow.proto.Feature;
+import org.tensorflow.proto.Features;
+import org.tensorflow.proto.FloatList;
+import org.tensorflow.proto.Int64List;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TFRecordFileWriterTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void writesSameBytesAsCodec() throws IOException {
+        List<Example> examples = examples();
+        Path file = tempDir.resolve("examples.tfrecord");
+
+        try (TFRecordFileWriter writer = TFRecordFileWriter.create(file)) {
+            for (Example example : examples) {
+                writer.write(example);
+            }
+            assertEquals(examples.size(), writer.recordsWritten());
+        }
+
+        assertArrayEquals(encodeWithCodec(examples), Files.readAllBytes(file));
+    }
+
+    @Test
+    void writesByteBuffersWithoutConsumingThem() throws IOException {
+        List<Example> examples = examples();
+        Path file = tempDir.resolve("buffers.tfrecord");
+
+        try (TFRecordFileWriter writer = TFRecordFileWriter.create(file)) {
+            for (Example example : examples) {
+                ByteBuffer direct = ByteBuffer.allocateDirect(example.getSerializedSize() + 3);
+                direct.position(3);
+                direct.put(example.toByteArray()).position(3);
+                writer.write(direct);
+                assertEquals(3, direct.position());
+            }
+        }
+
+        assertArrayEquals(encodeWithCodec(examples), Files.readAllBytes(file));
+    }
+
+    @Test
+    void encodeMessagesMatchesByteBufferRecords() {
+        List<Example> examples = examples();
+        List<ByteBuffer> records = new ArrayList<>();
+        for (Example example : examples) {
+            records.add(ByteBuffer.wrap(example.toByteArray()));
+        }
+        TFRecordWriter writer = new TFRecordWriter();
+
+        ByteBuffer expected = writer.createTfRecordByteBuffer(records);
+        ByteBuffer actual = writer.encodeMessages(examples);
+
+        assertEquals(expected, actual);
+        assertEquals(0, writer.encodeMessages(List.of()).remaining());
+    }
+
+    private static byte[] encodeWithCodec(List<Example> examples) throws IOException {
+        TFRecordCodec codec = new TFRecordCodec();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        WritableByteChannel channel = Channels.newChannel(out);
+        for (Example example : examples) {
+            codec.write(channel, example.toByteArray());
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Examples from empty to larger than the writer's initial buffer, so the buffer has to grow.
+     */
+    private static List<Example> examples() {
+        Random random = new Random(7);
+        List<Example> ret = new ArrayList<>();
+        ret.add(Example.getDefaultInstance());
+        for (int size : new int[]{1, 10, 1_000, 100_000, 3}) {
+            FloatList.Builder floats = FloatList.newBuilder();
+            Int64List.Builder ints = Int64List.newBuilder();
+            for (int i = 0; i < size; i++) {
+                floats.addValue(random.nextFloat());
+                ints.addValue(random.nextLong());
+            }
+            ret.add(Example.newBuilder()
+                    .setFeatures(Features.newBuilder()
+                            .putFeature("Label", Feature.newBuilder().setInt64List(Int64List.newBuilder().addValue(size % 2)).build())
+                            .putFeature("floats", Feature.newBuilder().setFloatList(floats).build())
+                            .putFeature("ints", Feature.newBuilder().setInt64List(ints).build())
+                            .putFeature("id", Feature.newBuilder().setBytesList(BytesList.newBuilder()
+                                    .addValue(ByteString.copyFromUtf8("example-" + size))).build()))
+                    .build());
+        }
+        return ret;
+    }
+}
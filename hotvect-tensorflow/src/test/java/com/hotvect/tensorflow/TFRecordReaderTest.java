@@ -0,0 +1,128 @@
+package com.hotvect.tensorflow;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TFRecordReaderTest {
+    // Base64-encoded TFRecord containing "foo" and "bar" (from Apache Beam reference)
+    private static final String FOO_BAR_RECORD_BASE64 = "AwAAAAAAAACwmUkOZm9vYYq+/gMAAAAAAAAAsJlJDmJhckYA5cg=";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void readsReferenceRecords() throws IOException {
+        byte[] encoded = Base64.getDecoder().decode(FOO_BAR_RECORD_BASE64);
+        try (TFRecordReader reader = new TFRecordReader(Channels.newChannel(new ByteArrayInputStream(encoded)))) {
+            assertEquals("foo", new String(reader.nextBytes(), StandardCharsets.UTF_8));
+            assertEquals("bar", new String(reader.nextBytes(), StandardCharsets.UTF_8));
+            assertNull(reader.next());
+            assertEquals(2, reader.recordsRead());
+        }
+    }
+
+    @Test
+    void readsRecordsLargerThanItsBuffer() throws IOException {
+        List<byte[]> records = records();
+        Path file = write(records);
+
+        // A buffer smaller than most records, so records straddle reads and the buffer has to grow
+        try (TFRecordReader reader = new TFRecordReader(FileChannel.open(file, StandardOpenOption.READ), 64)) {
+            for (byte[] expected : records) {
+                ByteBuffer actual = reader.next();
+                assertTrue(actual.isReadOnly());
+                assertEquals(ByteBuffer.wrap(expected), actual);
+            }
+            assertNull(reader.next());
+        }
+        assertEquals(records.size(), TFRecordReader.verify(file));
+    }
+
+    @Test
+    void readsEmptyFile() throws IOException {
+        Path file = Files.createFile(tempDir.resolve("empty.tfrecord"));
+        assertEquals(0, TFRecordReader.verify(file));
+    }
+
+    @Test
+    void detectsCorruptData() throws IOException {
+        Path file = write(List.of("foo".getBytes(StandardCharsets.UTF_8), "bar".getBytes(StandardCharsets.UTF_8)));
+        byte[] bytes = Files.readAllBytes(file);
+        // Flip a bit of the data of the second record, which starts at offset 19
+        bytes[19 + TFRecordCodec.HEADER_LEN] ^= 1;
+        Files.write(file, bytes);
+
+        try (TFRecordReader reader = TFRecordReader.open(file)) {
+            assertArrayEquals("foo".getBytes(StandardCharsets.UTF_8), reader.nextBytes());
+            IOException e = assertThrows(IOException.class, reader::next);
+            assertTrue(e.getMessage().contains("data mask"), e.getMessage());
+            assertTrue(e.getMessage().contains("offset 19"), e.getMessage());
+        }
+    }
+
+    @Test
+    void detectsCorruptLength() throws IOException {
+        Path file = write(List.of("foo".getBytes(StandardCharsets.UTF_8)));
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[0] ^= 1;
+        Files.write(file, bytes);
+
+        IOException e = assertThrows(IOException.class, () -> TFRecordReader.verify(file));
+        assertTrue(e.getMessage().contains("length mask"), e.getMessage());
+    }
+
+    @Test
+    void detectsTruncatedFiles() throws IOException {
+        Path file = write(List.of(new byte[100], new byte[100]));
+        byte[] bytes = Files.readAllBytes(file);
+
+        for (int length : new int[]{bytes.length - 1, bytes.length - 100, 116 + 5}) {
+            Files.write(file, Arrays.copyOf(bytes, length));
+            IOException e = assertThrows(IOException.class, () -> TFRecordReader.verify(file));
+            assertTrue(e.getMessage().contains("Truncated"), e.getMessage());
+        }
+    }
+
+    private Path write(List<byte[]> records) throws IOException {
+        Path file = tempDir.resolve("records.tfrecord");
+        TFRecordCodec codec = new TFRecordCodec();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (byte[] record : records) {
+                codec.write(channel, record);
+            }
+        }
+        return file;
+    }
+
+    private static List<byte[]> records() {
+        Random random = new Random(3);
+        List<byte[]> ret = new ArrayList<>();
+        for (int size : new int[]{0, 1, 100, 1_000, 10, 100_000, 64 << 10, 5}) {
+            byte[] record = new byte[size];
+            random.nextBytes(record);
+            ret.add(record);
+        }
+        return ret;
+    }
+}
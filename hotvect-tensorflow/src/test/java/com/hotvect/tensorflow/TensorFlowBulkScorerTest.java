@@ -0,0 +1,276 @@
+package com.hotvect.tensorflow;
+
+import com.hotvect.api.data.AvailableAction;
+import com.hotvect.api.data.Namespace;
+import com.hotvect.api.data.common.NamespacedRecordImpl;
+import com.hotvect.api.data.ranking.RankingRequest;
+import com.hotvect.api.data.ranking.TransformedAction;
+import com.hotvect.api.data.scoring.ScoringDecision;
+import com.hotvect.core.transform.Computable;
+import com.hotvect.core.transform.Computing;
+import com.hotvect.core.transform.TransformationMetadata;
+import com.hotvect.core.transform.ranking.BroadcastTransformedActions;
+import com.hotvect.core.transform.ranking.ComputingCandidate;
+import com.hotvect.core.transform.ranking.ComputingRankingRequest;
+import com.hotvect.core.transform.ranking.ComputingRankingTransformer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.tensorflow.SavedModelBundle;
+import org.tensorflow.proto.ConfigProto;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Scores with {@code tiny_saved_model}, a variables-free SavedModel whose {@code serving_default} signature takes
+ * {@code dense} (float32[4]), {@code count} (int64) and {@code query} (string, unused) and returns
+ * {@code output_0 = dot(dense, [1, 2, 3, 4]) + 0.5 * count}.
+ */
+class TensorFlowBulkScorerTest {
+    private static final Namespace DENSE = namespace("dense", TensorFlowFeatureType.numericalSequence(4));
+    private static final Namespace COUNT = namespace("count", TensorFlowFeatureType.CATEGORICAL);
+    private static final Namespace QUERY = namespace("query", TensorFlowFeatureType.STRING);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void scoresTransformedActionsInOneBatch() throws Exception {
+        try (TensorFlowTransformedActionScorer<String> scorer = new TensorFlowTransformedActionScorer<>(features(), loadTinyModel())) {
+            List<TransformedAction<String>> actions = List.of(
+                    action("a0", new float[]{1, 2, 3, 4}, 2, "shoes"),
+                    action("a1", new double[]{0.5, 0, 0, 1}, 0L, "boots"),
+                    action("a2", List.of(0, 1, 0, 0), 3, 42)
+            );
+
+            List<ScoringDecision<String>> decisions = scorer.scoreTransformed(actions);
+
+            assertEquals(List.of("sku-a0", "sku-a1", "sku-a2"), decisions.stream().map(ScoringDecision::actionId).toList());
+            assertEquals(List.of("a0", "a1", "a2"), decisions.stream().map(ScoringDecision::action).toList());
+            assertArrayEquals(new double[]{31, 4.5, 3.5}, scores(decisions), 1e-6);
+            assertEquals(List.of(), scorer.scoreTransformed(List.of()));
+        }
+    }
+
+    @Test
+    void missingValuesUseDefaults() throws Exception {
+        try (TensorFlowTransformedActionScorer<String> scorer = new TensorFlowTransformedActionScorer<>(features(), loadTinyModel())) {
+            NamespacedRecordImpl<Namespace, Object> record = new NamespacedRecordImpl<>();
+            record.put(COUNT, 4);
+
+            List<ScoringDecision<String>> decisions = scorer.scoreTransformed(List.of(TransformedAction.of("sku-a0", "a0", record)));
+
+            assertArrayEquals(new double[]{2}, scores(decisions), 1e-6);
+        }
+    }
+
+    @Test
+    void broadcastSharedFeaturesScoreLikeMergedRecords() throws Exception {
+        try (TensorFlowTransformedActionScorer<String> scorer = new TensorFlowTransformedActionScorer<>(features(), loadTinyModel())) {
+            NamespacedRecordImpl<Namespace, Object> shared = new NamespacedRecordImpl<>();
+            shared.put(DENSE, new float[]{1, 1, 1, 1});
+            shared.put(QUERY, "shoes");
+            List<TransformedAction<String>> actions = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                NamespacedRecordImpl<Namespace, Object> record = new NamespacedRecordImpl<>();
+                record.put(COUNT, i);
+                actions.add(TransformedAction.of("sku-a" + i, "a" + i, record));
+            }
+            BroadcastTransformedActions<String> broadcast = new BroadcastTransformedActions<>(shared, actions);
+
+            List<ScoringDecision<String>> broadcastDecisions = scorer.scoreBroadcast(broadcast);
+            List<ScoringDecision<String>> mergedDecisions = scorer.scoreTransformed(broadcast.toTransformedActions());
+
+            assertEquals(
+                    mergedDecisions.stream().map(ScoringDecision::actionId).toList(),
+                    broadcastDecisions.stream().map(ScoringDecision::actionId).toList()
+            );
+            assertArrayEquals(new double[]{10, 10.5, 11}, scores(broadcastDecisions), 1e-6);
+            assertArrayEquals(scores(mergedDecisions), scores(broadcastDecisions), 0);
+        }
+    }
+
+    @Test
+    void rejectsFeaturesThatAreNotModelInputs() throws Exception {
+        try (SavedModelBundle model = loadTinyModel()) {
+            IllegalArgumentException error = assertThrows(
+                    IllegalArgumentException.class,
+                    () -> new TensorFlowTransformedActionScorer<String>(List.of(DENSE, COUNT), model)
+            );
+            assertEquals(
+                    "The inputs of signature serving_default must match the used features. Inputs: [count, dense, query], features: [count, dense]",
+                    error.getMessage()
+            );
+        }
+    }
+
+    @Test
+    void forkedScoringKeepsActionsAligned() throws Exception {
+        try (TensorFlowBulkScorer<String, String> scorer = new TensorFlowBulkScorer<>(new TestTransformer(), loadTinyModel(), 2)) {
+            List<AvailableAction<String>> actions = new ArrayList<>();
+            for (int i = 0; i < 7; i++) {
+                actions.add(AvailableAction.of("a" + i, "a" + i, Map.of("requestSource", "a" + i)));
+            }
+
+            List<ScoringDecision<String>> decisions = scorer.score(RankingRequest.ofAvailableActions("example", "shared", actions)).decisions();
+
+            assertEquals(List.of("a0", "a1", "a2", "a3", "a4", "a5", "a6"), decisions.stream().map(ScoringDecision::actionId).toList());
+            assertEquals(
+                    decisions.stream().map(ScoringDecision::actionId).toList(),
+                    decisions.stream().map(decision -> decision.additionalProperties().get("requestSource")).toList()
+            );
+            // a<i> has dense = [i, 0, 0, 0] and count = i
+            assertArrayEquals(new double[]{0, 1.5, 3, 4.5, 6, 7.5, 9}, scores(decisions), 1e-6);
+        }
+    }
+
+    @Test
+    void extractsOnlySavedModelParameters() throws IOException {
+        Map<String, InputStream> parameters = new HashMap<>();
+        parameters.put("model_parameter/saved_model/saved_model.pb", stream("model"));
+        parameters.put("model_parameter/saved_model/variables/variables.index", stream("index"));
+        parameters.put("model_parameter/other.parameter", stream("other"));
+
+        assertEquals(2, TensorFlowBulkScorerFactory.extractSavedModel(parameters, tempDir));
+
+        assertEquals("model", Files.readString(tempDir.resolve("saved_model.pb")));
+        assertEquals("index", Files.readString(tempDir.resolve("variables/variables.index")));
+        assertEquals(List.of("saved_model.pb", "variables"), Files.list(tempDir).map(p -> p.getFileName().toString()).sorted().toList());
+
+        IllegalArgumentException error = assertThrows(
+                IllegalArgumentException.class,
+                () -> TensorFlowBulkScorerFactory.extractSavedModel(
+                        Map.of("model_parameter/saved_model/../../escape", stream("x")), tempDir.resolve("model"))
+        );
+        assertTrue(error.getMessage().contains("outside of the model directory"), error.getMessage());
+    }
+
+    @Test
+    void failsWithoutSavedModelParameters() {
+        IllegalStateException error = assertThrows(
+                IllegalStateException.class,
+                () -> TensorFlowBulkScorerFactory.loadSavedModel(Map.of(), ConfigProto.getDefaultInstance())
+        );
+        assertTrue(error.getMessage().startsWith("Missing TensorFlow SavedModel parameters"), error.getMessage());
+    }
+
+    private static SavedModelBundle loadTinyModel() {
+        return TensorFlowBulkScorerFactory.loadSavedModel(
+                Map.of(
+                        TensorFlowBulkScorerFactory.SAVED_MODEL_PARAMETER_PREFIX + "saved_model.pb",
+                        TensorFlowBulkScorerTest.class.getResourceAsStream("tiny_saved_model/saved_model.pb")
+                ),
+                ConfigProto.newBuilder().setIntraOpParallelismThreads(1).setInterOpParallelismThreads(1).build()
+        );
+    }
+
+    private static SortedSet<Namespace> features() {
+        SortedSet<Namespace> ret = new TreeSet<>(Namespace.alphabetical());
+        ret.add(DENSE);
+        ret.add(COUNT);
+        ret.add(QUERY);
+        return ret;
+    }
+
+    private static TransformedAction<String> action(String action, Object dense, Object count, Object query) {
+        NamespacedRecordImpl<Namespace, Object> record = new NamespacedRecordImpl<>();
+        record.put(DENSE, dense);
+        record.put(COUNT, count);
+        record.put(QUERY, query);
+        return TransformedAction.of("sku-" + action, action, record);
+    }
+
+    private static double[] scores(List<ScoringDecision<String>> decisions) {
+        return decisions.stream().mapToDouble(ScoringDecision::score).toArray();
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Namespace namespace(String name, TensorFlowFeatureType featureType) {
+        return new Namespace() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public TensorFlowFeatureType getFeatureValueType() {
+                return featureType;
+            }
+
+            @Override
+            public String toString() {
+                return name;
+            }
+        };
+    }
+
+    private static class TestTransformer implements ComputingRankingTransformer<String, String> {
+        @Override
+        public SortedSet<Namespace> getUsedFeatures() {
+            return features();
+        }
+
+        @Override
+        public ComputingRankingRequest<String, String> prepare(String exampleId, String shared, List<Computable<String>> actions) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ComputingRankingRequest<String, String> prepare(RankingRequest<String, String> rankingRequest) {
+            Computing<RankingRequest<String, String>> computingShared = Computing.builder(rankingRequest).build();
+            List<ComputingCandidate<String, String>> candidates = rankingRequest.actions().stream()
+                    .map(action -> new ComputingCandidate<String, String>(
+                            action.actionId(),
+                            computingShared,
+                            Computing.builder(action.action()).build(),
+                            null,
+                            null,
+                            null,
+                            action.additionalProperties()
+                    ))
+                    .toList();
+            return new ComputingRankingRequest<>(rankingRequest, computingShared, candidates);
+        }
+
+        @Override
+        public ComputingRankingRequest<String, String> prepare(ComputingRankingRequest<String, String> computingRankingRequest) {
+            return computingRankingRequest;
+        }
+
+        @Override
+        public List<TransformedAction<String>> transform(ComputingRankingRequest<String, String> rankingRequest) {
+            return rankingRequest.candidates().stream().map(candidate -> {
+                String action = candidate.getOriginalInput().second();
+                int index = Integer.parseInt(action.substring(1));
+                NamespacedRecordImpl<Namespace, Object> record = new NamespacedRecordImpl<>();
+                record.put(DENSE, new float[]{index, 0, 0, 0});
+                record.put(COUNT, index);
+                record.put(QUERY, action);
+                return TransformedAction.of(candidate.actionId(), action, record, candidate.additionalProperties());
+            }).toList();
+        }
+
+        @Override
+        public List<TransformationMetadata> getTransformationMetadata() {
+            return List.of();
+        }
+    }
+}
@@ -1,5 +1,7 @@
 from __future__ import annotations
 
+import array
+import mmap
 import os
 import socket
 import struct
@@ -15,10 +17,16 @@ OP_GET_WORK = 5
 OP_SHUTDOWN = 6
 OP_REQUEST_ERROR = 7
 OP_WORKER_ERROR = 8
+# WORK and RESULT whose payload is in the shared memory file; only used once negotiated at STARTUP
+OP_WORK_SHM = 9
+OP_RESULT_SHM = 10
 
 STARTUP_READY = 0
 STARTUP_CANNOT_START = 1
 
+# Bits of the optional capabilities byte that trails STARTUP
+CAPABILITY_SHARED_MEMORY = 1
+
 
 def read_exact(sock: socket.socket, n: int) -> bytes:
     buf = bytearray()
@@ -73,12 +81,15 @@ def _encode_utf8_u16(s: str) -> bytes:
     return struct.pack(">H", len(b)) + b
 
 
-def encode_startup(status: int, message: str) -> bytes:
+def encode_startup(status: int, message: str, capabilities: int = 0) -> bytes:
     out = bytearray()
     out.append(OP_STARTUP)
     out.extend(struct.pack(">q", os.getpid()))
     out.append(int(status) & 0xFF)
     out.extend(_encode_utf8_u16(message or ""))
+    if capabilities:
+        # Older Java peers ignore trailing bytes, and treat a missing byte as no capabilities
+        out.append(int(capabilities) & 0xFF)
     return bytes(out)
 
 
@@ -105,13 +116,25 @@ def encode_worker_error(message: str) -> bytes:
     return bytes(out)
 
 
-def encode_result(request_id: str, output: list[float], debug_json: str | None) -> bytes:
+def _float32_bytes(output, byte_order: str) -> bytes:
+    """Packs floats as float32 in one pass; byte_order is ">" for socket frames and "<" for shared memory."""
+    if hasattr(output, "astype"):
+        # numpy arrays, without importing numpy here
+        return output.astype(f"{byte_order}f4", copy=False).tobytes()
+    values = array.array("f", output)
+    if (sys.byteorder == "little") != (byte_order == "<"):
+        values.byteswap()
+    return values.tobytes()
+
+
+def encode_result(request_id: str, output, debug_json: str | None) -> bytes:
+    """Encodes RESULT; output is a sequence of floats or a numpy array."""
+    data = _float32_bytes(output, ">")
     out = bytearray()
     out.append(OP_RESULT)
     out.extend(_encode_utf8_u16(request_id))
-    out.extend(struct.pack(">i", int(len(output))))
-    for v in output:
-        out.extend(struct.pack(">f", float(v)))
+    out.extend(struct.pack(">i", len(data) // 4))
+    out.extend(data)
 
     # Always include debug_len for compatibility with the Java decoder (it accepts either).
     if not debug_json:
@@ -177,6 +200,94 @@ def decode_work(payload: bytes) -> DecodedWork:
     )
 
 
+class SharedMemoryTransport:
+    """Memory-mapped file that Java offers in STARTUP_ACK to a worker that advertised CAPABILITY_SHARED_MEMORY.
+
+    The file holds a WORK region at offset 0 followed by a RESULT region. A worker has one request in flight, so
+    each region holds a single message; the control frames on the socket carry absolute offsets into the file.
+    Result floats are written little-endian.
+    """
+
+    def __init__(self, path: str, work_region_bytes: int, result_region_bytes: int) -> None:
+        self.path = path
+        self.work_region_bytes = work_region_bytes
+        self.result_region_bytes = result_region_bytes
+        fd = os.open(path, os.O_RDWR)
+        try:
+            self._mm = mmap.mmap(fd, work_region_bytes + result_region_bytes)
+        finally:
+            os.close(fd)
+        self._view = memoryview(self._mm)
+
+    @classmethod
+    def from_startup_ack(cls, ack: bytes) -> SharedMemoryTransport | None:
+        """Maps the file offered by STARTUP_ACK, or returns None if the ACK offers none."""
+        if len(ack) <= 1:
+            return None
+        buf = memoryview(ack)
+        path, offset = _read_utf8_u16(buf, 1)
+        work_region_bytes, offset = _read_i32(buf, offset)
+        result_region_bytes, offset = _read_i32(buf, offset)
+        if work_region_bytes < 0 or result_region_bytes < 0:
+            raise ValueError(f"Invalid shared memory regions: work={work_region_bytes} result={result_region_bytes}")
+        return cls(path, work_region_bytes, result_region_bytes)
+
+    def decode_work(self, payload: bytes) -> DecodedWork:
+        """Decodes the WORK frame that a WORK_SHM control frame points to."""
+        if len(payload) != 1 + 4 + 4 or payload[0] != OP_WORK_SHM:
+            raise ValueError(f"Invalid WORK_SHM frame: {payload[:16]!r}")
+        offset, length = struct.unpack_from(">ii", payload, 1)
+        if offset < 0 or length < 0 or offset + length > self.work_region_bytes:
+            raise ValueError(
+                f"WORK_SHM out of bounds: offset={offset} length={length} (work region={self.work_region_bytes})"
+            )
+        return decode_work(self._view[offset : offset + length])
+
+    def encode_result(self, request_id: str, output, debug_json: str | None) -> bytes | None:
+        """Writes the output floats to the RESULT region and returns the RESULT_SHM control frame.
+
+        Returns None if the output does not fit, in which case the caller sends a regular RESULT.
+        """
+        data = _float32_bytes(output, "<")
+        if len(data) > self.result_region_bytes:
+            return None
+        offset = self.work_region_bytes
+        self._view[offset : offset + len(data)] = data
+
+        out = bytearray()
+        out.append(OP_RESULT_SHM)
+        out.extend(_encode_utf8_u16(request_id))
+        out.extend(struct.pack(">ii", offset, len(data) // 4))
+        dbg = debug_json.encode("utf-8") if debug_json else b""
+        out.extend(struct.pack(">i", len(dbg)))
+        out.extend(dbg)
+        return bytes(out)
+
+    def close(self) -> None:
+        self._view.release()
+        self._mm.close()
+
+
+def decode_work_frame(payload: bytes, shared_memory: SharedMemoryTransport | None) -> DecodedWork:
+    """Decodes a WORK frame, or a WORK_SHM frame whose WORK frame is in the shared memory file."""
+    if len(payload) >= 1 and payload[0] == OP_WORK_SHM:
+        if shared_memory is None:
+            raise ValueError("Received WORK_SHM without negotiated shared memory")
+        return shared_memory.decode_work(payload)
+    return decode_work(payload)
+
+
+def encode_result_frame(
+    request_id: str, output, debug_json: str | None, shared_memory: SharedMemoryTransport | None
+) -> bytes:
+    """Encodes the result as RESULT_SHM if shared memory was negotiated and the output fits, else as RESULT."""
+    if shared_memory is not None:
+        frame = shared_memory.encode_result(request_id, output, debug_json)
+        if frame is not None:
+            return frame
+    return encode_result(request_id, output, debug_json)
+
+
 def send_startup_status(connect_uds_path: str, max_frame_bytes: int, status: int, message: str) -> None:
     """Best-effort: connect and send STARTUP(status, message). For READY, also validate STARTUP_ACK."""
     try:
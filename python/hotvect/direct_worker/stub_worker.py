@@ -0,0 +1,92 @@
+"""Direct worker without a model, for measuring the overhead of the UDS protocol.
+
+Answers every WORK with a fixed array of ``--output-floats`` floats. It needs only the standard library, so the
+transport can be benchmarked without TensorFlow or torch installed.
+"""
+
+from __future__ import annotations
+
+import argparse
+import array
+import signal
+import socket
+import traceback
+
+from hotvect.direct_worker.ipc import (
+    CAPABILITY_SHARED_MEMORY,
+    OP_GET_WORK,
+    OP_SHUTDOWN,
+    OP_STARTUP_ACK,
+    STARTUP_READY,
+    SharedMemoryTransport,
+    decode_work_frame,
+    encode_request_error,
+    encode_result_frame,
+    encode_startup,
+    read_frame,
+    write_frame,
+)
+
+
+def main() -> None:
+    parser = argparse.ArgumentParser()
+    parser.add_argument("--connect-uds-path", required=True)
+    parser.add_argument("--max-frame-bytes", type=int, default=16 * 1024 * 1024)
+    parser.add_argument("--worker-index", type=int, default=0)
+    parser.add_argument("--output-floats", type=int, default=1)
+    args = parser.parse_args()
+
+    stop = False
+
+    def _on_sigterm(signum, frame):
+        nonlocal stop
+        stop = True
+
+    signal.signal(signal.SIGTERM, _on_sigterm)
+
+    output = array.array("f", (float(i) for i in range(args.output_floats)))
+
+    sock = socket.socket(socket.AF_UNIX, socket.SOCK_STREAM)
+    sock.connect(args.connect_uds_path)
+
+    write_frame(sock, encode_startup(STARTUP_READY, "", CAPABILITY_SHARED_MEMORY), args.max_frame_bytes)
+
+    ack = read_frame(sock, args.max_frame_bytes)
+    if len(ack) < 1 or ack[0] != OP_STARTUP_ACK:
+        raise RuntimeError(f"Invalid STARTUP_ACK: {ack[:16]!r}")
+    shared_memory = SharedMemoryTransport.from_startup_ack(ack)
+
+    try:
+        while not stop:
+            write_frame(sock, bytes([OP_GET_WORK]), args.max_frame_bytes)
+
+            payload = read_frame(sock, args.max_frame_bytes)
+            if not payload:
+                raise EOFError("empty payload")
+            if payload[0] == OP_SHUTDOWN:
+                break
+
+            work = decode_work_frame(payload, shared_memory)
+            try:
+                write_frame(
+                    sock,
+                    encode_result_frame(work.request_id, output, None, shared_memory),
+                    args.max_frame_bytes,
+                )
+            except Exception as e:
+                write_frame(sock, encode_request_error(work.request_id, str(e)), args.max_frame_bytes)
+    finally:
+        try:
+            sock.close()
+        except Exception:
+            pass
+        if shared_memory is not None:
+            shared_memory.close()
+
+
+if __name__ == "__main__":
+    try:
+        main()
+    except Exception:
+        traceback.print_exc()
+        raise
@@ -13,14 +13,16 @@ from collections.abc import Iterable
 import numpy as np
 
 from hotvect.direct_worker.ipc import (
+    CAPABILITY_SHARED_MEMORY,
     OP_GET_WORK,
     OP_SHUTDOWN,
     OP_STARTUP_ACK,
     STARTUP_CANNOT_START,
     STARTUP_READY,
-    decode_work,
+    SharedMemoryTransport,
+    decode_work_frame,
     encode_request_error,
-    encode_result,
+    encode_result_frame,
     encode_startup,
     encode_worker_error,
     read_frame,
@@ -204,11 +206,14 @@ def main() -> None:
     sock = socket.socket(socket.AF_UNIX, socket.SOCK_STREAM)
     sock.connect(args.connect_uds_path)
 
-    write_frame(sock, encode_startup(STARTUP_READY, ""), args.max_frame_bytes)
+    write_frame(sock, encode_startup(STARTUP_READY, "", CAPABILITY_SHARED_MEMORY), args.max_frame_bytes)
 
     ack = read_frame(sock, args.max_frame_bytes)
     if len(ack) < 1 or ack[0] != OP_STARTUP_ACK:
         raise RuntimeError(f"Invalid STARTUP_ACK: {ack[:16]!r}")
+    shared_memory = SharedMemoryTransport.from_startup_ack(ack)
+    if shared_memory is not None:
+        print(f"Direct worker using shared memory {shared_memory.path} (worker_index={args.worker_index})")
 
     cache = _LruCache(args.cache_size)
 
@@ -225,7 +230,7 @@ def main() -> None:
                 print(f"Direct worker received SHUTDOWN (worker_index={args.worker_index})")
                 break
 
-            work = decode_work(payload)
+            work = decode_work_frame(payload, shared_memory)
             request_id = work.request_id
 
             try:
@@ -278,7 +283,7 @@ def main() -> None:
                     )
                 write_frame(
                     sock,
-                    encode_result(request_id, embeddings[0].tolist(), None),
+                    encode_result_frame(request_id, embeddings[0], None, shared_memory),
                     args.max_frame_bytes,
                 )
             except Exception as e:
@@ -298,6 +303,8 @@ def main() -> None:
             sock.close()
         except Exception:
             pass
+        if shared_memory is not None:
+            shared_memory.close()
 
 
 if __name__ == "__main__":
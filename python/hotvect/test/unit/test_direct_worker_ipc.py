@@ -1,9 +1,26 @@
+import array
 import socket
 import struct
+from pathlib import Path
 
 import pytest
 
-from hotvect.direct_worker.ipc import OP_WORK, decode_work, read_frame, write_frame
+from hotvect.direct_worker.ipc import (
+    CAPABILITY_SHARED_MEMORY,
+    OP_RESULT,
+    OP_RESULT_SHM,
+    OP_STARTUP_ACK,
+    OP_WORK,
+    OP_WORK_SHM,
+    SharedMemoryTransport,
+    decode_work,
+    decode_work_frame,
+    encode_result,
+    encode_result_frame,
+    encode_startup,
+    read_frame,
+    write_frame,
+)
 
 
 def _u16(s: str) -> bytes:
@@ -73,3 +90,78 @@ def test_write_frame_without_max_frame_bytes_remains_backward_compatible() -> No
     finally:
         left.close()
         right.close()
+
+
+def _work_frame(request_id: str, payloads: list[bytes]) -> bytes:
+    payload = bytearray()
+    payload.append(OP_WORK)
+    payload += _u16(request_id)
+    payload += struct.pack(">i", len(payloads))  # batch_size
+    payload += struct.pack(">i", len(payloads))  # payload_count
+    for p in payloads:
+        payload += struct.pack(">i", len(p)) + p
+    return bytes(payload)
+
+
+def _shared_memory(tmp_path: Path, work_region_bytes: int = 64, result_region_bytes: int = 64) -> SharedMemoryTransport:
+    path = tmp_path / "worker.shm"
+    path.write_bytes(bytes(work_region_bytes + result_region_bytes))
+    ack = bytes([OP_STARTUP_ACK]) + _u16(str(path)) + struct.pack(">ii", work_region_bytes, result_region_bytes)
+    transport = SharedMemoryTransport.from_startup_ack(ack)
+    assert transport is not None
+    return transport
+
+
+def test_encode_result_writes_big_endian_floats() -> None:
+    frame = encode_result("req#3", array.array("f", [1.5, -2.0, 3.25]), None)
+    expected = bytes([OP_RESULT]) + _u16("req#3") + struct.pack(">i3f", 3, 1.5, -2.0, 3.25)
+    assert frame[: len(expected)] == expected
+    assert encode_result("req#3", [1.5, -2.0, 3.25], None) == frame
+
+
+def test_encode_startup_appends_capabilities_only_when_set() -> None:
+    legacy = encode_startup(0, "")
+    capable = encode_startup(0, "", CAPABILITY_SHARED_MEMORY)
+    assert capable == legacy + bytes([CAPABILITY_SHARED_MEMORY])
+
+
+def test_plain_startup_ack_keeps_socket_transport() -> None:
+    assert SharedMemoryTransport.from_startup_ack(bytes([OP_STARTUP_ACK])) is None
+    assert decode_work_frame(_work_frame("req#3", [b"abc"]), None).payloads == [b"abc"]
+    with pytest.raises(ValueError, match="without negotiated shared memory"):
+        decode_work_frame(bytes([OP_WORK_SHM]) + struct.pack(">ii", 0, 1), None)
+
+
+def test_shared_memory_work_and_result_round_trip(tmp_path: Path) -> None:
+    transport = _shared_memory(tmp_path)
+    try:
+        work = _work_frame("req#4", [b"abc", b"zz"])
+        with open(transport.path, "r+b") as f:
+            f.write(work)
+
+        decoded = decode_work_frame(bytes([OP_WORK_SHM]) + struct.pack(">ii", 0, len(work)), transport)
+        assert decoded.request_id == "req#4"
+        assert decoded.payloads == [b"abc", b"zz"]
+
+        frame = encode_result_frame("req#4", [1.5, -2.0], '{"k":1}', transport)
+        assert frame[0] == OP_RESULT_SHM
+        offset, float_count, debug_len = struct.unpack_from(">iii", frame, 1 + 2 + len("req#4"))
+        assert (offset, float_count) == (64, 2)
+        assert frame[-debug_len:] == b'{"k":1}'
+        with open(transport.path, "rb") as f:
+            f.seek(offset)
+            assert struct.unpack("<2f", f.read(8)) == (1.5, -2.0)
+
+        with pytest.raises(ValueError, match="WORK_SHM out of bounds"):
+            transport.decode_work(bytes([OP_WORK_SHM]) + struct.pack(">ii", 60, 8))
+    finally:
+        transport.close()
+
+
+def test_shared_memory_result_falls_back_to_socket_when_too_large(tmp_path: Path) -> None:
+    transport = _shared_memory(tmp_path, result_region_bytes=8)
+    try:
+        frame = encode_result_frame("req#5", [1.0, 2.0, 3.0], None, transport)
+        assert frame[0] == OP_RESULT
+    finally:
+        transport.close()